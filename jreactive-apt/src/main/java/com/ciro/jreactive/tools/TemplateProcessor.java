@@ -313,6 +313,7 @@ public final class TemplateProcessor extends AbstractProcessor {
                 // 🔥 LLAMAMOS A LOS DOS NUEVOS MOTORES AOT
                 generateAstMethod(w, rawHtml);
                 generateCssMethod(w, clazz, rawCss);
+                generateRenderStaticMethod(w, clazz, className, rawHtml);
 
                 w.write("}\n");
             }
@@ -367,7 +368,7 @@ public final class TemplateProcessor extends AbstractProcessor {
         w.write("        } catch (NullPointerException e) { return null; } \n");
         // Pero si es CUALQUIER otro error (ClassCast, IndexOutOfBounds, etc), hacemos ruido en el log.
         w.write("        catch (Exception e) { \n");
-        w.write("            System.err.println(\"⚠️ [JReactive] Error leyendo la propiedad '\" + p + \"' en \" + t.getClass().getSimpleName() + \": \" + e.getMessage());\n");
+        w.write("            System.getLogger(t.getClass().getName()).log(System.Logger.Level.WARNING, \"⚠️ [JReactive] Error leyendo la propiedad '\" + p + \"' en \" + t.getClass().getSimpleName() + \": \" + e.getMessage());\n");
         w.write("        }\n");
         w.write("        return null;\n    }\n");
         
@@ -829,6 +830,214 @@ public final class TemplateProcessor extends AbstractProcessor {
         }
     }
 
+    // =========================================================================
+    // ⚡ SSR COMPILADO: el template se convierte en appends directos (el AST queda de fallback)
+    // =========================================================================
+
+    private static final Pattern MUSTACHE = Pattern.compile("\\{\\{\\s*([\\w#.-]+)\\s*}}");
+
+    private void generateRenderStaticMethod(Writer w, TypeElement clazz, String className, String html) throws IOException {
+        if (html == null || html.isBlank()) return;
+
+        List<com.ciro.jreactive.ast.JrxNode> nodes;
+        try {
+            nodes = com.ciro.jreactive.ast.JrxParser.parse(html);
+        } catch (Exception e) {
+            return; // Sin AST no hay plan: el intérprete se encarga
+        }
+        for (com.ciro.jreactive.ast.JrxNode n : nodes) {
+            if (!isStaticallyRenderable(n, true)) return; // default del interfaz => intérprete
+        }
+
+        // Lecturas directas de campo para las claves raíz (sin pasar por el switch de read())
+        Map<String, String> directReads = new HashMap<>();
+        for (Element e : getAllMembers(clazz)) {
+            if (isValidField(e)) {
+                directReads.put(getBindKey(e), "unwrap(t." + e.getSimpleName() + ")");
+            }
+        }
+
+        StaticPlan plan = new StaticPlan(directReads);
+        for (com.ciro.jreactive.ast.JrxNode n : nodes) {
+            plan.node(n, true);
+        }
+        plan.flush();
+
+        for (String decl : plan.constants) {
+            w.write("    " + decl + "\n");
+        }
+        w.write("    private static final String[] RS_KEYS = " + stringArray(plan.allKeys) + ";\n\n");
+
+        w.write("    @Override\n");
+        w.write("    public boolean renderStatic(" + className + " t, String ns, StringBuilder out) {\n");
+        w.write("        if (com.ciro.jreactive.spi.StaticRenderSupport.clashesWithNamespace(RS_KEYS, ns)) return false;\n");
+        w.write("        String scope = t._getScopeId();\n");
+        w.write(plan.body.toString());
+        w.write("        return true;\n");
+        w.write("    }\n\n");
+    }
+
+    // Subconjunto que el intérprete renderiza sin estado de sesión: HTML plano + {{...}}
+    private boolean isStaticallyRenderable(com.ciro.jreactive.ast.JrxNode n, boolean root) {
+        if (n instanceof com.ciro.jreactive.ast.TextNode txt) {
+            return keysOf(txt.text).stream().noneMatch(this::isLiteralKey);
+        }
+        if (n instanceof com.ciro.jreactive.ast.ComponentNode) return false;
+        if (!(n instanceof com.ciro.jreactive.ast.ElementNode el)) return false; // if/each => blueprint
+
+        if ("slot".equalsIgnoreCase(el.tagName) || "template".equalsIgnoreCase(el.tagName)) return false;
+
+        for (Map.Entry<String, String> a : el.attributes.entrySet()) {
+            String k = a.getKey();
+            String v = a.getValue() == null ? "" : a.getValue();
+            if (k.startsWith(":") || k.startsWith("@")) return false;
+            if ("data-call".equals(k) || "data-if".equals(k) || "data-else".equals(k) || "data-each".equals(k)) return false;
+            if (root && "class".equals(k) && v.contains("{{")) return false;
+            if (keysOf(v).stream().anyMatch(this::isLiteralKey)) return false;
+        }
+        for (com.ciro.jreactive.ast.JrxNode c : el.children) {
+            if (!isStaticallyRenderable(c, false)) return false;
+        }
+        return true;
+    }
+
+    private List<String> keysOf(String s) {
+        List<String> keys = new ArrayList<>();
+        if (s == null) return keys;
+        Matcher m = MUSTACHE.matcher(s);
+        while (m.find()) keys.add(m.group(1));
+        return keys;
+    }
+
+    private boolean isLiteralKey(String k) {
+        return k.equals("true") || k.equals("false") || k.matches("-?\\d+(\\.\\d+)?");
+    }
+
+    private String stringArray(List<String> values) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('"').append(escapeJavaString(values.get(i))).append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    // "user.name" -> "user": lo que se busca en los bindings para decidir el namespacing
+    private static String rootOf(String key) {
+        int dot = key.indexOf('.');
+        return dot < 0 ? key : key.substring(0, dot);
+    }
+
+    private static String escapeAttrStatic(String s) {
+        return s.replace("&", "&amp;")
+                .replace("\"", "&quot;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;");
+    }
+
+    /** Acumula literales contiguos en un solo append y emite las partes dinámicas. */
+    private final class StaticPlan {
+        final Map<String, String> directReads;
+        final List<String> constants = new ArrayList<>();
+        final List<String> allKeys = new ArrayList<>();
+        final StringBuilder body = new StringBuilder();
+        final StringBuilder pending = new StringBuilder();
+        int seq = 0;
+
+        StaticPlan(Map<String, String> directReads) { this.directReads = directReads; }
+
+        void literal(String s) { pending.append(s); }
+
+        void flush() {
+            if (pending.length() == 0) return;
+            body.append("        out.append(\"").append(escapeJavaString(pending.toString())).append("\");\n");
+            pending.setLength(0);
+        }
+
+        void node(com.ciro.jreactive.ast.JrxNode n, boolean root) {
+            if (n instanceof com.ciro.jreactive.ast.TextNode txt) {
+                String text = txt.text;
+                if (text == null || text.isEmpty()) return;
+                if (!text.contains("{{")) { literal(text); return; }
+                if (keysOf(text).isEmpty()) { literal(text); return; }
+                flush();
+                body.append("        com.ciro.jreactive.spi.StaticRenderSupport.appendText(out, t, ns, ")
+                    .append(segments(text)).append(");\n");
+                return;
+            }
+
+            com.ciro.jreactive.ast.ElementNode el = (com.ciro.jreactive.ast.ElementNode) n;
+            literal("<" + el.tagName);
+            boolean classSeen = false;
+            for (Map.Entry<String, String> a : el.attributes.entrySet()) {
+                String k = a.getKey();
+                String v = a.getValue() == null ? "" : a.getValue();
+
+                if (root && "class".equals(k)) {
+                    classSeen = true;
+                    flush();
+                    body.append("        com.ciro.jreactive.spi.StaticRenderSupport.appendScopedClass(out, \"")
+                        .append(escapeJavaString(v)).append("\", scope);\n");
+                } else if (v.contains("{{") && !keysOf(v).isEmpty()) {
+                    flush();
+                    body.append("        com.ciro.jreactive.spi.StaticRenderSupport.appendAttr(out, t, ns, \"")
+                        .append(escapeJavaString(k)).append("\", ").append(segments(v)).append(");\n");
+                } else if ("name".equals(k) && !v.contains("{{")) {
+                    flush();
+                    body.append("        com.ciro.jreactive.spi.StaticRenderSupport.appendNameAttr(out, t, ns, \"")
+                        .append(escapeJavaString(v)).append("\", \"").append(escapeJavaString(rootOf(v))).append("\");\n");
+                } else {
+                    literal(" " + k);
+                    if (!v.isEmpty()) literal("=\"" + escapeAttrStatic(v) + "\"");
+                }
+            }
+            // El intérprete añade la clase de scope al final si el elemento raíz no tenía class
+            if (root && !classSeen) {
+                flush();
+                body.append("        if (scope != null && !scope.isBlank()) com.ciro.jreactive.spi.StaticRenderSupport.appendScopedClass(out, \"\", scope);\n");
+            }
+
+            if (el.isSelfClosing) { literal("/>"); return; }
+            literal(">");
+            for (com.ciro.jreactive.ast.JrxNode c : el.children) node(c, false);
+            literal("</" + el.tagName + ">");
+        }
+
+        // chunks/tokens/keys como constantes + valores leídos en línea
+        private String segments(String s) {
+            List<String> chunks = new ArrayList<>();
+            List<String> tokens = new ArrayList<>();
+            List<String> keys = new ArrayList<>();
+            Matcher m = MUSTACHE.matcher(s);
+            int last = 0;
+            while (m.find()) {
+                chunks.add(s.substring(last, m.start()));
+                tokens.add(m.group(0));
+                keys.add(m.group(1));
+                last = m.end();
+            }
+            chunks.add(s.substring(last));
+            allKeys.addAll(keys);
+
+            int id = seq++;
+            constants.add("private static final String[] RS_C" + id + " = " + stringArray(chunks) + ";");
+            constants.add("private static final String[] RS_T" + id + " = " + stringArray(tokens) + ";");
+            constants.add("private static final String[] RS_K" + id + " = " + stringArray(keys) + ";");
+            // ⚡ Raíz de cada clave partida aquí: el render no hace un split por token
+            constants.add("private static final String[] RS_R" + id + " = " + stringArray(keys.stream().map(TemplateProcessor::rootOf).toList()) + ";");
+
+            StringBuilder call = new StringBuilder("RS_C" + id + ", RS_T" + id + ", RS_K" + id + ", RS_R" + id);
+            for (String key : keys) {
+                String local = key.startsWith("this.") ? key.substring(5) : key;
+                String direct = directReads.get(local);
+                call.append(", ").append(direct != null
+                        ? direct
+                        : "com.ciro.jreactive.spi.StaticRenderSupport.resolve(this, t, \"" + escapeJavaString(local) + "\")");
+            }
+            return call.toString();
+        }
+    }
+
     private void generateCssMethod(Writer w, TypeElement clazz, String rawCss) throws IOException {
         w.write("    @Override\n");
         w.write("    public String getScopedCss() {\n");
@@ -347,4 +347,58 @@ class TemplateProcessorTest {
         // reconocer que 'item', 'miTabla' y 'miRef' son variables válidas inyectadas por el HTML
         assertThat(compilation.status()).isEqualTo(com.google.testing.compile.Compilation.Status.SUCCESS);
     }
+
+    @Test
+    @DisplayName("Debe generar renderStatic (SSR compilado) solo para templates planos y dejar el resto al intérprete")
+    void testRenderStaticGeneration() throws Exception {
+        var plainSource = JavaFileObjects.forSourceString(
+            "com.test.Tarjeta",
+            """
+            package com.test;
+            import com.ciro.jreactive.HtmlComponent;
+            import com.ciro.jreactive.State;
+
+            public class Tarjeta extends HtmlComponent {
+                @State public String titulo = "Hola";
+                @Override protected String template() { 
+                    return "<div class=\\"card\\"><h1>{{titulo}}</h1><input name=\\"titulo\\"/></div>"; 
+                }
+            }
+            """
+        );
+        var dynamicSource = JavaFileObjects.forSourceString(
+            "com.test.Lista",
+            """
+            package com.test;
+            import com.ciro.jreactive.HtmlComponent;
+            import com.ciro.jreactive.State;
+
+            public class Lista extends HtmlComponent {
+                @State public java.util.List<String> items;
+                @Override protected String template() { 
+                    return "<ul>{{#each items as item}}<li>{{item}}</li>{{/each}}</ul>"; 
+                }
+            }
+            """
+        );
+
+        Compilation compilation = javac()
+            .withProcessors(new TemplateProcessor())
+            .compile(plainSource, dynamicSource);
+
+        assertThat(compilation.status()).isEqualTo(Compilation.Status.SUCCESS);
+
+        // 1. Template plano: appends directos + lectura directa del campo (sin switch ni regex)
+        String plain = compilation.generatedSourceFile("com.test.Tarjeta__Accessor").get().getCharContent(false).toString();
+        assertThat(plain).contains("public boolean renderStatic(Tarjeta t, String ns, StringBuilder out)");
+        assertThat(plain).contains("appendScopedClass(out, \"card\", scope);");
+        assertThat(plain).contains("appendText(out, t, ns, RS_C0, RS_T0, RS_K0, RS_R0, unwrap(t.titulo));");
+        // La raíz de cada clave ya viene partida en compilación
+        assertThat(plain).contains("RS_R0 = {\"titulo\"};");
+        assertThat(plain).contains("appendNameAttr(out, t, ns, \"titulo\", \"titulo\");");
+
+        // 2. Con {{#each}} no hay plan compilado: se usa el default del interfaz (intérprete AST)
+        String dynamic = compilation.generatedSourceFile("com.test.Lista__Accessor").get().getCharContent(false).toString();
+        assertThat(dynamic).doesNotContain("renderStatic");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.ciro.jreactive.bench;
+
+import com.ciro.jreactive.AstComponentEngine;
+import com.ciro.jreactive.CallGuard;
+import com.ciro.jreactive.JrxHttpApi;
+import com.ciro.jreactive.JrxStateToken;
+import com.ciro.jreactive.PageResolver;
+import com.ciro.jreactive.bench.pages.CounterPage;
+import com.ciro.jreactive.bench.pages.StatelessCounterPage;
+import com.ciro.jreactive.router.RouteProvider;
+import com.ciro.jreactive.store.CaffeineStateStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code JrxHttpApi.call} de punta a punta: resolver página, localizar el @Call,
+ * convertir args, rate-limit, Bean Validation, ejecutar y serializar la respuesta.
+ * <p>
+ * En modo "stateless" cada llamada decodifica el token, re-hidrata una página nueva,
+ * calcula el delta y firma un token nuevo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class CallBenchmark {
+
+    /**
+     * CallGuard limita a 60 llamadas/s por sesión+método: rotamos sesiones para no
+     * medir respuestas RATE_LIMIT. Debe caber en el CaffeineStateStore (10k entradas).
+     */
+    private static final int SESSIONS = 8192;
+    private static final String PATH = "/bench";
+
+    @Param({"stateful", "stateless"})
+    public String mode;
+
+    private JrxHttpApi api;
+    private String[] sessions;
+    private Map<String, Object> body;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        AstComponentEngine.installAsDefault();
+        ObjectMapper mapper = new ObjectMapper();
+        boolean stateless = "stateless".equals(mode);
+
+        RouteProvider routes = path -> new RouteProvider.Result(
+                stateless ? new StatelessCounterPage() : new CounterPage(), Map.of());
+        PageResolver resolver = new PageResolver(routes, new CaffeineStateStore());
+        CallGuard guard = new CallGuard(Validation.buildDefaultValidatorFactory().getValidator(), mapper);
+        api = new JrxHttpApi(resolver, mapper, guard, false, null);
+
+        body = stateless
+                ? Map.of("args", List.of(1), "stateToken", JrxStateToken.encode(Map.of("count", 0, "label", "Contador")))
+                : Map.of("args", List.of(1));
+
+        sessions = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions[i] = "bench-" + i;
+            // Primera llamada fuera de la medición: crea y monta la página de cada sesión
+            String res = api.call(sessions[i], PATH, "increment", body, Map.of());
+            if (!res.contains("\"ok\":true")) {
+                throw new IllegalStateException("La llamada de calentamiento falló: " + res);
+            }
+        }
+    }
+
+    @Benchmark
+    public String call() {
+        String sid = sessions[next++ & (SESSIONS - 1)];
+        return api.call(sid, PATH, "increment", body, Map.of());
+    }
+}
@@ -0,0 +1,71 @@
+package com.ciro.jreactive.bench;
+
+import com.ciro.jreactive.AstComponentEngine;
+import com.ciro.jreactive.JrxPushHub;
+import com.ciro.jreactive.bench.pages.FeedPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out del JrxPushHub: un cambio de @State (buffer + JSON + envío) hacia N sinks.
+ * {@code emitRaw} aísla el coste del envío con el JSON ya construido.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class PushHubBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int sinks;
+
+    private FeedPage page;
+    private JrxPushHub hub;
+    private CountingSink[] sinkArr;
+    private int n;
+
+    /** Sink en memoria: solo cuenta bytes para que el envío no se elimine como código muerto. */
+    static final class CountingSink implements JrxPushHub.JrxSink {
+        long bytes;
+        @Override public boolean isOpen() { return true; }
+        @Override public void send(String json) { bytes += json.length(); }
+        @Override public void close() {}
+    }
+
+    @Setup
+    public void setup() {
+        AstComponentEngine.installAsDefault();
+        page = new FeedPage();
+        page._initIfNeeded();
+        page._mountRecursive();
+        hub = new JrxPushHub(page, new ObjectMapper(), 1000, null, "bench", null);
+
+        sinkArr = new CountingSink[sinks];
+        for (int i = 0; i < sinks; i++) {
+            sinkArr[i] = new CountingSink();
+            hub.subscribe(sinkArr[i], 0);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        hub.close();
+    }
+
+    @Benchmark
+    public long stateChange() {
+        page.message = "mensaje " + (n++);
+        page._syncState();
+        return sinkArr[0].bytes;
+    }
+
+    @Benchmark
+    public long emitRaw() {
+        hub.emitRaw("{\"seq\":1,\"batch\":[{\"k\":\"message\",\"v\":\"hola\"}]}");
+        return sinkArr[0].bytes;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ciro.jreactive.bench;
+
+import com.ciro.jreactive.AstComponentEngine;
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.bench.pages.LargePage;
+import com.ciro.jreactive.bench.pages.NestedPage;
+import com.ciro.jreactive.bench.pages.SmallPage;
+import com.ciro.jreactive.bench.pages.TablePage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render completo del motor AST sobre páginas de distinta forma.
+ * <ul>
+ *   <li>{@code rerender}: página ya montada, forzando dirty (lo que cuesta un refresco).</li>
+ *   <li>{@code firstRender}: instancia nueva en cada invocación (init + hijos + render).</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class RenderBenchmark {
+
+    @Param({"small", "large", "nested", "table"})
+    public String shape;
+
+    /** Filas de la página "table" (el resto de formas lo ignora). */
+    @Param({"100"})
+    public int rows;
+
+    private HtmlComponent page;
+
+    @Setup
+    public void setup() {
+        AstComponentEngine.installAsDefault();
+        page = newPage();
+        page.render(); // monta hijos y llena el AST_CACHE fuera de la medición
+    }
+
+    @Benchmark
+    public String rerender() {
+        page._markDirty(); // sin esto render() devuelve el HTML cacheado
+        return page.render();
+    }
+
+    @Benchmark
+    public String firstRender() {
+        return newPage().render();
+    }
+
+    private HtmlComponent newPage() {
+        HtmlComponent p = switch (shape) {
+            case "small"  -> new SmallPage();
+            case "large"  -> new LargePage();
+            case "nested" -> new NestedPage();
+            case "table"  -> new TablePage(rows);
+            default -> throw new IllegalArgumentException("Forma desconocida: " + shape);
+        };
+        p.setId("page_bench");
+        return p;
+    }
+}
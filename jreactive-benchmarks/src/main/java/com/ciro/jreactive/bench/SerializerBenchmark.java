@@ -0,0 +1,70 @@
+package com.ciro.jreactive.bench;
+
+import com.ciro.jreactive.AstComponentEngine;
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.bench.pages.TablePage;
+import com.ciro.jreactive.store.redis.FstStateSerializer;
+import com.ciro.jreactive.store.redis.JacksonStateSerializer;
+import com.ciro.jreactive.store.redis.StateSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización de una página completa tal como la guarda RedisStateStore.
+ * FST necesita los mismos --add-opens que los tests de jreactive-store-redis.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {
+        "--add-opens", "java.base/java.lang=ALL-UNNAMED",
+        "--add-opens", "java.base/java.math=ALL-UNNAMED",
+        "--add-opens", "java.base/java.util=ALL-UNNAMED",
+        "--add-opens", "java.base/java.util.concurrent=ALL-UNNAMED",
+        "--add-opens", "java.base/java.net=ALL-UNNAMED",
+        "--add-opens", "java.base/java.text=ALL-UNNAMED"
+})
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class SerializerBenchmark {
+
+    @Param({"fst", "json"})
+    public String format;
+
+    @Param({"100"})
+    public int rows;
+
+    private StateSerializer serializer;
+    private HtmlComponent page;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        AstComponentEngine.installAsDefault();
+        serializer = "fst".equals(format)
+                ? new FstStateSerializer()
+                : new JacksonStateSerializer(new ObjectMapper());
+
+        page = new TablePage(rows);
+        page.setId("page_bench");
+        page.render(); // página montada, como la persiste el runtime
+        bytes = serializer.serialize(page);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(page);
+    }
+
+    @Benchmark
+    public HtmlComponent deserialize() {
+        return serializer.deserialize(bytes, HtmlComponent.class);
+    }
+
+    @Benchmark
+    public HtmlComponent roundTrip() {
+        return serializer.deserialize(serializer.serialize(page), HtmlComponent.class);
+    }
+}
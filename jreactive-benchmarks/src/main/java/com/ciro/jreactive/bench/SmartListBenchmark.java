@@ -0,0 +1,73 @@
+package com.ciro.jreactive.bench;
+
+import com.ciro.jreactive.AstComponentEngine;
+import com.ciro.jreactive.JrxPushHub;
+import com.ciro.jreactive.bench.pages.FeedPage;
+import com.ciro.jreactive.smart.SmartList;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emisión de deltas de SmartList: mutación → Change → JrxPushHub (buffer + JSON + sink).
+ * {@code addRemoveUnobserved} es la base: la misma mutación sin listeners.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class SmartListBenchmark {
+
+    private FeedPage page;
+    private JrxPushHub hub;
+    private PushHubBenchmark.CountingSink sink;
+    private SmartList<String> unobserved;
+
+    @Setup
+    public void setup() {
+        AstComponentEngine.installAsDefault();
+        page = new FeedPage();
+        for (int i = 0; i < 50; i++) page.items.add("item " + i);
+        page._initIfNeeded();
+        page._mountRecursive();
+
+        hub = new JrxPushHub(page, new ObjectMapper(), 1000, null, "bench", null);
+        // Al recolectar bindings el framework envuelve la List en SmartList
+        if (!(page.items instanceof SmartList)) {
+            throw new IllegalStateException("items debería ser SmartList tras recolectar bindings");
+        }
+        sink = new PushHubBenchmark.CountingSink();
+        hub.subscribe(sink, 0);
+
+        unobserved = new SmartList<>(page.items);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hub.close();
+    }
+
+    /** Dos deltas (ADD + REMOVE) con tamaño de lista estable. */
+    @Benchmark
+    public long addRemove() {
+        page.items.add("nuevo");
+        page.items.remove(page.items.size() - 1);
+        return sink.bytes;
+    }
+
+    @Benchmark
+    public long set() {
+        page.items.set(0, "editado");
+        return sink.bytes;
+    }
+
+    @Benchmark
+    public int addRemoveUnobserved() {
+        unobserved.add("nuevo");
+        unobserved.remove(unobserved.size() - 1);
+        return unobserved.size();
+    }
+}
@@ -0,0 +1,112 @@
+package com.ciro.jreactive.bench;
+
+import com.ciro.jreactive.JrxStateToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token del modo @Stateless: v2 (CBOR por valor + LZ4 + HMAC con Mac reutilizado) contra
+ * el códec v1 (JSON + LZ4 + {@code Mac.getInstance} por llamada), y el diff de la respuesta:
+ * {@code valueToTree} de cada valor viejo y nuevo contra comparar huellas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class StateTokenBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final byte[] SECRET = "bench-secret".getBytes(StandardCharsets.UTF_8);
+
+    /** "small" = un contador; "large" = una tabla de 100 filas dentro del estado. */
+    @Param({"small", "large"})
+    public String payload;
+
+    private Map<String, Object> state;
+    private Map<String, Object> oldState;
+    private Map<String, Long> oldPrints;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        state = new HashMap<>();
+        state.put("count", 42);
+        state.put("label", "Contador");
+        if ("large".equals(payload)) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                rows.add(Map.of("id", i, "name", "Cliente " + i, "email", "cliente" + i + "@mail.com"));
+            }
+            state.put("rows", rows);
+        }
+        token = JrxStateToken.encode(state);
+        JrxStateToken.Opened opened = JrxStateToken.open(token);
+        oldState = opened.state();
+        oldPrints = opened.fingerprints();
+        state.put("count", 43);
+    }
+
+    @Benchmark
+    public String encode() throws Exception {
+        return JrxStateToken.encode(state);
+    }
+
+    @Benchmark
+    public String encodeV1() throws Exception {
+        Map<String, Object> p = new HashMap<>(state);
+        p.put("_exp", System.currentTimeMillis() + 7200000);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (LZ4BlockOutputStream lz4Out = new LZ4BlockOutputStream(baos)) {
+            lz4Out.write(MAPPER.writeValueAsBytes(p));
+        }
+        String body = Base64.getUrlEncoder().withoutPadding().encodeToString(baos.toByteArray());
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+        return body + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public Map<String, Object> decode() throws Exception {
+        return JrxStateToken.decode(token);
+    }
+
+    /** Diff v1: dos árboles JSON por clave. */
+    @Benchmark
+    public int diffTrees() {
+        int changed = 0;
+        for (Map.Entry<String, Object> e : state.entrySet()) {
+            JsonNode newTree = MAPPER.valueToTree(e.getValue());
+            JsonNode oldTree = MAPPER.valueToTree(oldState.get(e.getKey()));
+            if (!Objects.equals(newTree, oldTree)) changed++;
+        }
+        return changed;
+    }
+
+    /** Diff v2: firmar el token nuevo ya da las huellas; el diff es comparar longs. */
+    @Benchmark
+    public int sealAndDiffPrints() throws Exception {
+        Map<String, Long> prints = JrxStateToken.seal(state).fingerprints();
+        int changed = 0;
+        for (Map.Entry<String, Long> e : prints.entrySet()) {
+            if (!Objects.equals(e.getValue(), oldPrints.get(e.getKey()))) changed++;
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,186 @@
+package com.ciro.jreactive.bench;
+
+import com.ciro.jreactive.AstComponentEngine;
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.HtmlEscaper;
+import com.ciro.jreactive.State;
+import com.ciro.jreactive.ast.JrxNode;
+import com.ciro.jreactive.ast.JrxParser;
+import com.ciro.jreactive.ast.MustachePlan;
+import com.ciro.jreactive.ast.TextNode;
+import com.ciro.jreactive.template.TemplateContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Render de text nodes con {{...}}: regex + String.replace por render (antes)
+ * vs plan pre-tokenizado por nodo (ahora), sobre un template de ~1k nodos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+public class TextRenderBenchmark {
+
+    private static final Pattern VAR_PATTERN = Pattern.compile("\\{\\{\\s*([\\w#.-]+)\\s*}}");
+
+    /** "" = componente raíz; "page." = hijo con namespace (el caso caro del regex). */
+    @Param({"", "page."})
+    public String ns;
+
+    private BenchPage page;
+    private List<TextNode> texts;
+
+    public static class BenchPage extends HtmlComponent {
+        @State public String name = "Ana <admin>";
+        @State public int count = 42;
+        @State public List<String> items = new ArrayList<>(List.of("a", "b", "c"));
+
+        @Override
+        protected String template() {
+            StringBuilder sb = new StringBuilder("<div>");
+            for (int i = 0; i < 340; i++) {
+                sb.append("<p>Hola {{name}}, tienes {{count}} avisos</p>")
+                  .append("Fila ").append(i).append(": {{ items.size }} items · {{name}}")
+                  .append("<span>{{storeGlobal}} estático</span>");
+            }
+            return sb.append("</div>").toString();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        page = new BenchPage();
+        page.getRawBindings(); // fuerza buildBindings fuera de la medición
+        texts = new ArrayList<>();
+        collectTexts(JrxParser.parse(page.template()), texts);
+        texts.forEach(TextNode::plan); // el plan se calcula una vez por clase (AST_CACHE)
+        AstComponentEngine.installAsDefault();
+    }
+
+    @Benchmark
+    public void legacyRegexText(Blackhole bh) {
+        StringBuilder out = new StringBuilder(64 * 1024);
+        for (TextNode t : texts) legacyRenderText(t.text, out, page, ns);
+        bh.consume(out);
+    }
+
+    @Benchmark
+    public void plannedText(Blackhole bh) {
+        StringBuilder out = new StringBuilder(64 * 1024);
+        TemplateContext tplCtx = new TemplateContext(page);
+        for (TextNode t : texts) plannedRenderText(t, out, page, tplCtx, ns);
+        bh.consume(out);
+    }
+
+    @Benchmark
+    public void engineRender(Blackhole bh) {
+        page._markDirty(); // sin esto render() devuelve el HTML cacheado
+        bh.consume(page.render());
+    }
+
+    // ------------------------------------------------------------
+    // Implementación previa (copia fiel: namespaceString + VAR_PATTERN + replace)
+    // ------------------------------------------------------------
+    static void legacyRenderText(String text, StringBuilder out, HtmlComponent ctx, String ns) {
+        if (text == null || text.isEmpty()) return;
+        if (!text.contains("{{")) {
+            out.append(text);
+            return;
+        }
+
+        String namespacedTpl = legacyNamespace(text, ns, ctx);
+        String currentVal = namespacedTpl;
+        Matcher m = VAR_PATTERN.matcher(namespacedTpl);
+        boolean fullyResolved = true;
+        TemplateContext tplCtx = new TemplateContext(ctx);
+
+        while (m.find()) {
+            String token = m.group(0);
+            String localKey = m.group(1);
+            if (!ns.isEmpty() && localKey.startsWith(ns)) localKey = localKey.substring(ns.length());
+            if (localKey.startsWith("this.")) localKey = localKey.substring(5);
+
+            Object resolvedVal = tplCtx.resolve(localKey);
+            if (resolvedVal != null) {
+                currentVal = currentVal.replace(token, HtmlEscaper.escape(String.valueOf(resolvedVal)));
+            } else {
+                fullyResolved = false;
+            }
+        }
+
+        if (fullyResolved && !currentVal.equals(namespacedTpl)) {
+            out.append("<!--jrx:").append(namespacedTpl.replace("--", "—")).append("-->");
+            out.append(currentVal.isEmpty() ? "\u200B" : currentVal);
+        } else {
+            out.append(namespacedTpl);
+        }
+    }
+
+    private static String legacyNamespace(String input, String ns, HtmlComponent ctx) {
+        if (input == null || input.isEmpty() || ns == null || ns.isEmpty()) return input;
+        Matcher m = VAR_PATTERN.matcher(input);
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            String varName = m.group(1);
+            String root = varName.split("\\.")[0];
+            boolean isKnownBinding = ctx.getRawBindings().containsKey(root);
+            if (varName.equals("this") || varName.startsWith(ns) || !isKnownBinding) {
+                m.appendReplacement(sb, Matcher.quoteReplacement(m.group(0)));
+            } else {
+                m.appendReplacement(sb, Matcher.quoteReplacement("{{" + ns + varName + "}}"));
+            }
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    // ------------------------------------------------------------
+    // Implementación actual (misma lógica que AstComponentEngine.renderText)
+    // ------------------------------------------------------------
+    static void plannedRenderText(TextNode txt, StringBuilder out, HtmlComponent ctx, TemplateContext tplCtx, String ns) {
+        String text = txt.text;
+        if (text == null || text.isEmpty()) return;
+
+        MustachePlan plan = txt.plan();
+        if (plan.isLiteral()) {
+            out.append(text);
+            return;
+        }
+        String namespacedTpl = plan.namespaced(text, ns, ctx.getRawBindings(), null);
+
+        StringBuilder currentVal = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < plan.size(); i++) {
+            currentVal.append(plan.chunk(i));
+            Object v = tplCtx.resolve(plan.localKey(i, ns));
+            if (v == null) {
+                out.append(namespacedTpl);
+                return;
+            }
+            currentVal.append(HtmlEscaper.escape(String.valueOf(v)));
+        }
+        currentVal.append(plan.chunk(plan.size()));
+
+        String resolved = currentVal.toString();
+        if (resolved.equals(namespacedTpl)) {
+            out.append(namespacedTpl);
+            return;
+        }
+        out.append("<!--jrx:").append(namespacedTpl.replace("--", "—")).append("-->");
+        out.append(resolved.isEmpty() ? "\u200B" : resolved);
+    }
+
+    private static void collectTexts(List<JrxNode> nodes, List<TextNode> acc) {
+        for (JrxNode n : nodes) {
+            if (n instanceof TextNode t) acc.add(t);
+            else if (n instanceof com.ciro.jreactive.ast.ElementNode el) collectTexts(el.children, acc);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ciro.jreactive.bench.pages;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.annotations.Prop;
+
+/** Hoja del árbol de {@link NestedPage}. */
+public class BadgeItem extends HtmlComponent {
+
+    @Prop public String text = "";
+
+    @Override
+    protected String template() {
+        return "<span class=\"badge\">{{text}}</span>";
+    }
+}
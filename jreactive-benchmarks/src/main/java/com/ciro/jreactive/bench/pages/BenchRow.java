@@ -0,0 +1,21 @@
+package com.ciro.jreactive.bench.pages;
+
+import java.io.Serializable;
+
+/** Fila de {@link TablePage}: POJO simple para que FST y Jackson la serialicen igual. */
+public class BenchRow implements Serializable {
+
+    public int id;
+    public String name;
+    public String email;
+    public double amount;
+
+    public BenchRow() {}
+
+    public BenchRow(int id, String name, String email, double amount) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.amount = amount;
+    }
+}
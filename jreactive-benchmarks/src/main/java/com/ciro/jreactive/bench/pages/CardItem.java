@@ -0,0 +1,22 @@
+package com.ciro.jreactive.bench.pages;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.annotations.Prop;
+
+/** Hijo de {@link NestedPage}: recibe props del padre y anida un {@link BadgeItem}. */
+public class CardItem extends HtmlComponent {
+
+    @Prop public String label = "";
+    @Prop public int count = 0;
+
+    @Override
+    protected String template() {
+        return """
+            <div class="card">
+              <h4>{{label}}</h4>
+              <p>{{count}} elementos</p>
+              <BadgeItem :text="label" />
+            </div>
+            """;
+    }
+}
@@ -0,0 +1,22 @@
+package com.ciro.jreactive.bench.pages;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.State;
+import com.ciro.jreactive.annotations.Call;
+
+/** Página stateful: vive en el StateStore entre llamadas. */
+public class CounterPage extends HtmlComponent {
+
+    @State public int count = 0;
+    @State public String label = "Contador";
+
+    @Call
+    public void increment(int step) {
+        count += step;
+    }
+
+    @Override
+    protected String template() {
+        return "<div><h3>{{label}}</h3><button @click=\"increment(1)\">{{count}}</button></div>";
+    }
+}
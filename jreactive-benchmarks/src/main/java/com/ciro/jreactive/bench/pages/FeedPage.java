@@ -0,0 +1,26 @@
+package com.ciro.jreactive.bench.pages;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Página para el push: un @State escalar y una lista (SmartList tras el init) que emite deltas. */
+public class FeedPage extends HtmlComponent {
+
+    @State public String message = "";
+    @State public List<String> items = new ArrayList<>(); // el framework la envuelve en SmartList
+
+    @Override
+    protected String template() {
+        return """
+            <div class="feed">
+              <p>{{message}}</p>
+              <ul>
+                {{#each items as it}}<li>{{it}}</li>{{/each}}
+              </ul>
+            </div>
+            """;
+    }
+}
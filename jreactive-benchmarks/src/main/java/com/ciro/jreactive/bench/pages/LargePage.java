@@ -0,0 +1,65 @@
+package com.ciro.jreactive.bench.pages;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Página "dashboard": mucho HTML estático con bindings repartidos por todo el árbol. */
+public class LargePage extends HtmlComponent {
+
+    @State public String user = "Ana <admin>";
+    @State public String plan = "Enterprise";
+    @State public int visits = 1532;
+    @State public int orders = 87;
+    @State public double revenue = 12450.75;
+    @State public int tickets = 12;
+    @State public String status = "OK";
+    @State public List<String> alerts = new ArrayList<>(List.of("cpu", "disco", "red"));
+
+    @Override
+    protected String template() {
+        return """
+            <div class="dashboard">
+              <header class="top">
+                <h1>Panel de {{user}}</h1>
+                <span class="badge" title="{{plan}}">Plan {{plan}}</span>
+                <nav>
+                  <a href="/home">Inicio</a> <a href="/orders">Pedidos</a>
+                  <a href="/reports">Informes</a> <a href="/settings">Ajustes</a>
+                </nav>
+              </header>
+              <main>
+                <section class="kpis">
+                  <article class="kpi"><h3>Visitas</h3><p>{{visits}}</p><small>hoy</small></article>
+                  <article class="kpi"><h3>Pedidos</h3><p>{{orders}}</p><small>hoy</small></article>
+                  <article class="kpi"><h3>Ingresos</h3><p>{{revenue}}</p><small>EUR</small></article>
+                  <article class="kpi"><h3>Tickets</h3><p>{{tickets}}</p><small>abiertos</small></article>
+                </section>
+                <section class="summary">
+                  <h2>Resumen de {{user}}</h2>
+                  <p>Estado del sistema: <strong>{{status}}</strong> ({{alerts.size}} alertas)</p>
+                  <p>{{visits}} visitas generaron {{orders}} pedidos y {{revenue}} de ingresos.</p>
+                  <table class="grid">
+                    <tr><th>Métrica</th><th>Valor</th><th>Plan</th></tr>
+                    <tr><td>Visitas</td><td>{{visits}}</td><td>{{plan}}</td></tr>
+                    <tr><td>Pedidos</td><td>{{orders}}</td><td>{{plan}}</td></tr>
+                    <tr><td>Ingresos</td><td>{{revenue}}</td><td>{{plan}}</td></tr>
+                    <tr><td>Tickets</td><td>{{tickets}}</td><td>{{plan}}</td></tr>
+                  </table>
+                </section>
+                <section class="forms">
+                  <label>Usuario <input name="user" value="{{user}}"></label>
+                  <label>Plan <input name="plan" value="{{plan}}"></label>
+                  <label>Estado <input name="status" value="{{status}}"></label>
+                </section>
+              </main>
+              <footer>
+                <p>{{user}} · {{plan}} · {{status}}</p>
+                <p>Versión estática del pie de página con texto sin bindings.</p>
+              </footer>
+            </div>
+            """;
+    }
+}
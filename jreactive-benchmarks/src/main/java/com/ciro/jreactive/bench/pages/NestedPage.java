@@ -0,0 +1,28 @@
+package com.ciro.jreactive.bench.pages;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.State;
+
+/** Página con componentes anidados (página → CardItem → BadgeItem): mide namespacing y props. */
+public class NestedPage extends HtmlComponent {
+
+    @State public String title = "Inventario";
+    @State public int count = 42;
+
+    @Override
+    protected String template() {
+        return """
+            <div class="nested">
+              <h2>{{title}}</h2>
+              <CardItem :label="title" :count="count" />
+              <CardItem :label="title" :count="count" />
+              <CardItem :label="title" :count="count" />
+              <CardItem :label="title" :count="count" />
+              <CardItem :label="title" :count="count" />
+              <CardItem :label="title" :count="count" />
+              <CardItem :label="title" :count="count" />
+              <CardItem :label="title" :count="count" />
+            </div>
+            """;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ciro.jreactive.bench.pages;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.State;
+
+/** Página mínima: un puñado de nodos y bindings (el caso típico de un formulario). */
+public class SmallPage extends HtmlComponent {
+
+    @State public String title = "Hola JReactive";
+    @State public int count = 3;
+    @State public boolean active = true;
+
+    @Override
+    protected String template() {
+        return """
+            <section class="small">
+              <h1>{{title}}</h1>
+              <p>Tienes {{count}} avisos pendientes</p>
+              <input name="title" placeholder="Título">
+              <span class="state">Activo: {{active}}</span>
+            </section>
+            """;
+    }
+}
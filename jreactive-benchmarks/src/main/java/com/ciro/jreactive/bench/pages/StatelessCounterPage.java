@@ -0,0 +1,24 @@
+package com.ciro.jreactive.bench.pages;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.State;
+import com.ciro.jreactive.annotations.Call;
+import com.ciro.jreactive.annotations.Stateless;
+
+/** Misma página que {@link CounterPage} pero en modo @Stateless: el estado viaja en el token. */
+@Stateless
+public class StatelessCounterPage extends HtmlComponent {
+
+    @State public int count = 0;
+    @State public String label = "Contador";
+
+    @Call
+    public void increment(int step) {
+        count += step;
+    }
+
+    @Override
+    protected String template() {
+        return "<div><h3>{{label}}</h3><button @click=\"increment(1)\">{{count}}</button></div>";
+    }
+}
@@ -0,0 +1,41 @@
+package com.ciro.jreactive.bench.pages;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Tabla dominada por {{#each}}: el coste escala con el número de filas. */
+public class TablePage extends HtmlComponent {
+
+    @State public String caption = "Clientes";
+    @State public List<BenchRow> rows = new ArrayList<>(); // el framework la envuelve en SmartList
+
+    public TablePage() {}
+
+    public TablePage(int size) {
+        for (int i = 0; i < size; i++) {
+            rows.add(new BenchRow(i, "Cliente " + i, "cliente" + i + "@mail.com", i * 10.5));
+        }
+    }
+
+    @Override
+    protected String template() {
+        return """
+            <table class="table">
+              <caption>{{caption}} ({{rows.size}})</caption>
+              <tbody>
+                {{#each rows as row}}
+                  <tr>
+                    <td>{{row.id}}</td>
+                    <td>{{row.name}}</td>
+                    <td>{{row.email}}</td>
+                    <td>{{row.amount}}</td>
+                  </tr>
+                {{/each}}
+              </tbody>
+            </table>
+            """;
+    }
+}
@@ -1,11 +1,23 @@
 package com.ciro.jreactive;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 final class ComponentEngine {
 
-    record Rendered(String html, Map<String, ReactiveVar<?>> bindings) {}
+    /**
+     * Resultado de un render. {@code fragments} son las posiciones de los hijos SSR
+     * dentro de {@code html} (null si el render no admite splicing incremental).
+     */
+    record Rendered(String html, Map<String, ReactiveVar<?>> bindings, List<Fragment> fragments) {
+        Rendered(String html, Map<String, ReactiveVar<?>> bindings) {
+            this(html, bindings, null);
+        }
+    }
+
+    /** Rango [start, end) de {@code html} que pertenece al render del hijo {@code child}. */
+    record Fragment(HtmlComponent child, int start, int end) {}
 
     interface Strategy {
         Rendered render(HtmlComponent ctx);
@@ -1,6 +1,7 @@
 package com.ciro.jreactive;
 
 import java.io.InputStream;
+import java.lang.System.Logger.Level;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
@@ -16,23 +17,29 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.intellij.lang.annotations.Language;
 
-import java.util.Collection;
 import java.util.Objects;
 
 import com.ciro.jreactive.annotations.Prop;
 import com.ciro.jreactive.annotations.Shared;
+import com.ciro.jreactive.diag.RenderEvent;
+import com.ciro.jreactive.diag.SyncStateEvent;
 import com.ciro.jreactive.smart.SmartList;
 import com.ciro.jreactive.smart.SmartSet;
 import com.ciro.jreactive.spi.AccessorRegistry;
 import com.ciro.jreactive.spi.ComponentAccessor;
+import com.ciro.jreactive.spi.JrxMetrics;
 import com.ciro.jreactive.smart.SmartMap;
 
 public abstract class HtmlComponent extends ViewLeaf implements java.io.Serializable {
 	
+    private static final System.Logger log = System.getLogger(HtmlComponent.class.getName());
+
 	private volatile long _version = 0;
 
     private Map<String, ReactiveVar<?>> map;
     private transient ComponentEngine.Rendered cached;
+    // Largo de la cabecera de <style>/<script> al inicio de cached.html() (solo en la raíz)
+    private transient int _resourceHead;
     private final List<HtmlComponent> _children = new ArrayList<>();
  
 
@@ -44,6 +51,21 @@ public abstract class HtmlComponent extends ViewLeaf implements java.io.Serializ
 //✅ Alias local -> ref real (namespaced) para hijos
 private final  Map<String, String> _childRefAlias = new HashMap<>();
 
+ // ⚡ Índice de @Call del subárbol ("CompId.metodo" / "metodo" en raíz) -> (Method, dueño).
+ // Se construye una sola vez y solo se invalida cuando cambia el árbol de hijos (render cycle).
+ private transient volatile Map<String, Map.Entry<Method, HtmlComponent>> _callIndex;
+ private transient volatile HtmlComponent _parent;
+
+ // ──────────────────────────────────────────────────────────────
+ // ⚡ Re-render incremental: _dirty = cambió MI estado (re-ejecutar template),
+ //    _subtreeDirty = cambió algún descendiente (basta con reemplazar su fragmento)
+ // ──────────────────────────────────────────────────────────────
+ private transient volatile boolean _dirty;
+ private transient volatile boolean _subtreeDirty;
+ // Hilo que está renderizando este componente: sus marcas ya quedan reflejadas en el HTML que genera
+ private transient volatile Thread _renderingThread;
+ private transient java.util.function.Consumer<Object> _smartDirtyListener;
+
 
 
 
@@ -56,9 +78,8 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
             new AtomicReference<>(ComponentState.UNMOUNTED);
     
     // Snapshots
-    private final Map<String, Integer> _structureHashes = new HashMap<>();
+    private final Map<String, Object> _structureHashes = new HashMap<>();
     private final Map<String, Object> _simpleSnapshots = new HashMap<>();
-    private final Map<String, Integer> _identitySnapshots = new HashMap<>();
     private static final Map<Class<?>, String> RESOURCE_CACHE = new ConcurrentHashMap<>();
     private static final Map<Class<?>, String> TEMPLATE_HTML_CACHE = new ConcurrentHashMap<>();
     
@@ -143,7 +164,7 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
                           .append("</script>\n");
                 }
             } catch (Exception e) {
-                System.err.println("⚠️ JReactive: Error leyendo JS para " + baseName + ": " + e.getMessage());
+                log.log(Level.WARNING, () -> "⚠️ JReactive: Error leyendo JS para " + baseName + ": " + e.getMessage());
             }
 
             return bundle.toString();
@@ -164,17 +185,9 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
     
             for (String key : stateKeys) {
                 try {
-                    Object val = getFieldValueByName(key);
-                    if (val == null) {
-                        _simpleSnapshots.put(key, null);
-                    } else if (val instanceof String || val instanceof Number || val instanceof Boolean) {
-                        _simpleSnapshots.put(key, val);
-                    } else {
-                        // 🔥 FIX: Faltaba este 'else'. Es un POJO: guardamos el hash de sus campos
-                        _structureHashes.put(key, getPojoHash(val));
-                    }
+                    remember(key, getFieldValueByName(key));
                 } catch (Exception e) {
-                    System.err.println("⚠️ [JReactive] Error capturando snapshot de '@State " + key + "': " + e.getMessage());
+                    log.log(Level.WARNING, () -> "⚠️ [JReactive] Error capturando snapshot de '@State " + key + "': " + e.getMessage());
                 }
             }
             
@@ -199,6 +212,8 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
         try {
             if (!this._children.contains(child)) {
                 this._children.add(child);
+                child._parent = this;
+                _invalidateCallIndex();
             }
         } finally {
         	getLock().unlock();
@@ -209,6 +224,8 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
     	getLock().lock();
         try {
             _children.add(child); 
+            child._parent = this;
+            _invalidateCallIndex();
         } finally {
         	getLock().unlock();
         }
@@ -226,7 +243,9 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
     }
     
     public void _setSlots(Map<String, String> slots) {
-        this._slots = (slots == null) ? new HashMap<>() : slots;
+        Map<String, String> next = (slots == null) ? new HashMap<>() : slots;
+        if (!next.equals(this._slots)) _markDirty();
+        this._slots = next;
     }
 
     public String _getSlotHtml(String name) {
@@ -302,9 +321,73 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
      if (pool != null) {
          for (HtmlComponent z : pool) {
              try { z._unmountRecursive(); } catch (Throwable ignored) {}
+             z._parent = null;
          }
          pool.clear();
      }
+
+     // El árbol de hijos pudo cambiar: el índice de @Call de este nodo y de sus ancestros ya no vale
+     _invalidateCallIndex();
+ }
+
+ /** Marca el render de este componente como obsoleto y avisa a sus ancestros. */
+ public void _markDirty() {
+     // Las marcas del propio render (props, _syncState) no ensucian: el HTML que sale ya las lleva.
+     // Las de otro hilo (un @Call, un tick) sí, aunque lleguen a mitad del render.
+     Thread self = Thread.currentThread();
+     if (_renderingThread != self) _dirty = true;
+     for (HtmlComponent p = _parent; p != null; p = p._parent) {
+         if (p._renderingThread != self) p._subtreeDirty = true;
+     }
+ }
+
+ public boolean _isDirty() {
+     return _dirty || _subtreeDirty;
+ }
+
+ public HtmlComponent _getParent() {
+     return _parent;
+ }
+
+ /** Descarta el índice de @Call de este componente y de todos sus ancestros conocidos. */
+ public void _invalidateCallIndex() {
+     for (HtmlComponent c = this; c != null; c = c._parent) {
+         c._callIndex = null;
+     }
+ }
+
+ /**
+  * Resuelve un @Call en O(1) sin renderizar.
+  * Acepta "metodo" (solo para la raíz) o "CompId.metodo" para cualquier nodo del subárbol.
+  */
+ public Map.Entry<Method, HtmlComponent> _findCallable(String qualified) {
+     Map<String, Map.Entry<Method, HtmlComponent>> idx = _callIndex;
+     if (idx == null) {
+         idx = _buildCallIndex();
+         _callIndex = idx;
+     }
+     return idx.get(qualified);
+ }
+
+ private Map<String, Map.Entry<Method, HtmlComponent>> _buildCallIndex() {
+     Map<String, Map.Entry<Method, HtmlComponent>> idx = new HashMap<>();
+     for (var e : getCallableMethods().entrySet()) {
+         idx.put(e.getKey(), Map.entry(e.getValue(), this)); // clave corta solo para la raíz
+     }
+     _indexCallables(this, idx);
+     return idx;
+ }
+
+ private static void _indexCallables(HtmlComponent current, Map<String, Map.Entry<Method, HtmlComponent>> idx) {
+     String compId = current.getId();
+     for (var e : current.getCallableMethods().entrySet()) {
+         idx.put(compId + "." + e.getKey(), Map.entry(e.getValue(), current));
+     }
+     for (HtmlComponent child : current._children()) {
+         // Tras deserializar (Redis) el puntero al padre es transient: lo reconstruimos aquí
+         child._parent = current;
+         _indexCallables(child, idx);
+     }
  }
 
  /** Pool actual (solo existe durante render()).
@@ -404,18 +487,56 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
 
     @Override
     public String render() {
-        if (cached != null) return cached.html();
+        ComponentEngine.Rendered current = cached;
+        if (current != null && !_dirty && !_subtreeDirty) return current.html();
 
         getLock().lock(); // 🔒 Usamos el cerrojo universal del componente
         try {
             // Doble validación por si otro hilo ya lo renderizó mientras esperábamos
-            if (cached != null) return cached.html(); 
+            current = cached;
+            if (current != null && !_dirty) {
+                if (!_subtreeDirty) return current.html();
+
+                // ⚡ Solo cambiaron descendientes: re-render de los hijos sucios + fragmentos cacheados del resto
+                if (current.fragments() != null) {
+                    RenderEvent ev = new RenderEvent();
+                    ev.begin();
+                    long t0 = System.nanoTime();
+                    // Se limpia ANTES: un hijo que se ensucie mientras tanto deja la marca para el siguiente render
+                    _subtreeDirty = false;
+                    _renderingThread = Thread.currentThread();
+                    boolean ok = false;
+                    try {
+                        this.cached = _spliceDirtyChildren(current);
+                        ok = true;
+                    } finally {
+                        _renderingThread = null;
+                        if (!ok) _subtreeDirty = true;
+                    }
+                    commitRender(ev, t0, cached.html(), true);
+                    return cached.html();
+                }
+            }
 
+            RenderEvent ev = new RenderEvent();
+            ev.begin();
+            long t0 = System.nanoTime();
             _beginRenderCycle();
+            // Se limpia ANTES de renderizar: un _markDirty de otro hilo a mitad del render queda para el siguiente
+            _dirty = false;
+            _subtreeDirty = false;
+            _renderingThread = Thread.currentThread();
+            boolean ok = false;
             try {
-                this.cached = ComponentEngine.render(this);
+                this.cached = _withResources(ComponentEngine.render(this));
+                ok = true;
+                _renderingThread = null;
+                _armDirtyTracking();
+                commitRender(ev, t0, cached.html(), false);
                 return cached.html();
             } finally {
+                _renderingThread = null;
+                if (!ok) _dirty = true;
                 _endRenderCycle();
             }
         } finally {
@@ -423,6 +544,106 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
         }
     }
 
+    private ComponentEngine.Rendered _spliceDirtyChildren(ComponentEngine.Rendered prev) {
+        String html = prev.html();
+        StringBuilder out = new StringBuilder(html.length() + 256);
+        List<ComponentEngine.Fragment> fresh = new ArrayList<>(prev.fragments().size());
+        Map<String, ReactiveVar<?>> binds = prev.bindings();
+        // La cabecera de recursos se rehace al final (el hijo puede traer clases nuevas)
+        int cursor = _resourceHead;
+
+        for (ComponentEngine.Fragment f : prev.fragments()) {
+            out.append(html, cursor, f.start());
+            HtmlComponent child = f.child();
+            int start = out.length();
+            if (child._isDirty()) {
+                List<String> before = _bindingPrefixes(child);
+                out.append(child.render());
+                // Un hijo re-renderizado cambia sus bindings y los de sus nietos (nuevos o descartados):
+                // salen los del render anterior y entran los del nuevo
+                ComponentEngine.Rendered cr = child.cached;
+                if (cr != null && cr.bindings() != null && cr.bindings() != binds) {
+                    if (binds == prev.bindings()) binds = new HashMap<>(binds);
+                    binds.keySet().removeIf(k -> _startsWithAny(k, before));
+                    List<String> after = _bindingPrefixes(child);
+                    for (Map.Entry<String, ReactiveVar<?>> e : cr.bindings().entrySet()) {
+                        if (_startsWithAny(e.getKey(), after)) binds.put(e.getKey(), e.getValue());
+                    }
+                }
+            } else {
+                out.append(html, f.start(), f.end());
+            }
+            fresh.add(new ComponentEngine.Fragment(child, start, out.length()));
+            cursor = f.end();
+        }
+        out.append(html, cursor, html.length());
+        return _withResources(new ComponentEngine.Rendered(out.toString(), binds, fresh));
+    }
+
+    /**
+     * En la raíz antepone los {@code <style>/<script>} de cada clase del árbol, una vez por clase.
+     * El motor no los emite: si fueran dentro del fragmento del primer hijo de cada clase, un splice
+     * los duplicaría (el hijo re-renderizado no sabe qué se emitió antes) o los perdería (al quitar ese hijo).
+     */
+    private ComponentEngine.Rendered _withResources(ComponentEngine.Rendered r) {
+        _resourceHead = 0;
+        if (_getParent() != null) return r;
+
+        StringBuilder head = new StringBuilder();
+        Set<Class<?>> seen = new HashSet<>();
+        List<HtmlComponent> pending = new ArrayList<>(List.of(this));
+        while (!pending.isEmpty()) {
+            HtmlComponent c = pending.remove(pending.size() - 1);
+            if (seen.add(c.getClass())) head.append(c._getBundledResources());
+            List<HtmlComponent> kids = c._children();
+            for (int i = kids.size() - 1; i >= 0; i--) pending.add(kids.get(i)); // en orden de documento
+        }
+        if (head.isEmpty()) return r;
+
+        _resourceHead = head.length();
+        List<ComponentEngine.Fragment> frags = null;
+        if (r.fragments() != null) {
+            frags = new ArrayList<>(r.fragments().size());
+            for (ComponentEngine.Fragment f : r.fragments()) {
+                frags.add(new ComponentEngine.Fragment(f.child(), f.start() + _resourceHead, f.end() + _resourceHead));
+            }
+        }
+        return new ComponentEngine.Rendered(head.append(r.html()).toString(), r.bindings(), frags);
+    }
+
+    // "id." del componente y de cada descendiente: prefijo de sus claves en el mapa de bindings
+    private static List<String> _bindingPrefixes(HtmlComponent comp) {
+        List<String> out = new ArrayList<>();
+        out.add(comp.getId() + ".");
+        for (HtmlComponent d : comp._descendants()) out.add(d.getId() + ".");
+        return out;
+    }
+
+    private static boolean _startsWithAny(String key, List<String> prefixes) {
+        for (String p : prefixes) {
+            if (key.startsWith(p)) return true;
+        }
+        return false;
+    }
+
+    /** Engancha el dirty-hook en cada ReactiveVar (y en las Smart collections) tras un render completo. */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void _armDirtyTracking() {
+        if (map == null) return;
+        Runnable hook = this::_markDirty;
+        if (_smartDirtyListener == null) _smartDirtyListener = change -> _markDirty();
+        java.util.function.Consumer l = _smartDirtyListener;
+
+        for (ReactiveVar<?> rx : map.values()) {
+            rx.setDirtyHook(hook);
+            Object v = rx.get();
+            // unsubscribe + subscribe = idempotente entre renders
+            if (v instanceof SmartList<?> sl) { sl.unsubscribe(l); sl.subscribe(l); }
+            else if (v instanceof SmartMap<?, ?> sm) { sm.unsubscribe(l); sm.subscribe(l); }
+            else if (v instanceof SmartSet<?> ss) { ss.unsubscribe(l); ss.subscribe(l); }
+        }
+    }
+
     @Language("html")
     protected String template() {
         return TEMPLATE_HTML_CACHE.computeIfAbsent(this.getClass(), clazz -> {
@@ -432,7 +653,7 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
                     return new String(is.readAllBytes(), StandardCharsets.UTF_8);
                 }
             } catch (Exception e) {
-                System.err.println("⚠️ [JReactive] Error leyendo template externo " + baseName + ": " + e.getMessage());
+                log.log(Level.WARNING, () -> "⚠️ [JReactive] Error leyendo template externo " + baseName + ": " + e.getMessage());
             }
             throw new IllegalStateException("JReactive: Debes sobrescribir el método template() o crear el archivo " + baseName + " junto a la clase " + clazz.getSimpleName());
         });
@@ -507,10 +728,9 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
                             f.set(this, smartNew);
                         } catch (IllegalArgumentException ex) {
                             // 🔥 BLINDAJE: Si el navegador manda basura (ej. "C:\fakepath...") a un objeto complejo, lo descartamos con elegancia.
-                            System.err.println("🛡️ [JReactive] Descartando actualización de '@Prop " + key + "': Incompatibilidad de tipos (" + ex.getMessage() + ")");
+                            log.log(Level.WARNING, () -> "🛡️ [JReactive] Descartando actualización de '@Prop " + key + "': Incompatibilidad de tipos (" + ex.getMessage() + ")");
                         } catch (Exception e) {
-                            System.err.println("❌ [JReactive] Error crítico inyectando @Prop '" + key + "': " + e.getMessage());
-                            e.printStackTrace();
+                            log.log(Level.ERROR, () -> "❌ [JReactive] Error crítico inyectando @Prop '" + key + "': " + e.getMessage(), e);
                         }
                     });
                     
@@ -550,6 +770,7 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
                         }
 
                         srx.setSharedTopic(topic);
+                        srx.setSharedTickMs(sharedAnn.tickMs());
                     }
                     
                     String tempKey = f.getName();
@@ -564,10 +785,9 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
                             f.set(this, smartNew);
                         } catch (IllegalArgumentException ex) {
                             // 🔥 BLINDAJE: Si el tipo es incompatible, simplemente ignoramos el dato
-                            System.err.println("🛡️ [JReactive] Descartando actualización de '@State " + stateKey + "': Incompatibilidad de tipos (" + ex.getMessage() + ")");
+                            log.log(Level.WARNING, () -> "🛡️ [JReactive] Descartando actualización de '@State " + stateKey + "': Incompatibilidad de tipos (" + ex.getMessage() + ")");
                         } catch (Exception e) {
-                            System.err.println("❌ [JReactive] Error crítico inyectando @State '" + stateKey + "': " + e.getMessage());
-                            e.printStackTrace();
+                            log.log(Level.ERROR, () -> "❌ [JReactive] Error crítico inyectando @State '" + stateKey + "': " + e.getMessage(), e);
                         }
                     });
 
@@ -597,7 +817,22 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
         return value;
     }
 
+    // ⚡ JFR: con el evento deshabilitado, escape analysis elimina la instancia y esto no cuesta nada
+    private void commitRender(RenderEvent ev, long t0, String html, boolean partial) {
+        JrxMetrics.get().render(getClass(), System.nanoTime() - t0, partial);
+        ev.end();
+        if (ev.shouldCommit()) {
+            ev.component = getClass().getName();
+            ev.bytes = html.length();
+            ev.partial = partial;
+            ev.commit();
+        }
+    }
+
     public void _syncState() {
+        SyncStateEvent ev = new SyncStateEvent();
+        ev.begin();
+        int changed = 0;
     	getLock().lock();
         try {
             if (map == null) buildBindings();
@@ -614,10 +849,13 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
                         continue; 
                     }
     
+                    changed++;
+                    // ⚡ El valor nuevo pasa a ser la base: el próximo sync solo paga por lo que cambie después
+                    remember(key, newValue);
                     rx.set(newValue);
                     //this.cached = null;
                 } catch (Exception e) {
-                    System.err.println("Error Smart-Sync '" + key + "': " + e.getMessage());
+                    log.log(Level.WARNING, () -> "Error Smart-Sync '" + key + "': " + e.getMessage());
                 }
             }
             
@@ -629,6 +867,13 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
         } finally {
         	getLock().unlock();
         }
+        ev.end();
+        if (ev.shouldCommit()) {
+            ev.component = getClass().getName();
+            ev.keys = stateKeys.size();
+            ev.changed = changed;
+            ev.commit();
+        }
     }
 
     private boolean hasChanged(String key, Object newVal) {
@@ -637,50 +882,34 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
             return false;
         }
 
-        // 2. Para tipos simples y POJOs, usamos la comparación de contenido (equals)
-        // En lugar de guardar el identityHashCode, guardamos el valor anterior o su snapshot
-        Object oldVal = _simpleSnapshots.get(key); 
-        
-        // Si el objeto es complejo (POJO), guardamos su hash de contenido (POJO Hash)
-        if (newVal != null && !(newVal instanceof String || newVal instanceof Number || newVal instanceof Boolean)) {
-            int newHash = getPojoHash(newVal);
-            Integer oldHash = _structureHashes.get(key);
-            return oldHash == null || oldHash != newHash;
+        // 2. POJOs: comparamos su huella (versión si es Tracked, hash de campos si no)
+        if (!StateTable.isImmutable(newVal)) {
+            Object oldPrint = _structureHashes.get(key);
+            return oldPrint == null || !oldPrint.equals(StateTable.fingerprint(newVal));
         }
-        
+
         if (newVal == null && _structureHashes.containsKey(key)) {
             return true;
         }
 
-        return !Objects.equals(newVal, oldVal);
+        // 3. Tipos simples: equals contra el valor anterior
+        return !Objects.equals(newVal, _simpleSnapshots.get(key));
     }
 
-    private Object getFieldValueByName(String key) throws Exception {
-        Class<?> c = getClass();
-        while (c != null && c != Object.class) {
-            for (Field f : c.getDeclaredFields()) {
-                State stateAnn = f.getAnnotation(State.class);
-                Bind bindAnn = f.getAnnotation(Bind.class);
-                Prop propAnn = f.getAnnotation(Prop.class); // 🔥
-                Shared sharedAnn = f.getAnnotation(Shared.class);
-                
-                if (stateAnn != null || bindAnn != null || propAnn != null || sharedAnn != null) {
-                    String annVal = "";
-                    if (stateAnn != null && !stateAnn.value().isBlank()) annVal = stateAnn.value();
-                    else if (bindAnn != null && !bindAnn.value().isBlank()) annVal = bindAnn.value();
-                    else if (propAnn != null && !propAnn.value().isBlank()) annVal = propAnn.value();
-                    //else if (sharedAnn != null && !sharedAnn.value().isBlank()) annVal = sharedAnn.value();
-                    else annVal = f.getName();
-
-                    if (annVal.equals(key)) {
-                        f.setAccessible(true);
-                        return f.get(this);
-                    }
-                }
-            }
-            c = c.getSuperclass();
+    /** Guarda {@code val} como valor base de {@code key} para {@link #hasChanged}. */
+    private void remember(String key, Object val) {
+        if (StateTable.isImmutable(val)) {
+            _structureHashes.remove(key);
+            _simpleSnapshots.put(key, val);
+        } else {
+            _simpleSnapshots.remove(key);
+            _structureHashes.put(key, StateTable.fingerprint(val));
         }
-        return null;
+    }
+
+    private Object getFieldValueByName(String key) throws Exception {
+        // ⚡ Tabla clave -> Field cacheada por clase: sin recorrer campos ni anotaciones en cada sync
+        return StateTable.of(getClass()).read(this, key);
     }
     
     public Map<String, Method> getCallableMethods() {
@@ -869,45 +1098,6 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
         return rawValue;
     }
     
-    private int getPojoHash(Object o) {
-        if (o == null) return 0;
-        // Tipos básicos: usar su hash natural
-        if (o instanceof String || o instanceof Number || o instanceof Boolean || o instanceof Enum) {
-            return o.hashCode();
-        }
-        // Colecciones: usar su hash (que ya es profundo en Java)
-        if (o instanceof Collection || o instanceof Map) {
-            return o.hashCode();
-        }
-        
-        int result = 1;
-        try {
-            Class<?> curr = o.getClass();
-            // Límite de seguridad para no ciclar infinitamente en grafos complejos
-            if (curr.getName().startsWith("java.")) return o.hashCode();
-
-            while (curr != null && curr != Object.class) {
-                for (Field f : curr.getDeclaredFields()) {
-                    if (java.lang.reflect.Modifier.isStatic(f.getModifiers()) || f.getName().startsWith("this$")) continue;
-                    
-                    f.setAccessible(true);
-                    Object val = f.get(o);
-                    
-                    int fieldHash = 0;
-                    if (val != null) {
-                        // 🔥 RECURSIÓN REAL: Llamamos a getPojoHash de nuevo
-                        fieldHash = getPojoHash(val); 
-                    }
-                    result = 31 * result + fieldHash;
-                }
-                curr = curr.getSuperclass();
-            }
-        } catch (Exception e) {
-            return o.hashCode();
-        }
-        return result;
-    }
-
     /**
      * Calcula qué campos @State han cambiado y devuelve un mapa con los deltas.
      * Útil para optimizar el tráfico de componentes @Client.
@@ -923,7 +1113,7 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
                         deltas.put(key, newValue);
                     }
                 } catch (Exception e) {
-                    System.err.println("⚠️ [JReactive] Error calculando Delta para '@State " + key + "': " + e.getMessage());
+                    log.log(Level.WARNING, () -> "⚠️ [JReactive] Error calculando Delta para '@State " + key + "': " + e.getMessage());
                 }
             }
             return deltas;
@@ -932,6 +1122,121 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
         }
     }
     
+    // ──────────────────────────────────────────────────────────────
+    // ⚡ Persistencia por campo: el store guarda cada @State como un campo aparte
+    //    ("idComponente:clave") y solo reescribe los que cambiaron desde el último persist.
+    // ──────────────────────────────────────────────────────────────
+    private transient Map<String, Object> _persistPrints; // clave -> valor (inmutables) o Print (huella)
+
+    private record Print(Object print) {}
+
+    /**
+     * Valores del subárbol que cambiaron desde la última llamada, con clave {@code "idComponente:clave"}.
+     * Devuelve null si algún componente todavía no tiene base (página o hijo nuevos): entonces hay que
+     * guardar la página entera. En ambos casos la base queda actualizada.
+     */
+    public Map<String, Object> _takePersistDeltas() {
+        Map<String, Object> out = new HashMap<>();
+        boolean full = !collectPersistDeltas(out);
+        for (HtmlComponent child : _descendants()) {
+            if (!child.collectPersistDeltas(out)) full = true;
+        }
+        return full ? null : out;
+    }
+
+    /** Olvida la base (tras un fallo al guardar): el próximo persist será completo. */
+    public void _forgetPersisted() {
+        _persistPrints = null;
+        for (HtmlComponent child : _descendants()) child._persistPrints = null;
+    }
+
+    /**
+     * Vuelve a poner en el subárbol los valores guardados por campo (ver {@link #_takePersistDeltas})
+     * y los toma como base. Las claves de componentes que ya no existen se ignoran.
+     */
+    public void _restorePersisted(Map<String, Object> values) {
+        Map<String, HtmlComponent> byId = _byId();
+        values.forEach((qualified, value) -> {
+            int sep = qualified.lastIndexOf(':');
+            HtmlComponent owner = sep < 0 ? null : byId.get(qualified.substring(0, sep));
+            if (owner != null) owner.restoreState(qualified.substring(sep + 1), value);
+        });
+        _takePersistDeltas();
+    }
+
+    /**
+     * Tipo declarado (con genéricos) de cada clave de {@link #_takePersistDeltas}, para que el store
+     * escriba y lea cada campo con su tipo y no como {@code Object}. Las claves de componentes que ya
+     * no existen no aparecen en el resultado.
+     */
+    public Map<String, java.lang.reflect.Type> _persistedTypes(Set<String> qualifiedKeys) {
+        Map<String, HtmlComponent> byId = _byId();
+        Map<String, java.lang.reflect.Type> out = new HashMap<>();
+        for (String qualified : qualifiedKeys) {
+            int sep = qualified.lastIndexOf(':');
+            HtmlComponent owner = sep < 0 ? null : byId.get(qualified.substring(0, sep));
+            java.lang.reflect.Type type = owner == null ? null : StateTable.of(owner.getClass()).type(qualified.substring(sep + 1));
+            if (type != null) out.put(qualified, type);
+        }
+        return out;
+    }
+
+    private Map<String, HtmlComponent> _byId() {
+        Map<String, HtmlComponent> byId = new HashMap<>();
+        byId.put(getId(), this);
+        for (HtmlComponent child : _descendants()) byId.put(child.getId(), child);
+        return byId;
+    }
+
+    private List<HtmlComponent> _descendants() {
+        List<HtmlComponent> out = new ArrayList<>();
+        List<HtmlComponent> pending = new ArrayList<>(_children());
+        while (!pending.isEmpty()) {
+            HtmlComponent c = pending.remove(pending.size() - 1);
+            out.add(c);
+            pending.addAll(c._children());
+        }
+        return out;
+    }
+
+    // false = este componente no tenía base
+    private boolean collectPersistDeltas(Map<String, Object> out) {
+        getLock().lock();
+        try {
+            StateTable table = StateTable.of(getClass());
+            boolean primed = _persistPrints != null;
+            if (!primed) _persistPrints = new HashMap<>();
+            for (String key : table.persistKeys()) {
+                try {
+                    Object val = table.read(this, key);
+                    Object print = StateTable.isImmutable(val) ? val : new Print(StateTable.fingerprint(val));
+                    boolean known = _persistPrints.containsKey(key);
+                    Object old = _persistPrints.put(key, print);
+                    if (!known || !Objects.equals(old, print)) out.put(getId() + ":" + key, val);
+                } catch (Exception e) {
+                    log.log(Level.WARNING, () -> "⚠️ [JReactive] Error leyendo '@State " + key + "' para persistir: " + e.getMessage());
+                }
+            }
+            return primed;
+        } finally {
+            getLock().unlock();
+        }
+    }
+
+    private void restoreState(String key, Object value) {
+        getLock().lock();
+        try {
+            if (!StateTable.of(getClass()).write(this, key, value)) return;
+            @SuppressWarnings("unchecked")
+            ReactiveVar<Object> rx = map == null ? null : (ReactiveVar<Object>) map.get(key);
+            if (rx != null) rx.set(value);
+        } catch (Exception e) {
+            log.log(Level.WARNING, () -> "⚠️ [JReactive] No se pudo restaurar '@State " + key + "': " + e.getMessage());
+        } finally {
+            getLock().unlock();
+        }
+    }
+
     public long _getVersion() { return _version; }
     public void _setVersion(long v) { this._version = v; }
     
@@ -1022,10 +1327,10 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
                         // 3. Forzamos la sincronización para que genere el Delta y lo empuje por WS
                         this._syncState();
                     } else {
-                        System.err.println("⚠️ [JReactive] @Defer: No se encontró la variable @State '" + targetState + "'");
+                        log.log(Level.WARNING, () -> "⚠️ [JReactive] @Defer: No se encontró la variable @State '" + targetState + "'");
                     }
                 } catch (Exception e) {
-                    System.err.println("❌ [JReactive] Error en tarea @Defer '" + m.getName() + "': " + e.getMessage());
+                    log.log(Level.ERROR, () -> "❌ [JReactive] Error en tarea @Defer '" + m.getName() + "': " + e.getMessage());
                 }
             });
         }
@@ -1059,13 +1364,13 @@ private final  Map<String, String> _childRefAlias = new HashMap<>();
                             //this._syncState(); 
                         }
                     } catch (Exception e) {
-                        System.err.println("❌ [JReactive] Error en reloadDeferred para la variable '" + stateKey + "': " + e.getMessage());
+                        log.log(Level.ERROR, () -> "❌ [JReactive] Error en reloadDeferred para la variable '" + stateKey + "': " + e.getMessage());
                     }
                 });
                 return; // Encontramos el método y lanzamos el hilo, salimos del bucle.
             }
         }
-        System.err.println("⚠️ [JReactive] reloadDeferred: No se encontró ningún método con @Defer(\"" + stateKey + "\")");
+        log.log(Level.WARNING, () -> "⚠️ [JReactive] reloadDeferred: No se encontró ningún método con @Defer(\"" + stateKey + "\")");
     }
     
    
@@ -16,6 +16,10 @@ public final class ReactiveVar<T> implements java.io.Serializable {
     
     private transient java.lang.reflect.Type genericType;
     private transient String sharedTopic = null;
+    // @Shared(tickMs): 0 = sin conflación
+    private transient long sharedTickMs = 0;
+    // Hook del componente dueño para marcar su render como sucio (no es un listener: no lo borra clearListeners)
+    private transient volatile Runnable dirtyHook;
     public java.lang.reflect.Type getGenericType() { return genericType; }
     public void setGenericType(java.lang.reflect.Type genericType) { this.genericType = genericType; }
 
@@ -24,7 +28,9 @@ public final class ReactiveVar<T> implements java.io.Serializable {
     public T get() { return value; }
 
     public void set(T newValue) {
+        T old = this.value;
         this.value = newValue;
+        markDirtyIfChanged(old, newValue);
         
         if (!activeGuard.getAsBoolean()) {
             return;
@@ -37,8 +43,22 @@ public final class ReactiveVar<T> implements java.io.Serializable {
     }
     
     public void setSilent(T newValue) {
+        T old = this.value;
         this.value = newValue;
-        // 🛑 NO disparamos los listeners
+        // 🛑 NO disparamos los listeners (pero el HTML cacheado sí queda obsoleto)
+        markDirtyIfChanged(old, newValue);
+    }
+    
+    public void setDirtyHook(Runnable hook) { this.dirtyHook = hook; }
+
+    private void markDirtyIfChanged(T old, T newValue) {
+        Runnable hook = dirtyHook;
+        if (hook == null) return;
+        // Valores inmutables iguales no ensucian; un objeto mutable puede haber cambiado por dentro
+        boolean immutable = newValue == null || newValue instanceof String || newValue instanceof Number
+                || newValue instanceof Boolean || newValue instanceof Character || newValue instanceof Enum<?>;
+        if (immutable && java.util.Objects.equals(old, newValue)) return;
+        hook.run();
     }
     
     public void setActiveGuard(BooleanSupplier guard) {
@@ -57,4 +77,7 @@ public final class ReactiveVar<T> implements java.io.Serializable {
     
     public String getSharedTopic() { return sharedTopic; }
     public void setSharedTopic(String topic) { this.sharedTopic = topic; }
+
+    public long getSharedTickMs() { return sharedTickMs; }
+    public void setSharedTickMs(long tickMs) { this.sharedTickMs = Math.max(0, tickMs); }
 }
\ No newline at end of file
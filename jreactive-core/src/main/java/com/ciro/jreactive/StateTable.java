@@ -0,0 +1,174 @@
+package com.ciro.jreactive;
+
+import com.ciro.jreactive.annotations.Prop;
+import com.ciro.jreactive.annotations.Shared;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tablas de acceso por clase para la detección de cambios de {@link HtmlComponent}.
+ * <ul>
+ *   <li>{@link #read}: clave lógica ({@code @State("x")}, {@code @Bind}, {@code @Prop} o nombre del campo)
+ *       → {@link Field} ya accesible. Una búsqueda en un HashMap en vez de recorrer campos y anotaciones.</li>
+ *   <li>{@link #fingerprint}: huella de un valor para saber si cambió por dentro. Inmutables y records
+ *       usan su hashCode, {@link Tracked} la pareja exacta (instancia, versión), y el resto de POJOs una
+ *       lista de campos cacheada por clase (un solo {@code setAccessible} en la vida del servidor).</li>
+ * </ul>
+ * Se calculan una vez por clase con {@link ClassValue}, sin locks en el camino caliente.
+ */
+final class StateTable {
+
+    private static final ClassValue<StateTable> TABLES = new ClassValue<>() {
+        @Override protected StateTable computeValue(Class<?> type) { return new StateTable(type); }
+    };
+
+    private static final ClassValue<Field[]> POJO_FIELDS = new ClassValue<>() {
+        @Override protected Field[] computeValue(Class<?> type) { return pojoFields(type); }
+    };
+
+    // Límite de seguridad para grafos muy profundos
+    private static final int MAX_DEPTH = 32;
+
+    private final Map<String, Field> fields;
+    private final List<String> persistKeys;
+
+    private StateTable(Class<?> type) {
+        Map<String, Field> byKey = new HashMap<>();
+        List<String> persisted = new ArrayList<>();
+        // Misma prioridad que antes: la subclase le gana a la superclase
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                State st = f.getAnnotation(State.class);
+                Bind bd = f.getAnnotation(Bind.class);
+                Prop pr = f.getAnnotation(Prop.class);
+                Shared sh = f.getAnnotation(Shared.class);
+                if (st == null && bd == null && pr == null && sh == null) continue;
+
+                String key;
+                if (st != null && !st.value().isBlank()) key = st.value();
+                else if (bd != null && !bd.value().isBlank()) key = bd.value();
+                else if (pr != null && !pr.value().isBlank()) key = pr.value();
+                else key = f.getName();
+
+                f.setAccessible(true);
+                // @Shared vive en el broker, no en la página (los serializadores también lo ignoran)
+                if (byKey.putIfAbsent(key, f) == null && sh == null) persisted.add(key);
+            }
+        }
+        this.fields = Map.copyOf(byKey);
+        this.persistKeys = List.copyOf(persisted);
+    }
+
+    static StateTable of(Class<?> type) {
+        return TABLES.get(type);
+    }
+
+    /** Valor crudo del campo de {@code key}, o null si la clase no lo declara. */
+    Object read(Object component, String key) throws IllegalAccessException {
+        Field f = fields.get(key);
+        return f == null ? null : f.get(component);
+    }
+
+    /** Escribe el campo de {@code key}; false si la clase no lo declara. */
+    boolean write(Object component, String key, Object value) throws IllegalAccessException {
+        Field f = fields.get(key);
+        if (f == null) return false;
+        f.set(component, value);
+        return true;
+    }
+
+    /** Tipo declarado (con genéricos) del campo de {@code key}, o null si la clase no lo declara. */
+    Type type(String key) {
+        Field f = fields.get(key);
+        return f == null ? null : f.getGenericType();
+    }
+
+    /** Claves que se guardan con la página (todas menos {@code @Shared}). */
+    List<String> persistKeys() {
+        return persistKeys;
+    }
+
+    static boolean isImmutable(Object v) {
+        return v == null || v instanceof String || v instanceof Number || v instanceof Boolean
+                || v instanceof Character || v instanceof Enum<?>;
+    }
+
+    /** Huella de un valor no inmutable: si cambia (según {@code equals}), el valor cambió. */
+    static Object fingerprint(Object v) {
+        if (v instanceof Tracked t) return new TrackedPrint(t, t.version());
+        return deepHash(v, Collections.newSetFromMap(new IdentityHashMap<>()), 0);
+    }
+
+    /**
+     * Otra instancia o la misma con una escritura más. Referencia y versión por separado: mezclarlas
+     * en un int hacía que dos estados distintos pudieran dar la misma huella y el cambio se perdiera.
+     */
+    private static final class TrackedPrint {
+        private final Tracked ref;
+        private final long version;
+
+        TrackedPrint(Tracked ref, long version) {
+            this.ref = ref;
+            this.version = version;
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof TrackedPrint p && p.ref == ref && p.version == version;
+        }
+
+        @Override public int hashCode() {
+            return 31 * System.identityHashCode(ref) + Long.hashCode(version);
+        }
+    }
+
+    private static int deepHash(Object o, Set<Object> seen, int depth) {
+        if (o == null) return 0;
+        // Tipos básicos, colecciones (hash ya profundo) y records (hash por componentes)
+        if (isImmutable(o) || o instanceof Collection || o instanceof Map || o instanceof Record) {
+            return o.hashCode();
+        }
+        Class<?> type = o.getClass();
+        if (type.getName().startsWith("java.") || type.isArray() || depth > MAX_DEPTH) return o.hashCode();
+        if (!seen.add(o)) return 0; // ciclo: ya contado
+
+        Field[] fs = POJO_FIELDS.get(type);
+        if (fs == null) return o.hashCode();
+
+        int result = 1;
+        try {
+            for (Field f : fs) {
+                result = 31 * result + deepHash(f.get(o), seen, depth + 1);
+            }
+        } catch (IllegalAccessException e) {
+            return o.hashCode();
+        }
+        return result;
+    }
+
+    // null = no se pueden abrir sus campos (módulo cerrado): se usa su hashCode
+    private static Field[] pojoFields(Class<?> type) {
+        List<Field> out = new ArrayList<>();
+        try {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(f.getModifiers()) || f.isSynthetic() || f.getName().startsWith("this$")) continue;
+                    f.setAccessible(true);
+                    out.add(f);
+                }
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return out.toArray(new Field[0]);
+    }
+}
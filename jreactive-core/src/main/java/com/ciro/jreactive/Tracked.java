@@ -0,0 +1,21 @@
+package com.ciro.jreactive;
+
+/**
+ * DTO de {@code @State} que lleva su propio contador de versión.
+ * <p>
+ * ⚡ Con esto {@code _syncState} decide si cambió comparando (instancia, versión) en O(1),
+ * sin recorrer el grafo del objeto por reflexión. El DTO sube la versión en cada escritura
+ * (la "write barrier" la pone el setter):
+ * <pre>
+ * public class Cart implements Tracked {
+ *     private long v;
+ *     private List&lt;Item&gt; items = new ArrayList&lt;&gt;();
+ *     public void add(Item i) { items.add(i); v++; }
+ *     public long version() { return v; }
+ * }
+ * </pre>
+ * Si un cambio no sube la versión, el servidor no lo verá.
+ */
+public interface Tracked {
+    long version();
+}
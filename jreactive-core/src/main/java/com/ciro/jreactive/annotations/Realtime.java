@@ -0,0 +1,18 @@
+package com.ciro.jreactive.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca una página sensible a la latencia (juegos, cotizaciones...).
+ * Mientras esté abierta, las actualizaciones de su sesión salen por el broker en el acto,
+ * sin esperar a agruparse con las demás en el lote de salida.
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Realtime {
+}
@@ -15,4 +15,11 @@ import java.lang.annotation.Target;
 public @interface Shared {
     /** El nombre del tópico o sala (Ej: "chat-global", "mesa-poker-5") */
     String value() default "";
+
+    /**
+     * Conflación por tick, en ms (0 = cada escritura sale al momento). Con un tick, las escrituras
+     * del topic se pliegan en su estado y una vez por tick sale UNA actualización al broker, se guarda
+     * UNA copia maestra y se reparte UNA vez a las páginas del nodo. Para salas con muchos escritores.
+     */
+    long tickMs() default 0;
 }
\ No newline at end of file
@@ -5,8 +5,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ElementNode implements JrxNode {
     public final String tagName;
@@ -14,13 +13,19 @@ public class ElementNode implements JrxNode {
     public final List<JrxNode> children = new ArrayList<>();
     public final boolean isSelfClosing;
 
-    private static final Pattern VAR_PATTERN = Pattern.compile("\\{\\{\\s*([\\w#.-]+)\\s*}}");
+    // ⚡ Planes pre-tokenizados por VALOR de atributo (el mapa es mutable: scope, slots...)
+    private final transient Map<String, MustachePlan> attrPlans = new ConcurrentHashMap<>();
 
     public ElementNode(String tagName, boolean isSelfClosing) {
         this.tagName = tagName;
         this.isSelfClosing = isSelfClosing;
     }
 
+    public MustachePlan attrPlan(String value) {
+        if (value == null || !value.contains("{{")) return MustachePlan.LITERAL;
+        return attrPlans.computeIfAbsent(value, MustachePlan::compile);
+    }
+
     @Override
     public void renderRaw(StringBuilder sb) {
     	if ("slot".equalsIgnoreCase(tagName)) {
@@ -103,25 +108,20 @@ public class ElementNode implements JrxNode {
     }
 
     private String resolveString(String input, TemplateContext ctx) {
-        Matcher m = VAR_PATTERN.matcher(input);
-        StringBuilder res = new StringBuilder();
+        MustachePlan plan = attrPlan(input);
+        if (plan.isLiteral()) return input;
+
+        StringBuilder res = new StringBuilder(input.length() + 16);
         String ns = ctx.getComponent().getId() + ".";
         
-        while (m.find()) {
-            String localKey = m.group(1);
-            
+        for (int i = 0; i < plan.size(); i++) {
+            res.append(plan.chunk(i));
+
             // 🧹 Limpieza del Namespace para el backend
-            if (!ns.isEmpty() && localKey.startsWith(ns)) {
-                localKey = localKey.substring(ns.length());
-            }
-            if (localKey.startsWith("this.")) {
-                localKey = localKey.substring(5);
-            }
-            
-            Object resolved = ctx.resolve(localKey);
-            m.appendReplacement(res, resolved == null ? "" : Matcher.quoteReplacement(String.valueOf(resolved)));
+            Object resolved = ctx.resolve(plan.localKey(i, ns));
+            if (resolved != null) res.append(resolved);
         }
-        m.appendTail(res);
+        res.append(plan.chunk(plan.size()));
         return res.toString();
     }
 
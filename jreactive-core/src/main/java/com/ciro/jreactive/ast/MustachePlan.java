@@ -0,0 +1,121 @@
+package com.ciro.jreactive.ast;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Template de texto/atributo pre-tokenizado: chunk0 {{key0}} chunk1 {{key1}} ... chunkN.
+ *
+ * ⚡ Se calcula UNA vez por nodo (los nodos viven en el AST_CACHE de cada clase),
+ * así el render ya no vuelve a pasar el regex ni hace String.replace por binding.
+ */
+public final class MustachePlan {
+
+    private static final Pattern VAR_PATTERN = Pattern.compile("\\{\\{\\s*([\\w#.-]+)\\s*}}");
+
+    /** Plan de un texto sin {{...}}: se emite tal cual. */
+    public static final MustachePlan LITERAL = new MustachePlan(new String[0], new String[0], new String[0]);
+
+    private final String[] chunks;   // N+1 literales (vacío si LITERAL)
+    private final String[] tokens;   // token original, ej: "{{ user.name }}"
+    private final String[] keys;     // ruta completa, ej: "user.name"
+    private final String[] roots;    // primer segmento, ej: "user"
+    private final String[] locals;   // ruta sin "this."
+
+    private MustachePlan(String[] chunks, String[] tokens, String[] keys) {
+        this.chunks = chunks;
+        this.tokens = tokens;
+        this.keys = keys;
+        this.roots = new String[keys.length];
+        this.locals = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            String k = keys[i];
+            int dot = k.indexOf('.');
+            roots[i] = dot < 0 ? k : k.substring(0, dot);
+            locals[i] = k.startsWith("this.") ? k.substring(5) : k;
+        }
+    }
+
+    public static MustachePlan compile(String text) {
+        if (text == null || !text.contains("{{")) return LITERAL;
+
+        List<String> chunks = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        Matcher m = VAR_PATTERN.matcher(text);
+        int last = 0;
+        while (m.find()) {
+            chunks.add(text.substring(last, m.start()));
+            tokens.add(m.group(0));
+            keys.add(m.group(1));
+            last = m.end();
+        }
+        if (keys.isEmpty()) return LITERAL;
+        chunks.add(text.substring(last));
+
+        return new MustachePlan(
+                chunks.toArray(String[]::new),
+                tokens.toArray(String[]::new),
+                keys.toArray(String[]::new));
+    }
+
+    public boolean isLiteral() { return keys.length == 0; }
+    public int size()          { return keys.length; }
+    public String chunk(int i) { return chunks[i]; }
+    public String token(int i) { return tokens[i]; }
+    public String key(int i)   { return keys[i]; }
+    public String root(int i)  { return roots[i]; }
+
+    /**
+     * Clave local para resolver contra el estado del componente
+     * (sin namespace del propio componente ni "this.").
+     */
+    public String localKey(int i, String ns) {
+        if (ns != null && !ns.isEmpty() && keys[i].startsWith(ns)) {
+            String k = keys[i].substring(ns.length());
+            return k.startsWith("this.") ? k.substring(5) : k;
+        }
+        return locals[i];
+    }
+
+    /**
+     * ¿El binding i se reescribe como {{ns + key}}? (mismas reglas que el namespacing del motor:
+     * ni alias de each, ni "this", ni ya prefijado, y debe ser un binding conocido del componente).
+     */
+    public boolean isNamespaced(int i, String ns, Map<String, ?> bindings, Set<String> aliases) {
+        if (ns == null || ns.isEmpty()) return false;
+        String k = keys[i];
+        if (aliases != null && aliases.contains(roots[i])) return false;
+        if (k.equals("this") || k.startsWith(ns)) return false;
+        return bindings.containsKey(roots[i]);
+    }
+
+    /** Texto original con los bindings del componente prefijados por su namespace. */
+    public void appendNamespaced(StringBuilder out, String original, String ns,
+                                 Map<String, ?> bindings, Set<String> aliases) {
+        if (isLiteral() || ns == null || ns.isEmpty()) {
+            out.append(original);
+            return;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            out.append(chunks[i]);
+            if (isNamespaced(i, ns, bindings, aliases)) {
+                out.append("{{").append(ns).append(keys[i]).append("}}");
+            } else {
+                out.append(tokens[i]);
+            }
+        }
+        out.append(chunks[keys.length]);
+    }
+
+    public String namespaced(String original, String ns, Map<String, ?> bindings, Set<String> aliases) {
+        if (isLiteral() || ns == null || ns.isEmpty()) return original;
+        StringBuilder sb = new StringBuilder(original.length() + 16 * keys.length);
+        appendNamespaced(sb, original, ns, bindings, aliases);
+        return sb.toString();
+    }
+}
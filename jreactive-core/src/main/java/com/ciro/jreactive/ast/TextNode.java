@@ -1,17 +1,29 @@
 package com.ciro.jreactive.ast;
 
 import com.ciro.jreactive.template.TemplateContext;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class TextNode implements JrxNode {
     public String text;
-    private static final Pattern VAR_PATTERN = Pattern.compile("\\{\\{\\s*([\\w#.-]+)\\s*}}");
+
+    // ⚡ Plan pre-tokenizado (se recalcula solo si alguien cambia 'text')
+    private transient volatile Planned planned;
+
+    private record Planned(String text, MustachePlan plan) {}
 
     public TextNode(String text) {
         this.text = text;
     }
 
+    public MustachePlan plan() {
+        String t = this.text;
+        Planned p = this.planned;
+        if (p == null || p.text() != t) {
+            p = new Planned(t, MustachePlan.compile(t));
+            this.planned = p;
+        }
+        return p.plan();
+    }
+
     @Override
     public void renderRaw(StringBuilder sb) {
         sb.append(text);
@@ -27,34 +39,31 @@ public class TextNode implements JrxNode {
         // 🔥 1. Jsoup inyecta el comentario incondicionalmente, nosotros también.
         sb.append("");
 
-        String currentVal = text;
-        Matcher m = VAR_PATTERN.matcher(text);
+        MustachePlan plan = plan();
         String ns = ctx.getComponent().getId() + ".";
+        StringBuilder current = new StringBuilder(text.length() + 16);
+
+        for (int i = 0; i < plan.size(); i++) {
+            current.append(plan.chunk(i));
 
-        while (m.find()) {
-            String token = m.group(0);
-            String fullKey = m.group(1);
-            
             // 🧹 2. Limpiar el Namespace para que la memoria del servidor lo reconozca
-            String localKey = fullKey;
-            if (!ns.isEmpty() && localKey.startsWith(ns)) {
-                localKey = localKey.substring(ns.length());
-            }
-            if (localKey.startsWith("this.")) {
-                localKey = localKey.substring(5);
-            }
+            String localKey = plan.localKey(i, ns);
 
             // 🔍 3. Buscar en la memoria
             Object resolvedValue = ctx.resolve(localKey);
             
             if (resolvedValue != null) {
-                currentVal = currentVal.replace(token, com.ciro.jreactive.HtmlEscaper.escape(String.valueOf(resolvedValue)));
-            } else if (ctx.getComponent().getRawBindings().containsKey(localKey.split("\\.")[0])) {
-                // Si la variable existe pero su valor actual es nulo, la borramos de la vista inicial
-                currentVal = currentVal.replace(token, "");
+                current.append(com.ciro.jreactive.HtmlEscaper.escape(String.valueOf(resolvedValue)));
+            } else if (!ctx.getComponent().getRawBindings().containsKey(localKey.split("\\.")[0])) {
+                // Si no existe (es del store global), la dejamos intacta para el JS
+                current.append(plan.token(i));
             }
-            // Si no existe (es del store global), la dejamos intacta para el JS
+            // Si la variable existe pero su valor actual es nulo, la borramos de la vista inicial
         }
+        if (!plan.isLiteral()) current.append(plan.chunk(plan.size()));
+        else current.append(text);
+
+        String currentVal = current.toString();
 
         // 🛡️ 4. Anti-Amnesia del DOM: Si el texto quedó vacío, metemos un char invisible.
         if (currentVal.isEmpty()) {
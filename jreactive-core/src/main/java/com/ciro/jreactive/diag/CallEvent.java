@@ -0,0 +1,30 @@
+package com.ciro.jreactive.diag;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Una invocación HTTP de {@code @Call}, de la resolución del método a la respuesta. */
+@Name("jreactive.Call")
+@Label("Call")
+@Category("JReactive")
+@Description("Invocación de un método @Call y su resultado")
+public final class CallEvent extends jdk.jfr.Event {
+
+    public static final String OK = "ok";
+    public static final String NOT_FOUND = "not_found";
+    public static final String RATE_LIMIT = "rate_limit";
+    public static final String VALIDATION = "validation";
+    public static final String ERROR = "error";
+
+    @Label("Componente")
+    public String component;
+
+    @Label("Método")
+    public String method;
+
+    @Label("Resultado")
+    @Description("ok, not_found, rate_limit, validation o error")
+    public String outcome;
+}
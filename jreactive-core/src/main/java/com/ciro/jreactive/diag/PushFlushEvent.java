@@ -0,0 +1,44 @@
+package com.ciro.jreactive.diag;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Un lote enviado por WebSocket. Con backpressure es el flush de UNA sesión y dura hasta que el
+ * transporte confirma el envío; sin backpressure es el reparto de un frame a todas las sesiones.
+ */
+@Name("jreactive.PushFlush")
+@Label("Push Flush")
+@Category("JReactive")
+@Description("Envío de un lote de frames a una sesión WebSocket")
+public final class PushFlushEvent extends jdk.jfr.Event {
+
+    @Label("Sesión")
+    @Description("Id de la sesión; null si el frame se repartió a todas")
+    public String session;
+
+    @Label("Sesiones")
+    public int sessions;
+
+    @Label("Frames")
+    public int frames;
+
+    @Label("Tamaño")
+    @DataAmount
+    public long bytes;
+
+    @Label("Compacto")
+    @Description("true si el lote viajó en el protocolo CBOR")
+    public boolean compact;
+
+    @Label("Ventana")
+    @Timespan(Timespan.MILLISECONDS)
+    public long window;
+
+    @Label("Fallido")
+    public boolean failed;
+}
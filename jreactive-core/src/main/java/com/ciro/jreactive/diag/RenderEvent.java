@@ -0,0 +1,26 @@
+package com.ciro.jreactive.diag;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Un render real de un componente (los aciertos de caché no generan evento). */
+@Name("jreactive.Render")
+@Label("Render")
+@Category("JReactive")
+@Description("Render de un componente: completo o solo de sus hijos sucios")
+public final class RenderEvent extends jdk.jfr.Event {
+
+    @Label("Componente")
+    public String component;
+
+    @Label("HTML")
+    @DataAmount
+    public long bytes;
+
+    @Label("Parcial")
+    @Description("true si solo se re-renderizaron hijos sucios sobre fragmentos cacheados")
+    public boolean partial;
+}
@@ -0,0 +1,34 @@
+package com.ciro.jreactive.diag;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Un guardado de página en un {@code StateStore} ({@code put} o {@code replace} optimista); cada capa emite el suyo. */
+@Name("jreactive.StorePut")
+@Label("Store Put")
+@Category("JReactive")
+@Description("Persistencia del estado de una página")
+public final class StorePutEvent extends jdk.jfr.Event {
+
+    @Label("Store")
+    public String store;
+
+    @Label("Componente")
+    public String component;
+
+    @Label("CAS")
+    @Description("true si fue un replace con versión esperada")
+    public boolean cas;
+
+    @Label("Aplicado")
+    @Description("false si el replace perdió la carrera de versiones")
+    public boolean applied = true;
+
+    @Label("Tamaño")
+    @Description("Bytes serializados; -1 si el store guarda el objeto sin serializar")
+    @DataAmount
+    public long bytes = -1;
+}
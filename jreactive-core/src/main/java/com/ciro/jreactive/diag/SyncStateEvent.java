@@ -0,0 +1,23 @@
+package com.ciro.jreactive.diag;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Una pasada de {@code _syncState} sobre un componente (la duración incluye a sus hijos). */
+@Name("jreactive.SyncState")
+@Label("Sync State")
+@Category("JReactive")
+@Description("Detección de cambios de @State de un componente")
+public final class SyncStateEvent extends jdk.jfr.Event {
+
+    @Label("Componente")
+    public String component;
+
+    @Label("Claves revisadas")
+    public int keys;
+
+    @Label("Claves cambiadas")
+    public int changed;
+}
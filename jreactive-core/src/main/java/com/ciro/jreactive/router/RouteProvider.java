@@ -7,5 +7,13 @@ public interface RouteProvider {
     // Devuelve el componente y los params extraídos (ej: id=5)
     Result resolve(String path);
 
+    /**
+     * Solo los params de la URL ({@code /users/{id}} → id), sin crear el componente.
+     * Los registros del framework lo resuelven con su {@link RouteTrie}.
+     */
+    default Map<String, String> params(String path) {
+        return resolve(path).params();
+    }
+
     record Result(HtmlComponent component, Map<String, String> params) {}
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.ciro.jreactive.smart;
 
+import java.lang.System.Logger.Level;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -9,6 +10,8 @@ import java.util.function.Predicate;
 
 public class SmartList<E> extends ArrayList<E> {
 
+    private static final System.Logger log = System.getLogger(SmartList.class.getName());
+
     // CopyOnWriteArrayList protege la lista de listeners sin necesidad de locks
     private final transient List<Consumer<Change>> listeners = new CopyOnWriteArrayList<>();
 
@@ -28,7 +31,7 @@ public class SmartList<E> extends ArrayList<E> {
         if (muted || listeners.isEmpty()) return;
         Change c = new Change(op, index, item);
         for (Consumer<Change> l : listeners) {
-            try { l.accept(c); } catch (Exception e) { e.printStackTrace(); }
+            try { l.accept(c); } catch (Exception e) { log.log(Level.WARNING, "⚠️ [JReactive] Error en un listener de SmartList", e); }
         }
     }
 
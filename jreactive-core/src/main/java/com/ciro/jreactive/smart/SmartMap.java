@@ -1,5 +1,6 @@
 package com.ciro.jreactive.smart;
 
+import java.lang.System.Logger.Level;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
@@ -8,6 +9,8 @@ import java.util.function.Consumer;
 
 public class SmartMap<K, V> extends HashMap<K, V> {
 
+    private static final System.Logger log = System.getLogger(SmartMap.class.getName());
+
     private final transient List<Consumer<Change>> listeners = new CopyOnWriteArrayList<>();
 
     public SmartMap() { super(); }
@@ -26,7 +29,7 @@ public class SmartMap<K, V> extends HashMap<K, V> {
         if (muted || listeners.isEmpty()) return;
         Change c = new Change(op, key, value);
         for (Consumer<Change> l : listeners) {
-            try { l.accept(c); } catch (Exception e) { e.printStackTrace(); }
+            try { l.accept(c); } catch (Exception e) { log.log(Level.WARNING, "⚠️ [JReactive] Error en un listener de SmartMap", e); }
         }
     }
 
@@ -1,5 +1,6 @@
 package com.ciro.jreactive.smart;
 
+import java.lang.System.Logger.Level;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -8,6 +9,8 @@ import java.util.function.Consumer;
 
 public class SmartSet<E> extends HashSet<E> {
 
+    private static final System.Logger log = System.getLogger(SmartSet.class.getName());
+
     private final transient List<Consumer<Change>> listeners = new CopyOnWriteArrayList<>();
 
     public SmartSet() { super(); }
@@ -26,7 +29,7 @@ public class SmartSet<E> extends HashSet<E> {
         if (muted || listeners.isEmpty()) return;
         Change c = new Change(op, item);
         for (Consumer<Change> l : listeners) {
-            try { l.accept(c); } catch (Exception e) { e.printStackTrace(); }
+            try { l.accept(c); } catch (Exception e) { log.log(Level.WARNING, "⚠️ [JReactive] Error en un listener de SmartSet", e); }
         }
     }
 
@@ -3,8 +3,11 @@ package com.ciro.jreactive.spi;
 import com.ciro.jreactive.HtmlComponent;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.lang.System.Logger.Level;
 
 public class AccessorRegistry {
+
+    private static final System.Logger log = System.getLogger(AccessorRegistry.class.getName());
     
     // Cache de accessors por clase
     private static final Map<Class<?>, ComponentAccessor<?>> cache = new ConcurrentHashMap<>();
@@ -36,8 +39,8 @@ public class AccessorRegistry {
 
         // 2. 🔥 LAZINESS: Intentar cargar la clase generada dinámicamente
         // Si tienes "UserPage", buscamos "UserPage__Accessor"
+        String accessorClassName = clazz.getName() + "__Accessor";
         try {
-            String accessorClassName = clazz.getName() + "__Accessor";
             
             // Al cargar la clase, se ejecuta su bloque static {}, que llama a register()
             Class.forName(accessorClassName); 
@@ -46,7 +49,7 @@ public class AccessorRegistry {
             acc = cache.get(clazz);
             
             if (acc != null) {
-                System.out.println("⚡ [AOT] Accessor cargado y activado: " + accessorClassName);
+                log.log(Level.DEBUG, () -> "⚡ [AOT] Accessor cargado y activado: " + accessorClassName);
                 return (ComponentAccessor<T>) acc;
             }
         } catch (ClassNotFoundException e) {
@@ -54,7 +57,8 @@ public class AccessorRegistry {
             // Guardamos NO_OP para no intentar cargarlo mil veces y matar el rendimiento
             cache.put(clazz, NO_OP);
         } catch (Exception e) {
-            e.printStackTrace(); // Error raro (ej: fallo en static block)
+            // Error raro (ej: fallo en static block)
+            log.log(Level.ERROR, () -> "❌ No se pudo cargar el Accessor " + accessorClassName, e);
         }
 
         // Si llegamos aquí, usamos el modo lento (Reflection)
@@ -17,7 +17,9 @@ public interface ComponentAccessor<T extends HtmlComponent> {
     // Reemplaza a Method.invoke()
     Object call(T component, String method, Object... args);
     
-    default String renderStatic(T component) { return null; }
+    // 🔥 SSR compilado por el APT: vuelca el template directo en 'out' (ns = "" en el root).
+    // Devuelve false si el template no es compilable y hay que usar el intérprete AST.
+    default boolean renderStatic(T component, String ns, StringBuilder out) { return false; }
     
     default java.util.List<com.ciro.jreactive.ast.JrxNode> getAst() { return null; }
     default String getScopedCss() { return null; }
@@ -0,0 +1,51 @@
+package com.ciro.jreactive.spi;
+
+import java.util.Objects;
+
+/**
+ * Punto de enganche para métricas (Micrometer, Prometheus, etc.) sin que el core dependa de ninguna.
+ * <p>
+ * Los puntos calientes llaman a {@link #get()}; por defecto es {@link #NOOP} y no cuesta más que una
+ * lectura volátil. El starter de Spring instala su {@code Recorder} si hay un {@code MeterRegistry}.
+ * Los gauges (hubs, sinks, colas) no pasan por aquí: se leen bajo demanda de cada componente.
+ */
+public final class JrxMetrics {
+
+    public interface Recorder {
+        /** Render de un componente (incluye a los hijos que re-renderizó). */
+        default void render(Class<?> component, long nanos, boolean partial) {}
+
+        /**
+         * Invocación de un {@code @Call}; {@code component} (nombre de clase) es null si no se resolvió.
+         * {@code outcome} es una de las constantes de {@link com.ciro.jreactive.diag.CallEvent}.
+         */
+        default void call(String component, String method, String outcome, long nanos) {}
+
+        /** Lectura de un {@code StateStore} ({@code store} = "ram", "redis"...). */
+        default void storeGet(String store, boolean hit, long nanos) {}
+
+        /** Escritura ({@code put} o {@code replace}) en un {@code StateStore}. */
+        default void storePut(String store, long nanos) {}
+
+        /** Tiempo que una petición esperó en la cola serial de su página, y cuántas había delante. */
+        default void queueWait(long nanos, int backlog) {}
+    }
+
+    public static final Recorder NOOP = new Recorder() {};
+
+    private static volatile Recorder recorder = NOOP;
+
+    public static Recorder get() {
+        return recorder;
+    }
+
+    public static void install(Recorder r) {
+        recorder = Objects.requireNonNull(r, "recorder must not be null");
+    }
+
+    public static void reset() {
+        recorder = NOOP;
+    }
+
+    private JrxMetrics() {}
+}
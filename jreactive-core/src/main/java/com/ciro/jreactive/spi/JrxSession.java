@@ -1,9 +1,32 @@
 package com.ciro.jreactive.spi;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface JrxSession {
     String getId();
     boolean isOpen();
     void sendText(String json);
+    // ⚡ Protocolo compacto (CBOR): el transporte declara aquí si lleva frames binarios.
+    // Si no, la sesión se negocia en JSON aunque el cliente pida ?proto=cbor, y nadie le manda binarios.
+    default boolean supportsBinary() { return false; }
+    default void sendBinary(java.nio.ByteBuffer data) {
+        sendBinaryAsync(data);
+    }
+    // ⚡ Envío sin bloquear: el future se completa cuando el frame salió por el socket (o falló).
+    // Por defecto envía en línea; los adaptadores reales encolan en su JrxSendQueue.
+    default CompletableFuture<Void> sendTextAsync(String json) {
+        try {
+            sendText(json);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    // Sin frames binarios: el envío falla en el future (como un error de socket), no lanza
+    default CompletableFuture<Void> sendBinaryAsync(java.nio.ByteBuffer data) {
+        return CompletableFuture.failedFuture(
+                new IllegalStateException("Este transporte no admite frames binarios: la sesión debe ir en JSON"));
+    }
     void close();
     // Para guardar atributos (como 'path' o 'delegate')
     void setAttr(String key, Object val);
@@ -0,0 +1,198 @@
+package com.ciro.jreactive.spi;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.HtmlEscaper;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Runtime mínimo que usan los {@code renderStatic} generados por el APT.
+ *
+ * 🔥 Replica EXACTAMENTE la salida del intérprete AST (namespacing de {{...}},
+ * comentarios {@code <!--jrx:...-->}, escapado de atributos y scope CSS),
+ * pero sobre segmentos pre-partidos en compilación: sin regex ni re-parseo.
+ * El APT también trae partido el segmento raíz de cada clave ({@code user} de {@code user.name}).
+ * <p>
+ * ⚡ Los dos builders de trabajo (template namespaced y valor resuelto) son por hilo y se
+ * reutilizan nodo tras nodo: ningún nodo asigna memoria salvo la propia salida.
+ */
+public final class StaticRenderSupport {
+
+    private StaticRenderSupport() {}
+
+    // Más grande que esto no se guarda: un texto enorme no deja el builder inflado para siempre
+    private static final int MAX_SCRATCH = 16 * 1024;
+
+    private static final ThreadLocal<StringBuilder[]> SCRATCH =
+            ThreadLocal.withInitial(() -> new StringBuilder[] { new StringBuilder(256), new StringBuilder(256) });
+
+    /**
+     * Si alguna clave del template ya empieza por el namespace del componente, el intérprete
+     * la "limpia" antes de resolver; ese caso raro lo dejamos al intérprete (fallback).
+     */
+    public static boolean clashesWithNamespace(String[] keys, String ns) {
+        if (ns == null || ns.isEmpty()) return false;
+        for (String k : keys) {
+            if (k.startsWith(ns)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Resolución equivalente a {@code TemplateContext.resolve} en modo AOT
+     * (incluye el soporte de {@code .size} / {@code .length}).
+     */
+    public static <T extends HtmlComponent> Object resolve(ComponentAccessor<T> acc, T t, String path) {
+        Object val = acc.read(t, path);
+        boolean sized = path.endsWith(".size") || path.endsWith(".length");
+        if (val != null) return sized ? size(val) : val;
+        if (sized) {
+            return size(acc.read(t, path.substring(0, path.lastIndexOf('.'))));
+        }
+        return null;
+    }
+
+    /**
+     * Text node con {{...}}. {@code chunks} tiene un elemento más que {@code tokens}:
+     * chunk0 token0 chunk1 token1 ... chunkN.
+     */
+    public static void appendText(StringBuilder out, HtmlComponent t, String ns,
+                                  String[] chunks, String[] tokens, String[] keys, String[] roots, Object... values) {
+        StringBuilder[] scratch = SCRATCH.get();
+        StringBuilder tpl = scratch[0];
+        StringBuilder resolved = scratch[1];
+        try {
+            boolean fullyResolved = fill(tpl, resolved, t, ns, chunks, tokens, keys, roots, values);
+
+            if (fullyResolved && resolved.compareTo(tpl) != 0) {
+                out.append("<!--jrx:");
+                appendComment(out, tpl);
+                out.append("-->");
+                if (resolved.isEmpty()) out.append("\u200B");
+                else out.append(resolved);
+            } else {
+                out.append(tpl);
+            }
+        } finally {
+            release(scratch);
+        }
+    }
+
+    /** Atributo con {{...}}: valor resuelto si TODO resuelve; si no, el template namespaced. */
+    public static void appendAttr(StringBuilder out, HtmlComponent t, String ns, String key,
+                                  String[] chunks, String[] tokens, String[] keys, String[] roots, Object... values) {
+        StringBuilder[] scratch = SCRATCH.get();
+        StringBuilder tpl = scratch[0];
+        StringBuilder resolved = scratch[1];
+        try {
+            boolean fullyResolved = fill(tpl, resolved, t, ns, chunks, tokens, keys, roots, values);
+            writeAttr(out, key, fullyResolved && resolved.indexOf("{{") < 0 ? resolved : tpl);
+        } finally {
+            release(scratch);
+        }
+    }
+
+    /** {@code name="campo"}: se namespacéa solo si {@code root} (su primer segmento) es un binding del componente. */
+    public static void appendNameAttr(StringBuilder out, HtmlComponent t, String ns, String val, String root) {
+        if (ns != null && !ns.isEmpty() && !val.startsWith(ns) && t.getRawBindings().containsKey(root)) {
+            val = ns + val;
+        }
+        writeAttr(out, "name", val);
+    }
+
+    /** class de un elemento raíz + scope CSS del componente (igual que addScopeToRootElements). */
+    public static void appendScopedClass(StringBuilder out, String cls, String scopeId) {
+        if (scopeId != null && !scopeId.isBlank()) {
+            if (cls == null || cls.isEmpty()) cls = scopeId;
+            else if (!cls.contains(scopeId)) cls = cls + " " + scopeId;
+        }
+        if (cls == null) return;
+        writeAttr(out, "class", cls);
+    }
+
+    public static String escapeAttr(String s) {
+        if (s == null) return "";
+        return s.replace("&", "&amp;")
+                .replace("\"", "&quot;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;");
+    }
+
+    // ------------------------------------------------------------
+
+    private static boolean fill(StringBuilder tpl, StringBuilder resolved, HtmlComponent t, String ns,
+                                String[] chunks, String[] tokens, String[] keys, String[] roots, Object[] values) {
+        boolean namespaced = ns != null && !ns.isEmpty();
+        boolean fullyResolved = true;
+        Map<String, ?> bindings = namespaced ? t.getRawBindings() : null;
+
+        for (int i = 0; i < tokens.length; i++) {
+            tpl.append(chunks[i]);
+            resolved.append(chunks[i]);
+
+            String key = keys[i];
+            if (namespaced && !key.equals("this") && bindings.containsKey(roots[i])) {
+                tpl.append("{{").append(ns).append(key).append("}}");
+            } else {
+                tpl.append(tokens[i]);
+            }
+
+            Object v = values[i];
+            if (v != null) {
+                resolved.append(HtmlEscaper.escape(String.valueOf(v)));
+            } else {
+                fullyResolved = false;
+            }
+        }
+        tpl.append(chunks[tokens.length]);
+        resolved.append(chunks[tokens.length]);
+        return fullyResolved;
+    }
+
+    private static void release(StringBuilder[] scratch) {
+        for (int i = 0; i < scratch.length; i++) {
+            if (scratch[i].capacity() > MAX_SCRATCH) scratch[i] = new StringBuilder(256);
+            else scratch[i].setLength(0);
+        }
+    }
+
+    // Un "--" cerraría el comentario antes de tiempo
+    private static void appendComment(StringBuilder out, CharSequence tpl) {
+        int n = tpl.length();
+        for (int i = 0; i < n; i++) {
+            char c = tpl.charAt(i);
+            if (c == '-' && i + 1 < n && tpl.charAt(i + 1) == '-') {
+                out.append('—');
+                i++;
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    private static void writeAttr(StringBuilder out, String key, CharSequence val) {
+        out.append(' ').append(key);
+        if (val == null || val.isEmpty()) return;
+        out.append("=\"");
+        int n = val.length();
+        for (int i = 0; i < n; i++) {
+            char c = val.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                default -> out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static int size(Object o) {
+        if (o instanceof Collection<?> c) return c.size();
+        if (o instanceof Map<?, ?> m) return m.size();
+        if (o instanceof String s) return s.length();
+        return 0;
+    }
+}
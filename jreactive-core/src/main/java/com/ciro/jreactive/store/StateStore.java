@@ -8,4 +8,10 @@ public interface StateStore {
     boolean replace(String sessionId, String path, HtmlComponent component, long expectedVersion);
     void remove(String sessionId, String path);
     void removeSession(String sessionId);
+
+    /**
+     * Pide escribir ya lo pendiente de la página (cierre del WebSocket, desalojo del hub).
+     * Solo tiene sentido en stores que difieren escrituras; el resto no hace nada.
+     */
+    default void flush(String sessionId, String path) {}
 }
\ No newline at end of file
@@ -5,8 +5,12 @@ import com.ciro.jreactive.ReactiveVar;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.lang.System.Logger.Level;
 
 public class TemplateContext {
+
+    private static final System.Logger log = System.getLogger(TemplateContext.class.getName());
+
     private final Map<String, Object> localVars;
     private final TemplateContext parent;
     private final HtmlComponent component; 
@@ -58,7 +62,6 @@ public class TemplateContext {
         @SuppressWarnings({"rawtypes", "unchecked"})
         com.ciro.jreactive.spi.ComponentAccessor acc = com.ciro.jreactive.spi.AccessorRegistry.get(component.getClass());
         if (acc != null) {
-        	System.out.println("🚀 Leyendo [" + path + "] via AOT en " + component.getClass().getSimpleName());
             Object val = acc.read(component, path);
             if (val != null) return checkSize(val, path);
             
@@ -77,7 +80,7 @@ public class TemplateContext {
         ReactiveVar<?> rx = component.getRawBindings().get(root);
         if (rx != null) {
             if (WARNED_CLASSES.add(component.getClass())) {
-                System.err.println("⚠️ [JReactive] ADVERTENCIA: Ejecutando '" + component.getClass().getSimpleName() + "' en modo Reflexión (Lento). Activa el procesador AOT para producción.");
+                log.log(Level.WARNING, () -> "⚠️ [JReactive] ADVERTENCIA: Ejecutando '" + component.getClass().getSimpleName() + "' en modo Reflexión (Lento). Activa el procesador AOT para producción.");
             }
 
             Object value = rx.get();
@@ -162,7 +165,7 @@ public class TemplateContext {
                 return f.get(obj);
             }
         } catch (Exception e) {
-        	System.err.println("⚠️ [JReactive] Error accediendo a propiedad '" + fieldName + "' en objeto " + obj.getClass().getSimpleName() + ": " + e.getMessage());
+        	log.log(Level.WARNING, () -> "⚠️ [JReactive] Error accediendo a propiedad '" + fieldName + "' en objeto " + obj.getClass().getSimpleName() + ": " + e.getMessage());
         }
         return null;
     }
@@ -185,7 +188,7 @@ public class TemplateContext {
         try { return c.getMethod(isser); } catch (Exception e) { /* Ignorado por diseño (fallback) */ }
         
         // 🔥 Si llegamos aquí, ninguno funcionó. Dejamos un registro ligero.
-        System.out.println("ℹ️ [JReactive] No se encontró método (getter/record) para '" + name + "' en " + c.getSimpleName());
+        log.log(Level.DEBUG, () -> "ℹ️ [JReactive] No se encontró método (getter/record) para '" + name + "' en " + c.getSimpleName());
         return null;
     }
     
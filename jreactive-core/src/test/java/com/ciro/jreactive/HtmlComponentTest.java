@@ -130,6 +130,54 @@ class HtmlComponentTest {
             assertThat(deltas).containsKey("pojoVal");
             assertThat(((TestData) deltas.get("pojoVal")).id).isEqualTo("T2");
         }
+
+        @Test
+        @DisplayName("Un POJO Tracked solo cambia cuando sube su versión")
+        void testTrackedDeltaDetection() {
+            TrackedComponent comp = new TrackedComponent();
+            comp._captureStateSnapshot();
+
+            comp.carrito.items.add("sin-version"); // escritura sin write barrier: no se ve
+            assertThat(comp._getStateDeltas()).isEmpty();
+
+            comp.carrito.add("pan");
+            assertThat(comp._getStateDeltas()).containsOnlyKeys("carrito");
+        }
+
+        @Test
+        @DisplayName("Un salto de versión de Tracked no debe confundirse con la versión anterior")
+        void testTrackedVersionNoCollision() {
+            TrackedComponent comp = new TrackedComponent();
+            comp._captureStateSnapshot();
+
+            // 0 y 2^32 + 1 daban la misma huella al plegar la versión en un int
+            comp.carrito.v = (1L << 32) + 1;
+            assertThat(comp._getStateDeltas()).containsOnlyKeys("carrito");
+        }
+
+        @Test
+        @DisplayName("_syncState debe tomar el valor nuevo como base y no repetir el cambio")
+        void testSyncUpdatesBaseline() {
+            component._captureStateSnapshot();
+            component.texto = "Cambiado";
+
+            component._syncState();
+
+            assertThat(component.getRawBindings().get("texto").get()).isEqualTo("Cambiado");
+            assertThat(component._getStateDeltas()).isEmpty();
+        }
+    }
+
+    static class Carrito implements Tracked {
+        final java.util.List<String> items = new java.util.ArrayList<>();
+        long v;
+        void add(String item) { items.add(item); v++; }
+        @Override public long version() { return v; }
+    }
+
+    static class TrackedComponent extends HtmlComponent {
+        @State Carrito carrito = new Carrito();
+        @Override protected String template() { return "<dummy/>"; }
     }
 
     @Nested
@@ -213,6 +261,59 @@ class HtmlComponentTest {
         }
     }
     
+    @Nested
+    @DisplayName("Tests del Índice de @Call (Dispatch sin render)")
+    class CallIndexTests {
+
+        static class Hoja extends HtmlComponent {
+            @com.ciro.jreactive.annotations.Call public void tocar() {}
+            @Override protected String template() { return ""; }
+        }
+
+        static class Raiz extends HtmlComponent {
+            @com.ciro.jreactive.annotations.Call public void guardar() {}
+            @Override protected String template() { return ""; }
+        }
+
+        @Test
+        @DisplayName("Debe resolver la clave corta de la raíz y la clave cualificada de los hijos")
+        void testResolveShortAndQualified() {
+            Raiz raiz = new Raiz();
+            raiz.setId("raiz");
+            Hoja hoja = new Hoja();
+            hoja.setId("raiz-Hoja-0");
+            raiz.addChild(hoja);
+
+            assertThat(raiz._findCallable("guardar").getValue()).isSameAs(raiz);
+            assertThat(raiz._findCallable("raiz.guardar").getValue()).isSameAs(raiz);
+            assertThat(raiz._findCallable("raiz-Hoja-0.tocar").getValue()).isSameAs(hoja);
+            assertThat(raiz._findCallable("tocar")).isNull(); // la clave corta es solo para la raíz
+        }
+
+        @Test
+        @DisplayName("Debe invalidar el índice (propio y de ancestros) cuando cambia el árbol de hijos")
+        void testInvalidationOnTreeChange() {
+            Raiz raiz = new Raiz();
+            raiz.setId("raiz");
+            Hoja hoja = new Hoja();
+            hoja.setId("raiz-Hoja-0");
+            raiz.addChild(hoja);
+            assertThat(raiz._findCallable("raiz-Hoja-1.tocar")).isNull();
+
+            // Un nieto nuevo también debe invalidar el índice de la raíz
+            Hoja nieto = new Hoja();
+            nieto.setId("raiz-Hoja-1");
+            hoja.addChild(nieto);
+            assertThat(raiz._findCallable("raiz-Hoja-1.tocar").getValue()).isSameAs(nieto);
+
+            // Un ciclo de render sin reuso vacía el árbol: el índice se reconstruye sin hijos
+            raiz._beginRenderCycle();
+            raiz._endRenderCycle();
+            assertThat(raiz._findCallable("raiz-Hoja-0.tocar")).isNull();
+            assertThat(raiz._findCallable("guardar")).isNotNull();
+        }
+    }
+
     @Test
     @DisplayName("Debe permitir forzar la actualización de un campo @State manualmente")
     void testManualUpdateState() {
@@ -0,0 +1,71 @@
+package com.ciro.jreactive.ast;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MustachePlanTest {
+
+    @Test
+    @DisplayName("Debe partir el texto en literales y bindings una sola vez")
+    void testTokenization() {
+        MustachePlan plan = MustachePlan.compile("Hola {{ user.name }}, tienes {{count}}!");
+
+        assertThat(plan.isLiteral()).isFalse();
+        assertThat(plan.size()).isEqualTo(2);
+        assertThat(plan.chunk(0)).isEqualTo("Hola ");
+        assertThat(plan.token(0)).isEqualTo("{{ user.name }}");
+        assertThat(plan.key(0)).isEqualTo("user.name");
+        assertThat(plan.root(0)).isEqualTo("user");
+        assertThat(plan.chunk(1)).isEqualTo(", tienes ");
+        assertThat(plan.chunk(2)).isEqualTo("!");
+    }
+
+    @Test
+    @DisplayName("Texto sin bindings válidos debe ser LITERAL")
+    void testLiteral() {
+        assertThat(MustachePlan.compile("sin variables")).isSameAs(MustachePlan.LITERAL);
+        assertThat(MustachePlan.compile("{{ no válido! }}").isLiteral()).isTrue();
+        assertThat(MustachePlan.compile(null).isLiteral()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Debe namespacear solo bindings conocidos que no sean alias, 'this' ni ya prefijados")
+    void testNamespacing() {
+        String tpl = "{{name}} {{item.x}} {{global}} {{this}} {{cmp.name}}";
+        MustachePlan plan = MustachePlan.compile(tpl);
+
+        String out = plan.namespaced(tpl, "cmp.", Map.of("name", 1, "item", 2), Set.of("item"));
+
+        assertThat(out).isEqualTo("{{cmp.name}} {{item.x}} {{global}} {{this}} {{cmp.name}}");
+        // Sin namespace (componente raíz) el texto sale intacto
+        assertThat(plan.namespaced(tpl, "", Map.of("name", 1), null)).isSameAs(tpl);
+    }
+
+    @Test
+    @DisplayName("La clave local debe quitar el namespace propio y 'this.'")
+    void testLocalKey() {
+        MustachePlan plan = MustachePlan.compile("{{this.count}} {{cmp.this.name}} {{cmp.total}} {{otro.x}}");
+
+        assertThat(plan.localKey(0, "")).isEqualTo("count");
+        assertThat(plan.localKey(1, "cmp.")).isEqualTo("name");
+        assertThat(plan.localKey(2, "cmp.")).isEqualTo("total");
+        assertThat(plan.localKey(3, "cmp.")).isEqualTo("otro.x");
+    }
+
+    @Test
+    @DisplayName("TextNode debe reutilizar su plan y recalcularlo si cambia el texto")
+    void testTextNodePlanCache() {
+        TextNode node = new TextNode("{{a}}");
+        MustachePlan first = node.plan();
+        assertThat(node.plan()).isSameAs(first);
+
+        node.text = "{{b}}";
+        assertThat(node.plan()).isNotSameAs(first);
+        assertThat(node.plan().key(0)).isEqualTo("b");
+    }
+}
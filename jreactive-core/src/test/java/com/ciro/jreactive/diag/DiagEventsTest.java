@@ -0,0 +1,60 @@
+package com.ciro.jreactive.diag;
+
+import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.State;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Diagnóstico - Eventos JFR")
+class DiagEventsTest {
+
+    static class Contador extends HtmlComponent {
+        @State int n = 0;
+        @State String label = "x";
+        @Override protected String template() { return "<p>{{n}}</p>"; }
+    }
+
+    @Test
+    @DisplayName("Sin grabación activa los eventos no se confirman")
+    void testDisabledByDefault() {
+        SyncStateEvent ev = new SyncStateEvent();
+        ev.begin();
+        ev.end();
+        assertThat(ev.shouldCommit()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Con JFR.start debe registrar jreactive.SyncState con clase y conteo de claves")
+    void testSyncStateRecorded(@TempDir Path dir) throws Exception {
+        Contador c = new Contador();
+        Path file = dir.resolve("jrx.jfr");
+
+        try (Recording r = new Recording()) {
+            r.enable("jreactive.SyncState").withoutThreshold();
+            r.start();
+            c.n = 7;
+            c._syncState();
+            r.stop();
+            r.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("jreactive.SyncState"))
+                .toList();
+
+        assertThat(events).isNotEmpty();
+        RecordedEvent ev = events.get(0);
+        assertThat(ev.getString("component")).isEqualTo(Contador.class.getName());
+        assertThat(ev.getInt("keys")).isEqualTo(2);
+        assertThat(ev.getInt("changed")).isPositive();
+    }
+}
@@ -0,0 +1,80 @@
+package com.ciro.jreactive.router;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RouteTrie - Match de rutas por segmento")
+class RouteTrieTest {
+
+    private RouteTrie<String> trie() {
+        RouteTrie<String> t = new RouteTrie<>();
+        t.add("/", "root");
+        t.add("/users/{id}", "user");
+        t.add("/users/me", "me");
+        t.add("/users/{id}/orders/{oid}", "order");
+        t.add("/files/{name}.pdf", "pdf");
+        t.add("/files/{path}", "file");
+        return t;
+    }
+
+    @Test
+    @DisplayName("Debe resolver la raíz y las rutas con params en orden de plantilla")
+    void testParams() {
+        RouteTrie<String> t = trie();
+
+        assertThat(t.match("/").value()).isEqualTo("root");
+        assertThat(t.match("/").params()).isEmpty();
+
+        RouteTrie.Match<String> m = t.match("/users/42/orders/7");
+        assertThat(m.value()).isEqualTo("order");
+        assertThat(m.params()).containsExactly(
+                org.assertj.core.api.Assertions.entry("id", "42"),
+                org.assertj.core.api.Assertions.entry("oid", "7"));
+    }
+
+    @Test
+    @DisplayName("Un segmento fijo gana a un {param} y un segmento mixto a uno suelto")
+    void testPrecedence() {
+        RouteTrie<String> t = trie();
+
+        assertThat(t.match("/users/me").value()).isEqualTo("me");
+        assertThat(t.match("/users/you").value()).isEqualTo("user");
+        assertThat(t.match("/files/informe.pdf").params()).containsEntry("name", "informe");
+        assertThat(t.match("/files/foto.png").value()).isEqualTo("file");
+    }
+
+    @Test
+    @DisplayName("Debe volver atrás si la rama fija no llega a una ruta")
+    void testBacktracking() {
+        RouteTrie<String> t = trie();
+
+        // "me" existe como fijo pero no tiene /orders: se usa {id}
+        RouteTrie.Match<String> m = t.match("/users/me/orders/1");
+        assertThat(m.value()).isEqualTo("order");
+        assertThat(m.params()).containsEntry("id", "me").containsEntry("oid", "1");
+    }
+
+    @Test
+    @DisplayName("Debe devolver null igual que PathPattern cuando no hay coincidencia exacta")
+    void testNoMatch() {
+        RouteTrie<String> t = trie();
+
+        assertThat(t.match("/users")).isNull();
+        assertThat(t.match("/users/")).isNull();          // {id} no acepta vacío
+        assertThat(t.match("/users/42/extra")).isNull();
+        assertThat(t.match("/productos/45")).isNull();
+        assertThat(t.match(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("Con plantillas repetidas se queda la primera registrada")
+    void testFirstWins() {
+        RouteTrie<String> t = new RouteTrie<>();
+
+        assertThat(t.add("/a/{x}", "uno")).isTrue();
+        assertThat(t.add("/a/{x}", "dos")).isFalse();
+        assertThat(t.match("/a/1").value()).isEqualTo("uno");
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import java.util.HashMap;
 import java.util.Map;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
 
 @DisplayName("JrxSession Unit Tests")
 class JrxSessionTest {
@@ -34,4 +35,18 @@ class JrxSessionTest {
         assertThat(session.lastSent).contains("ping");
         assertThat(session.isOpen()).isTrue();
     }
+
+    @Test
+    @DisplayName("El envío asíncrono por defecto debe enviar en línea y reportar el fallo en el future")
+    void testDefaultAsyncSend() {
+        MockSession session = new MockSession();
+
+        assertThat(session.sendTextAsync("{\"a\":1}")).isCompleted();
+        assertThat(session.lastSent).isEqualTo("{\"a\":1}");
+
+        // Sin soporte binario lo declara, y el envío falla en el future en vez de lanzar
+        assertThat(session.supportsBinary()).isFalse();
+        assertThat(session.sendBinaryAsync(java.nio.ByteBuffer.allocate(1))).isCompletedExceptionally();
+        assertThatCode(() -> session.sendBinary(java.nio.ByteBuffer.allocate(1))).doesNotThrowAnyException();
+    }
 }
\ No newline at end of file
@@ -115,7 +115,8 @@ const CUSTOM_EVENTS = new Set();
      * 🛠️ JREACTIVE DEVTOOLS (Logger Visual)
      * ------------------------------------------------------------------ */
     window.JRX = window.JRX || {};
-    window.JRX.config = { debug: true }; // Puedes ponerlo en false en Producción
+    // compact: protocolo CBOR (opt-in; si el transporte no lo admite, el servidor sigue en JSON)
+    window.JRX.config = { debug: true, compact: false }; // Puedes poner debug en false en Producción
 
     const JrxDevTools = {
         logCall: (qualified, args) => {
@@ -362,6 +363,106 @@ function normalizeIncoming(pkt) {
 }
 */
 
+/* ==========================================================
+ * ⚡ PROTOCOLO COMPACTO (CBOR + diccionario de claves)
+ * Solo WebSocket nativo: se pide con ?proto=cbor y el servidor contesta
+ * en binario. Los frames de texto (JSON) se siguen aceptando siempre.
+ * ========================================================== */
+let wireKeys = [];   // id -> clave completa; llega una vez al abrir la conexión
+
+const CBOR_BREAK = Symbol('cbor-break');
+const utf8Decoder = new TextDecoder();
+
+function decodeCbor(buffer) {
+  const view  = new DataView(buffer);
+  const bytes = new Uint8Array(buffer);
+  let pos = 0;
+
+  function length(info) {
+    if (info < 24) return info;
+    if (info === 24) return view.getUint8(pos++);
+    if (info === 25) { const v = view.getUint16(pos); pos += 2; return v; }
+    if (info === 26) { const v = view.getUint32(pos); pos += 4; return v; }
+    if (info === 27) { const v = view.getUint32(pos) * 4294967296 + view.getUint32(pos + 4); pos += 8; return v; }
+    return -1; // 31: longitud indefinida
+  }
+
+  function half(h) {
+    const exp = (h >> 10) & 0x1f, frac = h & 0x3ff, sign = h & 0x8000 ? -1 : 1;
+    if (exp === 0)  return sign * Math.pow(2, -14) * (frac / 1024);
+    if (exp === 31) return frac ? NaN : sign * Infinity;
+    return sign * Math.pow(2, exp - 15) * (1 + frac / 1024);
+  }
+
+  function item() {
+    const ib = bytes[pos++];
+    if (ib === 0xff) return CBOR_BREAK;
+    const major = ib >> 5, info = ib & 31;
+    switch (major) {
+      case 0: return length(info);
+      case 1: return -1 - length(info);
+      case 2:
+      case 3: {
+        const n = length(info);
+        if (n < 0) { // trozos de longitud definida hasta el break
+          const parts = [];
+          for (let c; (c = item()) !== CBOR_BREAK;) parts.push(c);
+          return major === 3 ? parts.join('') : new Uint8Array(parts.flatMap(p => [...p]));
+        }
+        const slice = bytes.subarray(pos, pos + n);
+        pos += n;
+        return major === 3 ? utf8Decoder.decode(slice) : slice;
+      }
+      case 4: {
+        const n = length(info), arr = [];
+        if (n < 0) for (let v; (v = item()) !== CBOR_BREAK;) arr.push(v);
+        else for (let i = 0; i < n; i++) arr.push(item());
+        return arr;
+      }
+      case 5: {
+        const n = length(info), obj = {};
+        if (n < 0) for (let k; (k = item()) !== CBOR_BREAK;) obj[k] = item();
+        else for (let i = 0; i < n; i++) { const k = item(); obj[k] = item(); }
+        return obj;
+      }
+      case 6: {
+        const tag = length(info), v = item();
+        if ((tag === 2 || tag === 3) && v instanceof Uint8Array) { // bignum
+          let n = 0;
+          for (const b of v) n = n * 256 + b;
+          return tag === 2 ? n : -1 - n;
+        }
+        if (tag === 4 && Array.isArray(v)) return v[1] * Math.pow(10, v[0]); // BigDecimal
+        return v;
+      }
+      default:
+        if (info === 20) return false;
+        if (info === 21) return true;
+        if (info === 22) return null;
+        if (info === 23) return undefined;
+        if (info === 25) { const v = half(view.getUint16(pos)); pos += 2; return v; }
+        if (info === 26) { const v = view.getFloat32(pos); pos += 4; return v; }
+        if (info === 27) { const v = view.getFloat64(pos); pos += 8; return v; }
+        return undefined;
+    }
+  }
+
+  return item();
+}
+
+// {"s":seq,"b":[{"k":id,"v":..} | {"k":id,"d":true,"t":..,"c":[..]}]} -> {seq,batch} de siempre
+function expandCompact(pkt) {
+  if (pkt && Array.isArray(pkt.K)) { // diccionario de la conexión
+    wireKeys = pkt.K;
+    return null;
+  }
+  const batch = (pkt.b || []).map(m => {
+    const k = typeof m.k === 'number' ? wireKeys[m.k] : m.k;
+    return m.d ? { k, delta: true, type: m.t, changes: m.c || [] } : { k, v: m.v };
+  });
+  return { seq: pkt.s, batch };
+}
+
 function normalizeIncoming(pkt) {
   // Si viene seq en cualquier formato, lo capturamos
   if (pkt && typeof pkt === 'object' && typeof pkt.seq === 'number') {
@@ -484,8 +585,10 @@ function connectTransport(path) {
   } else {
       const wsProtocol = location.protocol === 'https:' ? 'wss:' : 'ws:';
       const baseUrl = `${wsProtocol}//${location.hostname}${port}/ws`;
-      const connectUrl = `${baseUrl}?path=${encodeURIComponent(path)}&since=${lastSeq || 0}`;
+      const proto = window.JRX.config.compact ? '&proto=cbor' : '';
+      const connectUrl = `${baseUrl}?path=${encodeURIComponent(path)}&since=${lastSeq || 0}${proto}`;
       socket = new WebSocket(connectUrl);
+      socket.binaryType = 'arraybuffer';
   }
 
   socket.onopen = function() {
@@ -502,11 +605,13 @@ function connectTransport(path) {
   };
 
   socket.onmessage = function(e) {
-	  const byteSize = new Blob([e.data]).size;
+	  const binary = e.data instanceof ArrayBuffer;
+	  const byteSize = binary ? e.data.byteLength : new Blob([e.data]).size;
+      const pkt = binary ? expandCompact(decodeCbor(e.data)) : JSON.parse(e.data);
+      if (!pkt) return; // diccionario del protocolo compacto
 	  if (window.JRX && window.JRX.config && window.JRX.config.debug) {
-	     JrxDevTools.logIncoming(e.data, byteSize);
+	     JrxDevTools.logIncoming(binary ? pkt : e.data, byteSize);
 	  }
-      const pkt = JSON.parse(e.data);
       const batch = normalizeIncoming(pkt);
       applyBatch(batch);
   };
@@ -9,6 +9,8 @@ import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * AST-based engine que replica el comportamiento de JsoupComponentEngine.
@@ -20,8 +22,9 @@ import java.util.stream.Collectors;
  */
 public class AstComponentEngine extends AbstractComponentEngine {
 
+    private static final Logger log = LoggerFactory.getLogger(AstComponentEngine.class);
+
     // Igual que Jsoup engine
-    private static final Pattern VAR_PATTERN   = Pattern.compile("\\{\\{\\s*([\\w#.-]+)\\s*}}");
     private static final Pattern EVENT_PATTERN = Pattern.compile("^([\\w#.-]+)(?:\\((.*)\\))?$");
     
     private static final Map<Class<?>, List<JrxNode>> AST_CACHE = new java.util.concurrent.ConcurrentHashMap<>();
@@ -31,7 +34,18 @@ public class AstComponentEngine extends AbstractComponentEngine {
     private static final class RenderSession {
         int depth = 0;
         final Map<String, ReactiveVar<?>> allBindings = new HashMap<>();
-        final Set<String> emittedResources = new HashSet<>();
+        // Buffer raíz + fragmentos de hijos SSR de cada componente en render (para splicing incremental)
+        final Map<HtmlComponent, RenderFrame> frames = new IdentityHashMap<>();
+    }
+
+    private static final class RenderFrame {
+        final StringBuilder out;
+        final List<ComponentEngine.Fragment> fragments = new ArrayList<>();
+        boolean spliceable = true;
+        // Un único TemplateContext por componente y render (antes: uno por atributo/texto)
+        TemplateContext tplCtx;
+
+        RenderFrame(StringBuilder out) { this.out = out; }
     }
 
     public static void installAsDefault() {
@@ -52,7 +66,8 @@ public class AstComponentEngine extends AbstractComponentEngine {
 
         s.depth++;
         try {
-            return renderInternal(ctx, s, rootCall);
+            // Un hijo re-renderizado fuera del árbol (splicing) sigue siendo hijo: conserva su namespace
+            return renderInternal(ctx, s, rootCall && ctx._getParent() == null);
         } finally {
             s.depth--;
             if (rootCall) {
@@ -76,44 +91,25 @@ public class AstComponentEngine extends AbstractComponentEngine {
             s.allBindings.put(prefix + k, v);
         });
 
-        // Recursos una sola vez
-        String resources = getResourcesOnce(ctx, s.emittedResources);
-
-        
+        // Los <style>/<script> de cada clase no van aquí: los pone la raíz una vez por render
+        // (ver HtmlComponent#render), así ningún fragmento cacheado arrastra recursos de otro render
         String ns = isRoot ? "" : prefix;
         
-        // 🔥 AOT ZERO-PARSE: Intentamos sacar el AST directo del Accessor generado
-     // 🔥 AOT ZERO-PARSE: Intentamos sacar el AST directo del Accessor generado
-        List<JrxNode> ast = AST_CACHE.computeIfAbsent(ctx.getClass(), k -> {
-            @SuppressWarnings({"rawtypes", "unchecked"})
-            com.ciro.jreactive.spi.ComponentAccessor acc = com.ciro.jreactive.spi.AccessorRegistry.get((Class) k);
-            if (acc != null) {
-                List<JrxNode> precompiledAst = acc.getAst();
-                if (precompiledAst != null) {
-                    return precompiledAst;
-                }
-            }
-            
-            // 🔥 DX FIX: Si es un Web Component y falló el AOT, damos un error claro
-            if (ctx.getClass().isAnnotationPresent(com.ciro.jreactive.annotations.WebComponent.class)) {
-                throw new IllegalStateException("El componente '" + k.getSimpleName() + "' es un @WebComponent, pero su Accessor AOT no existe. Detén la app y ejecuta 'mvn clean install -DskipTests' para generarlo.");
-            }
-
-            // Fallback (JIT): Parseamos en caliente si es un componente normal
-            return JrxParser.parse(ctx.template());
-        });
-
-        // scoping: SOLO a los root elements (equivalente a Jsoup)
-        addScopeToRootElements(ast, ctx._getScopeId());
-
         // 🔥 FIX: Eliminamos el ctx.template().length() que causaba crash en Web Components
         StringBuilder out = new StringBuilder(1024);
-        out.append(resources);
 
-        TemplateContext tplCtx = new TemplateContext(ctx);
-        Set<String> aliases = new HashSet<>();
-        for (JrxNode n : ast) {
-            renderNode(n, out, ctx, tplCtx, ns, s, aliases, false);
+        RenderFrame frame = new RenderFrame(out);
+
+        // ⚡ AOT RENDER: si el APT compiló el template a appends directos, no tocamos el AST
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        com.ciro.jreactive.spi.ComponentAccessor acc = com.ciro.jreactive.spi.AccessorRegistry.get((Class) ctx.getClass());
+        int mark = out.length();
+        @SuppressWarnings("unchecked")
+        boolean compiled = acc != null && acc.renderStatic(ctx, ns, out);
+
+        if (!compiled) {
+            out.setLength(mark);
+            renderInterpreted(ctx, s, ns, out, frame);
         }
 
         String html = out.toString();
@@ -126,7 +122,7 @@ public class AstComponentEngine extends AbstractComponentEngine {
             
             String scopeId = ctx._getScopeId();
 
-            html = resources + "<div id=\"" + id + "\" class=\"" + scopeId + "\" data-jrx-client=\"" + safeName + "\"></div>";
+            html = "<div id=\"" + id + "\" class=\"" + scopeId + "\" data-jrx-client=\"" + safeName + "\"></div>";
             
             
 
@@ -146,7 +142,45 @@ public class AstComponentEngine extends AbstractComponentEngine {
         disposeUnused(pool);
         ctx._mountRecursive();
 
-        return new ComponentEngine.Rendered(html, s.allBindings);
+        return new ComponentEngine.Rendered(html, s.allBindings, frame.spliceable ? frame.fragments : null);
+    }
+
+    // Fallback: intérprete AST (templates con componentes, slots, if/each, props...)
+    private void renderInterpreted(HtmlComponent ctx, RenderSession s, String ns, StringBuilder out, RenderFrame frame) {
+        // 🔥 AOT ZERO-PARSE: Intentamos sacar el AST directo del Accessor generado
+        List<JrxNode> ast = AST_CACHE.computeIfAbsent(ctx.getClass(), k -> {
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            com.ciro.jreactive.spi.ComponentAccessor acc = com.ciro.jreactive.spi.AccessorRegistry.get((Class) k);
+            if (acc != null) {
+                List<JrxNode> precompiledAst = acc.getAst();
+                if (precompiledAst != null) {
+                    return precompiledAst;
+                }
+            }
+            
+            // 🔥 DX FIX: Si es un Web Component y falló el AOT, damos un error claro
+            if (ctx.getClass().isAnnotationPresent(com.ciro.jreactive.annotations.WebComponent.class)) {
+                throw new IllegalStateException("El componente '" + k.getSimpleName() + "' es un @WebComponent, pero su Accessor AOT no existe. Detén la app y ejecuta 'mvn clean install -DskipTests' para generarlo.");
+            }
+
+            // Fallback (JIT): Parseamos en caliente si es un componente normal
+            return JrxParser.parse(ctx.template());
+        });
+
+        // scoping: SOLO a los root elements (equivalente a Jsoup)
+        addScopeToRootElements(ast, ctx._getScopeId());
+
+        TemplateContext tplCtx = new TemplateContext(ctx);
+        frame.tplCtx = tplCtx;
+        Set<String> aliases = new HashSet<>();
+        s.frames.put(ctx, frame);
+        try {
+            for (JrxNode n : ast) {
+                renderNode(n, out, ctx, tplCtx, ns, s, aliases, false);
+            }
+        } finally {
+            s.frames.remove(ctx);
+        }
     }
 
     // ------------------------------------------------------------
@@ -241,16 +275,17 @@ public class AstComponentEngine extends AbstractComponentEngine {
 
             // Si estamos en blueprint (template), no resolvemos, solo namespace
             if (inTemplateBlueprint) {
-                val = namespaceString(val, ns, ctx, aliases);
+                val = namespaceString(el.attrPlan(val), val, ns, ctx, aliases);
                 writeAttr(out, key, val);
                 continue;
             }
 
             // Variables {{...}}
             if (val.contains("{{")) {
-                val = namespaceString(val, ns, ctx, aliases);
+                MustachePlan plan = el.attrPlan(val);
+                val = namespaceString(plan, val, ns, ctx, aliases);
                 // Intento de inyección estática (igual que Jsoup injectStaticValue)
-                String maybe = resolveAllMustachesIfPossible(val, ctx, ns);
+                String maybe = resolveAllMustachesIfPossible(plan, val, tplCtx, ns);
                 if (maybe != null) val = maybe;
             }
 
@@ -331,50 +366,45 @@ public class AstComponentEngine extends AbstractComponentEngine {
             return;
         }
 
-        String namespacedTpl = namespaceString(text, ns, ctx, aliases);
+        MustachePlan plan = txt.plan();
+        String namespacedTpl = namespaceString(plan, text, ns, ctx, aliases);
 
         // Dentro de blueprint (if/each): NO tocar, solo preservar
-        if (inTemplateBlueprint) {
+        if (inTemplateBlueprint || plan.isLiteral()) {
             out.append(namespacedTpl);
             return;
         }
 
-        // Intentar resolver todas las variables
-        String currentVal = namespacedTpl;
-        Matcher m = VAR_PATTERN.matcher(namespacedTpl);
+        // Intentar resolver todas las variables (segmentos ya partidos: sin regex ni replace)
+        StringBuilder currentVal = new StringBuilder(text.length() + 16);
         boolean fullyResolved = true;
         
-        RenderSession session = SESSION.get();
         // 🔥 EL CEREBRO: Entiende .size, .length y objetos profundos
-        TemplateContext tplCtx = new TemplateContext(ctx);
-
-        while (m.find()) {
-            String token = m.group(0);
-            String fullKey = m.group(1);
-            String localKey = fullKey;
+        TemplateContext tplCtx = contextFor(ctx);
 
-            // limpiar namespace del componente actual
-            if (!ns.isEmpty() && localKey.startsWith(ns)) {
-                localKey = localKey.substring(ns.length());
-            }
-            if (localKey.startsWith("this.")) localKey = localKey.substring(5);
+        for (int i = 0; i < plan.size() && fullyResolved; i++) {
+            currentVal.append(plan.chunk(i));
 
-            // 🔥 Usamos el cerebro inteligente
-            Object resolvedVal = tplCtx.resolve(localKey);
+            // 🔥 Usamos el cerebro inteligente (clave sin namespace ni "this.")
+            Object resolvedVal = tplCtx.resolve(plan.localKey(i, ns));
 
             if (resolvedVal != null) {
-                currentVal = currentVal.replace(token, HtmlEscaper.escape(String.valueOf(resolvedVal)));
+                currentVal.append(HtmlEscaper.escape(String.valueOf(resolvedVal)));
             } else {
                 fullyResolved = false;
             }
         }
 
-        if (fullyResolved && !currentVal.equals(namespacedTpl)) {
-        	out.append("<!--jrx:").append(escapeComment(namespacedTpl)).append("-->");
-            out.append(currentVal.isEmpty() ? "\u200B" : currentVal);
-        } else {
-            out.append(namespacedTpl);
+        if (fullyResolved) {
+            currentVal.append(plan.chunk(plan.size()));
+            String resolved = currentVal.toString();
+            if (!resolved.equals(namespacedTpl)) {
+                out.append("<!--jrx:").append(escapeComment(namespacedTpl)).append("-->");
+                out.append(resolved.isEmpty() ? "\u200B" : resolved);
+                return;
+            }
         }
+        out.append(namespacedTpl);
     }
 
     // ------------------------------------------------------------
@@ -401,8 +431,9 @@ public class AstComponentEngine extends AbstractComponentEngine {
 
             // Resolver {{var}} en atributos crudos antes de dárselos al componente
             if (!k.startsWith(":") && !k.startsWith("@") && !k.equals("data-call") && v.contains("{{")) {
-                v = namespaceString(v, ns, parent, aliases);
-                String resolved = resolveAllMustachesIfPossible(v, parent, ns);
+                MustachePlan plan = comp.attrPlan(v);
+                v = namespaceString(plan, v, ns, parent, aliases);
+                String resolved = resolveAllMustachesIfPossible(plan, v, contextFor(parent), ns);
                 if (resolved != null) v = resolved;
             }
             attrs.put(k, v);
@@ -438,11 +469,8 @@ public class AstComponentEngine extends AbstractComponentEngine {
         String childPrefix = child.getId() + ".";
         child.getRawBindings().forEach((k, v) -> s.allBindings.put(childPrefix + k, v));
 
-        // 4) CSR hijo => shell + resources once + copiar class/style
-     // 4) CSR hijo => shell + resources once + copiar class/style
-     // 4) CSR hijo => shell + resources once + copiar class/style
+        // 4) CSR hijo => shell + copiar class/style (sus recursos los pone la raíz)
         if (child.getClass().isAnnotationPresent(Client.class)) {
-            String css = getResourcesOnce(child, s.emittedResources);
             String scopeId = child._getScopeId(); // 🔥 Extraemos el ID
 
             // 🔥 FIX: Usamos getName() y reemplazamos '.' y '$' (para inner classes) por '_'
@@ -456,12 +484,25 @@ public class AstComponentEngine extends AbstractComponentEngine {
             if (attrs.containsKey("style")) shell += " style=\"" + escapeAttr(attrs.get("style")) + "\"";
             shell += "></div>";
 
-            out.append(css).append(shell);
+            out.append(shell);
             return;
         }
 
         // 5) SSR hijo => delegar a child.render(), pero compartiendo session (ThreadLocal)
-        out.append(child.render());
+        //    (si el hijo está limpio, render() devuelve su fragmento cacheado sin re-ejecutar su template)
+        String childHtml = child.render();
+        RenderFrame frame = s.frames.get(parent);
+        if (frame != null) {
+            if (out == frame.out) {
+                int start = out.length();
+                out.append(childHtml);
+                frame.fragments.add(new ComponentEngine.Fragment(child, start, out.length()));
+                return;
+            }
+            // Hijo dentro de un blueprint/slot serializado aparte: no conocemos su offset final
+            frame.spliceable = false;
+        }
+        out.append(childHtml);
     }
 
     // ------------------------------------------------------------
@@ -608,7 +649,7 @@ public class AstComponentEngine extends AbstractComponentEngine {
      // Text
      if (node instanceof com.ciro.jreactive.ast.TextNode txt) {
          String t = (txt.text == null) ? "" : txt.text;
-         return namespaceString(t, ns, ctx, aliases);
+         return namespaceString(txt.plan(), t, ns, ctx, aliases);
      }
 
      // Element
@@ -667,10 +708,11 @@ public class AstComponentEngine extends AbstractComponentEngine {
 
              // Namespace + intento de resolución estática de {{...}} (CLAVE para @click="{{onRowClick}}")
              if (v.contains("{{")) {
-                 v = namespaceString(v, ns, ctx, aliases);
+                 MustachePlan plan = el.attrPlan(v);
+                 v = namespaceString(plan, v, ns, ctx, aliases);
 
                  // Intentar resolver TODO si ya está disponible en bindings
-                 String maybe = resolveAllMustachesIfPossible(v, ctx, ns);
+                 String maybe = resolveAllMustachesIfPossible(plan, v, contextFor(ctx), ns);
                  if (maybe != null) v = maybe;
              }
 
@@ -713,27 +755,9 @@ public class AstComponentEngine extends AbstractComponentEngine {
     // ------------------------------------------------------------
     // Namespacing helpers
     // ------------------------------------------------------------
-    private String namespaceString(String input, String ns, HtmlComponent ctx, Set<String> aliases) {
+    private String namespaceString(MustachePlan plan, String input, String ns, HtmlComponent ctx, Set<String> aliases) {
         if (input == null || input.isEmpty() || ns == null || ns.isEmpty()) return input;
-
-        Matcher m = VAR_PATTERN.matcher(input);
-        StringBuilder sb = new StringBuilder();
-
-        while (m.find()) {
-            String varName = m.group(1);
-            String root = varName.split("\\.")[0];
-
-            boolean isLocalAlias = aliases != null && aliases.contains(root);
-            boolean isKnownBinding = ctx.getRawBindings().containsKey(root);
-
-            if (isLocalAlias || varName.equals("this") || varName.startsWith(ns) || !isKnownBinding) {
-                m.appendReplacement(sb, Matcher.quoteReplacement(m.group(0)));
-            } else {
-                m.appendReplacement(sb, Matcher.quoteReplacement("{{" + ns + varName + "}}"));
-            }
-        }
-        m.appendTail(sb);
-        return sb.toString();
+        return plan.namespaced(input, ns, ctx.getRawBindings(), aliases);
     }
 
     private String namespaceExpression(String expr, String ns, HtmlComponent ctx) {
@@ -799,38 +823,32 @@ public class AstComponentEngine extends AbstractComponentEngine {
     // ------------------------------------------------------------
     // Static injection helpers (atributos con {{...}})
     // ------------------------------------------------------------
-    private String resolveAllMustachesIfPossible(String templ, HtmlComponent ctx, String ns) {
-        String current = templ;
-        Matcher m = VAR_PATTERN.matcher(templ);
-        boolean changed = false;
-        
-        RenderSession session = SESSION.get();
-        // 🔥 EL CEREBRO PARA LOS ATRIBUTOS
-        TemplateContext tplCtx = new TemplateContext(ctx);
+    private String resolveAllMustachesIfPossible(MustachePlan plan, String templ, TemplateContext tplCtx, String ns) {
+        // Sin bindings reconocibles: si aún quedan {{...}} => no resolvemos (dejar para JS/store)
+        if (plan.isLiteral()) return templ.contains("{{") ? null : templ;
 
-        while (m.find()) {
-            String token = m.group(0);
-            String fullKey = m.group(1);
+        StringBuilder current = new StringBuilder(templ.length() + 16);
+        for (int i = 0; i < plan.size(); i++) {
+            current.append(plan.chunk(i));
 
-            String localKey = fullKey;
-            if (ns != null && !ns.isEmpty() && localKey.startsWith(ns)) {
-                localKey = localKey.substring(ns.length());
-            }
-            if (localKey.startsWith("this.")) localKey = localKey.substring(5);
-
-            // 🔥 Usamos el cerebro inteligente
-            Object resolvedVal = tplCtx.resolve(localKey);
-            
-            if (resolvedVal != null) {
-                String strVal = HtmlEscaper.escape(String.valueOf(resolvedVal));
-                current = current.replace(token, strVal);
-                changed = true;
-            }
+            // 🔥 EL CEREBRO PARA LOS ATRIBUTOS (clave sin namespace ni "this.")
+            Object resolvedVal = tplCtx.resolve(plan.localKey(i, ns));
+            if (resolvedVal == null) return null;
+            current.append(HtmlEscaper.escape(String.valueOf(resolvedVal)));
         }
+        current.append(plan.chunk(plan.size()));
 
-        // Si aún quedan {{...}} => no resolvemos (dejar para JS/store)
-        if (current.contains("{{")) return null;
-        return changed ? current : current;
+        String result = current.toString();
+        return result.contains("{{") ? null : result;
+    }
+
+    // TemplateContext compartido del componente en render (o uno efímero si no hay frame)
+    private TemplateContext contextFor(HtmlComponent ctx) {
+        RenderSession s = SESSION.get();
+        RenderFrame frame = s == null ? null : s.frames.get(ctx);
+        if (frame == null) return new TemplateContext(ctx);
+        if (frame.tplCtx == null) frame.tplCtx = new TemplateContext(ctx);
+        return frame.tplCtx;
     }
 
     // ------------------------------------------------------------
@@ -933,7 +951,7 @@ public class AstComponentEngine extends AbstractComponentEngine {
         try {
             return new P().parseExpr();
         } catch (Exception e) {
-        	System.err.println("⚠️ [JReactive] Error de sintaxis evaluando expresión booleana '" + expr + "': " + e.getMessage());
+        	log.warn("⚠️ [JReactive] Error de sintaxis evaluando expresión booleana '" + expr + "': " + e.getMessage());
             return false;
         }
     }
@@ -954,16 +972,6 @@ public class AstComponentEngine extends AbstractComponentEngine {
 
    
 
-    // ------------------------------------------------------------
-    // Resources once (equivalente a Jsoup engine)
-    // ------------------------------------------------------------
-    private String getResourcesOnce(HtmlComponent comp, Set<String> emitted) {
-        String key = comp.getClass().getName();
-        if (emitted.contains(key)) return "";
-        emitted.add(key);
-        return comp._getBundledResources();
-    }
-
     // ------------------------------------------------------------
     // Bindings recursive (equivalente a Jsoup)
     // ------------------------------------------------------------
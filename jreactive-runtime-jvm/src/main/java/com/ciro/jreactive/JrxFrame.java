@@ -0,0 +1,114 @@
+package com.ciro.jreactive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Un cambio de estado ya serializado, inmutable.
+ * <p>
+ * ⚡ Se codifica UNA sola vez en {@link JrxPushHub} y el mismo frame lo comparten el
+ * historial del hub, los sinks, las sesiones WS de {@link JrxProtocolHandler} y
+ * {@code JrxMessageBroker.publish}. Nadie vuelve a pasar el cambio por Jackson.
+ * <ul>
+ *   <li>{@code body}: el mensaje, ej: {@code {"k":"count","v":5}} o un delta.</li>
+ *   <li>{@code json}: el envelope listo para el cable, {@code {"seq":N,"batch":[body]}}.</li>
+ *   <li>{@code compact}: el mismo envelope en CBOR para las sesiones que lo negociaron.</li>
+ * </ul>
+ */
+public final class JrxFrame {
+
+    private final long seq;
+    private final String key;
+    private final boolean delta;
+    private final Map<String, Object> message;
+    private final String body;
+    private final String json;
+    private final JrxWireCodec wire;
+    private volatile ByteBuffer utf8;
+    private volatile byte[] compactItem;
+    private volatile ByteBuffer compact;
+
+    JrxFrame(long seq, String key, boolean delta, Map<String, Object> message, String body) {
+        this(seq, key, delta, message, body, JrxWireCodec.NO_KEYS);
+    }
+
+    JrxFrame(long seq, String key, boolean delta, Map<String, Object> message, String body, JrxWireCodec wire) {
+        this.seq = seq;
+        this.key = key;
+        this.delta = delta;
+        this.message = message;
+        this.body = body;
+        this.json = envelope(seq, body);
+        this.wire = wire;
+    }
+
+    public long seq()                    { return seq; }
+    public String key()                  { return key; }
+    public boolean isDelta()             { return delta; }
+    /** Mensaje original (para {@link JrxPushHub#poll}); no mutar. */
+    public Map<String, Object> message() { return message; }
+    public String body()                 { return body; }
+    public String json()                 { return json; }
+
+    /** El envelope en UTF-8 para transportes binarios; se codifica una vez y se comparte (solo lectura). */
+    public ByteBuffer utf8() {
+        ByteBuffer b = utf8;
+        if (b == null) {
+            b = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+            utf8 = b;
+        }
+        return b.duplicate();
+    }
+
+    /**
+     * El envelope en el protocolo compacto ({@link JrxWireCodec}); se transcodifica la primera vez
+     * que lo pide una sesión compacta y se comparte (solo lectura).
+     */
+    public ByteBuffer compact() {
+        ByteBuffer b = compact;
+        if (b == null) {
+            b = JrxWireCodec.envelope(seq, List.of(compactItem()));
+            compact = b;
+        }
+        return b.duplicate();
+    }
+
+    byte[] compactItem() {
+        byte[] i = compactItem;
+        if (i == null) {
+            i = wire.item(body);
+            compactItem = i;
+        }
+        return i;
+    }
+
+    /** {@link #envelope(long, List)} en el protocolo compacto: concatena los items ya transcodificados. */
+    public static ByteBuffer compactEnvelope(long seq, List<JrxFrame> frames) {
+        List<byte[]> items = new ArrayList<>(frames.size());
+        for (JrxFrame f : frames) items.add(f.compactItem());
+        return JrxWireCodec.envelope(seq, items);
+    }
+
+    /** Junta varios frames en un único envelope concatenando sus bodies (sin re-serializar). */
+    public static String envelope(long seq, List<JrxFrame> frames) {
+        int len = 32;
+        for (JrxFrame f : frames) len += f.body.length() + 1;
+        StringBuilder sb = new StringBuilder(len);
+        sb.append("{\"seq\":").append(seq).append(",\"batch\":[");
+        for (int i = 0; i < frames.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(frames.get(i).body);
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String envelope(long seq, String body) {
+        return new StringBuilder(body.length() + 32)
+                .append("{\"seq\":").append(seq).append(",\"batch\":[")
+                .append(body)
+                .append("]}").toString();
+    }
+}
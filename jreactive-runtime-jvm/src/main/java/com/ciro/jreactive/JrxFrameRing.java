@@ -0,0 +1,59 @@
+package com.ciro.jreactive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Historial de replay del {@link JrxPushHub}: ring buffer de capacidad fija indexado por seq.
+ * <p>
+ * ⚡ {@code add} es O(1) y no asigna memoria (el frame ocupa el slot {@code seq % capacidad});
+ * {@code since} salta directo al slot de {@code since + 1} sin recorrer el historial.
+ * <p>
+ * Sin locks: cada frame trae su propio seq, así que el lector valida el slot.
+ * Si encuentra un seq mayor, el frame ya se sobrescribió (hay hueco y toca snapshot).
+ * Si encuentra uno menor o null, el escritor aún no lo publicó y ahí termina el replay;
+ * esos frames llegan en vivo.
+ */
+final class JrxFrameRing {
+
+    private final AtomicReferenceArray<JrxFrame> slots;
+    private final int capacity;
+
+    JrxFrameRing(int capacity) {
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    int capacity() { return capacity; }
+
+    void add(JrxFrame f) {
+        slots.set(index(f.seq()), f);
+    }
+
+    /**
+     * Frames con seq en {@code (since, head]}, en orden.
+     * {@code null} si alguno ya salió del buffer (el cliente necesita un snapshot).
+     */
+    List<JrxFrame> since(long since, long head) {
+        if (since >= head) return List.of();
+        if (head - since > capacity) return null; // se pide más de lo que cabe: ya se pisó
+
+        List<JrxFrame> out = new ArrayList<>((int) (head - since));
+        for (long s = since + 1; s <= head; s++) {
+            JrxFrame f = slots.get(index(s));
+            if (f == null || f.seq() < s) break;   // aún no publicado
+            if (f.seq() > s) return null;          // sobrescrito mientras leíamos
+            out.add(f);
+        }
+        return out;
+    }
+
+    void clear() {
+        for (int i = 0; i < capacity; i++) slots.set(i, null);
+    }
+
+    private int index(long seq) {
+        return (int) (seq % capacity);
+    }
+}
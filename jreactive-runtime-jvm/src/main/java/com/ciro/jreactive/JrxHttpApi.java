@@ -1,6 +1,8 @@
 package com.ciro.jreactive;
 
 import com.ciro.jreactive.annotations.Call;
+import com.ciro.jreactive.diag.CallEvent;
+import com.ciro.jreactive.spi.JrxMetrics;
 import com.ciro.jreactive.router.Layout;
 import com.ciro.jreactive.router.UrlVariable;
 import com.ciro.jreactive.spi.AccessorRegistry;
@@ -18,9 +20,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class JrxHttpApi {
 
+    private static final Logger log = LoggerFactory.getLogger(JrxHttpApi.class);
+
     private final PageResolver pageResolver;
     private final ObjectMapper objectMapper;
     private final CallGuard guard;
@@ -44,7 +50,7 @@ public class JrxHttpApi {
         try {
             urlParamsJson = objectMapper.writeValueAsString(page._getUrlBindings());
         } catch (Exception e) {
-        	System.err.println("⚠️ [JReactive] Error serializando los @UrlParam de la página: " + e.getMessage());
+        	log.warn("⚠️ [JReactive] Error serializando los @UrlParam de la página: " + e.getMessage());
         }
         String script = "<script>window.__JRX_URL_PARAMS__ = " + urlParamsJson + ";</script>";
 
@@ -78,7 +84,7 @@ public class JrxHttpApi {
                     }
                     
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    log.error("❌ [JReactive] Error renderizando el @Layout de {}", path, e);
                     // Si falla el layout, devolvemos la página "cruda" como fallback
                     finalHtml = script + "\n" + page.render(); // 👈 Cambio: Asignar
                 }
@@ -108,19 +114,36 @@ public class JrxHttpApi {
 
     /** Ejecuta un @Call (qualified = "CompId.metodo" o "metodo" en raíz) */
     public String call(String sessionId, String path, String qualified, Map<String, Object> body, Map<String, String> queryParams) {
+        CallEvent ev = new CallEvent();
+        ev.begin();
+        long t0 = System.nanoTime();
+        try {
+            return invoke(sessionId, path, qualified, body, queryParams, ev);
+        } finally {
+            JrxMetrics.get().call(ev.component, ev.method != null ? ev.method : qualified,
+                    ev.outcome != null ? ev.outcome : CallEvent.ERROR, System.nanoTime() - t0);
+            ev.end();
+            if (ev.shouldCommit()) {
+                if (ev.method == null) ev.method = qualified;
+                ev.commit();
+            }
+        }
+    }
+
+    // El evento solo se rellena (campos sueltos) en cada salida; se emite en call()
+    private String invoke(String sessionId, String path, String qualified, Map<String, Object> body,
+                          Map<String, String> queryParams, CallEvent ev) {
 
         HtmlComponent page = pageResolver.getPage(sessionId, path, queryParams);
         
+        // Solo hidratamos (render) si la página no está montada: el resto de clicks
+        // resuelven el @Call contra el índice del árbol, sin pasar por el motor AST.
         if (page._state() == ComponentState.UNMOUNTED) {
-            System.out.println("♻️ [JrxHttpApi] Página no montada detectada. Hidratando árbol para: " + qualified);
             page.render();
         }
-        
-        page.render();
 
-        // 1) localizar método
-        var callables = collectCallables(page);
-        var entry = callables.get(qualified);
+        // 1) localizar método (O(1) sobre el índice de callables de la página)
+        var entry = page._findCallable(qualified);
         
         if (entry == null && qualified.contains(".")) {
             int dotIdx = qualified.indexOf('.');
@@ -132,27 +155,12 @@ public class JrxHttpApi {
             
             if (realId != null) {
                 // Traducimos: "miModal.open" -> "ModalTestPage-JModal-0.open"
-                String translated = realId + "." + methodName;
-                entry = callables.get(translated);
-                
-                // (Opcional) Debug para ver la magia
-                 System.out.println("🔄 Traducción de Call: " + qualified + " -> " + translated);
+                entry = page._findCallable(realId + "." + methodName);
             }
         }
         
         if (entry == null) {
-            System.out.println("⚠️ [JrxHttpApi] Método '" + qualified + "' no encontrado. Reconstruyendo árbol de componentes...");
-            
-            // Forzamos un renderizado silencioso para que se ejecute el template() 
-            // y se instancien/agreguen los hijos (CounterLeaf, etc.) a la lista _children via _addChild()
-            page.render(); 
-
-            // Re-escaneamos el árbol ahora que está poblado
-            callables = collectCallables(page);
-            entry = callables.get(qualified);
-        }
-        
-        if (entry == null) {
+            ev.outcome = CallEvent.NOT_FOUND;
             return guard.errorJson("NOT_FOUND", "Método no permitido: " + qualified);
         }
         
@@ -162,6 +170,8 @@ public class JrxHttpApi {
 
         Method target = entry.getKey();
         Object owner = entry.getValue();
+        ev.component = owner.getClass().getName();
+        ev.method = target.getName();
 
         // 2) deserializar args (mezcla body + @Param del path)
         @SuppressWarnings("unchecked")
@@ -188,12 +198,14 @@ public class JrxHttpApi {
         // 3) rate limit (por sesión + método)
         String rateKey = sessionId + ":" + qualified;
         if (!guard.tryConsume(rateKey)) {
+            ev.outcome = CallEvent.RATE_LIMIT;
             return guard.errorJson("RATE_LIMIT", "Demasiadas llamadas, inténtalo en un instante");
         }
 
      // 4) Bean Validation
         var violations = guard.validateParams(owner, target, args);
         if (!violations.isEmpty()) {
+            ev.outcome = CallEvent.VALIDATION;
             return guard.validationJson(violations);
         }
 
@@ -201,6 +213,7 @@ public class JrxHttpApi {
         try {
             boolean isStateless = page.isStateless();
             Map<String, Object> oldState = new HashMap<>();
+            Map<String, Long> oldPrints = Map.of();
 
             Map<String, ReactiveVar<?>> allBinds = new HashMap<>();
             collectBindingsRecursive(page, allBinds);
@@ -210,7 +223,9 @@ public class JrxHttpApi {
             if (isStateless) {
                 String token = (String) body.get("stateToken");
                 if (token != null && !token.isBlank()) {
-                    oldState = JrxStateToken.decode(token);
+                    JrxStateToken.Opened opened = JrxStateToken.open(token);
+                    oldState = opened.state();
+                    oldPrints = opened.fingerprints();
                     
                     // 🔥 FIX 1: Ordenar por longitud de clave. Los padres (tipos fuertes como "users") 
                     // se procesan ANTES que los hijos (tipos débiles como "page_table_test-JTable-0.data").
@@ -306,23 +321,27 @@ public class JrxHttpApi {
             if (result != null) envelope.put("result", result);
 
             if (isStateless) {
+                Map<String, List<String>> aliases = aliasesByKey(allBinds);
                 Map<String, Object> newState = new HashMap<>();
-                allBinds.forEach((k, v) -> newState.put(k, v.get()));
+                aliases.keySet().forEach(k -> newState.put(k, allBinds.get(k).get()));
 
-                // 🔥 Comparación exacta de Deltas usando JsonNode
+                // ⚡ Deltas por huella: el token trae la del valor viejo y al firmar sale la del nuevo
+                JrxStateToken.Sealed sealed = JrxStateToken.seal(newState);
                 List<Map<String, Object>> batch = new java.util.ArrayList<>();
-                for (Map.Entry<String, Object> entryVar : newState.entrySet()) {
+                for (Map.Entry<String, List<String>> entryVar : aliases.entrySet()) {
                     String k = entryVar.getKey();
-                    Object v = entryVar.getValue();
-                    com.fasterxml.jackson.databind.JsonNode newTree = objectMapper.valueToTree(v);
-                    com.fasterxml.jackson.databind.JsonNode oldTree = objectMapper.valueToTree(oldState.get(k));
-
-                    if (!Objects.equals(newTree, oldTree)) {
-                        batch.add(Map.of("k", k, "v", v));
+                    if (Objects.equals(sealed.fingerprints().get(k), oldPrints.get(k))) continue;
+                    Object v = newState.get(k);
+                    // El cliente conoce la variable por sus dos nombres (corto y con el id de la página)
+                    for (String alias : entryVar.getValue()) {
+                        Map<String, Object> delta = new HashMap<>(4);
+                        delta.put("k", alias);
+                        delta.put("v", v); // puede ser null: Map.of no lo admite
+                        batch.add(delta);
                     }
                 }
-                
-                envelope.put("newStateToken", JrxStateToken.encode(newState));
+
+                envelope.put("newStateToken", sealed.token());
                 if (!batch.isEmpty()) envelope.put("batch", batch);
             } else {
                 Call callAnn = target.getAnnotation(Call.class);
@@ -331,10 +350,12 @@ public class JrxHttpApi {
                 }
             }
 
+            ev.outcome = CallEvent.OK;
             return objectMapper.writeValueAsString(envelope);
 
         } catch (Exception e) {
-            e.printStackTrace();
+            ev.outcome = CallEvent.ERROR;
+            log.error("❌ [JReactive] Error invocando @Call {}", qualified, e);
             
             // 🔥 CAZADOR DE ERRORES: Extraemos el error real, sin importar lo profundo que esté
             String msg = e.getMessage();
@@ -360,38 +381,6 @@ public class JrxHttpApi {
     
     
 
-    /** Igualito a tu lógica actual, movida al core */
-    private Map<String, Map.Entry<Method, HtmlComponent>> collectCallables(HtmlComponent rootPage) {
-        Map<String, Map.Entry<Method, HtmlComponent>> map = new HashMap<>();
-        collectCallables(rootPage, rootPage, map);
-        return map;
-    }
-
-    private void collectCallables(
-            HtmlComponent rootPage,
-            HtmlComponent current,
-            Map<String, Map.Entry<Method, HtmlComponent>> map
-    ) {
-        String compId = current.getId();
-
-        for (var e : current.getCallableMethods().entrySet()) {
-            String methodName = e.getKey();
-            Method m = e.getValue();
-
-            // clave completa siempre
-            map.put(compId + "." + methodName, Map.entry(m, current));
-
-            // clave corta solo para la raíz
-            if (current == rootPage) {
-                map.put(methodName, Map.entry(m, current));
-            }
-        }
-
-        for (HtmlComponent child : current._children()) {
-            collectCallables(rootPage, child, map);
-        }
-    }
-    
  // 🔥 NOTA: Añadimos 'Method method' a la firma
     private void autoUpdateStateFromArgs(Object owner, Method method, Object[] args) {
         if (owner == null || args == null || method == null) return;
@@ -428,13 +417,13 @@ public class JrxHttpApi {
                         field.setAccessible(true);
                         field.set(owner, arg); // 🔄 Inyección Quirúrgica
                         inyectado = true;
-                        //System.out.println("✅ [JRX-BIND] Inyección segura por nombre en: " + field.getName() + " (Clase: " + clazz.getSimpleName() + ")");
+                        //log.info("✅ [JRX-BIND] Inyección segura por nombre en: " + field.getName() + " (Clase: " + clazz.getSimpleName() + ")");
                         break; 
                     }
                 } catch (NoSuchFieldException e) {
                     // Silencioso: El campo no está en esta clase, el while subirá al padre
                 } catch (IllegalAccessException e) {
-                    e.printStackTrace();
+                    log.warn("⚠️ [JRX-BIND] Sin acceso al campo '{}' de {}", targetName, clazz.getSimpleName(), e);
                 }
                 
                 if (inyectado) break;
@@ -443,7 +432,7 @@ public class JrxHttpApi {
             }
             /*
             if (!inyectado) {
-                System.err.println("⚠️ [JRX-BIND] No se inyectó el argumento '" + targetName + "' (No se encontró un @State con ese nombre exacto o los tipos no coinciden).");
+                log.warn("⚠️ [JRX-BIND] No se inyectó el argumento '" + targetName + "' (No se encontró un @State con ese nombre exacto o los tipos no coinciden).");
             }
             */
         }
@@ -484,20 +473,40 @@ public class JrxHttpApi {
         }
     }
     
+    /**
+     * Claves de cada {@link ReactiveVar}, agrupadas bajo la más corta. Las variables de la página raíz
+     * tienen dos nombres y un {@code @Bind} comparte la misma instancia entre padre e hijo: la mochila
+     * guarda cada variable una sola vez, y los padres (claves cortas) primero al hidratar.
+     */
+    private static Map<String, List<String>> aliasesByKey(Map<String, ReactiveVar<?>> all) {
+        Map<ReactiveVar<?>, List<String>> byVar = new IdentityHashMap<>();
+        all.forEach((k, v) -> byVar.computeIfAbsent(v, x -> new ArrayList<>(2)).add(k));
+
+        Map<String, List<String>> out = new HashMap<>(byVar.size() * 2);
+        for (List<String> keys : byVar.values()) {
+            keys.sort(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+            out.put(keys.get(0), keys);
+        }
+        return out;
+    }
+
     private String injectStatelessToken(String html, Map<String, ReactiveVar<?>> all, String rootIdOrNull) {
         try {
             Map<String, Object> tokenState = new HashMap<>();
-            all.forEach((k, v) -> tokenState.put(k, v.get()));
-
+            aliasesByKey(all).keySet().forEach(k -> tokenState.put(k, all.get(k).get()));
             String token = JrxStateToken.encode(tokenState);
-            String rawJson = JrxStateToken.toJson(tokenState);
+
+            // El cliente sí necesita todos los nombres
+            Map<String, Object> clientState = new HashMap<>();
+            all.forEach((k, v) -> clientState.put(k, v.get()));
+            String rawJson = JrxStateToken.toJson(clientState);
 
             return "<meta name=\"jrx-state\" content=\"" + token + "\">\n" +
                    "<script>window.__JRX_STATE__ = " + rawJson +
                    "; window.__JRX_ROOT_ID__ = " + (rootIdOrNull == null ? "null" : ("'" + rootIdOrNull + "'")) +
                    ";</script>\n" + html;
         } catch (Exception e) {
-            System.err.println("ℹ️ [JReactive] Fallback activado para inyección de Token Stateless.");
+            log.info("ℹ️ [JReactive] Fallback activado para inyección de Token Stateless.");
             return html;
         }
     }
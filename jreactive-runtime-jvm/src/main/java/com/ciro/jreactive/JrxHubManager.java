@@ -1,14 +1,23 @@
 package com.ciro.jreactive;
 
+import com.ciro.jreactive.annotations.Realtime;
 import com.ciro.jreactive.spi.JrxMessageBroker;
+import com.ciro.jreactive.spi.JrxReplayLog;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.*;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class JrxHubManager {
 
+    private static final Logger log = LoggerFactory.getLogger(JrxHubManager.class);
+
     private static final class Key {
         private final String sessionId;
         private final String path;
@@ -37,18 +46,36 @@ public class JrxHubManager {
     private final ObjectMapper mapper;
     private final Cache<Key, JrxPushHub> hubs;
     private final JrxMessageBroker broker; // 🔥 Dependencia nueva (puede ser null)
+    private final JrxReplayLog replayLog;  // Historial del cluster para reconexiones (puede ser null)
+
+    // ⚡ Índice secundario: un mensaje de sesión solo toca a sus hubs,
+    // no a los (hasta 5.000) hubs de la caché. Se mantiene al crear y desalojar.
+    private final Map<String, Set<JrxPushHub>> hubsBySession = new ConcurrentHashMap<>();
+    // ⚡ Estado @Shared del nodo: un valor por sala, hidratado y decodificado una vez para todos los hubs
+    private final SharedTopicRegistry sharedTopics;
 
     // Constructor actualizado para recibir el Broker
     public JrxHubManager(PageResolver pageResolver, ObjectMapper mapper, JrxMessageBroker broker) {
+        this(pageResolver, mapper, broker, null);
+    }
+
+    public JrxHubManager(PageResolver pageResolver, ObjectMapper mapper, JrxMessageBroker broker, JrxReplayLog replayLog) {
         this.pageResolver = pageResolver;
         this.mapper = mapper;
         this.broker = broker;
+        this.replayLog = replayLog;
+        this.sharedTopics = new SharedTopicRegistry(mapper, broker);
 
         this.hubs = Caffeine.newBuilder()
                 .expireAfterAccess(10, TimeUnit.MINUTES)
                 .maximumSize(5_000)
                 .removalListener((Key k, JrxPushHub hub, RemovalCause cause) -> {
-                    if (hub != null) hub.close();
+                    if (hub != null) {
+                        unindex(k, hub);
+                        hub.close();
+                        // Nadie más va a escuchar esta página: que no se quede esperando el debounce
+                        pageResolver.flush(k.sessionId(), k.path());
+                    }
                 })
                 .build();
         
@@ -58,28 +85,28 @@ public class JrxHubManager {
         }
     }
     
-    // Este método se dispara cuando Redis dice: "Hubo cambio en la sesión X"
- // Este método se dispara cuando Redis Pub/Sub recibe un mensaje
- // Este método se dispara cuando Redis Pub/Sub recibe un mensaje
+    // Este método se dispara cuando Redis Pub/Sub recibe un mensaje
     private void distributeRemoteMessage(String targetId, String message) {
         
         // 1. MODO MULTIJUGADOR: El destino es una sala pública (Ej: "shared:chat-global")
         if (targetId.startsWith("shared:")) {
             String topicName = targetId.substring("shared:".length());
-            
-            // Le pasamos el mensaje a TODOS los WebSockets (Hubs) de este servidor.
-            hubs.asMap().values().forEach(hub -> {
-                hub.injectSharedState(topicName, message);
-            });
+
+            // ⚡ Se parsea y convierte UNA vez por nodo; las páginas de la sala lo ven por referencia
+            sharedTopics.onRemote(topicName, message);
             return; 
         }
 
         // 2. MODO SINGLE-PLAYER: El destino es una sesión individual
-        hubs.asMap().forEach((key, hub) -> {
-            if (key.sessionId().equals(targetId)) {
-                hub.emitRaw(message);
+        Set<JrxPushHub> sessionHubs = hubsBySession.get(targetId);
+        if (sessionHubs != null) {
+            // ⚠️ El broker perdió frames de la sesión: seguir reenviando dejaría un hueco que nadie ve
+            if (JrxMessageBroker.RESYNC.equals(message)) {
+                sessionHubs.forEach(JrxPushHub::resync);
+                return;
             }
-        });
+            sessionHubs.forEach(hub -> hub.emitRaw(message));
+        }
     }
 
     public JrxPushHub hub(String sessionId, String path) {
@@ -96,9 +123,10 @@ public class JrxHubManager {
         // 3. 🔥 ZOMBIE CHECK: Si el Hub existe pero apunta a una página vieja (muerta)...
         if (existingHub != null && existingHub.getPageInstance() != currentPage) {
             // ...lo matamos para evitar escribir en la memoria incorrecta.
+            unindex(key, existingHub);
             existingHub.close();
             hubs.invalidate(key);
-            // System.out.println("♻️ Hub reciclado por cambio de instancia: " + path);
+            // log.info("♻️ Hub reciclado por cambio de instancia: " + path);
         }
 
         // 4. Ahora sí, obtenemos o creamos (si invalidamos arriba, aquí se crea uno nuevo)
@@ -108,14 +136,20 @@ public class JrxHubManager {
                  currentPage._initIfNeeded();
                  currentPage._mountRecursive();
             }
-            return new JrxPushHub(currentPage, mapper, 2_000, broker, sessionId, () -> {
+            JrxPushHub created = new JrxPushHub(currentPage, mapper, 2_000, broker, sessionId, path, replayLog, sharedTopics, () -> {
                 pageResolver.persist(sessionId, path, currentPage);
             });
+            index(_k, created);
+            return created;
         });
     }
 
     public void evictAll(String sessionId) {
-        hubs.asMap().keySet().removeIf(k -> k.sessionId().equals(sessionId));
+        hubs.asMap().entrySet().removeIf(e -> {
+            if (!e.getKey().sessionId().equals(sessionId)) return false;
+            unindex(e.getKey(), e.getValue());
+            return true;
+        });
     }
     
     public void ensureSync(String sessionId, String path, HtmlComponent activePage) {
@@ -135,7 +169,10 @@ public class JrxHubManager {
     public void evict(String sessionId, String path) {
         Key key = new Key(sessionId, path);
         JrxPushHub hub = hubs.getIfPresent(key);
-        if (hub != null) hub.close();
+        if (hub != null) {
+            unindex(key, hub);
+            hub.close();
+        }
         hubs.invalidate(key);
     }
     
@@ -143,4 +180,69 @@ public class JrxHubManager {
         return this.broker;
     }
 
+    /** Valores @Shared de este nodo. */
+    public SharedTopicRegistry getSharedTopics() {
+        return this.sharedTopics;
+    }
+
+    // ------------------------------------------------------------
+    // Gauges (se leen bajo demanda, p. ej. en cada scrape de métricas)
+    // ------------------------------------------------------------
+
+    public long hubCount() {
+        return hubs.estimatedSize();
+    }
+
+    public long sinkCount() {
+        long n = 0;
+        for (JrxPushHub hub : hubs.asMap().values()) n += hub.sinkCount();
+        return n;
+    }
+
+    /** Ocupación media del historial de replay de los hubs vivos, de 0 a 1. */
+    public double historyFill() {
+        long used = 0, cap = 0;
+        for (JrxPushHub hub : hubs.asMap().values()) {
+            used += hub.historySize();
+            cap += hub.historyCapacity();
+        }
+        return cap == 0 ? 0 : (double) used / cap;
+    }
+
+    // ------------------------------------------------------------
+    // Índice secundario (sessionId -> hubs)
+    // ------------------------------------------------------------
+    private void index(Key key, JrxPushHub hub) {
+        hubsBySession.compute(key.sessionId(), (sid, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+                // 📢 Primer hub de la sesión en este nodo: que el broker nos enrute sus mensajes.
+                // Dentro del compute para que claim/release lleguen en el mismo orden que los cambios.
+                if (broker != null) broker.claimSession(sid);
+            }
+            set.add(hub);
+            // ⚡ Página @Realtime: las actualizaciones de la sesión no esperan al lote de salida del broker
+            if (broker != null && isRealtime(hub)) broker.setImmediateFlush(sid, true);
+            return set;
+        });
+    }
+
+    // Idempotente: lo llaman tanto los desalojos explícitos como el removalListener (asíncrono)
+    private void unindex(Key key, JrxPushHub hub) {
+        hubsBySession.computeIfPresent(key.sessionId(), (sid, set) -> {
+            if (!set.remove(hub)) return set;
+            if (broker != null && isRealtime(hub) && set.stream().noneMatch(JrxHubManager::isRealtime)) {
+                broker.setImmediateFlush(sid, false);
+            }
+            if (!set.isEmpty()) return set;
+            if (broker != null) broker.releaseSession(sid);
+            return null;
+        });
+    }
+
+    private static boolean isRealtime(JrxPushHub hub) {
+        HtmlComponent page = hub.getPageInstance();
+        return page != null && page.getClass().isAnnotationPresent(Realtime.class);
+    }
+
 }
\ No newline at end of file
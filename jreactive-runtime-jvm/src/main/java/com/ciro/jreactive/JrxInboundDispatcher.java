@@ -0,0 +1,189 @@
+package com.ciro.jreactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reparte los mensajes que llegan del broker en N carriles, cada uno con su hilo virtual.
+ * <ul>
+ *   <li>La clave (sesión o {@code shared:<topic>}) decide el carril: los mensajes de una misma clave
+ *       se entregan en orden, y los de claves distintas en paralelo.</li>
+ *   <li>Carriles acotados: si uno se llena, el mensaje se descarta y se cuenta. Una colección @Shared
+ *       lo recupera con el resync del siguiente hueco de versiones.</li>
+ *   <li>Una clave que se entrega con aviso de pérdida ({@link #submit(String, Runnable, Runnable)}, las
+ *       sesiones) no puede seguir como si nada: tras el primer descarte se tiran también sus mensajes
+ *       siguientes y, en cuanto hay sitio en el carril, se encola el aviso, detrás de lo que ya estaba en
+ *       cola. Así el cliente no ve nada posterior al hueco antes de resincronizar.</li>
+ * </ul>
+ * ⚡ Antes el hilo que escucha Pub/Sub entregaba cada mensaje él mismo: un hub lento o una sala
+ * grande paraban la recepción de todo el nodo.
+ */
+public class JrxInboundDispatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JrxInboundDispatcher.class);
+
+    public static final int DEFAULT_LANES = Math.max(2, Runtime.getRuntime().availableProcessors());
+    public static final int DEFAULT_LANE_CAPACITY = 10_000;
+
+    // Totales del proceso para métricas (ver JrxMeterBinder)
+    private static final LongAdder DISPATCHED = new LongAdder();
+    private static final LongAdder OVERFLOWED = new LongAdder();
+    private static final LongAdder QUEUED = new LongAdder();
+
+    private final Lane[] lanes;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder overflowed = new LongAdder();
+    private volatile boolean closed;
+
+    private final class Lane implements Runnable {
+        final BlockingQueue<Runnable> queue;
+        // Claves con mensajes perdidos: lo que llegue se descarta hasta que se entregue su aviso
+        final Set<String> lost = ConcurrentHashMap.newKeySet();
+        // Avisos que aún no cupieron en la cola
+        final Map<String, Runnable> pendingNotices = new ConcurrentHashMap<>();
+
+        Lane(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void lose(String key, Runnable onLost) {
+            if (lost.add(key)) pendingNotices.put(key, onLost);
+            enqueueNotices();
+        }
+
+        // El aviso va a la cola como un mensaje más de la clave: llega después de lo anterior al hueco
+        void enqueueNotices() {
+            if (pendingNotices.isEmpty()) return;
+            pendingNotices.forEach((key, onLost) -> {
+                if (!pendingNotices.remove(key, onLost)) return; // lo encoló otro hilo
+                Runnable notice = () -> {
+                    lost.remove(key);
+                    onLost.run();
+                };
+                if (queue.offer(notice)) QUEUED.increment();
+                else pendingNotices.putIfAbsent(key, onLost);
+            });
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    continue; // close(): el while lo decide
+                }
+                QUEUED.decrement();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("⚠️ [JReactive] Error entregando un mensaje del broker: " + e.getMessage());
+                }
+                enqueueNotices();
+            }
+        }
+    }
+
+    public JrxInboundDispatcher() {
+        this(DEFAULT_LANES, DEFAULT_LANE_CAPACITY);
+    }
+
+    public JrxInboundDispatcher(int lanes, int laneCapacity) {
+        int n = lanes > 0 ? lanes : DEFAULT_LANES;
+        int capacity = laneCapacity > 0 ? laneCapacity : DEFAULT_LANE_CAPACITY;
+        this.lanes = new Lane[n];
+        for (int i = 0; i < n; i++) {
+            this.lanes[i] = new Lane(capacity);
+            workers.execute(this.lanes[i]);
+        }
+    }
+
+    /** Encola la entrega en el carril de {@code key}. false si el carril está lleno (se descarta). */
+    public boolean submit(String key, Runnable task) {
+        return submit(key, task, null);
+    }
+
+    /**
+     * Como {@link #submit(String, Runnable)}, pero si {@code key} pierde un mensaje no se le entrega nada
+     * más hasta ejecutar {@code onLost}, en orden con lo que ya tenía en cola.
+     */
+    public boolean submit(String key, Runnable task, Runnable onLost) {
+        if (closed) return false;
+        Lane lane = lanes[laneOf(key)];
+        lane.enqueueNotices();
+        if (key != null && lane.lost.contains(key)) {
+            overflow();
+            return false;
+        }
+        if (!lane.queue.offer(task)) {
+            overflow();
+            if (onLost != null && key != null) lane.lose(key, onLost);
+            return false;
+        }
+        QUEUED.increment();
+        DISPATCHED.increment();
+        return true;
+    }
+
+    private void overflow() {
+        overflowed.increment();
+        OVERFLOWED.increment();
+        // Un aviso por ráfaga, no uno por mensaje
+        if (overflowed.sum() % 1_000 == 1) {
+            log.warn("⚠️ [JReactive] Carril de entrada lleno: mensajes descartados ({} en total)", overflowed.sum());
+        }
+    }
+
+    int laneOf(String key) {
+        int h = key == null ? 0 : key.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    public int lanes() {
+        return lanes.length;
+    }
+
+    /** Mensajes esperando en los carriles de este dispatcher. */
+    public int queued() {
+        int n = 0;
+        for (Lane l : lanes) n += l.queue.size();
+        return n;
+    }
+
+    /** Mensajes descartados por este dispatcher al estar su carril lleno. */
+    public long overflowed() {
+        return overflowed.sum();
+    }
+
+    /** Mensajes encolados por todos los dispatchers del proceso. */
+    public static long dispatchedTotal() { return DISPATCHED.sum(); }
+
+    /** Mensajes descartados por carril lleno en todo el proceso. */
+    public static long overflowTotal() { return OVERFLOWED.sum(); }
+
+    /** Mensajes esperando entrega en todo el proceso. */
+    public static long queuedTotal() { return QUEUED.sum(); }
+
+    /** Para los carriles; lo que quede en cola se descarta. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        workers.shutdownNow();
+        for (Lane l : lanes) {
+            int left = l.queue.size();
+            l.queue.clear();
+            QUEUED.add(-left);
+        }
+    }
+}
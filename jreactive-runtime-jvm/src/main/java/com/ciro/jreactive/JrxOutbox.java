@@ -0,0 +1,252 @@
+package com.ciro.jreactive;
+
+import com.ciro.jreactive.diag.PushFlushEvent;
+import com.ciro.jreactive.spi.JrxSession;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Cola de salida de UNA sesión WS con backpressure adaptativo.
+ * <ul>
+ *   <li>Coalescing por clave: un snapshot de k pisa lo pendiente de k; los deltas se encadenan.</li>
+ *   <li>Si la sesión estaba ociosa, el primer frame sale ya; los siguientes esperan a que cierre la ventana.</li>
+ *   <li>La ventana arranca en {@code flushIntervalMs} y se ensancha con la latencia medida de
+ *       ESTE socket: un cliente lento recibe menos frames más gordos sin frenar a los demás.</li>
+ *   <li>Si se pasa de {@code maxPending}, según {@link JrxSlowConsumerPolicy}: la cadena de deltas
+ *       más larga se cambia por el snapshot actual de su clave (nunca se tira un delta a ciegas)
+ *       o se desconecta la sesión.</li>
+ * </ul>
+ * Solo hay un envío en vuelo por sesión, así que el orden de los frames se mantiene. El envío es
+ * asíncrono ({@link JrxSession#sendTextAsync}): el hilo del scheduler no espera al socket, la
+ * siguiente ventana arranca cuando el transporte confirma, y si no confirma en {@code sendTimeoutMs}
+ * la sesión se da por perdida.
+ */
+final class JrxOutbox {
+
+    // Totales del proceso para métricas (ver JrxProtocolHandler.queuedFrames/droppedFrames)
+    static final LongAdder QUEUED = new LongAdder();
+    static final LongAdder DROPPED = new LongAdder();
+
+    private final JrxSession session;
+    private final boolean compact;
+    private final ScheduledExecutorService scheduler;
+    private final Function<String, JrxFrame> snapshots;
+    private final Consumer<JrxOutbox> onFailure;
+    private final int maxPending;
+    private final JrxSlowConsumerPolicy policy;
+    private final long sendTimeoutMs;
+    private final long baseWindow;
+    private final long maxWindow;
+
+    // Todo lo de abajo se protege con 'this'
+    private final Map<String, List<JrxFrame>> pending = new LinkedHashMap<>();
+    private int pendingCount;
+    private boolean scheduled;   // hay un flush programado o enviando
+    private boolean closed;
+    private long lastFlush;      // nanoTime del último envío
+    private long window;         // ventana de coalescing actual (nanos)
+    private long latency;        // EWMA del tiempo de envío de este socket (nanos)
+    private boolean overflowed;  // hubo que colapsar deltas desde el último flush
+
+    JrxOutbox(JrxSession session, boolean compact, ScheduledExecutorService scheduler,
+              int maxPending, int flushIntervalMs, JrxSlowConsumerPolicy policy, long sendTimeoutMs,
+              Function<String, JrxFrame> snapshots, Consumer<JrxOutbox> onFailure) {
+        this.session = session;
+        this.compact = compact;
+        this.scheduler = scheduler;
+        this.snapshots = snapshots;
+        this.onFailure = onFailure;
+        this.maxPending = Math.max(1, maxPending);
+        this.policy = policy;
+        this.sendTimeoutMs = Math.max(1, sendTimeoutMs);
+        this.baseWindow = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.maxWindow = Math.max(baseWindow * 16, TimeUnit.MILLISECONDS.toNanos(250));
+        this.window = baseWindow;
+        this.lastFlush = System.nanoTime() - maxWindow; // arranca ociosa
+    }
+
+    JrxSession session() { return session; }
+
+    synchronized long windowMillis() { return TimeUnit.NANOSECONDS.toMillis(window); }
+
+    synchronized long latencyMicros() { return TimeUnit.NANOSECONDS.toMicros(latency); }
+
+    synchronized int pending() { return pendingCount; }
+
+    void offer(JrxFrame f) {
+        boolean slow = false;
+        synchronized (this) {
+            if (closed) return;
+            String k = f.key();
+            if (!f.isDelta()) {
+                List<JrxFrame> old = pending.remove(k);
+                if (old != null) {
+                    count(-old.size());
+                    DROPPED.add(old.size());
+                }
+                List<JrxFrame> one = new ArrayList<>(2);
+                one.add(f);
+                pending.put(k, one);
+                count(1);
+            } else {
+                pending.computeIfAbsent(k, _k -> new ArrayList<>(4)).add(f);
+                count(1);
+            }
+            if (pendingCount > maxPending) {
+                if (policy == JrxSlowConsumerPolicy.COALESCE) shed();
+                else slow = true;
+            }
+            if (!slow && !scheduled) {
+                scheduled = true;
+                scheduleFlush();
+            }
+        }
+        if (slow) fail();
+    }
+
+    /** Cambia las cadenas de deltas más largas por el snapshot actual de su clave hasta volver al límite. */
+    private void shed() {
+        while (pendingCount > maxPending) {
+            String worst = null;
+            int worstSize = 1;
+            for (Map.Entry<String, List<JrxFrame>> e : pending.entrySet()) {
+                if (e.getValue().size() > worstSize) {
+                    worst = e.getKey();
+                    worstSize = e.getValue().size();
+                }
+            }
+            if (worst == null) return; // nada que colapsar: se acepta el exceso antes que perder cambios
+            JrxFrame snap = snapshots.apply(worst);
+            if (snap == null) return;
+            List<JrxFrame> one = new ArrayList<>(2);
+            one.add(snap);
+            pending.put(worst, one);
+            count(-(worstSize - 1));
+            DROPPED.add(worstSize);
+            overflowed = true;
+        }
+    }
+
+    private void scheduleFlush() {
+        long delay = Math.max(0, lastFlush + window - System.nanoTime());
+        scheduler.schedule(this::flush, delay, TimeUnit.NANOSECONDS);
+    }
+
+    void flush() {
+        List<JrxFrame> out;
+        boolean shedding;
+        synchronized (this) {
+            if (closed || pending.isEmpty()) {
+                scheduled = false;
+                return;
+            }
+            out = new ArrayList<>(pendingCount);
+            pending.values().forEach(out::addAll);
+            pending.clear();
+            count(-pendingCount);
+            shedding = overflowed;
+            overflowed = false;
+        }
+
+        long seq = 0;
+        for (JrxFrame f : out) seq = Math.max(seq, f.seq());
+
+        PushFlushEvent ev = new PushFlushEvent();
+        ev.begin();
+        long t0 = System.nanoTime();
+        CompletableFuture<Void> sent;
+        long bytes;
+        try {
+            if (compact) {
+                ByteBuffer bin = JrxFrame.compactEnvelope(seq, out);
+                bytes = bin.remaining();
+                sent = session.sendBinaryAsync(bin);
+            } else {
+                String json = JrxFrame.envelope(seq, out);
+                bytes = json.length();
+                sent = session.sendTextAsync(json);
+            }
+        } catch (Exception e) {
+            bytes = 0;
+            sent = CompletableFuture.failedFuture(e);
+        }
+        long size = bytes;
+        int frames = out.size();
+        // copy(): el timeout es nuestro, no se le impone al future del transporte
+        sent.copy()
+            .orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS)
+            .whenComplete((ok, err) -> {
+                ev.end();
+                if (ev.shouldCommit()) {
+                    ev.session = session.getId();
+                    ev.sessions = 1;
+                    ev.frames = frames;
+                    ev.bytes = size;
+                    ev.compact = compact;
+                    ev.window = windowMillis();
+                    ev.failed = err != null;
+                    ev.commit();
+                }
+                onSent(t0, shedding, err);
+            });
+    }
+
+    private void onSent(long t0, boolean shedding, Throwable err) {
+        if (err != null) {
+            fail();
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (this) {
+            lastFlush = now;
+            adapt(now - t0, shedding);
+            if (closed || pending.isEmpty()) {
+                scheduled = false;
+            } else {
+                scheduleFlush(); // lo que llegó durante el envío sale al cerrar la nueva ventana
+            }
+        }
+    }
+
+    private void fail() {
+        boolean first;
+        synchronized (this) {
+            first = !closed;
+            close();
+        }
+        if (first) onFailure.accept(this);
+    }
+
+    // ⚡ Socket lento o desbordado: ventana más ancha. Socket ágil: vuelve poco a poco a la base.
+    private void adapt(long took, boolean shedding) {
+        latency = latency == 0 ? took : (latency * 7 + took) / 8;
+        if (shedding || latency * 2 > window) {
+            window = Math.min(maxWindow, Math.max(window * 2, latency * 2));
+        } else {
+            window = Math.max(baseWindow, window / 2);
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        pending.clear();
+        DROPPED.add(pendingCount);
+        count(-pendingCount);
+    }
+
+    // Con el lock tomado
+    private void count(int delta) {
+        pendingCount += delta;
+        QUEUED.add(delta);
+    }
+}
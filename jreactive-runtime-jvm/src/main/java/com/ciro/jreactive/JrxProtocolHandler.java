@@ -1,5 +1,6 @@
 package com.ciro.jreactive;
 
+import com.ciro.jreactive.diag.PushFlushEvent;
 import com.ciro.jreactive.smart.*;
 import com.ciro.jreactive.spi.JrxMessageBroker;
 import com.ciro.jreactive.spi.JrxSession;
@@ -7,33 +8,42 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class JrxProtocolHandler {
     
     private static final Logger log = LoggerFactory.getLogger(JrxProtocolHandler.class);
     
     // Core State
+    private final ViewNode root;
     private final Map<String, ReactiveVar<?>> bindings;
     private final Set<JrxSession> sessions = ConcurrentHashMap.newKeySet();
     private final ObjectMapper mapper;
     private final ScheduledExecutorService scheduler;
     private final boolean backpressureEnabled;
     private final int maxQueue, flushIntervalMs;
+    private final JrxSlowConsumerPolicy slowConsumerPolicy;
+    private final long sendTimeoutMs;
     private final transient Runnable persistenceCallback;
     private final JrxMessageBroker broker;
     
-    // Backpressure Queues
-    private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
-    private final AtomicInteger queueSize = new AtomicInteger(0);
-    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    // ⚡ Backpressure por sesión: cada socket coalesce y ajusta su ventana según su propia latencia
+    private final Map<JrxSession, JrxOutbox> outboxes = new ConcurrentHashMap<>();
     private final AtomicLong seq = new AtomicLong(0);
 
+    // ⚡ Pipeline unificado: si el hub vigila esta misma página, sus frames (ya serializados)
+    // son la única salida; el handler deja de codificar los cambios por su cuenta.
+    private volatile JrxPushHub hub;
+    private transient Runnable hubDetach;
+    // Sesiones que negociaron el protocolo compacto (CBOR + diccionario de claves del hub)
+    private final Set<JrxSession> compactSessions = ConcurrentHashMap.newKeySet();
+
     // Resource Management
     private final List<Runnable> disposables = new ArrayList<>();
     private final Map<String, Runnable> activeSmartCleanups = new ConcurrentHashMap<>();
@@ -42,18 +52,39 @@ public class JrxProtocolHandler {
     private final Map<Class<?>, Map<String, Field>> fieldCache = new ConcurrentHashMap<>();
     private final Map<ReactiveVar<?>, HtmlComponent> owners = new IdentityHashMap<>();
 
-    private record Event(String k, Object v) {}
-    private record DeltaPacket(String type, List<?> changes) {}
+    /** Tiempo máximo que puede tardar un envío en confirmarse antes de dar la sesión por perdida. */
+    public static final long DEFAULT_SEND_TIMEOUT_MS = 5_000;
+
+    /** Frames esperando en las colas de backpressure de todas las sesiones del proceso. */
+    public static long queuedFrames() {
+        return JrxOutbox.QUEUED.sum();
+    }
+
+    /** Frames que nunca salieron al cable: pisados por un snapshot, colapsados al desbordar o descartados al cerrar. */
+    public static long droppedFrames() {
+        return JrxOutbox.DROPPED.sum();
+    }
 
     public JrxProtocolHandler(ViewNode root, ObjectMapper m,
                               ScheduledExecutorService s, boolean bp, int mq, int fi, 
                               Runnable persistenceCallback, JrxMessageBroker broker) {
+        this(root, m, s, bp, mq, fi, JrxSlowConsumerPolicy.COALESCE, DEFAULT_SEND_TIMEOUT_MS,
+             persistenceCallback, broker);
+    }
+
+    public JrxProtocolHandler(ViewNode root, ObjectMapper m,
+                              ScheduledExecutorService s, boolean bp, int mq, int fi,
+                              JrxSlowConsumerPolicy slowConsumerPolicy, long sendTimeoutMs,
+                              Runnable persistenceCallback, JrxMessageBroker broker) {
         
+        this.root = root;
         this.mapper = m; 
         this.scheduler = s; 
         this.backpressureEnabled = bp; 
         this.maxQueue = mq; 
         this.flushIntervalMs = fi;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.sendTimeoutMs = sendTimeoutMs;
         this.persistenceCallback = persistenceCallback;
         this.broker = broker;
         
@@ -69,8 +100,11 @@ public class JrxProtocolHandler {
             disposables.add(v.onChange(val -> {
                 updateSmartSubscription(k, val);
                 
+                // Con hub enganchado, el hub ya publica el @Shared y emite el frame
+                JrxPushHub h = this.hub;
+                
                 String topic = v.getSharedTopic();
-                if (topic != null && this.broker != null) {
+                if (h == null && topic != null && this.broker != null && !SharedTopicRegistry.applying()) {
                     try {
                         String payload = mapper.writeValueAsString(Map.of("k", k, "v", val));
                         this.broker.publishShared(topic, payload);
@@ -80,7 +114,7 @@ public class JrxProtocolHandler {
                     }
                 }
                 
-                broadcast(k, val); // Snapshot normal
+                if (h == null) broadcast(k, val); // Snapshot normal
                 
                 if (this.persistenceCallback != null) {
                     try {
@@ -102,24 +136,30 @@ public class JrxProtocolHandler {
         Runnable next = null;
         if (val instanceof SmartList<?> l) { 
         	Consumer<SmartList.Change> c = ch -> {
-                publishSmartCollectionToBroker(key, val); // 📢 NUEVO: Avisa al Multijugador
-                broadcastDelta(key, "list", ch); 
+                if (hub == null) {
+                    publishSmartCollectionToBroker(key, "list", ch); // 📢 Avisa al Multijugador
+                    broadcastDelta(key, "list", ch);
+                }
             }; 
             l.subscribe(c); 
             next = () -> l.unsubscribe(c); 
         }
         else if (val instanceof SmartMap<?,?> m) { 
         	Consumer<SmartMap.Change> c = ch -> {
-                publishSmartCollectionToBroker(key, val);
-                broadcastDelta(key, "map", ch); 
+                if (hub == null) {
+                    publishSmartCollectionToBroker(key, "map", ch);
+                    broadcastDelta(key, "map", ch);
+                }
             }; 
             m.subscribe(c); 
             next = () -> m.unsubscribe(c); 
         }
         else if (val instanceof SmartSet<?> s) { 
         	Consumer<SmartSet.Change> c = ch -> {
-                publishSmartCollectionToBroker(key, val);
-                broadcastDelta(key, "set", ch); 
+                if (hub == null) {
+                    publishSmartCollectionToBroker(key, "set", ch);
+                    broadcastDelta(key, "set", ch);
+                }
             };
             s.subscribe(c); 
             next = () -> s.unsubscribe(c); 
@@ -128,17 +168,19 @@ public class JrxProtocolHandler {
         if (next != null) activeSmartCleanups.put(key, next);
     }
     
-    private void publishSmartCollectionToBroker(String key, Object fullCollection) {
-        if (this.broker == null) return;
+    // Con hub enganchado, el hub ya publica la op (y la aplica al recibirla)
+    private void publishSmartCollectionToBroker(String key, String type, Object change) {
+        if (this.broker == null || SharedTopicRegistry.applying()) return;
         ReactiveVar<?> rv = bindings.get(key);
         if (rv == null) return;
         
         String topic = rv.getSharedTopic();
         if (topic != null) {
             try {
-                String payload = mapper.writeValueAsString(Map.of("k", key, "v", fullCollection));
-                this.broker.publishShared(topic, payload);
-                this.broker.saveSharedState(topic, key, fullCollection);
+                // ⚡ Solo la op: el broker la versiona y compacta la copia maestra de vez en cuando
+                String op = mapper.writeValueAsString(Map.of("k", key, "delta", true, "type", type, "changes", List.of(change)));
+                String var = key.substring(key.lastIndexOf('.') + 1);
+                this.broker.publishSharedOp(topic, var, op, rv.get());
             } catch (Exception e) {
             	log.error("❌ [JReactive] Error publicando colección inteligente al Broker para topic '{}': {}", topic, e.getMessage());
             }
@@ -240,7 +282,9 @@ public class JrxProtocolHandler {
                     f.set(o, incoming);
                 }
                 
-                broadcast(fk, incoming); 
+                JrxPushHub h = this.hub;
+                if (h != null) h.emitSnapshot(fk, incoming); // entra al historial y al broker como un frame más
+                else broadcast(fk, incoming); 
                 
                 if (this.persistenceCallback != null) {
                     this.persistenceCallback.run();
@@ -284,20 +328,38 @@ public class JrxProtocolHandler {
     // --- Session Management ---
 
     public void onOpen(JrxSession s, JrxPushHub hub, long since) {
+        attach(hub);
+
+        // ⚡ Protocolo compacto: el diccionario va ANTES de que la sesión reciba cualquier frame
+        JrxPushHub attached = this.hub;
+        boolean compact = attached != null && JrxWireCodec.wants(s);
+        if (compact) {
+            try {
+                s.sendBinary(attached.wireCodec().dictionary());
+                compactSessions.add(s);
+            } catch (Exception e) {
+                log.warn("No se pudo negociar el protocolo compacto con la sesión {}; se sigue en JSON", s.getId(), e);
+                compact = false;
+            }
+        }
+        if (backpressureEnabled) {
+            outboxes.put(s, new JrxOutbox(s, compact, scheduler, maxQueue, flushIntervalMs,
+                    slowConsumerPolicy, sendTimeoutMs, this::snapshotFrame, this::dropOutbox));
+        }
         sessions.add(s);
         boolean recovered = false;
 
         // History Recovery
         if (hub != null && since > 0) {
             try {
-                var missed = hub.poll(since);
-                if (!missed.getBatch().isEmpty()) {
-                    Map<String, Object> envelope = new HashMap<>();
-                    envelope.put("seq", missed.getSeq());
-                    envelope.put("batch", missed.getBatch());
-                    s.sendText(mapper.writeValueAsString(envelope));
+                // ⚡ Los frames del historial ya están serializados: solo se concatenan
+                List<JrxFrame> missed = hub.framesSince(since);
+                if (missed != null && !missed.isEmpty()) {
+                    long last = missed.get(missed.size() - 1).seq();
+                    if (compact) s.sendBinary(JrxFrame.compactEnvelope(last, missed));
+                    else s.sendText(JrxFrame.envelope(last, missed));
                     recovered = true;
-                    log.info("Recovered {} messages for session {}", missed.getBatch().size(), s.getId());
+                    log.info("Recovered {} messages for session {}", missed.size(), s.getId());
                 }
             } catch (Exception e) {
                 log.warn("Failed to recover history for session " + s.getId(), e);
@@ -306,7 +368,20 @@ public class JrxProtocolHandler {
 
         if (recovered) return;
 
-        // Initial Snapshot
+        // Initial Snapshot (con hub: claves y seq del hub, para que el 'since' del cliente case con su historial)
+        JrxPushHub h = this.hub;
+        if (h != null) {
+            try {
+                JrxPushHub.Batch b = h.snapshot();
+                String json = mapper.writeValueAsString(Map.of("seq", b.getSeq(), "batch", b.getBatch()));
+                if (compact) s.sendBinary(h.wireCodec().transcode(json));
+                else s.sendText(json);
+            } catch (Exception e) {
+                log.warn("Failed to send initial snapshot", e);
+            }
+            return;
+        }
+
         try {
             List<Map<String, Object>> batch = new ArrayList<>();
             bindings.forEach((k, v) -> {
@@ -326,8 +401,11 @@ public class JrxProtocolHandler {
 
     public void onClose(JrxSession s) { 
         sessions.remove(s); 
+        compactSessions.remove(s); 
+        JrxOutbox o = outboxes.remove(s);
+        if (o != null) o.close();
         if (sessions.isEmpty()) { 
-            queue.clear(); 
+            detach();
             activeSmartCleanups.values().forEach(Runnable::run); 
             activeSmartCleanups.clear(); 
             disposables.forEach(Runnable::run); 
@@ -335,130 +413,114 @@ public class JrxProtocolHandler {
         } 
     }
 
-    // --- Broadcast System ---
+    // --- Hub Frames (serializados una sola vez) ---
 
-    private void broadcast(String k, Object v) { 
-        if (!backpressureEnabled) sendI(k, v); 
-        else { enq(k, v); sched(); } 
+    private synchronized void attach(JrxPushHub h) {
+        if (h == null || h == this.hub) return;
+        // Solo si el hub vigila esta misma instancia; si no, sus frames hablan de otra página
+        if (h.getPageInstance() != root) return;
+        detach();
+        this.hubDetach = h.addFrameListener(this::onFrame);
+        this.hub = h;
     }
-    
-    private void broadcastDelta(String k, String t, Object c) { 
-        DeltaPacket p = new DeltaPacket(t, List.of(c)); 
-        if (backpressureEnabled) { enq(k, p); sched(); } 
-        else sendRaw(k, null, p); 
-    }
-    
-    private void sendI(String k, Object v) { sendRaw(k, v, null); }
-
-    // 🔥 CRITICAL: Non-blocking send (No synchronized block)
-    private void sendRaw(String k, Object v, DeltaPacket dp) {
-        try { 
-            String m = buildM(k, v, dp); 
-            sessions.removeIf(s -> { 
-                if (!s.isOpen()) return true; 
-                try { 
-                    // Delegated thread-safety to Session implementation (ReentrantLock)
-                    s.sendText(m); 
-                    return false; 
-                } catch(Exception e){
-                	log.warn("⚠️ Error enviando texto a sesión {}: {}", s.getId(), e.getMessage());
-                    return true;
-                } 
-            }); 
-        } catch(Exception e){
-        	log.error("❌ Error CRÍTICO serializando payload para la clave '{}'", k, e);
-        }
+
+    private synchronized void detach() {
+        if (hubDetach != null) hubDetach.run();
+        hubDetach = null;
+        hub = null;
     }
 
-    private String buildM(String k, Object v, DeltaPacket dp) throws IOException {
-        Map<String, Object> p = new HashMap<>();
-        p.put("k", k);
-        if (dp != null) {
-            p.put("delta", true);
-            p.put("type", dp.type());
-            p.put("changes", dp.changes());
-        } else {
-            p.put("v", v);
+    // Frames del hub y del camino propio salen por aquí
+    private void onFrame(JrxFrame f) {
+        if (!backpressureEnabled) {
+            sendToSessions(f.json(), f::compact);
+            return;
         }
-        return mapper.writeValueAsString(p);
+        for (JrxOutbox o : outboxes.values()) o.offer(f);
     }
-    
-    // --- Backpressure & Flushing ---
 
-    private void enq(String k, Object v) { 
-        if (queueSize.incrementAndGet() > maxQueue && queue.poll() != null) {
-            queueSize.decrementAndGet(); 
-        }
-        queue.offer(new Event(k, v)); 
+    /** Snapshot actual de una clave: el outbox lo usa en lugar de tirar deltas al desbordarse. */
+    private JrxFrame snapshotFrame(String k) {
+        JrxPushHub h = this.hub;
+        if (h != null) return h.snapshotFrame(k);
+        ReactiveVar<?> rv = bindings.get(k);
+        if (rv == null) return null;
+        Map<String, Object> m = new HashMap<>();
+        m.put("k", k);
+        m.put("v", rv.get());
+        return frame(seq.get(), k, false, m);
     }
-    
-    private void sched() { 
-        if (flushScheduled.compareAndSet(false, true)) {
-            scheduler.schedule(this::flush, flushIntervalMs, TimeUnit.MILLISECONDS); 
-        }
+
+    private void dropOutbox(JrxOutbox o) {
+        JrxSession s = o.session();
+        log.warn("⚠️ [JReactive] Sesión {} lenta o caída (política {}). Desconectando.", s.getId(), slowConsumerPolicy);
+        outboxes.remove(s);
+        sessions.remove(s);
+        compactSessions.remove(s);
+        // El cliente reconecta con 'since' y recupera por historial o snapshot
+        try { s.close(); } catch (Exception ignored) {}
     }
-    
-    private void flush() {
-        flushScheduled.set(false);
-        if (queue.isEmpty()) return;
 
-        Map<String, Object> last = new LinkedHashMap<>();
-        Event e;
-        
-        while ((e = queue.poll()) != null) {
-            queueSize.decrementAndGet();
-            String k = e.k();
-            Object nv = e.v(); 
-
-            if (nv instanceof DeltaPacket nDp) {
-                Object ex = last.get(k); 
-                if (ex instanceof DeltaPacket oDp && oDp.type().equals(nDp.type())) {
-                    List m = new ArrayList(oDp.changes());
-                    m.addAll(nDp.changes());
-                    last.put(k, new DeltaPacket(nDp.type(), m));
-                }
-                else if (ex == null || ex instanceof DeltaPacket) {
-                    last.put(k, nDp);
-                }
-                else {
-                    ReactiveVar<?> rv = bindings.get(k);
-                    if (rv != null) last.put(k, rv.get());
+    /** JSON para las sesiones normales; el CBOR se construye solo si hay alguna compacta, y una vez. */
+    private void sendToSessions(String pay, Supplier<ByteBuffer> compact) {
+        PushFlushEvent ev = new PushFlushEvent();
+        ev.begin();
+        ByteBuffer[] bin = new ByteBuffer[1];
+        sessions.removeIf(s -> {
+            if (!s.isOpen()) {
+                compactSessions.remove(s);
+                return true;
+            }
+            try {
+                if (compactSessions.contains(s)) {
+                    if (bin[0] == null) bin[0] = compact.get();
+                    s.sendBinary(bin[0].duplicate());
+                } else {
+                    s.sendText(pay);
                 }
-            } else {
-                last.put(k, nv);
+                return false;
+            } catch (Exception ex) {
+                log.warn("⚠️ [JReactive] No se pudo enviar el frame a la sesión {}. Desconectando. Causa: {}", s.getId(), ex.getMessage());
+                compactSessions.remove(s);
+                return true;
             }
+        });
+        ev.end();
+        if (ev.shouldCommit()) {
+            ev.sessions = sessions.size();
+            ev.frames = 1;
+            ev.bytes = pay.length();
+            ev.compact = bin[0] != null;
+            ev.commit();
         }
+    }
 
-        try {
-            List<Map<String, Object>> list = new ArrayList<>();
-            last.forEach((k, v) -> {
-                Map<String, Object> m = new HashMap<>();
-                m.put("k", k);
-                if (v instanceof DeltaPacket d) {
-                    m.put("delta", true);
-                    m.put("type", d.type());
-                    m.put("changes", d.changes());
-                } else {
-                    m.put("v", v);
-                }
-                list.add(m);
-            });
-            
-            long sseq = seq.incrementAndGet();
-            String pay = mapper.writeValueAsString(Map.of("seq", sseq, "batch", list));
+    // --- Broadcast System (sin hub: el handler arma sus propios frames) ---
 
-            sessions.removeIf(s -> {
-                if (!s.isOpen()) return true;
-                try {
-                    s.sendText(pay);
-                    return false;
-                } catch (Exception ex) { 
-                    log.warn("⚠️ [JReactive] Error en flush(): No se pudo enviar el lote a la sesión {}. Desconectando. Causa: {}", s.getId(), ex.getMessage());
-                    return true; 
-                }
-            });
-        } catch (Exception ex) {
-            log.error("Flush failed", ex);
+    private void broadcast(String k, Object v) { 
+        Map<String, Object> m = new HashMap<>();
+        m.put("k", k);
+        m.put("v", v);
+        JrxFrame f = frame(seq.incrementAndGet(), k, false, m);
+        if (f != null) onFrame(f);
+    }
+    
+    private void broadcastDelta(String k, String t, Object c) { 
+        Map<String, Object> m = new HashMap<>();
+        m.put("k", k);
+        m.put("delta", true);
+        m.put("type", t);
+        m.put("changes", List.of(c));
+        JrxFrame f = frame(seq.incrementAndGet(), k, true, m);
+        if (f != null) onFrame(f);
+    }
+
+    private JrxFrame frame(long s, String k, boolean delta, Map<String, Object> m) {
+        try {
+            return new JrxFrame(s, k, delta, m, mapper.writeValueAsString(m));
+        } catch (Exception e) {
+        	log.error("❌ Error CRÍTICO serializando payload para la clave '{}'", k, e);
+            return null;
         }
     }
 
@@ -2,18 +2,27 @@ package com.ciro.jreactive;
 
 import com.ciro.jreactive.smart.*;
 import com.ciro.jreactive.spi.JrxMessageBroker;
+import com.ciro.jreactive.spi.JrxReplayLog;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class JrxPushHub {
 
+    private static final Logger log = LoggerFactory.getLogger(JrxPushHub.class);
+
     public interface JrxSink {
         boolean isOpen();
         void send(String json) throws IOException;
@@ -35,14 +44,19 @@ public class JrxPushHub {
 
     private final ObjectMapper mapper;
     private final Map<String, ReactiveVar<?>> bindings;
+    // ⚡ Diccionario de claves del protocolo compacto (fijo desde la creación, lo comparten todas las sesiones)
+    private final JrxWireCodec wire;
     // 👇 1. NUEVO: Mapa de dueños para detectar @Client
     private final Map<ReactiveVar<?>, HtmlComponent> owners = new IdentityHashMap<>();
+    // ⚡ Índice topic @Shared -> bindings suscritos (se recalcula al crear y en rebind)
+    private volatile Map<String, List<Map.Entry<String, ReactiveVar<?>>>> sharedIndex = Map.of();
     
     private final AtomicLong seq = new AtomicLong(0);
     private final int maxBuffer;
-    private final ConcurrentLinkedQueue<Map<String,Object>> buffer = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<Long> bufferSeq = new ConcurrentLinkedQueue<>();
+    // ⚡ Historial de frames ya serializados (el mismo objeto que reciben sinks, sesiones y broker)
+    private final JrxFrameRing history;
     private final Set<JrxSink> sinks = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<JrxFrame>> frameListeners = new CopyOnWriteArrayList<>();
     
     private final List<Runnable> disposables = new ArrayList<>();
     private final Map<String, Runnable> activeSmartCleanups = new ConcurrentHashMap<>();
@@ -50,21 +64,58 @@ public class JrxPushHub {
 
     private final JrxMessageBroker broker;
     private final String sessionId;
+    // Valores @Shared del nodo (los comparten todos los hubs de JrxHubManager)
+    private final SharedTopicRegistry shared;
+    // Historial del cluster (opcional): replay de lo que este nodo no tiene en su ring
+    private final JrxReplayLog replay;
+    private final String path;
+    // Seq con el que arrancó este hub: lo anterior solo está en el replay log
+    private final long floor;
+    // Reserva del seq y append al log van juntos: el log recibe los frames en orden de seq
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // ⚡ Seqs del cluster reservados por bloques (con appendLock): el siguiente se pide a mitad del actual
+    private static final int SEQ_BLOCK = 64;
+    private static final Executor SEQ_IO = r -> Thread.ofVirtual().name("jrx-seq-reserve").start(r);
+    private JrxReplayLog.SeqBlock seqBlock;
+    private long blockNext;
+    private CompletableFuture<JrxReplayLog.SeqBlock> nextBlock;
     private HtmlComponent pageInstance;
     private final transient Runnable persistenceCallback;
     
 
     public JrxPushHub(HtmlComponent root, ObjectMapper mapper, int maxBuffer, JrxMessageBroker broker, String sessionId, Runnable persistenceCallback) {
+        this(root, mapper, maxBuffer, broker, sessionId, null, null, persistenceCallback);
+    }
+
+    public JrxPushHub(HtmlComponent root, ObjectMapper mapper, int maxBuffer, JrxMessageBroker broker,
+                      String sessionId, String path, JrxReplayLog replay, Runnable persistenceCallback) {
+        this(root, mapper, maxBuffer, broker, sessionId, path, replay, null, persistenceCallback);
+    }
+
+    /** Con {@code shared} null el hub usa un registro propio (hub suelto, sin {@link JrxHubManager}). */
+    public JrxPushHub(HtmlComponent root, ObjectMapper mapper, int maxBuffer, JrxMessageBroker broker,
+                      String sessionId, String path, JrxReplayLog replay, SharedTopicRegistry shared,
+                      Runnable persistenceCallback) {
     	this.pageInstance = root;
         this.mapper = mapper;
         this.maxBuffer = Math.max(100, maxBuffer);
+        this.history = new JrxFrameRing(this.maxBuffer);
         this.broker = broker;
         this.sessionId = sessionId;
+        this.path = path;
+        this.replay = replay;
+        this.shared = shared != null ? shared : new SharedTopicRegistry(mapper, broker);
         this.persistenceCallback = persistenceCallback;
+        // 🔥 SEQ DEL CLUSTER: seguimos la numeración donde la dejó el último hub de esta página
+        // (en este nodo o en otro), así el 'since' del cliente sigue siendo válido tras un failover.
+        this.floor = replay != null ? Math.max(0, replay.head(sessionId, path)) : 0;
+        this.seq.set(floor);
         // 👇 Esto llenará bindings Y owners
         this.bindings = collect(root); 
+        this.wire = new JrxWireCodec(bindings.keySet());
+        indexShared();
         
-        hydrateFromBroker();
+        bindShared();
         
         setupListeners();
         
@@ -78,27 +129,19 @@ public class JrxPushHub {
             Runnable unsub = rv.onChange(val -> {
                 updateSmartSubscription(k, val);
                 
-             // 📢 MAGIA MULTIJUGADOR: Sincronización Global
-                String topic = rv.getSharedTopic(); // Usamos 'rv' porque 'v' de la firma es el valor inicial
-                if (topic != null) {
-                    try {
-                        String payload = mapper.writeValueAsString(Map.of("k", k, "v", val));
-                        if (broker != null) {
-                            // 1. Publicar a todos los conectados
-                            broker.publishShared(topic, payload);
-                            // 2. Guardar la copia maestra
-                            broker.saveSharedState(topic, k, val);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Error serializando variable compartida: " + k);
-                    }
-                }
-                
                 // 🔥 FIX PARETO: Fuera el if/else.
                 // Enviamos el cambio tal cual (k, val).
                 // El frontend ya sabe enrutar esto perfectamente hacia el DOM 
                 // o hacia el Proxy del @Client usando updateDomForKey y applyStateForKey.
-                onSnapshot(k, val); 
+                JrxFrame frame = onSnapshot(k, val);
+
+             // 📢 MAGIA MULTIJUGADOR: Sincronización Global
+                String topic = rv.getSharedTopic(); // Usamos 'rv' porque 'v' de la firma es el valor inicial
+                if (topic != null && frame != null && !SharedTopicRegistry.applying()) {
+                    // ⚡ El body del frame ya es {"k":..,"v":..}: no se vuelve a serializar.
+                    // El registro lo reparte a las demás páginas del nodo, lo publica y guarda la copia maestra.
+                    shared.publishLocal(topic, k, rv, val, frame.body());
+                }
             });
 
             disposables.add(unsub);
@@ -110,6 +153,7 @@ public class JrxPushHub {
         if (this.pageInstance == newPage) return; 
 
         // A. Limpieza de escuchas viejos
+        unbindShared();
         disposables.forEach(Runnable::run);
         disposables.clear();
         
@@ -124,9 +168,38 @@ public class JrxPushHub {
 
         // C. Recolección y reconexión a la nueva instancia
         this.bindings.putAll(collect(newPage));
+        indexShared();
+        bindShared();
         setupListeners();
     }
+
+    private void indexShared() {
+        Map<String, List<Map.Entry<String, ReactiveVar<?>>>> idx = new HashMap<>();
+        bindings.forEach((k, rv) -> {
+            String topic = rv.getSharedTopic();
+            if (topic != null) idx.computeIfAbsent(topic, t -> new ArrayList<>()).add(Map.entry(k, rv));
+        });
+        this.sharedIndex = idx;
+    }
+
+    // Las variables @Shared apuntan al valor canónico del nodo (la primera página de la sala lo hidrata)
+    private void bindShared() {
+        sharedIndex.forEach((topic, subs) -> subs.forEach(e -> shared.bind(topic, e.getKey(), e.getValue())));
+    }
+
+    private void unbindShared() {
+        sharedIndex.forEach((topic, subs) -> subs.forEach(e -> shared.unbind(topic, e.getKey(), e.getValue())));
+    }
+
+    /** Topics @Shared que escucha la página actual. */
+    public Set<String> sharedTopics() {
+        return sharedIndex.keySet();
+    }
     
+    JrxWireCodec wireCodec() {
+        return wire;
+    }
+
     public HtmlComponent getPageInstance() {
         return this.pageInstance;
     }
@@ -156,6 +229,8 @@ public class JrxPushHub {
     }
 
     public void close() {
+        unbindShared();
+        releaseSeqs();
         disposables.forEach(Runnable::run);
         disposables.clear();
         activeSmartCleanups.values().forEach(Runnable::run);
@@ -165,8 +240,36 @@ public class JrxPushHub {
             try { s.close(); } catch (Exception ignored) {}
         });
         sinks.clear();
-        buffer.clear();
-        bufferSeq.clear();
+        frameListeners.clear();
+        history.clear();
+    }
+
+    /**
+     * Recibe cada frame en cuanto se codifica (lo usa {@link JrxProtocolHandler} para
+     * reenviar a sus sesiones sin volver a serializar). Devuelve el "desuscribir".
+     */
+    public Runnable addFrameListener(Consumer<JrxFrame> listener) {
+        frameListeners.add(listener);
+        return () -> frameListeners.remove(listener);
+    }
+
+    /** Clientes vivos: sinks SSE/polling más los handlers WS enganchados con {@link #addFrameListener}. */
+    public int sinkCount() {
+        return activeSinks.get() + frameListeners.size();
+    }
+
+    /** Frames retenidos para replay (como mucho {@link #historyCapacity()}). */
+    public int historySize() {
+        return (int) Math.min(seq.get(), history.capacity());
+    }
+
+    public int historyCapacity() {
+        return history.capacity();
+    }
+
+    /** Emite un snapshot de una clave que no pasó por un ReactiveVar (ej: deep update desde el cliente). */
+    public void emitSnapshot(String k, Object v) {
+        onSnapshot(k, v);
     }
 
    
@@ -177,12 +280,20 @@ public class JrxPushHub {
                 try {
                     sink.send(json);
                 } catch (Exception e) {
-                	System.err.println("⚠️ [JReactive] Error en emitRaw() al enviar mensaje a un cliente. Causa: " + e.getMessage());
+                	log.warn("⚠️ [JReactive] Error en emitRaw() al enviar mensaje a un cliente. Causa: " + e.getMessage());
                 }
             }
         });
     }
 
+    /**
+     * Se perdieron frames remotos de la sesión: se cierran los sinks para que cada cliente reconecte con
+     * su {@code since} y recupere por historial o snapshot (como un consumidor lento).
+     */
+    public void resync() {
+        sinks.forEach(this::unsubscribe);
+    }
+
     public Batch snapshot() {
         List<Map<String,Object>> out = new ArrayList<>(bindings.size());
         bindings.forEach((k, rv) -> out.add(encodeSnapshot(k, rv.get())));
@@ -195,25 +306,76 @@ public class JrxPushHub {
         long current = seq.get();
         if (since > current) return snapshot();
         
-        long oldestAvailable = bufferSeq.isEmpty() ? seq.get() : bufferSeq.peek();
-        if (since < oldestAvailable - 1) return snapshot(); 
+        List<JrxFrame> frames = framesSince(since);
+        if (frames == null) return snapshot();
 
-        List<Map<String,Object>> out = new ArrayList<>();
-        Iterator<Long> itS = bufferSeq.iterator();
-        Iterator<Map<String,Object>> itB = buffer.iterator();
+        List<Map<String,Object>> out = new ArrayList<>(frames.size());
         long last = since;
-
-        while (itS.hasNext() && itB.hasNext()) {
-            long s = itS.next();
-            Map<String,Object> e = itB.next();
-            if (s > since) {
-                out.add(e);
-                last = s;
-            }
+        for (JrxFrame f : frames) {
+            out.add(f.message());
+            last = f.seq();
         }
         return new Batch(last, out);
     }
 
+    /**
+     * Frames posteriores a {@code since}, tal cual están en el historial.
+     * {@code null} si hay un hueco (el historial ya los descartó) y hace falta un snapshot.
+     */
+    public List<JrxFrame> framesSince(long since) {
+        long head = seq.get();
+        if (replay == null || since >= floor) {
+            List<JrxFrame> local = history.since(since, head);
+            if (replay == null) return local;
+            // Con replay el ring se corta en los seqs que reservó otro hub de la página: esos los tiene el log
+            if (reaches(local, since, head)) return local;
+        }
+        return replayedSince(since, head);
+    }
+
+    private static boolean reaches(List<JrxFrame> frames, long since, long head) {
+        if (frames == null) return false;
+        return (frames.isEmpty() ? since : frames.get(frames.size() - 1).seq()) >= head;
+    }
+
+    // Frames que el ring no tiene (anteriores al arranque del hub o ya pisados): replay log + cola local
+    private List<JrxFrame> replayedSince(long since, long head) {
+        List<JrxReplayLog.Entry> entries = replay.since(sessionId, path, since);
+        if (entries == null) return null;
+
+        List<JrxFrame> out = new ArrayList<>(entries.size());
+        long last = since;
+        for (JrxReplayLog.Entry e : entries) {
+            if (e.seq() > head) break;
+            if (e.seq() != last + 1) return null; // hueco: el log también los recortó
+            JrxFrame f = replayedFrame(e);
+            if (f == null) return null;
+            out.add(f);
+            last = e.seq();
+        }
+        // Lo anterior al arranque tiene que venir entero del log (los append son asíncronos)
+        if (last < Math.min(floor, head)) return null;
+        if (last < head) {
+            List<JrxFrame> rest = history.since(last, head);
+            if (!reaches(rest, last, head)) return null;
+            out.addAll(rest);
+        }
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private JrxFrame replayedFrame(JrxReplayLog.Entry e) {
+        try {
+            Map<String, Object> msg = mapper.readValue(e.body(), Map.class);
+            Object k = msg.get("k");
+            return new JrxFrame(e.seq(), k == null ? null : k.toString(),
+                    Boolean.TRUE.equals(msg.get("delta")), msg, e.body(), wire);
+        } catch (Exception ex) {
+            log.warn("⚠️ [JReactive] Frame ilegible en el replay log (seq " + e.seq() + "): " + ex.getMessage());
+            return null;
+        }
+    }
+
     public void subscribe(JrxSink sink, long since) {
         activeSinks.incrementAndGet();
         sinks.add(sink);
@@ -222,11 +384,11 @@ public class JrxPushHub {
             String json = mapper.writeValueAsString(toEnvelope(initial));
             sink.send(json);
         } catch (Exception e) {
-            System.err.println("⚠️ [JReactive] Error al suscribir cliente al Hub. Cerrando conexión inicial. Causa: " + e.getMessage());
+            log.warn("⚠️ [JReactive] Error al suscribir cliente al Hub. Cerrando conexión inicial. Causa: " + e.getMessage());
             try { 
             	sink.close(); 
             } catch (Exception ex) {
-            	System.err.println("⚠️ [JReactive] Error secundario al forzar cierre del socket defectuoso: " + ex.getMessage());
+            	log.warn("⚠️ [JReactive] Error secundario al forzar cierre del socket defectuoso: " + ex.getMessage());
             }
             sinks.remove(sink);
             activeSinks.decrementAndGet();
@@ -240,8 +402,24 @@ public class JrxPushHub {
         try { sink.close(); } catch (Exception ignored) {}
     }
 
-    private void onSnapshot(String k, Object v) {
-        pushToBuffer(encodeSnapshot(k, v));
+    /**
+     * Valor actual de {@code k} como frame con el seq vigente. No entra al historial ni se difunde:
+     * lo usa {@link JrxOutbox} para reemplazar una cadena de deltas que se desbordó.
+     */
+    JrxFrame snapshotFrame(String k) {
+        ReactiveVar<?> rv = bindings.get(k);
+        if (rv == null) return null;
+        Map<String, Object> msg = encodeSnapshot(k, rv.get());
+        try {
+            return new JrxFrame(seq.get(), k, false, msg, mapper.writeValueAsString(msg), wire);
+        } catch (Exception ex) {
+            log.warn("⚠️ [JReactive] No se pudo serializar el snapshot de '" + k + "': " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private JrxFrame onSnapshot(String k, Object v) {
+        return pushToBuffer(k, false, encodeSnapshot(k, v));
     }
 
     private void onDelta(String k, String type, Object change) {
@@ -250,37 +428,96 @@ public class JrxPushHub {
         msg.put("delta", true);
         msg.put("type", type);
         msg.put("changes", List.of(change));
-        pushToBuffer(msg);
+        // Colección @Shared: la op la publica una vez el registro, que escucha la colección canónica
+        pushToBuffer(k, true, msg);
     }
 
-    private void pushToBuffer(Map<String, Object> msg) {
-        long s = seq.incrementAndGet();
-        buffer.add(msg);
-        bufferSeq.add(s);
+    // 🔥 Único punto de serialización del push: un cambio -> un JrxFrame compartido por todos
+    private JrxFrame pushToBuffer(String k, boolean delta, Map<String, Object> msg) {
+        String body;
+        try {
+            body = mapper.writeValueAsString(msg);
+        } catch (Exception ex) {
+        	log.error("❌ [JReactive] Error CRÍTICO en JrxPushHub: Falló la serialización JSON de un Delta. ¿Metiste un objeto con referencias circulares en el @State? Error: " + ex.getMessage());
+            return null;
+        }
+
+        JrxFrame frame;
+        if (replay == null) {
+            frame = new JrxFrame(seq.incrementAndGet(), k, delta, msg, body, wire);
+            history.add(frame); // O(1): pisa el slot del frame de hace maxBuffer cambios
+        } else {
+            appendLock.lock();
+            try {
+                // 🔥 Seq reservado en el cluster: otro hub de la misma página puede estar emitiendo a la vez.
+                // Los que reserve él son huecos en nuestro ring, y framesSince los completa desde el log.
+                long s = nextClusterSeq();
+                if (s <= seq.get()) s = seq.get() + 1; // Sin contador (o atrasado): numeramos en local
+                frame = new JrxFrame(s, k, delta, msg, body, wire);
+                history.add(frame);
+                seq.set(s);
+                replay.append(sessionId, path, s, body);
+            } finally {
+                appendLock.unlock();
+            }
+        }
+        broadcast(frame);
+        return frame;
+    }
 
-        while (buffer.size() > maxBuffer) {
-            buffer.poll();
-            bufferSeq.poll();
+    // Con appendLock. Del bloque reservado, sin E/S; el contador solo se consulta en línea si el bloque
+    // siguiente no llegó a tiempo (o el log no reserva por bloques). -1 = sin contador
+    private long nextClusterSeq() {
+        if (seqBlock == null || blockNext > seqBlock.last()) {
+            CompletableFuture<JrxReplayLog.SeqBlock> pending = nextBlock;
+            nextBlock = null;
+            seqBlock = pending != null ? pending.join() : replay.reserve(sessionId, path, SEQ_BLOCK);
+            if (seqBlock == null) return -1;
+            blockNext = seqBlock.first();
+        }
+        long s = blockNext++;
+        // A mitad del bloque se pide el siguiente en segundo plano
+        if (nextBlock == null && seqBlock.last() > seqBlock.first() && seqBlock.last() - s < SEQ_BLOCK / 2) {
+            nextBlock = CompletableFuture.supplyAsync(() -> replay.reserve(sessionId, path, SEQ_BLOCK), SEQ_IO)
+                    .exceptionally(e -> null);
         }
-        broadcastToSinks(msg, s);
+        return s;
     }
 
-    private void broadcastToSinks(Map<String, Object> msg, long s) {
-        String json;
+    // Lo reservado y sin usar vuelve al contador (el bloque pedido por adelantado primero: es el último)
+    private void releaseSeqs() {
+        if (replay == null) return;
+        appendLock.lock();
         try {
-            json = mapper.writeValueAsString(Map.of(
-                    "seq", s,
-                    "batch", List.of(msg)
-            ));
-        } catch (Exception ex) {
-        	System.err.println("❌ [JReactive] Error CRÍTICO en JrxPushHub: Falló la serialización JSON de un Delta. ¿Metiste un objeto con referencias circulares en el @State? Error: " + ex.getMessage());
-            return;
+            if (nextBlock != null) {
+                JrxReplayLog.SeqBlock ahead = nextBlock.join();
+                if (ahead != null) replay.release(sessionId, path, ahead.first(), ahead.last());
+                nextBlock = null;
+            }
+            if (seqBlock != null && blockNext <= seqBlock.last()) {
+                replay.release(sessionId, path, blockNext, seqBlock.last());
+            }
+            seqBlock = null;
+        } catch (Exception e) {
+            log.warn("⚠️ [JReactive] No se pudieron devolver los seqs sin usar: " + e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void broadcast(JrxFrame frame) {
+        emitRaw(frame.json());
+
+        for (Consumer<JrxFrame> l : frameListeners) {
+            try {
+                l.accept(frame);
+            } catch (Exception e) {
+                log.warn("⚠️ [JReactive] Error en un listener de frames del Hub: " + e.getMessage());
+            }
         }
-        
-        emitRaw(json);
 
         if (broker != null) {
-            broker.publish(sessionId, json);
+            broker.publish(sessionId, frame.json());
         }
     }
 
@@ -456,154 +693,28 @@ public class JrxPushHub {
 
     public void injectSharedState(String topicName, String messagePayload) {
         try {
-            Map<String, Object> m = mapper.readValue(messagePayload, Map.class);
-            String varName = (String) m.get("k");
-            Object newValue = m.get("v");
-
-            // Limpiamos el namespace si viene largo ("Componente.variable" -> "variable")
-            String cleanVarName = varName;
-            if (cleanVarName.contains(".")) {
-                cleanVarName = cleanVarName.substring(cleanVarName.lastIndexOf('.') + 1);
-            }
-
-            for (Map.Entry<String, ReactiveVar<?>> entry : bindings.entrySet()) {
-                @SuppressWarnings("unchecked")
-                ReactiveVar<Object> rv = (ReactiveVar<Object>) entry.getValue();
-
-                if (topicName.equals(rv.getSharedTopic()) && entry.getKey().endsWith(cleanVarName)) {
-                    java.lang.reflect.Type targetType = rv.getGenericType();
-                    Object currentVal = rv.get();
-                    if (targetType == null) targetType = (currentVal != null) ? currentVal.getClass() : Object.class;
-
-                    Object converted = mapper.convertValue(newValue, mapper.constructType(targetType));
-
-                    if (currentVal instanceof SmartList currentList && converted instanceof java.util.List list) {
-                        if (!currentList.equals(list)) {
-                            currentList.mute();
-                            currentList.clear();
-                            @SuppressWarnings("unchecked")
-                            java.util.List<Object> safeList = (java.util.List<Object>) list;
-                            currentList.addAll(safeList);
-                            currentList.unmute();
-
-                            rv.set(currentList);
-                        }
-                    }
-                    else if (currentVal instanceof SmartMap currentMap && converted instanceof java.util.Map map) {
-                        if (!currentMap.equals(map)) {
-                            currentMap.mute();
-                            currentMap.clear();
-                            @SuppressWarnings("unchecked")
-                            java.util.Map<Object, Object> safeMap = (java.util.Map<Object, Object>) map;
-                            currentMap.putAll(safeMap);
-                            currentMap.unmute();
-
-                            rv.set(currentMap);
-                        }
-                    }
-                    else if (currentVal instanceof SmartSet currentSet && converted instanceof java.util.Collection col) {
-                        if (!currentSet.equals(col)) {
-                            currentSet.mute();
-                            currentSet.clear();
-                            @SuppressWarnings("unchecked")
-                            java.util.Collection<Object> safeCol = (java.util.Collection<Object>) col;
-                            currentSet.addAll(safeCol);
-                            currentSet.unmute();
-
-                            rv.set(currentSet);
-                        }
-                    }
-                    else {
-                        if (!Objects.equals(currentVal, converted)) {
-                            rv.set(converted);
-                        }
-                    }
-                }
-            }
+            JsonNode m = mapper.readTree(messagePayload);
+            injectSharedState(topicName, m.path("k").textValue(), m.get("v"));
         } catch (Exception e) {
-            System.err.println("⚠️ Error inyectando estado compartido: " + e.getMessage());
+            log.warn("⚠️ Error inyectando estado compartido: " + e.getMessage());
         }
     }
-    
-    private void hydrateFromBroker() {
-        if (this.broker == null) return;
-
-        Set<String> topics = new HashSet<>();
-        bindings.values().forEach(rv -> {
-            if (rv.getSharedTopic() != null) topics.add(rv.getSharedTopic());
-        });
-
-        for (String topic : topics) {
-            Map<String, String> history = broker.getSharedState(topic);
-            if (history == null || history.isEmpty()) continue;
-
-            for (Map.Entry<String, ReactiveVar<?>> entry : bindings.entrySet()) {
-                @SuppressWarnings("unchecked")
-                ReactiveVar<Object> rv = (ReactiveVar<Object>) entry.getValue();
-
-                if (topic.equals(rv.getSharedTopic())) {
-                    String varName = entry.getKey();
 
-                    String savedJson = history.get(varName);
-                    if (savedJson == null && varName.contains(".")) {
-                        savedJson = history.get(varName.substring(varName.lastIndexOf('.') + 1));
-                    }
+    /**
+     * Igual que {@link #injectSharedState(String, String)} pero con el payload ya parseado.
+     * Se aplica sobre el valor canónico del nodo: lo ven todas las páginas enlazadas a la sala.
+     */
+    public void injectSharedState(String topicName, String varName, JsonNode newValue) {
+        if (!sharedIndex.containsKey(topicName)) return;
+        shared.applyValue(topicName, varName, newValue);
+    }
 
-                    if (savedJson != null) {
-                        try {
-                            java.lang.reflect.Type targetType = rv.getGenericType();
-                            Object currentVal = rv.get();
-                            if (targetType == null) {
-                                targetType = (currentVal != null) ? currentVal.getClass() : Object.class;
-                            }
-
-                            Object converted = mapper.readValue(savedJson, mapper.constructType(targetType));
-
-                            // ═══════════════════════════════════════════════
-                            // FIX: Mutar el SmartList/Map/Set existente
-                            // en lugar de reemplazarlo con un ArrayList de Jackson.
-                            // Así setupListeners() encontrará el SmartList real
-                            // y podrá suscribirse a sus eventos correctamente.
-                            // ═══════════════════════════════════════════════
-
-                            if (currentVal instanceof SmartList currentList && converted instanceof java.util.List newList) {
-                                currentList.mute();
-                                currentList.clear();
-                                @SuppressWarnings("unchecked")
-                                java.util.List<Object> safeList = (java.util.List<Object>) newList;
-                                currentList.addAll(safeList);
-                                currentList.unmute();
-                                // NO llamamos rv.set() — la referencia no cambió,
-                                // y setupListeners() aún no se ejecutó.
-
-                            } else if (currentVal instanceof SmartMap currentMap && converted instanceof java.util.Map newMap) {
-                                currentMap.mute();
-                                currentMap.clear();
-                                @SuppressWarnings("unchecked")
-                                java.util.Map<Object, Object> safeMap = (java.util.Map<Object, Object>) newMap;
-                                currentMap.putAll(safeMap);
-                                currentMap.unmute();
-
-                            } else if (currentVal instanceof SmartSet currentSet && converted instanceof java.util.Collection newCol) {
-                                currentSet.mute();
-                                currentSet.clear();
-                                @SuppressWarnings("unchecked")
-                                java.util.Collection<Object> safeCol = (java.util.Collection<Object>) newCol;
-                                currentSet.addAll(safeCol);
-                                currentSet.unmute();
-
-                            } else {
-                                // Tipos simples (int, String, boolean): set normal
-                                rv.set(converted);
-                            }
-
-                        } catch (Exception e) {
-                            System.err.println("⚠️ Error hidratando historial de sala: " + e.getMessage());
-                        }
-                    }
-                }
-            }
-        }
+    /**
+     * Op incremental de una colección @Shared llegada de otro nodo (ver {@link SharedTopicRegistry#applyOp}).
+     */
+    public void applySharedDelta(String topicName, String varName, JsonNode op) {
+        if (!sharedIndex.containsKey(topicName)) return;
+        shared.applyOp(topicName, varName, op);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.ciro.jreactive;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cola de salida acotada de UNA conexión WS, con un solo escritor.
+ * <p>
+ * Los adaptadores ({@code UndertowJrxSession}, {@code SpringWsWrapper}) encolan aquí en vez de
+ * escribir en línea: quien llama nunca espera al socket, y un cliente lento solo se retrasa a sí mismo.
+ * <ul>
+ *   <li>Un mensaje en vuelo a la vez: el orden del cable es el orden de {@link #offer}.</li>
+ *   <li>Cliente lento: si la cola llega a {@code limit} o el mensaje en vuelo lleva más de
+ *       {@code stallMs}, se vacía la cola (futures fallidos) y se avisa con {@code onSlowConsumer}
+ *       para que el adaptador cierre la conexión.</li>
+ * </ul>
+ */
+public final class JrxSendQueue {
+
+    /** Escritura real de UN mensaje ({@code String} o {@code ByteBuffer}); llama a {@code done} una vez (null = OK). */
+    @FunctionalInterface
+    public interface Writer {
+        void write(Object payload, Consumer<Throwable> done) throws Exception;
+    }
+
+    private record Item(Object payload, CompletableFuture<Void> done) {}
+
+    private final Writer writer;
+    private final int limit;
+    private final long stallNanos;
+    private final transient Runnable onSlowConsumer;
+
+    // Protegido con 'this'
+    private final ArrayDeque<Item> queue = new ArrayDeque<>();
+    private Item inFlight;
+    private long inFlightSince;
+    private boolean draining;
+    private boolean closed;
+
+    public JrxSendQueue(Writer writer, int limit, long stallMs, Runnable onSlowConsumer) {
+        this.writer = writer;
+        this.limit = Math.max(1, limit);
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, stallMs));
+        this.onSlowConsumer = onSlowConsumer;
+    }
+
+    public CompletableFuture<Void> offer(Object payload) {
+        Item it = new Item(payload, new CompletableFuture<>());
+        boolean slow;
+        synchronized (this) {
+            if (closed) {
+                it.done.completeExceptionally(new IllegalStateException("Conexión cerrada"));
+                return it.done;
+            }
+            slow = queue.size() >= limit
+                    || (inFlight != null && System.nanoTime() - inFlightSince > stallNanos);
+            if (!slow) queue.add(it);
+        }
+        if (slow) {
+            IllegalStateException ex = new IllegalStateException("Cliente lento: cola de salida llena o atascada");
+            it.done.completeExceptionally(ex);
+            close(ex);
+            onSlowConsumer.run();
+            return it.done;
+        }
+        drain();
+        return it.done;
+    }
+
+    public synchronized int size() {
+        return queue.size() + (inFlight != null ? 1 : 0);
+    }
+
+    public void close() {
+        close(new IllegalStateException("Conexión cerrada"));
+    }
+
+    private void close(Throwable cause) {
+        Item[] dropped;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            dropped = queue.toArray(new Item[0]);
+            queue.clear();
+        }
+        for (Item i : dropped) i.done.completeExceptionally(cause);
+    }
+
+    // Bucle en lugar de recursión: un transporte que completa en línea no apila un frame por mensaje
+    private void drain() {
+        for (;;) {
+            Item it;
+            synchronized (this) {
+                if (draining || inFlight != null || closed || (it = queue.poll()) == null) return;
+                inFlight = it;
+                inFlightSince = System.nanoTime();
+                draining = true;
+            }
+            try {
+                writer.write(it.payload, err -> complete(it, err));
+            } catch (Throwable t) {
+                complete(it, t);
+            } finally {
+                synchronized (this) { draining = false; }
+            }
+        }
+    }
+
+    private void complete(Item it, Throwable err) {
+        synchronized (this) {
+            if (inFlight == it) inFlight = null;
+        }
+        if (err == null) it.done.complete(null);
+        else it.done.completeExceptionally(err);
+        drain();
+    }
+}
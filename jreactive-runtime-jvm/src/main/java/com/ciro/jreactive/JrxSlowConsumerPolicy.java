@@ -0,0 +1,14 @@
+package com.ciro.jreactive;
+
+/**
+ * Qué hacer con una sesión WS que no consume sus frames al ritmo del servidor.
+ * <p>
+ * En ambos casos un envío que no se confirma dentro de {@code sendTimeoutMs} desconecta la sesión
+ * (el cliente reconecta con {@code since} y recupera por historial o snapshot).
+ */
+public enum JrxSlowConsumerPolicy {
+    /** Coalesce hasta el último snapshot por clave mientras el socket está ocupado; desconecta solo si se atasca. */
+    COALESCE,
+    /** Desconecta en cuanto la cola de la sesión supera {@code maxQueue}. */
+    DISCONNECT
+}
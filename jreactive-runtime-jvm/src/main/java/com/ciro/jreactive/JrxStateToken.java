@@ -1,71 +1,160 @@
 package com.ciro.jreactive;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import net.jpountz.lz4.LZ4BlockInputStream;
 import net.jpountz.lz4.LZ4BlockOutputStream;
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.nio.charset.StandardCharsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * La "mochila" del modo {@code @Stateless}: el estado de la página viaja firmado en el cliente.
+ * <p>
+ * Formato v2 (el que se emite): {@code base64url(lz4(0x02 + cbor[exp, k1, bytes1, k2, bytes2, ...])).hmac}.
+ * <ul>
+ *   <li>Cada valor va serializado en CBOR por separado: su huella (xxHash64 de esos bytes) sale gratis al
+ *       codificar y al decodificar, y el diff de la respuesta es comparar dos {@code long} por clave
+ *       (ver {@link Sealed} y {@link Opened}).</li>
+ *   <li>Los {@link Mac} se reutilizan desde un pool: nada de {@code Mac.getInstance} + {@code init} por request.</li>
+ * </ul>
+ * Los tokens v1 (JSON con {@code _exp}) se siguen leyendo para no romper las páginas abiertas durante un despliegue.
+ */
 public class JrxStateToken {
-    
-    // 🔥 MAPPER INTERNO ESTÁTICO: Aislado de Spring.
+
+    private static final Logger log = LoggerFactory.getLogger(JrxStateToken.class);
+
+    // 🔥 MAPPERS INTERNOS ESTÁTICOS: Aislados de Spring.
     private static final ObjectMapper TOKEN_MAPPER = new ObjectMapper().findAndRegisterModules();
-    private static final String SECRET = System.getenv().getOrDefault("JRX_SECRET", java.util.UUID.randomUUID().toString()); 
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory()).findAndRegisterModules();
+    private static final String SECRET = System.getenv().getOrDefault("JRX_SECRET", java.util.UUID.randomUUID().toString());
+    private static final SecretKeySpec KEY = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+
+    private static final byte V2 = 2;
+    private static final long TTL_MS = 7_200_000; // 2 horas de vida
+    private static final XXHash64 XX = XXHashFactory.fastestInstance().hash64();
+    private static final long SEED = 0x4A52_5821L;
+
+    // ⚡ Pool y no ThreadLocal: con hilos virtuales cada request es un hilo nuevo y el ThreadLocal no se reusaría
+    private static final ConcurrentLinkedQueue<Mac> MACS = new ConcurrentLinkedQueue<>();
+
+    /** Token recién firmado y la huella de cada clave que lleva dentro. */
+    public record Sealed(String token, Map<String, Long> fingerprints) {}
+
+    /** Estado leído de un token. {@code fingerprints} viene vacío para tokens v1. */
+    public record Opened(Map<String, Object> state, Map<String, Long> fingerprints) {
+        static final Opened EMPTY = new Opened(Map.of(), Map.of());
+    }
 
     public static String encode(Map<String, Object> state) throws Exception {
-        Map<String, Object> payload = new HashMap<>(state);
-        payload.put("_exp", System.currentTimeMillis() + 7200000); // 2 horas de vida
+        return seal(state).token();
+    }
+
+    public static Map<String, Object> decode(String token) throws Exception {
+        return open(token).state();
+    }
+
+    public static Sealed seal(Map<String, Object> state) throws IOException {
+        Map<String, Long> prints = new HashMap<>(state.size() * 2);
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(256);
+        raw.write(V2);
+        try (JsonGenerator g = CBOR_MAPPER.getFactory().createGenerator(raw)) {
+            g.writeStartArray();
+            g.writeNumber(System.currentTimeMillis() + TTL_MS);
+            for (Map.Entry<String, Object> e : state.entrySet()) {
+                byte[] value = CBOR_MAPPER.writeValueAsBytes(e.getValue());
+                prints.put(e.getKey(), fingerprint(value));
+                g.writeString(e.getKey());
+                g.writeBinary(value);
+            }
+            g.writeEndArray();
+        }
 
-        String json = TOKEN_MAPPER.writeValueAsString(payload);
-        
         // 🗜️ COMPRESIÓN LZ4 (5x a 10x más rápido que GZIP, ideal para modo Stateless de alto tráfico)
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(raw.size());
         try (LZ4BlockOutputStream lz4Out = new LZ4BlockOutputStream(baos)) {
-            lz4Out.write(json.getBytes(StandardCharsets.UTF_8));
+            raw.writeTo(lz4Out);
         }
-        
-        String base64Zipped = Base64.getUrlEncoder().withoutPadding().encodeToString(baos.toByteArray());
-        String signature = sign(base64Zipped);
-        return base64Zipped + "." + signature;
+
+        String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(baos.toByteArray());
+        return new Sealed(payload + "." + sign(payload), prints);
     }
 
     @SuppressWarnings("unchecked")
-    public static Map<String, Object> decode(String token) throws Exception {
-        if (token == null || !token.contains(".")) return Map.of();
-        
-        String[] parts = token.split("\\.");
-        String payload = parts[0];
-        String signature = parts[1];
+    public static Opened open(String token) throws IOException {
+        if (token == null) return Opened.EMPTY;
+        int dot = token.indexOf('.');
+        if (dot < 0) return Opened.EMPTY;
 
-        if (!sign(payload).equals(signature)) {
+        String payload = token.substring(0, dot);
+        byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+        byte[] given = token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, given)) {
             throw new SecurityException("¡Token alterado!");
         }
 
         // 🗜️ DESCOMPRESIÓN LZ4
-        byte[] zippedBytes = Base64.getUrlDecoder().decode(payload);
-        ByteArrayInputStream bais = new ByteArrayInputStream(zippedBytes);
-        String json;
-        try (LZ4BlockInputStream lz4In = new LZ4BlockInputStream(bais)) {
-            json = new String(lz4In.readAllBytes(), StandardCharsets.UTF_8);
+        byte[] raw;
+        try (LZ4BlockInputStream lz4In = new LZ4BlockInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(payload)))) {
+            raw = lz4In.readAllBytes();
         }
 
-        Map<String, Object> data = TOKEN_MAPPER.readValue(json, Map.class);
-        
-        // 🔥 VERIFICAR CADUCIDAD
+        if (raw.length > 0 && raw[0] == V2) return openV2(raw);
+
+        // Token v1: JSON plano con "_exp"
+        Map<String, Object> data = TOKEN_MAPPER.readValue(raw, Map.class);
         Number exp = (Number) data.remove("_exp");
-        if (exp != null && System.currentTimeMillis() > exp.longValue()) {
-            System.err.println("⚠️ Token expirado. Reactividad abortada por seguridad.");
-            return Map.of(); 
+        if (exp != null && expired(exp.longValue())) return Opened.EMPTY;
+        return new Opened(data, Map.of());
+    }
+
+    private static Opened openV2(byte[] raw) throws IOException {
+        Map<String, Object> state = new HashMap<>();
+        Map<String, Long> prints = new HashMap<>();
+        try (JsonParser p = CBOR_MAPPER.getFactory().createParser(raw, 1, raw.length - 1)) {
+            if (p.nextToken() != JsonToken.START_ARRAY || p.nextToken() == null) {
+                throw new IOException("Token v2 mal formado");
+            }
+            // 🔥 VERIFICAR CADUCIDAD antes de tocar los valores
+            if (expired(p.getLongValue())) return Opened.EMPTY;
+
+            while (p.nextToken() == JsonToken.VALUE_STRING) {
+                String key = p.getText();
+                p.nextToken();
+                byte[] value = p.getBinaryValue();
+                prints.put(key, fingerprint(value));
+                state.put(key, CBOR_MAPPER.readValue(value, Object.class));
+            }
         }
-        
-        return data;
+        return new Opened(state, prints);
+    }
+
+    private static boolean expired(long exp) {
+        if (System.currentTimeMillis() <= exp) return false;
+        log.warn("⚠️ Token expirado. Reactividad abortada por seguridad.");
+        return true;
+    }
+
+    /** Huella de un valor ya serializado: dos valores con los mismos bytes tienen la misma huella. */
+    private static long fingerprint(byte[] value) {
+        return XX.hash(value, 0, value.length, SEED);
     }
 
     // Helper para generar el JSON inicial del @Client
@@ -73,10 +162,25 @@ public class JrxStateToken {
         return TOKEN_MAPPER.writeValueAsString(state);
     }
 
-    private static String sign(String data) throws Exception {
-        Mac mac = Mac.getInstance("HmacSHA256");
-        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-        byte[] rawHmac = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(rawHmac);
+    private static String sign(String data) {
+        Mac mac = MACS.poll();
+        if (mac == null) mac = newMac();
+        try {
+            // doFinal deja el Mac listo para reutilizarse con la misma clave
+            byte[] rawHmac = mac.doFinal(data.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(rawHmac);
+        } finally {
+            MACS.offer(mac);
+        }
+    }
+
+    private static Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(KEY);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package com.ciro.jreactive;
+
+import com.ciro.jreactive.spi.JrxSession;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Protocolo compacto del canal WS: CBOR + diccionario de claves.
+ * <p>
+ * El cliente lo pide con {@code ?proto=cbor} (solo WebSocket nativo, SockJS no lleva binario).
+ * Las claves largas con namespace ({@code "ClientsPage-JModal-0.visible"}) viajan como un entero;
+ * la tabla {@code id -> clave} se manda UNA vez al abrir la conexión.
+ * <p>
+ * ⚡ La tabla es del hub (se fija con los bindings al crearlo), no de cada conexión: así el frame
+ * se transcodifica una sola vez y todas las sesiones compactas comparten los mismos bytes.
+ * Una clave que no está en la tabla (ej: {@code updateDeep}) viaja como texto.
+ * <pre>
+ *   diccionario: {"K":["a.b","c",...]}
+ *   envelope:    {"s":seq,"b":[{"k":id,"v":..} | {"k":id,"d":true,"t":"list","c":[..]}]}
+ * </pre>
+ * No se vuelve a pasar por Jackson-databind: se copia el JSON ya serializado token a token.
+ */
+public final class JrxWireCodec {
+
+    /** Atributo de sesión con el protocolo pedido en el handshake. */
+    public static final String PROTO_ATTR = "proto";
+    public static final String CBOR = "cbor";
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+    /** Sin tabla: todas las claves viajan como texto (frames creados fuera de un hub). */
+    static final JrxWireCodec NO_KEYS = new JrxWireCodec(List.of());
+
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    private volatile ByteBuffer dictionary;
+
+    JrxWireCodec(Collection<String> keys) {
+        this.names = keys.stream().sorted().toArray(String[]::new);
+        this.ids = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) ids.put(names[i], i);
+    }
+
+    /** ¿La sesión negoció el protocolo compacto y su transporte admite frames binarios? */
+    static boolean wants(JrxSession s) {
+        return s.supportsBinary() && CBOR.equals(s.getAttr(PROTO_ATTR));
+    }
+
+    int id(String key) {
+        Integer i = ids.get(key);
+        return i == null ? -1 : i;
+    }
+
+    /** {@code {"K":[...]}}: se manda antes que cualquier otro frame compacto de la conexión. */
+    ByteBuffer dictionary() {
+        ByteBuffer d = dictionary;
+        if (d == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 + names.length * 24);
+            try (JsonGenerator g = CBOR_FACTORY.createGenerator(out)) {
+                g.writeStartObject();
+                g.writeFieldName("K");
+                g.writeStartArray();
+                for (String n : names) g.writeString(n);
+                g.writeEndArray();
+                g.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            d = ByteBuffer.wrap(out.toByteArray()).asReadOnlyBuffer();
+            dictionary = d;
+        }
+        return d.duplicate();
+    }
+
+    /** Un mensaje JSON ({@code {"k":..,"v":..}} o delta) a su forma compacta. */
+    byte[] item(String json) {
+        try (JsonParser p = JSON.createParser(json)) {
+            p.nextToken();
+            return item(p);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Un envelope JSON completo ({@code {"seq":N,"batch":[...]}}, ej: el snapshot inicial). */
+    ByteBuffer transcode(String envelopeJson) {
+        try (JsonParser p = JSON.createParser(envelopeJson)) {
+            long seq = 0;
+            List<byte[]> items = new ArrayList<>();
+            p.nextToken(); // START_OBJECT
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.getCurrentName();
+                JsonToken t = p.nextToken();
+                if ("seq".equals(f)) {
+                    seq = p.getLongValue();
+                } else if ("batch".equals(f) && t == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) items.add(item(p));
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return envelope(seq, items);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Parser posicionado en el START_OBJECT del mensaje; lo deja en su END_OBJECT. */
+    private byte[] item(JsonParser p) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        try (JsonGenerator g = CBOR_FACTORY.createGenerator(out)) {
+            g.writeStartObject();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.getCurrentName();
+                p.nextToken();
+                switch (f) {
+                    case "k" -> {
+                        g.writeFieldName("k");
+                        String key = p.getText();
+                        int id = id(key);
+                        if (id >= 0) g.writeNumber(id);
+                        else g.writeString(key);
+                        continue;
+                    }
+                    case "delta"   -> g.writeFieldName("d");
+                    case "type"    -> g.writeFieldName("t");
+                    case "changes" -> g.writeFieldName("c");
+                    default        -> g.writeFieldName(f);
+                }
+                g.copyCurrentStructure(p);
+            }
+            g.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * {@code {"s":seq,"b":[items]}} escrito a mano: los items ya son CBOR válido,
+     * así que el envelope solo concatena (igual que {@link JrxFrame#envelope}).
+     */
+    static ByteBuffer envelope(long seq, List<byte[]> items) {
+        int len = 24;
+        for (byte[] i : items) len += i.length;
+        ByteBuffer b = ByteBuffer.allocate(len);
+        head(b, 5, 2);                       // map(2)
+        b.put((byte) 0x61).put((byte) 's');  // "s"
+        head(b, 0, seq);
+        b.put((byte) 0x61).put((byte) 'b');  // "b"
+        head(b, 4, items.size());            // array(n)
+        for (byte[] i : items) b.put(i);
+        b.flip();
+        return b.asReadOnlyBuffer();
+    }
+
+    /** Cabecera CBOR (tipo mayor + longitud/valor) con el tamaño mínimo. */
+    private static void head(ByteBuffer b, int major, long v) {
+        int m = major << 5;
+        if (v < 24)                b.put((byte) (m | v));
+        else if (v < 0x100)        b.put((byte) (m | 24)).put((byte) v);
+        else if (v < 0x10000)      b.put((byte) (m | 25)).putShort((short) v);
+        else if (v < 0x100000000L) b.put((byte) (m | 26)).putInt((int) v);
+        else                       b.put((byte) (m | 27)).putLong(v);
+    }
+}
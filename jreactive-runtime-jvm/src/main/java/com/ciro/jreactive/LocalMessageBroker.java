@@ -8,20 +8,47 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Broker en memoria RAM. Permite que el @Shared Multijugador funcione 
  * sin necesidad de tener Redis instalado durante el desarrollo.
+ * <p>
+ * Con {@code new LocalMessageBroker()} la entrega es síncrona, en el hilo que publica. Con
+ * {@link #LocalMessageBroker(int, int)} pasa por los carriles de {@link JrxInboundDispatcher}, igual que
+ * en {@code RedisMessageBroker}: sirve para probar en local el orden por sesión/topic y el desbordamiento.
  */
-public class LocalMessageBroker implements JrxMessageBroker {
+public class LocalMessageBroker implements JrxMessageBroker, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalMessageBroker.class);
 
     private final Map<String, String> sharedDb = new ConcurrentHashMap<>();
     private final List<BiConsumer<String, String>> listeners = new CopyOnWriteArrayList<>();
     private final ObjectMapper mapper = new ObjectMapper();
+    private final JrxInboundDispatcher inbound; // null = entrega síncrona
+
+    public LocalMessageBroker() {
+        this.inbound = null;
+    }
+
+    public LocalMessageBroker(int lanes, int laneCapacity) {
+        this.inbound = new JrxInboundDispatcher(lanes, laneCapacity);
+    }
+
+    private void deliver(String target, String message) {
+        if (inbound == null) {
+            listeners.forEach(l -> l.accept(target, message));
+        } else {
+            // Sesiones con aviso de pérdida; una sala @Shared resincroniza con su hueco de versiones
+            Runnable onLost = target.startsWith("shared:") ? null : () -> listeners.forEach(l -> l.accept(target, RESYNC));
+            inbound.submit(target, () -> listeners.forEach(l -> l.accept(target, message)), onLost);
+        }
+    }
 
     @Override
     public void publish(String sessionId, String message) {
-        listeners.forEach(l -> l.accept(sessionId, message));
+        deliver(sessionId, message);
     }
 
     @Override
@@ -32,7 +59,7 @@ public class LocalMessageBroker implements JrxMessageBroker {
     @Override
     public void publishShared(String topic, String message) {
         // Simulamos el Pub/Sub enviando el mensaje a todos los listeners locales
-        listeners.forEach(l -> l.accept("shared:" + topic, message));
+        deliver("shared:" + topic, message);
     }
 
     @Override
@@ -40,7 +67,7 @@ public class LocalMessageBroker implements JrxMessageBroker {
         try {
             sharedDb.put(topic + "::" + varName, mapper.writeValueAsString(value));
         } catch (Exception e) {
-        	System.err.println("❌ [JReactive LocalBroker] Error guardando estado compartido para '" + varName + "': " + e.getMessage());
+        	log.error("❌ [JReactive LocalBroker] Error guardando estado compartido para '" + varName + "': " + e.getMessage());
         }
     }
 
@@ -55,4 +82,9 @@ public class LocalMessageBroker implements JrxMessageBroker {
         });
         return result;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void close() {
+        if (inbound != null) inbound.close();
+    }
+}
@@ -64,9 +64,8 @@ public class PageResolver {
 
     public Map<String, String> getParams(String sessionId, String path) {
         // Optimizacion: En lugar de guardar los params en el store (que complica la serialización),
-        // simplemente volvemos a resolver la ruta. Es muy rápido y stateless.
-        RouteProvider.Result res = registry.resolve(path);
-        return res.params();
+        // volvemos a hacer match de la ruta. ⚡ Solo el match: no se crea ningún componente.
+        return registry.params(path);
     }
 
     public HtmlComponent getHomePageInstance(String sessionId) {
@@ -85,6 +84,11 @@ public class PageResolver {
         
     }
 
+    /** Adelanta la escritura diferida de la página, si el store tiene alguna pendiente. */
+    public void flush(String sessionId, String path) {
+        store.flush(sessionId, path);
+    }
+
     public void evict(String sessionId, String path) {
         store.remove(sessionId, path);
     }
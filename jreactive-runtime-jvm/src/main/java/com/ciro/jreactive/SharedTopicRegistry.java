@@ -0,0 +1,834 @@
+package com.ciro.jreactive;
+
+import com.ciro.jreactive.smart.SmartList;
+import com.ciro.jreactive.smart.SmartMap;
+import com.ciro.jreactive.smart.SmartSet;
+import com.ciro.jreactive.spi.JrxMessageBroker;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Estado {@code @Shared} del nodo: UN valor canónico por (topic, variable), con su versión, al que
+ * las páginas se enlazan por referencia.
+ * <ul>
+ *   <li>El topic se hidrata una vez (un {@code getSharedState}/{@code HGETALL}) con la primera página
+ *       que lo escucha, no con cada hub.</li>
+ *   <li>Lo que llega del broker se decodifica una vez por nodo y se reparte por referencia a los
+ *       {@link ReactiveVar} enlazados.</li>
+ *   <li>Las colecciones Smart no se comparten: cada página tiene su copia (la escriben su sesión y su
+ *       render) y el registro guarda la canónica, que solo se toca con el Slot tomado. Una op se decodifica
+ *       una vez y se aplica a la canónica y a cada copia; los elementos van por referencia.</li>
+ *   <li>Un cambio local también llega al resto de páginas del nodo (el broker no nos devuelve lo nuestro).</li>
+ *   <li>Las ops locales se aplican al momento, antes de saber su versión. Si dos nodos escriben a la vez, el
+ *       que recibe una versión con otras más bajas aún en camino las aplica después de la suya: con ops por
+ *       índice su lista queda en otro orden que la del resto. Ese nodo lo sabe (SharedCursor) y,
+ *       cuando le llegan las que faltaban, se resincroniza desde la copia maestra, que va en orden de versión.</li>
+ * </ul>
+ * Con 2.000 espectadores de la misma sala en un nodo: un valor en el heap y una conversión por
+ * mensaje, en vez de 2.000. Un topic sin páginas se suelta y se vuelve a hidratar si alguien vuelve.
+ * <p>
+ * ⚡ Con {@code @Shared(tickMs > 0)} los cambios locales del topic se pliegan en el valor canónico y un
+ * scheduler compartido publica, guarda y reparte una vez por tick: la carga del broker y de los sockets
+ * queda acotada por la frecuencia del tick, no por la de escritura. El hilo del tick solo reparte y toma
+ * la foto del valor; la publicación sale en hilos virtuales, en orden por topic.
+ */
+public class SharedTopicRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedTopicRegistry.class);
+
+    // Marca el hilo que está aplicando estado remoto: lo que cambie ahí no se vuelve a publicar
+    private static final ThreadLocal<Boolean> APPLYING = new ThreadLocal<>();
+
+    // Totales del proceso para métricas (ver JrxMeterBinder)
+    private static final LongAdder TICK_WRITES = new LongAdder();
+    private static final LongAdder TICK_UPDATES = new LongAdder();
+
+    private final ObjectMapper mapper;
+    private final JrxMessageBroker broker;
+    // Identifica lo publicado por este registro (el LocalMessageBroker nos devuelve lo nuestro)
+    private final String id = UUID.randomUUID().toString();
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+
+    /** Un topic con páginas en este nodo. La estructura se protege con el propio Topic. */
+    private static final class Topic {
+        final Map<String, Slot> slots = new ConcurrentHashMap<>();
+        Map<String, String> stored;   // copia maestra leída al hidratar (y lo que llegue de variables sin slot)
+        boolean removed;              // ya no está en el mapa
+        long tickMs;                  // 0 = sin conflación
+        final Set<Slot> dirty = new LinkedHashSet<>(); // cambiados desde el último tick
+        CompletableFuture<Void> io = CompletableFuture.completedFuture(null); // escrituras de tick, en orden
+        CompletableFuture<Void> fanout = CompletableFuture.completedFuture(null); // repartos de tick, en orden
+    }
+
+    /** Valor canónico de una variable @Shared. Se protege con el propio Slot. */
+    private static final class Slot {
+        final String topicName;
+        final Topic topic;
+        final String var;
+        final Map<ReactiveVar<?>, PageCopy> bound = new IdentityHashMap<>();
+        final SharedCursor cursor = new SharedCursor();
+        JavaType type;
+        Object value;                 // colecciones: copia propia del registro, nunca la de una página
+        long version;                 // sube con cada cambio del valor canónico
+        String json;                  // POJO: su JSON la última vez que se publicó o aplicó
+        CompletableFuture<Void> io = CompletableFuture.completedFuture(null); // ops locales al broker, en orden
+        boolean versioned;            // el broker ya tiene copia maestra versionada (no hace falta semilla)
+
+        Slot(String topicName, Topic topic, String var) {
+            this.topicName = topicName;
+            this.topic = topic;
+            this.var = var;
+        }
+    }
+
+    /** La colección que tiene una página enlazada y el op listener que le pusimos. Se protege con el Slot. */
+    private static final class PageCopy {
+        Object value;
+        transient Runnable unsubscribe;
+    }
+
+    /** Una op de colección ya decodificada: la clave y el elemento se convierten una vez para todas las copias. */
+    private record Change(String op, int index, Object key, Object item) {}
+
+    public SharedTopicRegistry(ObjectMapper mapper, JrxMessageBroker broker) {
+        this.mapper = mapper;
+        this.broker = broker;
+    }
+
+    /** true mientras este hilo aplica estado llegado del broker (no hay que republicarlo). */
+    static boolean applying() {
+        return APPLYING.get() != null;
+    }
+
+    // ------------------------------------------------------------
+    // Enlace de páginas
+    // ------------------------------------------------------------
+
+    /**
+     * Enlaza el binding {@code key} de una página al valor canónico de {@code topic}. La primera
+     * página hidrata el valor (desde el broker o con el suyo); las demás pasan a apuntar a ese valor.
+     */
+    public void bind(String topic, String key, ReactiveVar<?> rv) {
+        String var = cleanVar(key);
+        while (true) {
+            Topic t = topics.computeIfAbsent(topic, _k -> new Topic());
+            synchronized (t) {
+                if (t.removed) continue; // se acaba de soltar: otra vuelta con uno nuevo
+                if (t.stored == null) t.stored = loadStored(topic);
+                t.tickMs = Math.max(t.tickMs, rv.getSharedTickMs());
+
+                Slot s = t.slots.computeIfAbsent(var, v -> new Slot(topic, t, v));
+                synchronized (s) {
+                    if (s.bound.isEmpty()) hydrate(topic, key, t, s, rv);
+                    s.bound.put(rv, new PageCopy());
+                    withApplying(() -> hand(s, rv));
+                }
+                return;
+            }
+        }
+    }
+
+    /** Suelta el binding; el topic se olvida cuando no le queda ninguna página. */
+    public void unbind(String topic, String key, ReactiveVar<?> rv) {
+        Topic t = topics.get(topic);
+        if (t == null) return;
+        synchronized (t) {
+            Slot s = t.slots.get(cleanVar(key));
+            if (s == null) return;
+            synchronized (s) {
+                PageCopy pc = s.bound.remove(rv);
+                if (pc == null) return;
+                if (pc.unsubscribe != null) pc.unsubscribe.run();
+                if (!s.bound.isEmpty()) return;
+                t.slots.remove(s.var);
+            }
+            if (t.slots.isEmpty()) {
+                t.removed = true;
+                topics.remove(topic, t);
+            }
+        }
+    }
+
+    private Map<String, String> loadStored(String topic) {
+        if (broker == null) return new HashMap<>();
+        try {
+            Map<String, String> state = broker.getSharedState(topic);
+            return state == null ? new HashMap<>() : new HashMap<>(state);
+        } catch (Exception e) {
+            log.warn("⚠️ Error hidratando historial de sala '{}': {}", topic, e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    // Primera página del slot: su valor pasa a ser el canónico, con lo guardado en el broker encima.
+    // La página recibe su copia después (hand)
+    private void hydrate(String topic, String key, Topic t, Slot s, ReactiveVar<?> rv) {
+        Object current = rv.get();
+        java.lang.reflect.Type generic = rv.getGenericType();
+        s.type = mapper.constructType(generic != null ? generic : current != null ? current.getClass() : Object.class);
+        s.value = copyOf(current);
+        s.cursor.reset();
+
+        // Colecciones: copia maestra + ops posteriores, leídas juntas y con su versión
+        JrxMessageBroker.SharedSnapshot snap = isSmart(current) && broker != null ? broker.sharedSnapshot(topic, s.var) : null;
+        String savedJson = snap != null ? snap.value() : t.stored.get(key);
+        if (savedJson == null) savedJson = t.stored.get(s.var);
+
+        if (savedJson != null) {
+            try {
+                s.value = toSmart(mapper.readValue(savedJson, s.type));
+            } catch (Exception e) {
+                log.warn("⚠️ Error hidratando historial de sala: " + e.getMessage());
+            }
+        }
+        if (snap != null) {
+            s.versioned = snap.version() > 0;
+            s.cursor.advance(snap.version());
+            replayOps(s, snap.ops());
+        }
+        s.json = json(s.value);
+    }
+
+    // Con el Slot tomado y APPLYING: la página pasa a ver el valor canónico. Las colecciones, como copia
+    // propia (si ya tiene el mismo contenido se queda con la suya) con un op listener que las publica
+    @SuppressWarnings("unchecked")
+    private void hand(Slot s, ReactiveVar<?> rv) {
+        PageCopy pc = s.bound.get(rv);
+        if (pc.unsubscribe != null) pc.unsubscribe.run();
+        pc.unsubscribe = null;
+        pc.value = null;
+        if (!isSmart(s.value)) {
+            if (rv.get() != s.value) ((ReactiveVar<Object>) rv).set(s.value);
+            return;
+        }
+        if (!isSmart(rv.get()) || !s.value.equals(rv.get())) ((ReactiveVar<Object>) rv).set(copyOf(s.value));
+        watch(s, rv, pc);
+    }
+
+    // Op listener sobre la colección de UNA página: cada op local se aplica y se publica una vez
+    private void watch(Slot s, ReactiveVar<?> rv, PageCopy pc) {
+        Object v = rv.get();
+        pc.value = v;
+        if (v instanceof SmartList<?> list) {
+            Consumer<SmartList.Change> l = ch -> onLocalOp(s, rv, "list", ch);
+            list.subscribe(l);
+            pc.unsubscribe = () -> list.unsubscribe(l);
+        } else if (v instanceof SmartMap<?, ?> map) {
+            Consumer<SmartMap.Change> l = ch -> onLocalOp(s, rv, "map", ch);
+            map.subscribe(l);
+            pc.unsubscribe = () -> map.unsubscribe(l);
+        } else if (v instanceof SmartSet<?> set) {
+            Consumer<SmartSet.Change> l = ch -> onLocalOp(s, rv, "set", ch);
+            set.subscribe(l);
+            pc.unsubscribe = () -> set.unsubscribe(l);
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Estado remoto (un parseo y una conversión por nodo)
+    // ------------------------------------------------------------
+
+    /** Mensaje {@code shared:<topic>} del broker: valor entero ({@code "v"}) u op de colección ({@code "delta"}). */
+    public void onRemote(String topic, String message) {
+        if (!topics.containsKey(topic)) return; // nadie en el nodo escucha esta sala
+        JsonNode m;
+        try {
+            m = mapper.readTree(message);
+        } catch (Exception e) {
+            log.warn("⚠️ Error inyectando estado compartido: " + e.getMessage());
+            return;
+        }
+        if (id.equals(m.path("src").asText())) return; // nuestro propio eco
+        String varName = m.path("k").textValue();
+        if (m.path("delta").asBoolean(false)) applyOp(topic, varName, m);
+        else applyValue(topic, varName, m.get("v"));
+    }
+
+    /**
+     * Valor entero de una variable: se convierte una vez y todas las páginas se quedan con esa instancia
+     * (las colecciones, con una copia cada una).
+     */
+    public void applyValue(String topic, String varName, JsonNode newValue) {
+        Topic t = topics.get(topic);
+        if (t == null || varName == null || newValue == null) return;
+        String var = cleanVar(varName);
+        Slot s = t.slots.get(var);
+        if (s == null) {
+            // Nadie la usa todavía: que la hidratación de quien llegue no lea una copia vieja
+            synchronized (t) {
+                if (t.stored != null) t.stored.put(var, newValue.toString());
+            }
+            return;
+        }
+        synchronized (s) {
+            // Una colección reemplazada entera: su versión ya no dice nada, la siguiente op manda
+            s.cursor.reset();
+            try {
+                replaceValue(s, mapper.treeToValue(newValue, s.type));
+            } catch (Exception e) {
+                log.warn("⚠️ Error inyectando estado compartido: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Op incremental de una colección llegada de otro nodo: se decodifica una vez y se aplica a la colección
+     * canónica y a la copia de cada página (los clientes de cada página reciben el mismo delta).
+     * Con versiones del broker: las repetidas se ignoran y un hueco fuerza un resync desde la copia maestra.
+     */
+    public void applyOp(String topic, String varName, JsonNode op) {
+        Topic t = topics.get(topic);
+        if (t == null || varName == null) return;
+        if (id.equals(op.path("src").asText())) return; // nuestro propio eco
+        Slot s = t.slots.get(cleanVar(varName));
+        if (s == null) return;
+
+        long ver = op.path("ver").asLong(0);
+        synchronized (s) {
+            SharedCursor cur = s.cursor;
+            if (ver > 0 && cur.applied > 0) {
+                if (ver <= cur.applied || cur.remoteAhead.contains(ver)) return; // repetida o ya incluida en un resync
+                // Un hueco puede ser una op nuestra que aún no sabe su versión: entonces se aplica y se espera
+                if (ver > cur.applied + 1 && cur.inFlight == 0) {
+                    resync(topic, s);
+                    return;
+                }
+            }
+            try {
+                applyAll(s, decode(s, op.path("changes")), null);
+            } catch (Exception e) {
+                log.warn("⚠️ Error aplicando op compartida de '" + s.var + "': " + e.getMessage());
+            }
+            cur.remote(ver);
+            if (cur.needsResync()) resync(topic, s);
+        }
+    }
+
+    // Hueco de versiones: copia maestra + ops posteriores, y la colección se reemplaza entera
+    private void resync(String topic, Slot s) {
+        JrxMessageBroker.SharedSnapshot snap = broker == null ? null : broker.sharedSnapshot(topic, s.var);
+        s.cursor.reset();
+        if (snap == null) return;
+        try {
+            replaceValue(s, mapper.readValue(snap.value(), s.type));
+        } catch (Exception e) {
+            log.warn("⚠️ Error resincronizando '" + s.var + "': " + e.getMessage());
+            return;
+        }
+        s.cursor.advance(snap.version());
+        replayOps(s, snap.ops());
+        log.info("🔄 Colección compartida '{}' resincronizada en la versión {}", s.var, s.cursor.applied);
+    }
+
+    // Ops del log posteriores a la copia maestra, en orden; se para en el primer hueco
+    private void replayOps(Slot s, List<String> ops) {
+        try {
+            for (String json : ops) {
+                JsonNode op = mapper.readTree(json);
+                long ver = op.path("ver").asLong(0);
+                if (ver <= s.cursor.applied) continue;
+                if (s.cursor.applied > 0 && ver != s.cursor.applied + 1) break;
+                applyAll(s, decode(s, op.path("changes")), null);
+                s.cursor.advance(ver);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Error aplicando el log de ops de '" + s.var + "': " + e.getMessage());
+        }
+    }
+
+    // Con el Slot tomado. Las páginas no se rellenan en su sitio: cada una recibe una copia nueva
+    // (su rv.set emite el snapshot), así una escritura suya a mitad del reemplazo no se pierde en silencio
+    private void replaceValue(Slot s, Object converted) {
+        Object next = toSmart(converted);
+        if (Objects.equals(s.value, next)) return;
+        s.value = next;
+        s.json = json(next);
+        s.version++;
+        withApplying(() -> {
+            for (ReactiveVar<?> rv : List.copyOf(s.bound.keySet())) hand(s, rv);
+        });
+    }
+
+    // Con el Slot tomado: los cambios van a la colección canónica y a la copia de cada página (menos 'except',
+    // que ya los tiene). Sus hubs emiten el delta; nuestros op listeners los ignoran (APPLYING)
+    private void applyAll(Slot s, List<Change> changes, ReactiveVar<?> except) {
+        if (changes.isEmpty() || !isSmart(s.value)) return;
+        withApplying(() -> {
+            apply(s.value, changes);
+            for (Map.Entry<ReactiveVar<?>, PageCopy> e : s.bound.entrySet()) {
+                if (e.getKey() != except && e.getValue().value != null) apply(e.getValue().value, changes);
+            }
+        });
+        s.version++;
+    }
+
+    private List<Change> decode(Slot s, JsonNode changes) throws IOException {
+        JavaType type = s.type;
+        JavaType item = type.getContentType() != null ? type.getContentType() : mapper.constructType(Object.class);
+        JavaType keyType = type.getKeyType() != null ? type.getKeyType() : mapper.constructType(Object.class);
+        boolean isMap = s.value instanceof SmartMap;
+        List<Change> out = new ArrayList<>();
+        for (JsonNode ch : changes) {
+            JsonNode k = ch.get("key");
+            JsonNode v = ch.get(isMap ? "value" : "item");
+            out.add(new Change(ch.path("op").asText(), ch.path("index").asInt(),
+                    isMap && k != null && !k.isNull() ? mapper.treeToValue(k, keyType) : null,
+                    v != null && !v.isNull() ? mapper.treeToValue(v, item) : null));
+        }
+        return out;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void apply(Object target, List<Change> changes) {
+        for (Change ch : changes) {
+            int i = ch.index();
+            if (target instanceof SmartList list) {
+                switch (ch.op()) {
+                    case "ADD" -> list.add(Math.max(0, Math.min(i, list.size())), ch.item());
+                    case "SET" -> { if (i >= 0 && i < list.size()) list.set(i, ch.item()); }
+                    case "REMOVE" -> { if (i >= 0 && i < list.size()) list.remove(i); }
+                    case "CLEAR" -> list.clear();
+                    default -> { }
+                }
+            } else if (target instanceof SmartMap map) {
+                switch (ch.op()) {
+                    case "PUT" -> map.put(ch.key(), ch.item());
+                    case "REMOVE" -> map.remove(ch.key());
+                    case "CLEAR" -> map.clear();
+                    default -> { }
+                }
+            } else if (target instanceof SmartSet set) {
+                switch (ch.op()) {
+                    case "ADD" -> set.add(ch.item());
+                    case "REMOVE" -> set.remove(ch.item());
+                    case "CLEAR" -> set.clear();
+                    default -> { }
+                }
+            }
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Cambios locales
+    // ------------------------------------------------------------
+
+    /**
+     * Una página del nodo cambió el valor entero de {@code key}: pasa a ser el canónico, el resto de
+     * páginas del nodo lo reciben por referencia (una colección, como copia) y se publica una vez
+     * (o en el próximo tick).
+     * {@code body} es el del frame ({@code {"k":..,"v":..}}), ya serializado.
+     */
+    public void publishLocal(String topic, String key, ReactiveVar<?> origin, Object value, String body) {
+        Topic t = topics.get(topic);
+        Slot s = t == null ? null : t.slots.get(cleanVar(key));
+        if (s != null) {
+            synchronized (s) {
+                // Lo que ya tenemos (el _syncState de una página a la que se lo acabamos de repartir).
+                // La colección que ya vigilamos tampoco: sus ops ya salieron una a una
+                PageCopy own = s.bound.get(origin);
+                if (isSmart(value) && own != null && own.value == value) return;
+                // Un POJO se compara por su JSON exacto: una huella puede colisionar y perder el cambio
+                String now = json(value);
+                if (value == s.value && now != null && now.equals(s.json)) return;
+                if (StateTable.isImmutable(value) && Objects.equals(value, s.value)) return;
+
+                boolean smart = isSmart(value);
+                s.value = copyOf(value);
+                s.json = now;
+                s.version++;
+                s.cursor.reset();
+                withApplying(() -> {
+                    // La página se queda con su colección nueva; las demás reciben su copia ya (no esperan al tick)
+                    if (own != null && smart) hand(s, origin);
+                    if (t.tickMs == 0 || smart) {
+                        for (ReactiveVar<?> rv : List.copyOf(s.bound.keySet())) {
+                            if (rv != origin) hand(s, rv);
+                        }
+                    }
+                });
+            }
+            // ⚡ Conflación: el tick reparte, publica y guarda lo último
+            if (t.tickMs > 0) {
+                markDirty(s);
+                return;
+            }
+        }
+        if (broker == null) return;
+        // 📢 Con nuestro id: si el broker nos lo devuelve, no se vuelve a aplicar
+        broker.publishShared(topic, "{\"src\":\"" + id + "\"," + body.substring(1));
+        broker.saveSharedState(topic, key, value);
+    }
+
+    // 📢 Op en la colección de una página: se aplica a la canónica y a las demás copias del nodo, y viaja
+    // la op, no la colección entera. Con el Slot tomado solo se aplica y se encola: la canónica solo se
+    // escribe y se lee así. La versión y la publicación salen después, en la cadena del Slot
+    private void onLocalOp(Slot s, ReactiveVar<?> origin, String type, Object change) {
+        if (applying()) return;
+        synchronized (s) {
+            if (!s.bound.containsKey(origin)) return; // página ya soltada
+            JsonNode changes = mapper.createArrayNode().add(mapper.valueToTree(change));
+            try {
+                applyAll(s, decode(s, changes), origin);
+            } catch (Exception e) {
+                log.warn("⚠️ [JReactive] Error repartiendo op compartida de '" + s.var + "': " + e.getMessage());
+                return;
+            }
+            if (s.topic.tickMs == 0 && broker != null) {
+                String json;
+                try {
+                    Map<String, Object> op = new LinkedHashMap<>();
+                    op.put("src", id);
+                    op.put("k", s.var);
+                    op.put("delta", true);
+                    op.put("type", type);
+                    op.put("changes", changes);
+                    json = mapper.writeValueAsString(op);
+                } catch (Exception e) {
+                    log.warn("⚠️ [JReactive] Error publicando op compartida de '" + s.var + "': " + e.getMessage());
+                    return;
+                }
+                s.cursor.inFlight++;
+                // Sin copia maestra conocida la semilla es la colección tal como queda con ESTA op
+                Seed seed = new Seed(s, s.versioned ? null : copyOf(s.value));
+                // ⚡ Encolada con el Slot tomado: las ops salen en el orden en que se aplicaron
+                s.io = s.io.thenRunAsync(() -> publishOp(s, json, seed), Ticker.IO);
+            }
+        }
+        // Fuera del Slot: markDirty toma el Topic (el orden es Topic -> Slot)
+        if (s.topic.tickMs > 0) markDirty(s); // en el tick sale la colección entera, no cada op
+    }
+
+    // En la cadena del Slot, sin tomarlo: la E/S del broker (versión, log, compactación) no frena a quien
+    // escribe ni al reparto de ops remotas. Nunca lanza: un fallo cortaría la cadena
+    private void publishOp(Slot s, String json, Seed seed) {
+        long ver = 0;
+        try {
+            ver = broker.publishSharedOp(s.topicName, s.var, json, seed);
+        } catch (Exception e) {
+            log.warn("⚠️ [JReactive] Error publicando op compartida de '" + s.var + "': " + e.getMessage());
+        }
+        synchronized (s) {
+            if (ver > 0) s.versioned = true;
+            s.cursor.own(ver);
+            if (s.cursor.needsResync()) resync(s.topicName, s);
+        }
+    }
+
+    /**
+     * La colección para sembrar la copia maestra: se serializa solo si el broker la pide. Mientras no se sepa
+     * si hay copia maestra va una copia tomada con la op ({@code frozen}); después, la canónica con el Slot
+     * tomado (fuera de él otra página puede estar escribiéndola).
+     */
+    private final class Seed {
+        private final Slot slot;
+        private final Object frozen;
+
+        Seed(Slot slot, Object frozen) {
+            this.slot = slot;
+            this.frozen = frozen;
+        }
+
+        @com.fasterxml.jackson.annotation.JsonValue
+        JsonNode value() {
+            if (frozen != null) return mapper.valueToTree(frozen);
+            synchronized (slot) {
+                return mapper.valueToTree(slot.value);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Conflación por tick
+    // ------------------------------------------------------------
+
+    // El primer cambio desde el último tick lo programa; los siguientes solo se pliegan
+    private void markDirty(Slot s) {
+        TICK_WRITES.increment();
+        Topic t = s.topic;
+        boolean schedule;
+        synchronized (t) {
+            schedule = t.dirty.isEmpty();
+            t.dirty.add(s);
+        }
+        if (schedule) {
+            try {
+                Ticker.SCHEDULER.schedule(() -> tick(t), t.tickMs, TimeUnit.MILLISECONDS);
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                tick(t);
+            }
+        }
+    }
+
+    /** Lo que sale al broker por una variable en un tick: su valor tal como estaba al tomar el Slot. */
+    private record TickWrite(String topic, String var, Object value) {}
+
+    /** El reparto local de un tick: el valor, su versión y las páginas enlazadas al tomar la foto. */
+    private record TickFanout(Slot slot, Object value, long version, List<ReactiveVar<?>> pages) {}
+
+    /**
+     * Un tick del topic: por cada variable cambiada, una foto del valor y de sus páginas, tomada con el
+     * Slot (nadie lo escribe mientras). El reparto a las páginas, la publicación y la copia maestra salen
+     * después, fuera de este hilo y sin el Slot.
+     */
+    private void tick(Topic t) {
+        List<Slot> due;
+        synchronized (t) {
+            due = new ArrayList<>(t.dirty);
+            t.dirty.clear();
+        }
+        List<TickWrite> writes = new ArrayList<>(due.size());
+        List<TickFanout> fanouts = new ArrayList<>(due.size());
+        for (Slot s : due) {
+            synchronized (s) {
+                Object value = s.value;
+                // Sale entero: las versiones de las ops ya no dicen nada
+                s.cursor.reset();
+                // Las colecciones ya llegaron a las copias de cada página con su op
+                if (!isSmart(value)) {
+                    fanouts.add(new TickFanout(s, value, s.version, List.copyOf(s.bound.keySet())));
+                }
+                try {
+                    writes.add(new TickWrite(s.topicName, s.var,
+                            StateTable.isImmutable(value) ? value : mapper.valueToTree(value)));
+                } catch (Exception e) {
+                    log.warn("⚠️ [JReactive] No se pudo serializar el tick de '" + s.var + "': " + e.getMessage());
+                    continue;
+                }
+            }
+            TICK_UPDATES.increment();
+        }
+        // ⚡ El hilo del tick es uno para todas las salas: el reparto a las páginas (sus hubs serializan y
+        // emiten) y la E/S del broker van cada uno en una cadena por topic (los ticks de una sala salen en
+        // orden) sobre hilos virtuales
+        boolean publish = broker != null && !writes.isEmpty();
+        if (fanouts.isEmpty() && !publish) return;
+        synchronized (t) {
+            if (!fanouts.isEmpty()) t.fanout = t.fanout.thenRunAsync(() -> fanout(fanouts), Ticker.IO);
+            if (publish) t.io = t.io.thenRunAsync(() -> send(writes), Ticker.IO);
+        }
+    }
+
+    // Sin el Slot: cada página se comprueba con él justo antes de su set. Si el valor ya cambió (un remoto
+    // que se repartió solo, u otro tick detrás en la cadena) o la página se soltó, esta foto ya no vale.
+    // Nunca lanza: un fallo cortaría la cadena de repartos del topic
+    @SuppressWarnings("unchecked")
+    private void fanout(List<TickFanout> fanouts) {
+        for (TickFanout f : fanouts) {
+            Slot s = f.slot();
+            for (ReactiveVar<?> rv : f.pages()) {
+                synchronized (s) {
+                    if (s.version != f.version()) break;
+                    if (!s.bound.containsKey(rv)) continue;
+                }
+                if (rv.get() == f.value()) continue;
+                try {
+                    withApplying(() -> ((ReactiveVar<Object>) rv).set(f.value()));
+                } catch (Exception e) {
+                    log.warn("⚠️ [JReactive] Error repartiendo el tick de '" + s.var + "': " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Nunca lanza: un fallo cortaría la cadena de escrituras del topic
+    private void send(List<TickWrite> writes) {
+        for (TickWrite w : writes) {
+            try {
+                Map<String, Object> msg = new LinkedHashMap<>();
+                msg.put("src", id);
+                msg.put("k", w.var());
+                msg.put("v", w.value());
+                broker.publishShared(w.topic(), mapper.writeValueAsString(msg));
+                broker.saveSharedState(w.topic(), w.var(), w.value());
+            } catch (Exception e) {
+                log.warn("⚠️ [JReactive] Error publicando el tick de '" + w.var() + "': " + e.getMessage());
+            }
+        }
+    }
+
+    /** Escrituras locales plegadas en algún tick (todos los registros del proceso). */
+    public static long tickWrites() { return TICK_WRITES.sum(); }
+
+    /** Actualizaciones que salieron en los ticks. */
+    public static long tickUpdates() { return TICK_UPDATES.sum(); }
+
+    /** Escrituras por actualización publicada: 1 = sin plegar, 20 = una publicación cada veinte escrituras. */
+    public static double conflationRatio() {
+        long u = TICK_UPDATES.sum();
+        return u == 0 ? 0 : (double) TICK_WRITES.sum() / u;
+    }
+
+    // Un solo hilo para los ticks de todas las salas (se crea con la primera); la E/S, en hilos virtuales
+    private static final class Ticker {
+        static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread th = new Thread(r, "jrx-shared-tick");
+            th.setDaemon(true);
+            return th;
+        });
+        static final ExecutorService IO = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("jrx-shared-io-", 0).factory());
+    }
+
+    // ------------------------------------------------------------
+    // Lectura (tests y métricas)
+    // ------------------------------------------------------------
+
+    /** Valor canónico de la variable en este nodo, o null si ninguna página la escucha. */
+    public Object value(String topic, String var) {
+        Slot s = slot(topic, var);
+        if (s == null) return null;
+        synchronized (s) { return s.value; }
+    }
+
+    /** Versión local del valor canónico (sube con cada cambio); -1 si ninguna página la escucha. */
+    public long version(String topic, String var) {
+        Slot s = slot(topic, var);
+        if (s == null) return -1;
+        synchronized (s) { return s.version; }
+    }
+
+    /** Topics con al menos una página en este nodo. */
+    public int topicCount() {
+        return topics.size();
+    }
+
+    private Slot slot(String topic, String var) {
+        Topic t = topics.get(topic);
+        return t == null ? null : t.slots.get(cleanVar(var));
+    }
+
+    // ------------------------------------------------------------
+
+    // JSON de un POJO compartido, para saber si cambió por dentro (los inmutables se comparan con equals
+    // y las colecciones viajan por ops). null = no aplica o no se pudo serializar: se da por cambiado
+    private String json(Object v) {
+        if (v == null || StateTable.isImmutable(v) || isSmart(v)) return null;
+        try {
+            return mapper.writeValueAsString(v);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean isSmart(Object v) {
+        return v instanceof SmartList || v instanceof SmartMap || v instanceof SmartSet;
+    }
+
+    // Copia nueva de una colección Smart (los elementos van por referencia); el resto tal cual
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object copyOf(Object v) {
+        if (v instanceof SmartList list) return new SmartList<>(list);
+        if (v instanceof SmartMap map) return new SmartMap<>(map);
+        if (v instanceof SmartSet set) return smartSet(set);
+        return v;
+    }
+
+    // new SmartSet<>(c) no sirve: HashSet(c) llama a add() antes de que existan sus listeners
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static SmartSet<?> smartSet(Collection c) {
+        SmartSet set = new SmartSet<>();
+        set.addAll(c);
+        return set;
+    }
+
+    // Lo que convierte Jackson (ArrayList, HashMap...) pasa a su colección Smart, como hace la página con sus campos
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object toSmart(Object v) {
+        if (isSmart(v)) return v;
+        if (v instanceof List list) return new SmartList<>(list);
+        if (v instanceof Map map) return new SmartMap<>(map);
+        if (v instanceof Set set) return smartSet(set);
+        return v;
+    }
+
+    // Anidable: solo el más externo lo quita
+    private static void withApplying(Runnable r) {
+        boolean outer = APPLYING.get() == null;
+        APPLYING.set(Boolean.TRUE);
+        try {
+            r.run();
+        } finally {
+            if (outer) APPLYING.remove();
+        }
+    }
+
+    // "Componente.variable" -> "variable": las páginas de la sala no comparten prefijos
+    static String cleanVar(String k) {
+        int dot = k.lastIndexOf('.');
+        return dot < 0 ? k : k.substring(dot + 1);
+    }
+
+    /**
+     * Versión aplicada de una colección @Shared. Las ops propias no vuelven por el broker, así que
+     * si la nuestra salió por delante de otras aún en camino, se guarda hasta que estas lleguen.
+     * Como ya se aplicó en local, las que lleguen después van fuera de orden ({@code reordered}).
+     * Una op propia se aplica antes de saber su versión ({@code inFlight}): una remota que llegue con un
+     * hueco mientras tanto se aplica y espera ({@code remoteAhead}); si al saberlas todas el hueco sigue, resync.
+     * Se protege con el Slot.
+     */
+    private static final class SharedCursor {
+        long applied;                                  // 0 = desconocida: la siguiente op manda
+        final TreeSet<Long> ownAhead = new TreeSet<>();
+        final TreeSet<Long> remoteAhead = new TreeSet<>();
+        final TreeSet<Long> racing = new TreeSet<>();  // remotas aplicadas con ops propias sin versión
+        int inFlight;                                  // ops propias aplicadas sin versión aún (no se resetea)
+        boolean reordered;                             // hay ops aplicadas en otro orden que el de versión
+
+        void own(long ver) {
+            inFlight = Math.max(0, inFlight - 1);
+            // Una remota más baja que la nuestra se aplicó después de ella
+            if (ver > 0 && !racing.isEmpty() && racing.first() < ver) reordered = true;
+            if (inFlight == 0) racing.clear();
+            if (ver <= 0) return;
+            if (applied == 0 || ver == applied + 1) advance(ver);
+            else if (ver > applied) {
+                ownAhead.add(ver);
+                reordered = true;
+            }
+        }
+
+        void remote(long ver) {
+            if (ver <= 0) return;
+            if (inFlight > 0) racing.add(ver);
+            if (applied == 0 || ver == applied + 1) advance(ver);
+            else if (ver > applied) remoteAhead.add(ver);
+        }
+
+        void advance(long ver) {
+            if (ver <= 0) return;
+            applied = Math.max(applied, ver);
+            while (ownAhead.remove(applied + 1) || remoteAhead.remove(applied + 1)) applied++;
+            ownAhead.headSet(applied, true).clear();
+            remoteAhead.headSet(applied, true).clear();
+        }
+
+        // Con todas las propias ya versionadas: un hueco que no era nuestro, o lo que iba por delante
+        // de una op nuestra ya llegó (se aplicó fuera de orden): manda la copia maestra
+        boolean needsResync() {
+            if (inFlight > 0) return false;
+            return !remoteAhead.isEmpty() || (reordered && ownAhead.isEmpty());
+        }
+
+        void reset() {
+            applied = 0;
+            ownAhead.clear();
+            remoteAhead.clear();
+            racing.clear();
+            reordered = false;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.ciro.jreactive.spi;
 
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
 
@@ -11,8 +12,48 @@ public interface JrxMessageBroker {
     // Registrar un callback global para procesar mensajes entrantes de cualquier sesión
     // handler.accept(sessionId, messagePayload)
     void onMessage(BiConsumer<String, String> handler);
+
+    // Payload que un broker entrega a la sesión cuando tuvo que descartar mensajes suyos (carril lleno).
+    // Después del aviso solo llega lo posterior, así que los clientes deben resincronizar.
+    String RESYNC = "{\"jrx\":\"resync\"}";
     
     void publishShared(String topic, String message);
     void saveSharedState(String topic, String varName, Object value);
     Map<String, String> getSharedState(String topic);
+
+    // Campo del estado compartido con la versión de la copia maestra de una colección ("__ver:chat")
+    String SHARED_VERSION_PREFIX = "__ver:";
+
+    /** Copia maestra de una colección @Shared, la versión que representa y las ops posteriores (en orden). */
+    record SharedSnapshot(String value, long version, List<String> ops) {}
+
+    // 📢 Replicación por deltas de SmartList/SmartMap/SmartSet @Shared.
+    // 'op' es el delta ya serializado ({"k","delta":true,"type","changes"}). Devuelve la versión que le
+    // tocó en el cluster (0 = broker sin versionado: las ops se aplican tal cual llegan).
+    // 'fullValue' es la colección de quien publica, ya con la op: no tiene por qué estar en esa versión
+    // (le pueden faltar ops más bajas aún en camino), así que un broker versionado solo la usa de semilla.
+    // Por defecto: difundir la op y guardar la colección entera, como antes.
+    default long publishSharedOp(String topic, String varName, String op, Object fullValue) {
+        publishShared(topic, op);
+        saveSharedState(topic, varName, fullValue);
+        return 0;
+    }
+
+    // Para hidratar o resincronizar una colección tras un hueco de versiones. null = no hay nada guardado.
+    default SharedSnapshot sharedSnapshot(String topic, String varName) {
+        Map<String, String> state = getSharedState(topic);
+        String value = state == null ? null : state.get(varName);
+        return value == null ? null : new SharedSnapshot(value, 0, List.of());
+    }
+
+    // Este nodo tiene ahora un hub vivo para la sesión: sus publish() deben llegarle.
+    // Lo llama JrxHubManager dentro de su índice, así que no debe bloquear (nada de red aquí).
+    default void claimSession(String sessionId) {}
+
+    // El último hub de la sesión en este nodo se ha cerrado
+    default void releaseSession(String sessionId) {}
+
+    // La sesión tiene una página @Realtime: sus publish() no deben esperar a ningún lote de salida.
+    // Lo llama JrxHubManager como claimSession (sin red). Brokers sin lote: no hay nada que hacer.
+    default void setImmediateFlush(String sessionId, boolean on) {}
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.ciro.jreactive.spi;
+
+import java.util.List;
+
+/**
+ * Historial de frames compartido por el cluster, por (sesión, ruta). Con él, cualquier nodo
+ * puede contestar un {@code since=} de reconexión con solo los deltas perdidos, aunque el
+ * hub que los emitió viva en otro nodo (o ya no viva).
+ * <p>
+ * El seq es el del frame ({@code {"seq":N,...}}): un hub nuevo arranca desde {@link #head}
+ * para que la numeración siga donde la dejó el nodo anterior, y los seqs se reservan en el contador
+ * del cluster ({@link #reserve}, por bloques), así dos hubs vivos de la misma página (dos nodos, o un
+ * failover a medias) nunca repiten número.
+ */
+public interface JrxReplayLog {
+
+    /** Un frame guardado: su seq y su body ya serializado ({@code {"k":..,"v":..}} o un delta). */
+    record Entry(long seq, String body) {}
+
+    /** Seqs {@code [first, last]} reservados de una vez para un hub. */
+    record SeqBlock(long first, long last) {}
+
+    // Último seq guardado para la página; 0 si no hay nada (o no se pudo leer)
+    long head(String sessionId, String path);
+
+    // Reserva el seq del próximo frame, atómico en todo el cluster. -1 si no hay contador (el hub numera solo)
+    default long next(String sessionId, String path) {
+        return -1;
+    }
+
+    // Reserva hasta n seqs seguidos de una vez (el hub los reparte sin ir al contador por cada frame).
+    // null si no hay contador. Por defecto, uno solo con next
+    default SeqBlock reserve(String sessionId, String path, int n) {
+        long s = next(sessionId, path);
+        return s < 0 ? null : new SeqBlock(s, s);
+    }
+
+    // Devuelve al contador los seqs [from, to] que el hub no llegó a usar, si nadie reservó después:
+    // el hub siguiente de la página numera sin hueco y su since se sigue contestando desde el log
+    default void release(String sessionId, String path, long from, long to) {}
+
+    // Guarda un frame. Puede ser asíncrono, pero respetando el orden de llegada.
+    void append(String sessionId, String path, long seq, String body);
+
+    // Frames con seq > since, en orden. null si el primero ya se recortó (hace falta un snapshot).
+    List<Entry> since(String sessionId, String path, long since);
+}
@@ -1,6 +1,8 @@
 package com.ciro.jreactive.store;
 
 import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.diag.StorePutEvent;
+import com.ciro.jreactive.spi.JrxMetrics;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.RemovalCause;
@@ -10,6 +12,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CaffeineStateStore implements StateStore {
 
+    private static final String STORE = "ram";
+
     private final Cache<String, HtmlComponent> cache;
 
     public CaffeineStateStore() {
@@ -30,17 +34,39 @@ public class CaffeineStateStore implements StateStore {
 
     @Override
     public HtmlComponent get(String sid, String path) {
-        return cache.getIfPresent(k(sid, path));
+        long t0 = System.nanoTime();
+        HtmlComponent comp = cache.getIfPresent(k(sid, path));
+        JrxMetrics.get().storeGet(STORE, comp != null, System.nanoTime() - t0);
+        return comp;
     }
 
     @Override
     public void put(String sid, String path, HtmlComponent comp) {
+        StorePutEvent ev = new StorePutEvent();
+        ev.begin();
+        long t0 = System.nanoTime();
         cache.put(k(sid, path), comp);
+        commit(ev, t0, comp, false, true);
+    }
+
+    private static void commit(StorePutEvent ev, long t0, HtmlComponent comp, boolean cas, boolean applied) {
+        JrxMetrics.get().storePut(STORE, System.nanoTime() - t0);
+        ev.end();
+        if (ev.shouldCommit()) {
+            ev.store = STORE;
+            ev.component = comp.getClass().getName();
+            ev.cas = cas;
+            ev.applied = applied;
+            ev.commit();
+        }
     }
     
     // 🔥 IMPLEMENTACIÓN DE OPTIMISTIC LOCKING EN MEMORIA
     @Override
     public boolean replace(String sid, String path, HtmlComponent newComp, long expectedVersion) {
+        StorePutEvent ev = new StorePutEvent();
+        ev.begin();
+        long t0 = System.nanoTime();
         String key = k(sid, path);
         AtomicBoolean success = new AtomicBoolean(false);
 
@@ -69,6 +95,7 @@ public class CaffeineStateStore implements StateStore {
             }
         });
 
+        commit(ev, t0, newComp, true, success.get());
         return success.get();
     }
 
@@ -0,0 +1,284 @@
+package com.ciro.jreactive.store;
+
+import com.ciro.jreactive.HtmlComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind delante de un {@link StateStore} lento (Redis): los {@code put} de la misma
+ * (sesión, ruta) se agrupan y solo se escribe la última versión.
+ * <ul>
+ *   <li>Debounce: se escribe cuando la página lleva {@code debounceMs} sin cambios...</li>
+ *   <li>...pero nunca más tarde de {@code maxStalenessMs} desde el primer cambio sin persistir
+ *       (escribir sin parar no aplaza la escritura para siempre).</li>
+ *   <li>Como mucho una escritura en vuelo por página: lo que llegue mientras tanto sale en la siguiente.</li>
+ *   <li>{@link #flush} la adelanta (cierre del WebSocket, desalojo del hub) y {@link #close} vacía todo.</li>
+ * </ul>
+ * ⚡ Escribir diez letras en un input eran diez serializaciones de la página y diez SET a Redis;
+ * con esto es una. Mientras hay algo pendiente, {@link #get} devuelve la instancia pendiente.
+ */
+public class WriteBehindStateStore implements StateStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindStateStore.class);
+
+    // Totales del proceso para métricas (ver JrxMeterBinder)
+    private static final LongAdder REQUESTED = new LongAdder();
+    private static final LongAdder WRITTEN = new LongAdder();
+    private static final LongAdder PENDING = new LongAdder();
+
+    private final StateStore delegate;
+    private final long debounce;
+    private final long maxStaleness;
+    private final ScheduledExecutorService scheduler;
+    private final Executor writer;
+    private final Map<String, Entry> pending = new ConcurrentHashMap<>();
+
+    /** Estado de una página con escrituras pendientes. Los campos mutables se protegen con el propio Entry. */
+    private static final class Entry {
+        final String sid;
+        final String path;
+        HtmlComponent comp;
+        long firstDirty;          // nanoTime del primer put sin persistir
+        long lastDirty;           // nanoTime del último put
+        boolean dirty;            // hay una versión sin escribir
+        boolean writing;          // hay una escritura en vuelo
+        boolean urgent;           // flush pedido: no esperar al debounce
+        boolean removed;          // ya no está en el mapa
+        boolean deleteAfterWrite; // remove() llegó con una escritura en vuelo
+
+        Entry(String sid, String path) {
+            this.sid = sid;
+            this.path = path;
+        }
+    }
+
+    public WriteBehindStateStore(StateStore delegate, long debounceMs, long maxStalenessMs) {
+        this(delegate, debounceMs, maxStalenessMs, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public WriteBehindStateStore(StateStore delegate, long debounceMs, long maxStalenessMs, Executor writer) {
+        this.delegate = delegate;
+        this.debounce = TimeUnit.MILLISECONDS.toNanos(Math.max(1, debounceMs));
+        this.maxStaleness = Math.max(this.debounce, TimeUnit.MILLISECONDS.toNanos(maxStalenessMs));
+        this.writer = writer;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jrx-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Clave compuesta para evitar colisiones entre sesiones
+    private static String k(String sid, String path) {
+        return sid + "::" + path;
+    }
+
+    @Override
+    public HtmlComponent get(String sid, String path) {
+        Entry e = pending.get(k(sid, path));
+        if (e != null) {
+            synchronized (e) {
+                if (!e.removed && e.comp != null) return e.comp;
+            }
+        }
+        return delegate.get(sid, path);
+    }
+
+    @Override
+    public void put(String sid, String path, HtmlComponent comp) {
+        REQUESTED.increment();
+        long now = System.nanoTime();
+        String key = k(sid, path);
+        while (true) {
+            Entry e = pending.computeIfAbsent(key, _k -> {
+                PENDING.increment();
+                return new Entry(sid, path);
+            });
+            boolean schedule;
+            synchronized (e) {
+                if (e.removed) continue; // se acaba de escribir y retirar: otra vuelta con uno nuevo
+                e.comp = comp;
+                e.lastDirty = now;
+                schedule = !e.dirty && !e.writing;
+                if (!e.dirty) {
+                    e.dirty = true;
+                    e.firstDirty = now;
+                }
+            }
+            if (schedule) schedule(e, debounce);
+            return;
+        }
+    }
+
+    /**
+     * La escritura pendiente de una versión vieja ya no sirve: se descarta y la CAS va directa,
+     * que es la que tiene que ver (y validar) la versión actual. Si hay una escritura en vuelo se
+     * espera a que termine: si no, su PUT podría llegar después y pisar la CAS.
+     */
+    @Override
+    public boolean replace(String sid, String path, HtmlComponent comp, long expectedVersion) {
+        Entry e = pending.remove(k(sid, path));
+        if (e != null) {
+            synchronized (e) {
+                if (!e.removed) {
+                    e.removed = true;
+                    e.dirty = false;
+                    PENDING.decrement();
+                }
+                try {
+                    while (e.writing) e.wait();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false; // Sin CAS: el llamante lo trata como conflicto y reintenta
+                }
+            }
+        }
+        return delegate.replace(sid, path, comp, expectedVersion);
+    }
+
+    @Override
+    public void remove(String sid, String path) {
+        Entry e = pending.remove(k(sid, path));
+        if (e != null && discard(e)) return; // lo borra write() al terminar
+        delegate.remove(sid, path);
+    }
+
+    @Override
+    public void removeSession(String sid) {
+        String prefix = sid + "::";
+        pending.entrySet().removeIf(me -> {
+            if (!me.getKey().startsWith(prefix)) return false;
+            discard(me.getValue());
+            return true;
+        });
+        delegate.removeSession(sid);
+    }
+
+    /** Adelanta la escritura pendiente de la página, sin esperar al debounce. */
+    @Override
+    public void flush(String sid, String path) {
+        Entry e = pending.get(k(sid, path));
+        if (e == null) return;
+        synchronized (e) {
+            if (!e.dirty) return;
+            e.urgent = true;
+        }
+        schedule(e, 0);
+    }
+
+    /** Escribe todo lo pendiente en el hilo que llama y para el scheduler. */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        List<Entry> left = new ArrayList<>(pending.values());
+        for (Entry e : left) {
+            HtmlComponent comp;
+            synchronized (e) {
+                if (!e.dirty) continue;
+                e.dirty = false;
+                comp = e.comp;
+            }
+            write(e, comp);
+        }
+    }
+
+    /** Número de páginas con escrituras pendientes en este store. */
+    public int pendingPages() {
+        return pending.size();
+    }
+
+    /** Puts recibidos por todos los write-behind del proceso. */
+    public static long requested() { return REQUESTED.sum(); }
+
+    /** Escrituras que llegaron de verdad al store de abajo. */
+    public static long written() { return WRITTEN.sum(); }
+
+    /** Páginas esperando su escritura en todos los write-behind del proceso. */
+    public static long pending() { return PENDING.sum(); }
+
+    /** Puts por escritura real: 1 = sin agrupar, 10 = una escritura cada diez cambios. */
+    public static double coalescingRatio() {
+        long w = WRITTEN.sum();
+        return w == 0 ? 0 : (double) REQUESTED.sum() / w;
+    }
+
+    // ----------------------------------------------------------------
+
+    private void schedule(Entry e, long delayNanos) {
+        try {
+            scheduler.schedule(() -> check(e), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (java.util.concurrent.RejectedExecutionException closed) {
+            // close() ya vació lo pendiente
+        }
+    }
+
+    private void check(Entry e) {
+        HtmlComponent comp;
+        synchronized (e) {
+            if (e.removed || !e.dirty || e.writing) return;
+            long now = System.nanoTime();
+            long due = e.urgent ? now : Math.min(e.lastDirty + debounce, e.firstDirty + maxStaleness);
+            if (now < due) {
+                schedule(e, due - now);
+                return;
+            }
+            e.dirty = false;
+            e.urgent = false;
+            e.writing = true;
+            comp = e.comp;
+        }
+        writer.execute(() -> write(e, comp));
+    }
+
+    private void write(Entry e, HtmlComponent comp) {
+        try {
+            delegate.put(e.sid, e.path, comp);
+            WRITTEN.increment();
+        } catch (RuntimeException ex) {
+            log.error("🔥 Fallo write-behind PUT {}: {}", e.path, ex.getMessage(), ex);
+        }
+
+        boolean again = false;
+        boolean delete = false;
+        synchronized (e) {
+            e.writing = false;
+            e.notifyAll(); // replace() puede estar esperando a esta escritura
+            if (e.deleteAfterWrite) {
+                delete = true;
+            } else if (e.dirty) {
+                again = true; // llegaron cambios mientras escribíamos
+            } else if (!e.removed) {
+                e.removed = true;
+                pending.remove(k(e.sid, e.path), e);
+                PENDING.decrement();
+            }
+        }
+        if (delete) delegate.remove(e.sid, e.path);
+        if (again) check(e);
+    }
+
+    /** Marca la entrada como retirada. true si hay una escritura en vuelo que se ocupará del borrado. */
+    private boolean discard(Entry e) {
+        synchronized (e) {
+            if (e.removed) return false;
+            e.removed = true;
+            e.dirty = false;
+            PENDING.decrement();
+            if (e.writing) {
+                e.deleteAfterWrite = true;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -63,6 +63,24 @@ class RootComp extends HtmlComponent {
     }
 }
 
+class StyledComp extends HtmlComponent {
+    @State public String label = "s";
+
+    @Override public String _getBundledResources() {
+        return "<style data-resource=\"StyledComp\">.s{}</style>";
+    }
+
+    @Override protected String template() {
+        return "<b>{{label}}</b>";
+    }
+}
+
+class TwoStyledComp extends HtmlComponent {
+    @Override protected String template() {
+        return "<main><StyledComp /><StyledComp /></main>";
+    }
+}
+
 class NamedSlotComp extends HtmlComponent {
     @Override protected String template() {
         return "<div class='wrapper'><slot name='titulo'/> <hr/> </div>";
@@ -116,6 +134,22 @@ class BlueprintWithComp extends HtmlComponent {
     }
 }
 
+class MarkedDuringRenderComp extends HtmlComponent {
+    @State public String label = "x";
+    volatile Runnable duringRender;
+
+    @Override
+    public java.util.Map<String, ReactiveVar<?>> getRawBindings() {
+        Runnable r = duringRender;
+        if (r != null) { duringRender = null; r.run(); }
+        return super.getRawBindings();
+    }
+
+    @Override protected String template() {
+        return "<p>{{label}}</p>";
+    }
+}
+
 @DisplayName("AstComponentEngine - Cobertura Extrema")
 class AstComponentEngineTest {
 
@@ -140,6 +174,79 @@ class AstComponentEngineTest {
         assertThat(html).contains("JReactive");
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Re-render incremental: un hijo sucio se re-renderiza y el resto se reusa desde caché")
+    void testIncrementalRerenderOfDirtyChild() {
+        RootComp root = new RootComp();
+        root._initIfNeeded();
+        root._mountRecursive();
+
+        String first = root.render();
+        assertThat(root.render()).isSameAs(first); // limpio => HTML cacheado tal cual
+
+        ButtonComp button = (ButtonComp) root._children().stream()
+                .filter(c -> c instanceof ButtonComp).findFirst().orElseThrow();
+        ReactiveVar<Object> name = (ReactiveVar<Object>) button.getRawBindings().get("currentName");
+        name.set("Cambiado");
+
+        assertThat(button._isDirty()).isTrue();
+        assertThat(root._isDirty()).isTrue();
+
+        String second = root.render();
+        assertThat(second).contains("Cambiado").doesNotContain(">JReactive<");
+        assertThat(second).contains(".list:item\""); // fragmento del hijo limpio intacto
+        assertThat(root._isDirty()).isFalse();
+        assertThat(button._isDirty()).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Re-render incremental: los recursos de cada clase salen una sola vez en la raíz aunque el hijo sucio no sea el primero")
+    void testResourcesOncePerRenderWithSplice() {
+        TwoStyledComp root = new TwoStyledComp();
+        root._initIfNeeded();
+        root._mountRecursive();
+
+        String first = root.render();
+        assertThat(first).startsWith("<style data-resource=\"StyledComp\">");
+        assertThat(first.split("<style", -1)).hasSize(2);
+
+        StyledComp second = (StyledComp) root._children().get(1);
+        ReactiveVar<Object> label = (ReactiveVar<Object>) second.getRawBindings().get("label");
+        label.set("nuevo");
+
+        String spliced = root.render();
+        assertThat(spliced).contains("-->nuevo</b>").startsWith("<style data-resource=\"StyledComp\">");
+        assertThat(spliced.split("<style", -1)).hasSize(2); // el hijo re-renderizado no trae otro <style>
+        assertThat(root.bindings()).containsEntry(second.getId() + ".label", second.getRawBindings().get("label"));
+    }
+
+    @Test
+    @DisplayName("Un _markDirty de otro hilo a mitad del render no se pierde; uno del propio render, sí")
+    void testMarkDirtyDuringRender() {
+        MarkedDuringRenderComp comp = new MarkedDuringRenderComp();
+        comp._initIfNeeded();
+        comp._mountRecursive();
+
+        comp.duringRender = comp::_markDirty; // mismo hilo: ya queda reflejado en el HTML
+        comp.render();
+        assertThat(comp._isDirty()).isFalse();
+
+        comp._markDirty();
+        comp.duringRender = () -> {
+            Thread other = new Thread(comp::_markDirty);
+            other.start();
+            try {
+                other.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        comp.render();
+        assertThat(comp._isDirty()).isTrue(); // el siguiente render lo recoge
+    }
+
     @Test
     @DisplayName("Debe evaluar propiedades booleanas falsas ocultando el atributo")
     void testRenderBooleanFalseAttr() {
@@ -0,0 +1,60 @@
+package com.ciro.jreactive;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JrxFrameRing - Historial de replay indexado por seq")
+class JrxFrameRingTest {
+
+    private static JrxFrame frame(long seq) {
+        return new JrxFrame(seq, "k", false, Map.of("k", "k", "v", seq), "{\"k\":\"k\",\"v\":" + seq + "}");
+    }
+
+    @Test
+    @DisplayName("Debe devolver los frames posteriores a 'since' en orden")
+    void testSince() {
+        JrxFrameRing ring = new JrxFrameRing(8);
+        for (long s = 1; s <= 5; s++) ring.add(frame(s));
+
+        List<JrxFrame> out = ring.since(2, 5);
+        assertThat(out).extracting(JrxFrame::seq).containsExactly(3L, 4L, 5L);
+        assertThat(ring.since(5, 5)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Al dar la vuelta debe pedir snapshot (null) si 'since' ya se sobrescribió")
+    void testWrapAround() {
+        JrxFrameRing ring = new JrxFrameRing(8);
+        for (long s = 1; s <= 20; s++) ring.add(frame(s));
+
+        assertThat(ring.since(11, 20)).isNull();   // 12 ya no está: faltaría
+        assertThat(ring.since(12, 20)).extracting(JrxFrame::seq)
+                .containsExactly(13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L);
+    }
+
+    @Test
+    @DisplayName("Debe cortar el replay en un slot aún no publicado por el escritor")
+    void testUnpublishedSlot() {
+        JrxFrameRing ring = new JrxFrameRing(8);
+        ring.add(frame(1));
+        ring.add(frame(2));
+        // seq 3 reservado pero sin publicar; 4 ya publicado
+        ring.add(frame(4));
+
+        assertThat(ring.since(0, 4)).extracting(JrxFrame::seq).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("clear debe vaciar todos los slots")
+    void testClear() {
+        JrxFrameRing ring = new JrxFrameRing(4);
+        ring.add(frame(1));
+        ring.clear();
+        assertThat(ring.since(0, 1)).isEmpty();
+    }
+}
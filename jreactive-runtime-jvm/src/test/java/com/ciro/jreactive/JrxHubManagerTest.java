@@ -1,5 +1,6 @@
 package com.ciro.jreactive;
 
+import com.ciro.jreactive.annotations.Shared;
 import com.ciro.jreactive.spi.JrxMessageBroker;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeAll; // 👈 Importante
@@ -7,11 +8,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.function.BiConsumer;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +34,16 @@ class JrxHubManagerTest {
         @Override protected String template() { return "<div></div>"; }
     }
 
+    @com.ciro.jreactive.annotations.Realtime
+    static class JuegoPage extends HtmlComponent {
+        @Override protected String template() { return "<div></div>"; }
+    }
+
+    static class SalaPage extends HtmlComponent {
+        @State @Shared("sala") public String texto = "A";
+        @Override protected String template() { return "<div>{{texto}}</div>"; }
+    }
+
     @BeforeAll
     static void initFramework() {
         // 🔥 LA CLAVE: Instalamos el motor de renderizado para que render() no explote
@@ -138,4 +154,122 @@ class JrxHubManagerTest {
         mPath.setAccessible(true);
         assertThat(mPath.invoke(key1)).isEqualTo("/path");
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Debe enrutar los mensajes del broker solo a los hubs de la sesión o del topic")
+    void testIndexedRemoteRouting() throws Exception {
+        ArgumentCaptor<BiConsumer<String, String>> handler = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(broker).onMessage(handler.capture());
+
+        SalaPage enSala = new SalaPage();
+        TestPage fuera = new TestPage();
+        when(pageResolver.getPage("sid-a", "/sala")).thenReturn(enSala);
+        when(pageResolver.getPage("sid-b", "/otra")).thenReturn(fuera);
+
+        JrxPushHub hubA = manager.hub("sid-a", "/sala");
+        JrxPushHub hubB = manager.hub("sid-b", "/otra");
+        JrxPushHub.JrxSink sinkA = mock(JrxPushHub.JrxSink.class);
+        JrxPushHub.JrxSink sinkB = mock(JrxPushHub.JrxSink.class);
+        lenient().when(sinkA.isOpen()).thenReturn(true);
+        lenient().when(sinkB.isOpen()).thenReturn(true);
+        hubA.subscribe(sinkA, 0);
+        hubB.subscribe(sinkB, 0);
+
+        // Single-player: solo la sesión destino
+        handler.getValue().accept("sid-b", "{\"raw\":1}");
+        verify(sinkB).send("{\"raw\":1}");
+        verify(sinkA, never()).send("{\"raw\":1}");
+
+        // Multijugador: solo los hubs suscritos al topic
+        handler.getValue().accept("shared:sala", "{\"k\":\"texto\",\"v\":\"Hola\"}");
+        assertThat(enSala.texto).isEqualTo("Hola");
+
+        // Tras desalojar, el hub sale de los índices
+        manager.evict("sid-a", "/sala");
+        handler.getValue().accept("shared:sala", "{\"k\":\"texto\",\"v\":\"Adiós\"}");
+        assertThat(enSala.texto).isEqualTo("Hola");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Un RESYNC del broker debe cerrar los sinks de la sesión para que reconecten con su since")
+    void testRemoteResyncClosesSessionSinks() throws Exception {
+        ArgumentCaptor<BiConsumer<String, String>> handler = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(broker).onMessage(handler.capture());
+
+        when(pageResolver.getPage("sid-a", "/")).thenReturn(new TestPage());
+        when(pageResolver.getPage("sid-b", "/")).thenReturn(new TestPage());
+        JrxPushHub hubA = manager.hub("sid-a", "/");
+        JrxPushHub hubB = manager.hub("sid-b", "/");
+        JrxPushHub.JrxSink sinkA = mock(JrxPushHub.JrxSink.class);
+        JrxPushHub.JrxSink sinkB = mock(JrxPushHub.JrxSink.class);
+        lenient().when(sinkA.isOpen()).thenReturn(true);
+        lenient().when(sinkB.isOpen()).thenReturn(true);
+        hubA.subscribe(sinkA, 0);
+        hubB.subscribe(sinkB, 0);
+
+        handler.getValue().accept("sid-a", JrxMessageBroker.RESYNC);
+
+        verify(sinkA).close();
+        verify(sinkA, never()).send(JrxMessageBroker.RESYNC);
+        verify(sinkB, never()).close();
+
+        // Cerrado: lo siguiente ya no le llega, el cliente lo recupera al reconectar
+        handler.getValue().accept("sid-a", "{\"raw\":2}");
+        verify(sinkA, never()).send("{\"raw\":2}");
+    }
+
+    @Test
+    @DisplayName("Las páginas de una sala en el nodo deben compartir un valor hidratado una sola vez")
+    void testNodeLocalSharedState() {
+        SalaPage a = new SalaPage();
+        SalaPage b = new SalaPage();
+        when(pageResolver.getPage("sid-a", "/sala")).thenReturn(a);
+        when(pageResolver.getPage("sid-b", "/sala")).thenReturn(b);
+
+        manager.hub("sid-a", "/sala");
+        manager.hub("sid-b", "/sala");
+        verify(broker, times(1)).getSharedState("sala");
+
+        // Un cambio local llega a la otra página del nodo y sale una sola vez al broker
+        a.texto = "Local";
+        a._syncState();
+        assertThat(b.texto).isEqualTo("Local");
+        assertThat(manager.getSharedTopics().value("sala", "texto")).isEqualTo("Local");
+        verify(broker, times(1)).publishShared(eq("sala"), anyString());
+    }
+
+    @Test
+    @DisplayName("Debe anunciar la sesión al broker con su primer hub y retirarla con el último")
+    void testSessionOwnership() {
+        when(pageResolver.getPage(eq("sid-1"), anyString())).thenAnswer(inv -> new TestPage());
+
+        manager.hub("sid-1", "/a");
+        manager.hub("sid-1", "/b");
+        verify(broker, times(1)).claimSession("sid-1");
+
+        manager.evict("sid-1", "/a");
+        verify(broker, never()).releaseSession("sid-1");
+
+        manager.evict("sid-1", "/b");
+        verify(broker).releaseSession("sid-1");
+    }
+
+    @Test
+    @DisplayName("Una página @Realtime debe pedir al broker envío inmediato mientras esté abierta")
+    void testRealtimeImmediateFlush() {
+        when(pageResolver.getPage("sid-1", "/juego")).thenReturn(new JuegoPage());
+        when(pageResolver.getPage("sid-1", "/home")).thenReturn(new TestPage());
+
+        manager.hub("sid-1", "/home");
+        verify(broker, never()).setImmediateFlush(anyString(), anyBoolean());
+
+        manager.hub("sid-1", "/juego");
+        verify(broker).setImmediateFlush("sid-1", true);
+
+        manager.evict("sid-1", "/juego");
+        verify(broker).setImmediateFlush("sid-1", false);
+        verify(broker, never()).releaseSession("sid-1"); // /home sigue abierta
+    }
+}
@@ -0,0 +1,119 @@
+package com.ciro.jreactive;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JrxInboundDispatcher - Carriles de entrada del broker")
+class JrxInboundDispatcherTest {
+
+    @Test
+    @DisplayName("Los mensajes de una misma clave deben llegar en orden")
+    void testPerKeyOrder() throws Exception {
+        try (JrxInboundDispatcher dispatcher = new JrxInboundDispatcher(4, 1_000)) {
+            Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+            CountDownLatch done = new CountDownLatch(3 * 200);
+
+            for (int i = 0; i < 200; i++) {
+                for (String key : List.of("sid-1", "sid-2", "shared:sala")) {
+                    int n = i;
+                    dispatcher.submit(key, () -> {
+                        received.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(n);
+                        done.countDown();
+                    });
+                }
+            }
+
+            assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+            for (List<Integer> seq : received.values()) {
+                assertThat(seq).hasSize(200).isSorted();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Un carril lleno debe descartar y contar, sin bloquear al que publica")
+    void testOverflow() throws Exception {
+        try (JrxInboundDispatcher dispatcher = new JrxInboundDispatcher(1, 2)) {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            dispatcher.submit("sid-1", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+            // El carril está ocupado: caben 2 en cola, el tercero se descarta
+            assertThat(dispatcher.submit("sid-1", () -> {})).isTrue();
+            assertThat(dispatcher.submit("sid-1", () -> {})).isTrue();
+            assertThat(dispatcher.submit("sid-1", () -> {})).isFalse();
+
+            assertThat(dispatcher.overflowed()).isEqualTo(1);
+            assertThat(dispatcher.queued()).isEqualTo(2);
+            assertThat(JrxInboundDispatcher.overflowTotal()).isGreaterThanOrEqualTo(1);
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Una sesión que pierde mensajes debe recibir el aviso en orden y nada posterior antes")
+    void testLostKeyGetsNoticeInOrder() throws Exception {
+        try (JrxInboundDispatcher dispatcher = new JrxInboundDispatcher(1, 2)) {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            List<String> received = new CopyOnWriteArrayList<>();
+            CountDownLatch noticed = new CountDownLatch(1);
+            Runnable onLost = () -> {
+                received.add("resync");
+                noticed.countDown();
+            };
+            dispatcher.submit("sid-1", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, onLost);
+            assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(dispatcher.submit("sid-1", () -> received.add("f1"), onLost)).isTrue();
+            assertThat(dispatcher.submit("sid-1", () -> received.add("f2"), onLost)).isTrue();
+            // Se pierde f3: ni f3 ni f4 pueden llegar antes del aviso
+            assertThat(dispatcher.submit("sid-1", () -> received.add("f3"), onLost)).isFalse();
+            release.countDown();
+            assertThat(noticed.await(1, TimeUnit.SECONDS)).isTrue();
+            dispatcher.submit("sid-1", () -> received.add("f4"), onLost);
+
+            CountDownLatch done = new CountDownLatch(1);
+            dispatcher.submit("sid-1", done::countDown, onLost);
+            assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(received).containsExactly("f1", "f2", "resync", "f4");
+        }
+    }
+
+    @Test
+    @DisplayName("Un error en la entrega no debe parar el carril")
+    void testFailingTaskKeepsLaneAlive() throws Exception {
+        try (JrxInboundDispatcher dispatcher = new JrxInboundDispatcher(1, 10)) {
+            CountDownLatch next = new CountDownLatch(1);
+            dispatcher.submit("sid-1", () -> { throw new IllegalStateException("boom"); });
+            dispatcher.submit("sid-1", next::countDown);
+
+            assertThat(next.await(1, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+}
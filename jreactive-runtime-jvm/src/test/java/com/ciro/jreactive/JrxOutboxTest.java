@@ -0,0 +1,174 @@
+package com.ciro.jreactive;
+
+import com.ciro.jreactive.spi.JrxSession;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JrxOutbox - Backpressure adaptativo por sesión")
+class JrxOutboxTest {
+
+    @Mock JrxSession session;
+    @Mock ScheduledExecutorService scheduler;
+
+    private static JrxFrame snap(long seq, String k, String v) {
+        return new JrxFrame(seq, k, false, Map.of("k", k, "v", v), "{\"k\":\"" + k + "\",\"v\":\"" + v + "\"}");
+    }
+
+    private static JrxFrame delta(long seq, String k, String item) {
+        return new JrxFrame(seq, k, true, Map.of("k", k),
+                "{\"k\":\"" + k + "\",\"delta\":true,\"type\":\"list\",\"changes\":[\"" + item + "\"]}");
+    }
+
+    private static final CompletableFuture<Void> OK = CompletableFuture.completedFuture(null);
+
+    private JrxOutbox outbox(int maxPending, int flushMs, List<JrxOutbox> failed) {
+        return outbox(maxPending, flushMs, JrxSlowConsumerPolicy.COALESCE, 5_000, failed);
+    }
+
+    private JrxOutbox outbox(int maxPending, int flushMs, JrxSlowConsumerPolicy policy, long timeoutMs,
+                             List<JrxOutbox> failed) {
+        return new JrxOutbox(session, false, scheduler, maxPending, flushMs, policy, timeoutMs,
+                k -> snap(99, k, "ACTUAL"), failed::add);
+    }
+
+    @Test
+    @DisplayName("Una sesión ociosa debe recibir el primer frame sin esperar la ventana")
+    void testIdleFlushIsImmediate() {
+        JrxOutbox o = outbox(100, 50, new ArrayList<>());
+
+        o.offer(snap(1, "a", "x"));
+        o.offer(snap(2, "b", "y")); // ya hay flush pendiente: no se programa otro
+
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    @DisplayName("Debe coalescer por clave: el snapshot pisa lo pendiente y los deltas se encadenan")
+    void testCoalescesByKey() {
+        JrxOutbox o = outbox(100, 50, new ArrayList<>());
+        when(session.sendTextAsync(anyString())).thenReturn(OK);
+        long dropped = JrxProtocolHandler.droppedFrames();
+
+        o.offer(snap(1, "role", "V1"));
+        o.offer(delta(2, "tags", "D1"));
+        o.offer(delta(3, "tags", "D2"));
+        o.offer(snap(4, "role", "V2"));
+        assertThat(o.pending()).isEqualTo(3);
+
+        o.flush();
+
+        ArgumentCaptor<String> sent = ArgumentCaptor.forClass(String.class);
+        verify(session).sendTextAsync(sent.capture());
+        assertThat(sent.getValue())
+                .startsWith("{\"seq\":4,")
+                .contains("D1").contains("D2").contains("V2").doesNotContain("V1");
+        assertThat(sent.getValue().indexOf("D1")).isLessThan(sent.getValue().indexOf("D2"));
+        assertThat(o.pending()).isZero();
+        // V1 nunca salió al cable
+        assertThat(JrxProtocolHandler.droppedFrames() - dropped).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Al desbordarse debe cambiar la cadena de deltas por el snapshot actual, sin perder cambios")
+    void testOverflowCollapsesToSnapshot() {
+        JrxOutbox o = outbox(3, 50, new ArrayList<>());
+        when(session.sendTextAsync(anyString())).thenReturn(OK);
+
+        for (int i = 1; i <= 5; i++) o.offer(delta(i, "tags", "D" + i));
+        assertThat(o.pending()).isLessThanOrEqualTo(3);
+
+        o.flush();
+
+        ArgumentCaptor<String> sent = ArgumentCaptor.forClass(String.class);
+        verify(session).sendTextAsync(sent.capture());
+        assertThat(sent.getValue()).contains("ACTUAL");
+        // La ventana se ensancha tras un desborde
+        assertThat(o.windowMillis()).isGreaterThan(50);
+    }
+
+    @Test
+    @DisplayName("Un socket lento debe ensanchar su ventana y uno ágil debe volver a la base")
+    void testWindowAdaptsToLatency() {
+        JrxOutbox o = outbox(100, 5, new ArrayList<>());
+        when(session.sendTextAsync(anyString())).thenAnswer(inv -> { Thread.sleep(20); return OK; });
+
+        for (int i = 1; i <= 3; i++) {
+            o.offer(snap(i, "a", "v" + i));
+            o.flush();
+        }
+        assertThat(o.windowMillis()).isGreaterThan(5);
+        assertThat(o.latencyMicros()).isGreaterThan(0);
+
+        when(session.sendTextAsync(anyString())).thenReturn(OK);
+        for (int i = 4; i <= 40; i++) {
+            o.offer(snap(i, "a", "v" + i));
+            o.flush();
+        }
+        assertThat(o.windowMillis()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Si el envío falla debe cerrarse y avisar una sola vez")
+    void testFailureClosesOutbox() {
+        List<JrxOutbox> failed = new ArrayList<>();
+        JrxOutbox o = outbox(100, 5, failed);
+        when(session.sendTextAsync(anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Socket roto")));
+
+        o.offer(snap(1, "a", "x"));
+        o.flush();
+        o.offer(snap(2, "a", "y"));
+        o.flush();
+
+        assertThat(failed).containsExactly(o);
+        assertThat(o.pending()).isZero();
+        verify(session, times(1)).sendTextAsync(anyString());
+    }
+
+    @Test
+    @DisplayName("Un envío que no se confirma a tiempo debe dar la sesión por perdida")
+    void testSendTimeout() throws Exception {
+        List<JrxOutbox> failed = new CopyOnWriteArrayList<>(); // lo llena el hilo del timeout
+        JrxOutbox o = outbox(100, 5, JrxSlowConsumerPolicy.COALESCE, 20, failed);
+        when(session.sendTextAsync(anyString())).thenReturn(new CompletableFuture<>()); // el socket nunca confirma
+
+        o.offer(snap(1, "a", "x"));
+        o.flush();
+        // Mientras tanto se sigue coalesciendo en memoria
+        o.offer(snap(2, "a", "y"));
+        assertThat(o.pending()).isEqualTo(1);
+
+        Thread.sleep(100);
+        assertThat(failed).containsExactly(o);
+        assertThat(o.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Con la política DISCONNECT el desborde desconecta en vez de coalescer")
+    void testDisconnectPolicy() {
+        List<JrxOutbox> failed = new ArrayList<>();
+        JrxOutbox o = outbox(3, 50, JrxSlowConsumerPolicy.DISCONNECT, 5_000, failed);
+
+        for (int i = 1; i <= 5; i++) o.offer(delta(i, "tags", "D" + i));
+
+        assertThat(failed).containsExactly(o);
+        verify(session, never()).sendTextAsync(anyString());
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -77,6 +78,7 @@ class JrxProtocolHandlerTest {
         
         JrxProtocolHandler handler = new JrxProtocolHandler(page, mapper, scheduler, true, 10, 50, null, null);
         lenient().when(session.isOpen()).thenReturn(true);
+        lenient().when(session.sendTextAsync(anyString())).thenReturn(CompletableFuture.completedFuture(null));
         handler.onOpen(session, null, 0);
         
         // Mutamos el estado
@@ -86,7 +88,7 @@ class JrxProtocolHandlerTest {
 
         Thread.sleep(150); // Damos tiempo al flush
 
-        verify(session, atLeastOnce()).sendText(anyString());
+        verify(session, atLeastOnce()).sendTextAsync(contains("Nuevo Tag"));
     }
 
     @Test
@@ -216,6 +218,7 @@ class JrxProtocolHandlerTest {
         
         JrxProtocolHandler handler = new JrxProtocolHandler(page, mapper, scheduler, true, 100, 500, null, null);
         lenient().when(session.isOpen()).thenReturn(true);
+        lenient().when(session.sendTextAsync(anyString())).thenReturn(CompletableFuture.completedFuture(null));
         handler.onOpen(session, null, 0);
 
         // Simulamos múltiples operaciones rápidas sobre la MISMA SmartList
@@ -228,7 +231,7 @@ class JrxProtocolHandlerTest {
         Thread.sleep(600);
         
         // Si no explotó y la consola envía un solo paquete consolidado, el test pasó por la rama esquiva.
-        verify(session, atLeastOnce()).sendText(org.mockito.ArgumentMatchers.contains("Delta 3"));
+        verify(session, atLeastOnce()).sendTextAsync(org.mockito.ArgumentMatchers.contains("Delta 3"));
     }
     
     
@@ -262,8 +265,10 @@ class JrxProtocolHandlerTest {
         lenient().when(badSession.isOpen()).thenReturn(true);
         lenient().when(badSession.getId()).thenReturn("bad-session");
         
-        // Configuramos el mock para que lance una excepción real al enviar texto
-        doThrow(new RuntimeException("Socket roto")).when(badSession).sendText(anyString());
+        // Configuramos el mock para que el envío falle de verdad
+        lenient().doThrow(new RuntimeException("Socket roto")).when(badSession).sendText(anyString());
+        when(badSession.sendTextAsync(anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Socket roto")));
         
         JrxProtocolHandler handler = new JrxProtocolHandler(page, mapper, scheduler, true, 100, 16, null, null);
         handler.onOpen(badSession, null, 0);
@@ -275,8 +280,9 @@ class JrxProtocolHandlerTest {
         // Damos tiempo a que el Scheduler ejecute flush()
         Thread.sleep(50); 
         
-        // Si la sesión lanzó error, el framework debió capturarlo en el catch del removeIf
-        verify(badSession, atLeastOnce()).sendText(anyString());
+        // El outbox recibió el fallo: la sesión defectuosa se cierra
+        verify(badSession, atLeastOnce()).sendTextAsync(anyString());
+        verify(badSession, timeout(500)).close();
     }
     
     @Test
@@ -297,4 +303,86 @@ class JrxProtocolHandlerTest {
         assertThat(page.dto.role).isEqualTo("GUEST"); 
     }
     
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Con hub enganchado debe reenviar los frames del hub sin volver a serializar")
+    void testForwardsHubFrames() {
+        ComplexPage page = new ComplexPage();
+        page._initIfNeeded();
+        page._mountRecursive();
+
+        JrxPushHub hub = new JrxPushHub(page, mapper, 100, null, "sid-1", null);
+        java.util.List<JrxFrame> frames = new java.util.ArrayList<>();
+        hub.addFrameListener(frames::add);
+
+        JrxProtocolHandler handler = new JrxProtocolHandler(page, mapper, null, false, 100, 16, null, null);
+        lenient().when(session.isOpen()).thenReturn(true);
+        handler.onOpen(session, hub, 0);
+
+        page.tags.add("Compartido");
+
+        // Un solo frame, y la sesión recibe exactamente ese String (mismo seq que el historial del hub)
+        assertThat(frames).hasSize(1);
+        verify(session).sendText(same(frames.get(0).json()));
+        verify(session, times(1)).sendText(contains("Compartido"));
+    }
+
+    @Test
+    @DisplayName("Una sesión compacta debe recibir diccionario y frames CBOR, nunca texto")
+    void testCompactSession() {
+        ComplexPage page = new ComplexPage();
+        page._initIfNeeded();
+        page._mountRecursive();
+
+        JrxPushHub hub = new JrxPushHub(page, mapper, 100, null, "sid-1", null);
+        java.util.List<JrxFrame> frames = new java.util.ArrayList<>();
+        hub.addFrameListener(frames::add);
+
+        JrxProtocolHandler handler = new JrxProtocolHandler(page, mapper, null, false, 100, 16, null, null);
+        lenient().when(session.isOpen()).thenReturn(true);
+        when(session.supportsBinary()).thenReturn(true);
+        when(session.getAttr(JrxWireCodec.PROTO_ATTR)).thenReturn(JrxWireCodec.CBOR);
+        handler.onOpen(session, hub, 0);
+
+        // Diccionario primero y después el snapshot
+        org.mockito.InOrder order = inOrder(session);
+        order.verify(session).sendBinary(eq(hub.wireCodec().dictionary()));
+        order.verify(session).sendBinary(any());
+
+        page.tags.add("Compacto");
+
+        assertThat(frames).hasSize(1);
+        verify(session).sendBinary(eq(frames.get(0).compact()));
+        verify(session, never()).sendText(anyString());
+    }
+
+    @Test
+    @DisplayName("Con backpressure debe coalescer frames del hub: el snapshot de una clave descarta lo anterior")
+    void testCoalescesHubFrames() throws Exception {
+        ComplexPage page = new ComplexPage();
+        page._initIfNeeded();
+        page._mountRecursive();
+
+        JrxPushHub hub = new JrxPushHub(page, mapper, 100, null, "sid-1", null);
+        JrxProtocolHandler handler = new JrxProtocolHandler(page, mapper, scheduler, true, 100, 50, null, null);
+        lenient().when(session.isOpen()).thenReturn(true);
+        lenient().when(session.sendTextAsync(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        handler.onOpen(session, hub, 0);
+
+        page.tags.add("Delta 1");
+        page.tags.add("Delta 2");
+        hub.emitSnapshot("dto.role", "V1");
+        hub.emitSnapshot("dto.role", "V2");
+
+        Thread.sleep(200);
+
+        // El primer frame sale al instante (sesión ociosa); el resto se coalesce en la ventana
+        org.mockito.ArgumentCaptor<String> sent = org.mockito.ArgumentCaptor.forClass(String.class);
+        verify(session, atLeastOnce()).sendTextAsync(sent.capture());
+        String all = String.join("", sent.getAllValues());
+        String last = sent.getValue();
+        assertThat(all).contains("Delta 1").contains("Delta 2");
+        assertThat(last).contains("V2").doesNotContain("V1");
+        assertThat(last).startsWith("{\"seq\":" + hub.snapshot().getSeq() + ",");
+    }
+    
+}
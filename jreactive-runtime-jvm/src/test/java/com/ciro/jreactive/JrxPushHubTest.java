@@ -4,6 +4,7 @@ import com.ciro.jreactive.smart.SmartList;
 import com.ciro.jreactive.smart.SmartMap;
 import com.ciro.jreactive.smart.SmartSet;
 import com.ciro.jreactive.spi.JrxMessageBroker;
+import com.ciro.jreactive.spi.JrxReplayLog;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
@@ -116,6 +117,32 @@ class JrxPushHubTest {
         assertThat(page.set).contains("Unico");
     }
 
+    @Test
+    @DisplayName("Debe indexar los topics @Shared y reindexarlos al hacer rebind")
+    void testSharedTopicIndex() {
+        ColeccionesPage page1 = new ColeccionesPage();
+        page1._initIfNeeded();
+        page1._mountRecursive();
+        ((ReactiveVar<?>) page1.getRawBindings().get("texto")).setSharedTopic("sala-1");
+
+        JrxPushHub hub = new JrxPushHub(page1, mapper, 100, null, "sid-1", null);
+        assertThat(hub.sharedTopics()).containsExactly("sala-1");
+
+        // Un topic al que la página no escucha no toca el estado
+        hub.injectSharedState("otra-sala", "{\"k\":\"texto\", \"v\":\"Intruso\"}");
+        assertThat(page1.texto).isEqualTo("A");
+
+        ColeccionesPage page2 = new ColeccionesPage();
+        page2._initIfNeeded();
+        page2._mountRecursive();
+        ((ReactiveVar<?>) page2.getRawBindings().get("texto")).setSharedTopic("sala-2");
+        hub.rebind(page2);
+
+        assertThat(hub.sharedTopics()).containsExactly("sala-2");
+        hub.injectSharedState("sala-2", "{\"k\":\"texto\", \"v\":\"Hola\"}");
+        assertThat(page2.texto).isEqualTo("Hola");
+    }
+
     @Test
     @DisplayName("Debe hidratar el historial desde el Broker al iniciar (hydrateFromBroker)")
     void testHydrateFromBrokerOnInit() {
@@ -295,4 +322,320 @@ class JrxPushHubTest {
         assertThat(page.lista).isEmpty();
     }
     
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Debe serializar cada cambio una sola vez y compartir el frame con sinks, listeners, historial y broker")
+    void testSerializeOnceFanOut() {
+        ColeccionesPage page = new ColeccionesPage();
+        page._initIfNeeded();
+        page._mountRecursive();
+        JrxPushHub hub = new JrxPushHub(page, mapper, 100, broker, "sid-1", null);
+
+        MockSink sink = new MockSink();
+        hub.subscribe(sink, 0);
+        // Un cambio previo: con since=0 poll() devuelve el snapshot completo, no el historial
+        page.texto = "Antes";
+        page._syncState();
+
+        List<JrxFrame> frames = new ArrayList<>();
+        hub.addFrameListener(frames::add);
+
+        page.texto = "Frame";
+        page._syncState();
+
+        assertThat(frames).hasSize(1);
+        assertThat(frames.get(0).seq()).isGreaterThan(1);
+        JrxFrame f = frames.get(0);
+        assertThat(f.json()).isEqualTo("{\"seq\":" + f.seq() + ",\"batch\":[" + f.body() + "]}");
+        assertThat(f.body()).contains("\"k\":\"texto\"").contains("Frame");
+
+        // El mismo String (misma instancia) llega al sink y al broker: nadie re-serializa
+        assertThat(sink.sentMessages.get(sink.sentMessages.size() - 1)).isSameAs(f.json());
+        verify(broker).publish(eq("sid-1"), same(f.json()));
+
+        // El historial guarda el frame: se puede reenviar tal cual
+        assertThat(hub.framesSince(f.seq() - 1)).containsExactly(f);
+        assertThat(hub.poll(f.seq() - 1).getBatch()).containsExactly(f.message());
+    }
+
+    @Test
+    @DisplayName("Un deep update emitido por el hub también debe entrar al historial como frame")
+    void testEmitSnapshotFrame() {
+        ColeccionesPage page = new ColeccionesPage();
+        page._initIfNeeded();
+        page._mountRecursive();
+        JrxPushHub hub = new JrxPushHub(page, mapper, 100, null, "sid-1", null);
+
+        long base = hub.snapshot().getSeq();
+        hub.emitSnapshot("dto.role", "ADMIN");
+
+        List<JrxFrame> frames = hub.framesSince(base);
+        assertThat(frames).hasSize(1);
+        assertThat(frames.get(0).key()).isEqualTo("dto.role");
+        assertThat(frames.get(0).isDelta()).isFalse();
+        assertThat(JrxFrame.envelope(7, frames)).isEqualTo("{\"seq\":7,\"batch\":[" + frames.get(0).body() + "]}");
+    }
+    
+    @Test
+    @DisplayName("El historial circular debe servir los últimos maxBuffer cambios y pedir snapshot más atrás")
+    void testRingHistoryWrap() {
+        ColeccionesPage page = new ColeccionesPage();
+        page._initIfNeeded();
+        page._mountRecursive();
+        JrxPushHub hub = new JrxPushHub(page, mapper, 100, null, "sid", null);
+
+        long base = hub.snapshot().getSeq();
+        for (int i = 0; i < 250; i++) {
+            page.texto = "v" + i;
+            page._syncState();
+        }
+        long head = hub.snapshot().getSeq();
+
+        assertThat(hub.framesSince(base)).isNull();
+        assertThat(hub.framesSince(head - 10)).hasSize(10);
+        assertThat(hub.poll(head - 1).getBatch()).hasSize(1);
+        assertThat(hub.poll(head - 1).getBatch().toString()).contains("v249");
+    }
+
+    // Replay log en memoria: lo que haría Redis Streams, sin Redis
+    static class MemoryReplayLog implements JrxReplayLog {
+        final java.util.TreeMap<Long, String> frames = new java.util.TreeMap<>();
+        long trimmedBefore = 0;
+        long counter = 0; // el INCR de Redis
+
+        @Override public long head(String sid, String path) { return Math.max(counter, frames.isEmpty() ? 0 : frames.lastKey()); }
+        @Override public long next(String sid, String path) { return counter = head(sid, path) + 1; }
+        @Override public void append(String sid, String path, long seq, String body) { frames.put(seq, body); }
+        @Override public List<Entry> since(String sid, String path, long since) {
+            if (since + 1 < trimmedBefore) return null;
+            List<Entry> out = new ArrayList<>();
+            frames.tailMap(since, false).forEach((s, b) -> out.add(new Entry(s, b)));
+            return out;
+        }
+    }
+
+    // Con INCRBY por bloques, como Redis; release solo baja el contador si nadie reservó después
+    static class BlockReplayLog extends MemoryReplayLog {
+        final java.util.concurrent.atomic.AtomicInteger reserves = new java.util.concurrent.atomic.AtomicInteger();
+
+        @Override public synchronized long head(String sid, String path) { return super.head(sid, path); }
+        @Override public synchronized void append(String sid, String path, long seq, String body) { super.append(sid, path, seq, body); }
+        @Override public synchronized SeqBlock reserve(String sid, String path, int n) {
+            reserves.incrementAndGet();
+            counter += n;
+            return new SeqBlock(counter - n + 1, counter);
+        }
+        @Override public synchronized void release(String sid, String path, long from, long to) {
+            if (counter == to) counter = from - 1;
+        }
+    }
+
+    @Test
+    @DisplayName("Los seqs del cluster se reservan por bloques y lo que sobra vuelve al contador al cerrar")
+    void testSeqBlocks() {
+        BlockReplayLog replay = new BlockReplayLog();
+        ColeccionesPage page1 = new ColeccionesPage();
+        page1._initIfNeeded();
+        page1._mountRecursive();
+        JrxPushHub nodoA = new JrxPushHub(page1, mapper, 200, null, "sid-1", "/home", replay, null);
+
+        for (int i = 1; i <= 100; i++) {
+            page1.texto = "v" + i;
+            page1._syncState();
+        }
+        // Uno en línea (el primero) y los siguientes pedidos a mitad de bloque, no uno por frame
+        assertThat(replay.reserves.get()).isLessThanOrEqualTo(3);
+        assertThat(nodoA.framesSince(0)).extracting(JrxFrame::seq).hasSize(100).startsWith(1L).endsWith(100L);
+
+        nodoA.close();
+        assertThat(replay.head("sid-1", "/home")).isEqualTo(100);
+
+        // El hub siguiente numera sin hueco: el since del cliente se contesta desde el log
+        ColeccionesPage page2 = new ColeccionesPage();
+        page2._initIfNeeded();
+        page2._mountRecursive();
+        JrxPushHub nodoB = new JrxPushHub(page2, mapper, 200, null, "sid-1", "/home", replay, null);
+        page2.texto = "nuevo"; page2._syncState();
+        assertThat(nodoB.framesSince(99)).extracting(JrxFrame::seq).containsExactly(100L, 101L);
+    }
+
+    @Test
+    @DisplayName("Un hub nuevo (otro nodo) debe seguir el seq del cluster y contestar el since desde el replay log")
+    void testReplayAcrossNodes() {
+        MemoryReplayLog replay = new MemoryReplayLog();
+
+        ColeccionesPage page1 = new ColeccionesPage();
+        page1._initIfNeeded();
+        page1._mountRecursive();
+        JrxPushHub nodoA = new JrxPushHub(page1, mapper, 100, null, "sid-1", "/home", replay, null);
+        page1.texto = "1"; page1._syncState();
+        page1.texto = "2"; page1._syncState();
+        page1.texto = "3"; page1._syncState();
+        long seqA = nodoA.snapshot().getSeq();
+        assertThat(replay.head("sid-1", "/home")).isEqualTo(seqA);
+
+        // Failover: la misma página se reconstruye en otro nodo, sin el historial en RAM
+        ColeccionesPage page2 = new ColeccionesPage();
+        page2._initIfNeeded();
+        page2._mountRecursive();
+        JrxPushHub nodoB = new JrxPushHub(page2, mapper, 100, null, "sid-1", "/home", replay, null);
+        assertThat(nodoB.snapshot().getSeq()).isEqualTo(seqA);
+
+        page2.texto = "4"; page2._syncState();
+
+        // El cliente vio hasta seqA - 1: recibe el último frame del nodo A y el nuevo del B
+        List<JrxFrame> missed = nodoB.framesSince(seqA - 1);
+        assertThat(missed).extracting(JrxFrame::seq).containsExactly(seqA, seqA + 1);
+        assertThat(missed.get(0).body()).contains("\"3\"");
+        assertThat(missed.get(1).body()).contains("\"4\"");
+    }
+
+    @Test
+    @DisplayName("Dos hubs vivos de la misma página no deben repetir seq, y el since se completa con el log")
+    void testConcurrentHubsShareSeq() {
+        MemoryReplayLog replay = new MemoryReplayLog();
+
+        ColeccionesPage page1 = new ColeccionesPage();
+        page1._initIfNeeded();
+        page1._mountRecursive();
+        ColeccionesPage page2 = new ColeccionesPage();
+        page2._initIfNeeded();
+        page2._mountRecursive();
+        JrxPushHub nodoA = new JrxPushHub(page1, mapper, 100, null, "sid-1", "/home", replay, null);
+        JrxPushHub nodoB = new JrxPushHub(page2, mapper, 100, null, "sid-1", "/home", replay, null);
+
+        page1.texto = "a1"; page1._syncState();
+        page2.texto = "b1"; page2._syncState();
+        page1.texto = "a2"; page1._syncState();
+
+        assertThat(replay.frames.keySet()).containsExactly(1L, 2L, 3L);
+
+        // El ring de A tiene un hueco en el 2 (lo reservó B): lo completa el log
+        List<JrxFrame> missed = nodoA.framesSince(1);
+        assertThat(missed).extracting(JrxFrame::seq).containsExactly(2L, 3L);
+        assertThat(missed.get(0).body()).contains("b1");
+        assertThat(nodoB.snapshot().getSeq()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Si el replay log ya recortó lo pedido, debe pedir snapshot")
+    void testReplayGapForcesSnapshot() {
+        MemoryReplayLog replay = new MemoryReplayLog();
+        replay.append("sid-1", "/home", 10, "{\"k\":\"texto\",\"v\":\"x\"}");
+        replay.trimmedBefore = 10;
+
+        ColeccionesPage page = new ColeccionesPage();
+        page._initIfNeeded();
+        page._mountRecursive();
+        JrxPushHub hub = new JrxPushHub(page, mapper, 100, null, "sid-1", "/home", replay, null);
+
+        assertThat(hub.framesSince(9)).hasSize(1);
+        assertThat(hub.framesSince(5)).isNull();
+    }
+
+    static class SalaPage extends HtmlComponent {
+        @State @com.ciro.jreactive.annotations.Shared("sala") public SmartList<String> chat = new SmartList<>();
+        @Override protected String template() { return "<div></div>"; }
+    }
+
+    // Broker versionado en memoria (lo que hacen los scripts de Redis): reparte cada op a los otros hubs
+    static class VersionedBroker implements JrxMessageBroker {
+        final List<JrxPushHub> hubs = new ArrayList<>();
+        final List<String> log = new java.util.concurrent.CopyOnWriteArrayList<>();
+        volatile long head;
+        String master;
+        volatile boolean lose;
+
+        @Override public void publish(String sid, String msg) {}
+        @Override public void onMessage(java.util.function.BiConsumer<String, String> h) {}
+        @Override public void publishShared(String topic, String msg) {}
+        @Override public void saveSharedState(String topic, String var, Object value) {}
+        @Override public Map<String, String> getSharedState(String topic) { return master == null ? Map.of() : Map.of("chat", master); }
+
+        // La publica la cadena de E/S de la sala, en otro hilo
+        @Override public synchronized long publishSharedOp(String topic, String var, String op, Object full) {
+            long ver = ++head;
+            String msg = "{\"ver\":" + ver + "," + op.substring(1);
+            log.add(msg);
+            if (!lose) {
+                for (JrxPushHub h : hubs) {
+                    try { h.applySharedDelta(topic, var, new ObjectMapper().readTree(msg)); } catch (Exception e) { throw new RuntimeException(e); }
+                }
+            }
+            return ver;
+        }
+
+        @Override public SharedSnapshot sharedSnapshot(String topic, String var) {
+            return new SharedSnapshot("[]", 0, List.copyOf(log));
+        }
+    }
+
+    private JrxPushHub salaHub(SalaPage page, VersionedBroker broker, String sid) {
+        page._initIfNeeded();
+        page._mountRecursive();
+        JrxPushHub hub = new JrxPushHub(page, mapper, 100, broker, sid, null);
+        broker.hubs.add(hub);
+        return hub;
+    }
+
+    @Test
+    @DisplayName("Una colección @Shared debe replicarse op a op, con el mismo delta para los clientes")
+    void testSharedDeltaReplication() throws Exception {
+        VersionedBroker sala = new VersionedBroker();
+        SalaPage a = new SalaPage();
+        SalaPage b = new SalaPage();
+        salaHub(a, sala, "sid-a");
+        JrxPushHub hubB = salaHub(b, sala, "sid-b");
+        List<JrxFrame> framesB = new ArrayList<>();
+        hubB.addFrameListener(framesB::add);
+
+        a.chat.add("hola");
+        a.chat.add("qué tal");
+        eventually(() -> assertThat(b.chat).containsExactly("hola", "qué tal"));
+        b.chat.remove(0);
+
+        eventually(() -> assertThat(a.chat).containsExactly("qué tal"));
+        assertThat(b.chat).containsExactly("qué tal");
+        // B recibió deltas, no la sala entera
+        assertThat(framesB).allMatch(JrxFrame::isDelta);
+        assertThat(sala.head).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Un hueco de versiones debe resincronizar desde la copia maestra y el log")
+    void testSharedDeltaGapResync() throws Exception {
+        VersionedBroker sala = new VersionedBroker();
+        SalaPage a = new SalaPage();
+        SalaPage b = new SalaPage();
+        salaHub(a, sala, "sid-a");
+        salaHub(b, sala, "sid-b");
+
+        a.chat.add("1");
+        eventually(() -> assertThat(sala.head).isEqualTo(1));
+        sala.lose = true;
+        a.chat.add("2"); // B nunca la recibe
+        eventually(() -> assertThat(sala.head).isEqualTo(2));
+        sala.lose = false;
+        a.chat.add("3");
+
+        eventually(() -> assertThat(b.chat).containsExactly("1", "2", "3"));
+
+        // Un hub nuevo se hidrata con la copia maestra más las ops del log
+        SalaPage c = new SalaPage();
+        salaHub(c, sala, "sid-c");
+        assertThat(c.chat).containsExactly("1", "2", "3");
+    }
+
+    // Las ops @Shared salen en la cadena de E/S de la sala: lo que reparten llega en otro hilo
+    private static void eventually(Runnable assertion) throws InterruptedException {
+        long deadline = System.nanoTime() + java.util.concurrent.TimeUnit.SECONDS.toNanos(1);
+        while (true) {
+            try {
+                assertion.run();
+                return;
+            } catch (AssertionError e) {
+                if (System.nanoTime() > deadline) throw e;
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ciro.jreactive;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JrxSendQueue - Cola de salida acotada por conexión")
+class JrxSendQueueTest {
+
+    /** Transporte manual: cada write queda pendiente hasta que el test lo confirma. */
+    static class ManualWriter implements JrxSendQueue.Writer {
+        final List<Object> written = new ArrayList<>();
+        final List<Consumer<Throwable>> callbacks = new ArrayList<>();
+
+        @Override
+        public void write(Object payload, Consumer<Throwable> done) {
+            written.add(payload);
+            callbacks.add(done);
+        }
+
+        void ack(int i) { callbacks.get(i).accept(null); }
+    }
+
+    @Test
+    @DisplayName("Debe escribir de a un mensaje y en orden, sin bloquear a quien encola")
+    void testSingleWriterInOrder() {
+        ManualWriter w = new ManualWriter();
+        JrxSendQueue q = new JrxSendQueue(w, 10, 5_000, () -> {});
+
+        CompletableFuture<Void> a = q.offer("A");
+        CompletableFuture<Void> b = q.offer("B");
+
+        // B espera a que A se confirme
+        assertThat(w.written).containsExactly("A");
+        assertThat(q.size()).isEqualTo(2);
+
+        w.ack(0);
+        assertThat(a).isCompleted();
+        assertThat(w.written).containsExactly("A", "B");
+
+        w.ack(1);
+        assertThat(b).isCompleted();
+        assertThat(q.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Un transporte que completa en línea debe vaciar la cola sin recursión")
+    void testInlineCompletion() {
+        List<Object> written = new ArrayList<>();
+        JrxSendQueue q = new JrxSendQueue((p, done) -> { written.add(p); done.accept(null); }, 10, 5_000, () -> {});
+
+        for (int i = 0; i < 5; i++) assertThat(q.offer("m" + i)).isCompleted();
+
+        assertThat(written).containsExactly("m0", "m1", "m2", "m3", "m4");
+    }
+
+    @Test
+    @DisplayName("Al llenarse la cola debe tratar al cliente como lento y fallar lo pendiente")
+    void testSlowConsumerOnOverflow() {
+        ManualWriter w = new ManualWriter();
+        AtomicInteger slow = new AtomicInteger();
+        JrxSendQueue q = new JrxSendQueue(w, 2, 5_000, slow::incrementAndGet);
+
+        q.offer("A");                                // en vuelo
+        CompletableFuture<Void> b = q.offer("B");    // en cola
+        CompletableFuture<Void> c = q.offer("C");    // en cola (límite)
+        CompletableFuture<Void> d = q.offer("D");    // desborde
+
+        assertThat(slow.get()).isEqualTo(1);
+        assertThat(b).isCompletedExceptionally();
+        assertThat(c).isCompletedExceptionally();
+        assertThat(d).isCompletedExceptionally();
+        // Cerrada: lo que llega después falla sin volver a avisar
+        assertThat(q.offer("E")).isCompletedExceptionally();
+        assertThat(slow.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un mensaje atascado más de stallMs debe marcar al cliente como lento")
+    void testSlowConsumerOnStall() throws Exception {
+        ManualWriter w = new ManualWriter();
+        AtomicInteger slow = new AtomicInteger();
+        JrxSendQueue q = new JrxSendQueue(w, 100, 10, slow::incrementAndGet);
+
+        q.offer("A");
+        Thread.sleep(30);
+        assertThat(q.offer("B")).isCompletedExceptionally();
+        assertThat(slow.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un error del transporte debe fallar solo ese mensaje")
+    void testWriteError() {
+        JrxSendQueue q = new JrxSendQueue((p, done) -> {
+            if ("roto".equals(p)) throw new IllegalStateException("Socket roto");
+            done.accept(null);
+        }, 10, 5_000, () -> {});
+
+        assertThat(q.offer("roto")).isCompletedExceptionally();
+        assertThat(q.offer("ok")).isCompleted();
+    }
+}
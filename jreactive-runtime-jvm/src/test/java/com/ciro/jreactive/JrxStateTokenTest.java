@@ -3,6 +3,8 @@ package com.ciro.jreactive;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -47,4 +49,32 @@ class JrxStateTokenTest {
         assertThat(JrxStateToken.decode(null)).isEmpty();
         assertThat(JrxStateToken.decode("sin_punto_de_firma")).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Las huellas del token abierto deben coincidir con las del token firmado")
+    void testFingerprintsRoundTrip() throws Exception {
+        Map<String, Object> state = new HashMap<>();
+        state.put("count", 1);
+        state.put("rows", List.of(Map.of("id", 7, "name", "Ana")));
+        state.put("vacio", null);
+
+        JrxStateToken.Sealed sealed = JrxStateToken.seal(state);
+        JrxStateToken.Opened opened = JrxStateToken.open(sealed.token());
+
+        assertThat(opened.state()).containsEntry("count", 1).containsEntry("vacio", null);
+        assertThat(opened.fingerprints()).isEqualTo(sealed.fingerprints());
+    }
+
+    @Test
+    @DisplayName("Solo debe cambiar la huella de la clave modificada")
+    void testFingerprintDiff() throws Exception {
+        Map<String, Object> state = new HashMap<>(Map.of("count", 1, "label", "Contador"));
+        Map<String, Long> before = JrxStateToken.seal(state).fingerprints();
+
+        state.put("count", 2);
+        Map<String, Long> after = JrxStateToken.seal(state).fingerprints();
+
+        assertThat(after.get("label")).isEqualTo(before.get("label"));
+        assertThat(after.get("count")).isNotEqualTo(before.get("count"));
+    }
+}
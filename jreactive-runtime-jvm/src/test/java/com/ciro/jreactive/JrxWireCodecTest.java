@@ -0,0 +1,72 @@
+package com.ciro.jreactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JrxWireCodec - Protocolo compacto (CBOR + diccionario)")
+class JrxWireCodecTest {
+
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+    private final JrxWireCodec codec = new JrxWireCodec(List.of("Page-JModal-0.visible", "count"));
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> decode(ByteBuffer b) throws Exception {
+        byte[] bytes = new byte[b.remaining()];
+        b.get(bytes);
+        return cbor.readValue(bytes, Map.class);
+    }
+
+    @Test
+    @DisplayName("El diccionario debe listar las claves por id")
+    void testDictionary() throws Exception {
+        assertThat(decode(codec.dictionary()))
+                .containsEntry("K", List.of("Page-JModal-0.visible", "count"));
+        assertThat(codec.id("count")).isEqualTo(1);
+        assertThat(codec.id("otra")).isEqualTo(-1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Debe cambiar claves conocidas por su id y acortar los campos del delta")
+    void testItems() throws Exception {
+        ByteBuffer env = JrxWireCodec.envelope(7, List.of(
+                codec.item("{\"k\":\"Page-JModal-0.visible\",\"v\":true}"),
+                codec.item("{\"k\":\"dto.role\",\"v\":\"ADMIN\"}"),
+                codec.item("{\"delta\":true,\"k\":\"count\",\"type\":\"list\",\"changes\":[{\"op\":\"ADD\",\"index\":0}]}")));
+
+        Map<String, Object> m = decode(env);
+        assertThat(m).containsEntry("s", 7);
+        assertThat((List<Object>) m.get("b")).containsExactly(
+                Map.of("k", 0, "v", true),
+                Map.of("k", "dto.role", "v", "ADMIN"),   // fuera de la tabla: viaja como texto
+                Map.of("k", 1, "d", true, "t", "list", "c", List.of(Map.of("op", "ADD", "index", 0))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Debe transcodificar un envelope JSON completo (snapshot inicial)")
+    void testTranscodeEnvelope() throws Exception {
+        Map<String, Object> m = decode(codec.transcode("{\"batch\":[{\"k\":\"count\",\"v\":3}],\"seq\":42}"));
+
+        assertThat(m).containsEntry("s", 42);
+        assertThat((List<Object>) m.get("b")).containsExactly(Map.of("k", 1, "v", 3));
+    }
+
+    @Test
+    @DisplayName("El frame debe transcodificarse una vez y compartir los bytes")
+    void testFrameCompactCached() throws Exception {
+        JrxFrame f = new JrxFrame(3, "count", false, Map.of("k", "count", "v", 5), "{\"k\":\"count\",\"v\":5}", codec);
+
+        assertThat(f.compactItem()).isSameAs(f.compactItem());
+        assertThat(f.compact()).isEqualTo(f.compact());
+        assertThat((List<?>) decode(JrxFrame.compactEnvelope(3, List.of(f, f))).get("b")).hasSize(2);
+    }
+}
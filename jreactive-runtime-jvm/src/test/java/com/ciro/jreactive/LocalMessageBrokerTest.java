@@ -4,7 +4,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -69,4 +73,28 @@ class LocalMessageBrokerTest {
         // No debe mezclar salas
         assertThat(broker.getSharedState("sala-2")).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Con carriles la entrega es asíncrona y conserva el orden por sesión y por topic")
+    void testLanedDelivery() throws Exception {
+        try (LocalMessageBroker laned = new LocalMessageBroker(2, 100)) {
+            List<String> received = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(4);
+            laned.onMessage((target, msg) -> {
+                received.add(target + " -> " + msg);
+                done.countDown();
+            });
+
+            laned.publish("sid-1", "1");
+            laned.publishShared("sala", "a");
+            laned.publish("sid-1", "2");
+            laned.publishShared("sala", "b");
+
+            assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+            assertThat(received.stream().filter(m -> m.startsWith("sid-1")))
+                    .containsExactly("sid-1 -> 1", "sid-1 -> 2");
+            assertThat(received.stream().filter(m -> m.startsWith("shared:sala")))
+                    .containsExactly("shared:sala -> a", "shared:sala -> b");
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.ciro.jreactive;
+
+import com.ciro.jreactive.smart.SmartList;
+import com.ciro.jreactive.spi.JrxMessageBroker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("SharedTopicRegistry - Un valor @Shared por sala y nodo")
+class SharedTopicRegistryTest {
+
+    public static class Mensaje {
+        public String autor;
+        public String texto;
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private JrxMessageBroker broker;
+    private SharedTopicRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        broker = mock(JrxMessageBroker.class);
+        registry = new SharedTopicRegistry(mapper, broker);
+    }
+
+    private static <T> ReactiveVar<T> rv(T initial, java.lang.reflect.Type type) {
+        ReactiveVar<T> rv = new ReactiveVar<>(initial);
+        rv.setGenericType(type);
+        return rv;
+    }
+
+    @Test
+    @DisplayName("La sala se hidrata una vez y todas las páginas ven la misma instancia")
+    void testHydrateOnceAndShareByReference() {
+        when(broker.getSharedState("sala")).thenReturn(Map.of("ultimo", "{\"autor\":\"ana\",\"texto\":\"hola\"}"));
+
+        ReactiveVar<Mensaje> a = rv(null, Mensaje.class);
+        ReactiveVar<Mensaje> b = rv(null, Mensaje.class);
+        registry.bind("sala", "ultimo", a);
+        registry.bind("sala", "Chat#2.ultimo", b);
+
+        verify(broker, times(1)).getSharedState("sala");
+        assertThat(a.get().texto).isEqualTo("hola");
+        assertThat(b.get()).isSameAs(a.get());
+    }
+
+    @Test
+    @DisplayName("Un valor remoto se convierte una vez y llega por referencia a todas las páginas")
+    void testRemoteValueDecodedOnce() {
+        ReactiveVar<Mensaje> a = rv(null, Mensaje.class);
+        ReactiveVar<Mensaje> b = rv(null, Mensaje.class);
+        registry.bind("sala", "ultimo", a);
+        registry.bind("sala", "ultimo", b);
+
+        registry.onRemote("sala", "{\"k\":\"ultimo\",\"v\":{\"autor\":\"luis\",\"texto\":\"buenas\"}}");
+
+        assertThat(a.get().autor).isEqualTo("luis");
+        assertThat(b.get()).isSameAs(a.get()).isSameAs(registry.value("sala", "ultimo"));
+        assertThat(registry.version("sala", "ultimo")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Cada página tiene su copia de la colección: una op llega a todas y se publica una vez")
+    void testSharedCollectionOps() {
+        ReactiveVar<SmartList<String>> a = rv(new SmartList<>(), List.class);
+        ReactiveVar<SmartList<String>> b = rv(new SmartList<>(), List.class);
+        registry.bind("sala", "chat", a);
+        registry.bind("sala", "chat", b);
+        assertThat(b.get()).isNotSameAs(a.get()).isNotSameAs(registry.value("sala", "chat"));
+
+        registry.onRemote("sala", "{\"k\":\"chat\",\"delta\":true,\"type\":\"list\",\"changes\":[{\"op\":\"ADD\",\"index\":0,\"item\":\"remoto\"}]}");
+        assertThat(a.get()).containsExactly("remoto");
+        assertThat(b.get()).containsExactly("remoto");
+        // Lo aplicado desde el broker no se republica
+        verify(broker, never()).publishSharedOp(anyString(), anyString(), anyString(), any());
+
+        a.get().add("local");
+        assertThat(b.get()).containsExactly("remoto", "local");
+        assertThat(registry.value("sala", "chat")).isEqualTo(List.of("remoto", "local"));
+        verify(broker, timeout(1_000).times(1)).publishSharedOp(eq("sala"), eq("chat"), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Un reemplazo remoto da una copia nueva a cada página y no silencia sus escrituras")
+    void testReplaceHandsFreshCopies() {
+        ReactiveVar<SmartList<String>> a = rv(new SmartList<>(List.of("viejo")), List.class);
+        ReactiveVar<SmartList<String>> b = rv(new SmartList<>(), List.class);
+        registry.bind("sala", "chat", a);
+        registry.bind("sala", "chat", b);
+        SmartList<String> before = a.get();
+
+        registry.onRemote("sala", "{\"k\":\"chat\",\"v\":[\"x\",\"y\"]}");
+        assertThat(a.get()).isNotSameAs(before).containsExactly("x", "y");
+        assertThat(b.get()).containsExactly("x", "y").isNotSameAs(a.get());
+
+        // La copia nueva sigue vigilada: la op sale y llega a la otra página
+        b.get().add("z");
+        assertThat(a.get()).containsExactly("x", "y", "z");
+        verify(broker, timeout(1_000).times(1)).publishSharedOp(eq("sala"), eq("chat"), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Una op propia aplicada antes que otras más bajas debe resincronizarse en orden de versión")
+    void testReorderedOwnOpResyncs() throws Exception {
+        when(broker.sharedSnapshot("sala", "chat")).thenReturn(
+                new JrxMessageBroker.SharedSnapshot("[\"a\"]", 1, List.of()),
+                new JrxMessageBroker.SharedSnapshot("[\"a\",\"local\",\"remoto\"]", 3, List.of()));
+        // La nuestra sale con la 3: la 2 (de otro nodo) aún viene de camino
+        when(broker.publishSharedOp(eq("sala"), eq("chat"), anyString(), any())).thenReturn(3L);
+        ReactiveVar<SmartList<String>> a = rv(new SmartList<>(), List.class);
+        registry.bind("sala", "chat", a);
+
+        a.get().add("local");
+        registry.onRemote("sala", "{\"k\":\"chat\",\"ver\":2,\"delta\":true,\"type\":\"list\",\"changes\":[{\"op\":\"ADD\",\"index\":1,\"item\":\"remoto\"}]}");
+
+        // En local quedó [a, remoto, local]; la copia maestra manda (al saber la versión de la nuestra)
+        verify(broker, timeout(1_000).times(2)).sharedSnapshot("sala", "chat");
+        eventually(() -> assertThat(a.get()).containsExactly("a", "local", "remoto"));
+    }
+
+    @Test
+    @DisplayName("La op local se aplica y se encola con el Slot; el broker la versiona fuera de él")
+    void testLocalOpPublishedOffLock() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<String> ioThread = new AtomicReference<>();
+        doAnswer(inv -> {
+            ioThread.set(Thread.currentThread().getName());
+            release.await(5, TimeUnit.SECONDS);
+            return 2L;
+        }).when(broker).publishSharedOp(eq("sala"), eq("chat"), anyString(), any());
+        ReactiveVar<SmartList<String>> a = rv(new SmartList<>(), List.class);
+        ReactiveVar<SmartList<String>> b = rv(new SmartList<>(), List.class);
+        registry.bind("sala", "chat", a);
+        registry.bind("sala", "chat", b);
+
+        // Con el broker bloqueado, quien escribe sigue y el valor canónico se puede leer (nadie tiene el Slot)
+        a.get().add("uno");
+        a.get().add("dos");
+        assertThat(registry.value("sala", "chat")).isEqualTo(List.of("uno", "dos"));
+        assertThat(b.get()).containsExactly("uno", "dos");
+
+        release.countDown();
+        verify(broker, timeout(1_000).times(2)).publishSharedOp(eq("sala"), eq("chat"), anyString(), any());
+        assertThat(ioThread.get()).startsWith("jrx-shared-io-");
+    }
+
+    // Lo que sale en la cadena de E/S de la sala termina en otro hilo
+    private static void eventually(Runnable assertion) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (true) {
+            try {
+                assertion.run();
+                return;
+            } catch (AssertionError e) {
+                if (System.nanoTime() > deadline) throw e;
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Un cambio local llega a las demás páginas del nodo y su eco no se republica")
+    void testLocalChangeFanOut() {
+        ReactiveVar<String> a = rv("A", String.class);
+        ReactiveVar<String> b = rv("A", String.class);
+        registry.bind("sala", "texto", a);
+        registry.bind("sala", "texto", b);
+
+        a.set("Hola");
+        registry.publishLocal("sala", "texto", a, "Hola", "{\"k\":\"texto\",\"v\":\"Hola\"}");
+        assertThat(b.get()).isEqualTo("Hola");
+        verify(broker, times(1)).publishShared(eq("sala"), anyString());
+
+        // La otra página lo vuelve a sincronizar: ya es el valor canónico
+        registry.publishLocal("sala", "texto", b, "Hola", "{\"k\":\"texto\",\"v\":\"Hola\"}");
+        verify(broker, times(1)).publishShared(eq("sala"), anyString());
+    }
+
+    @Test
+    @DisplayName("Un POJO cambiado en su sitio se publica; el mismo sin cambios, no")
+    void testPojoChangeDetectedExactly() {
+        Mensaje m = new Mensaje();
+        m.texto = "hola";
+        ReactiveVar<Mensaje> a = rv(m, Mensaje.class);
+        registry.bind("sala", "ultimo", a);
+
+        registry.publishLocal("sala", "ultimo", a, m, "{\"k\":\"ultimo\",\"v\":{}}");
+        verify(broker, never()).publishShared(eq("sala"), anyString());
+
+        m.texto = "adiós";
+        registry.publishLocal("sala", "ultimo", a, m, "{\"k\":\"ultimo\",\"v\":{}}");
+        verify(broker, times(1)).publishShared(eq("sala"), anyString());
+        assertThat(registry.version("sala", "ultimo")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Con tickMs las escrituras de un tick deben salir como una sola actualización")
+    void testTickConflation() throws InterruptedException {
+        ReactiveVar<Integer> a = rv(100, Integer.class);
+        ReactiveVar<Integer> b = rv(100, Integer.class);
+        a.setSharedTickMs(30);
+        AtomicReference<String> ioThread = new AtomicReference<>();
+        doAnswer(inv -> { ioThread.set(Thread.currentThread().getName()); return null; })
+                .when(broker).publishShared(eq("boss"), anyString());
+        registry.bind("boss", "hp", a);
+        registry.bind("boss", "hp", b);
+        AtomicReference<String> fanoutThread = new AtomicReference<>();
+        b.onChange(v -> fanoutThread.set(Thread.currentThread().getName()));
+
+        for (int hp = 99; hp >= 90; hp--) {
+            a.set(hp);
+            registry.publishLocal("boss", "hp", a, hp, "{\"k\":\"hp\",\"v\":" + hp + "}");
+        }
+        // Dentro del tick solo se pliega: ni broker ni resto de páginas
+        verify(broker, never()).publishShared(anyString(), anyString());
+        assertThat(b.get()).isEqualTo(100);
+
+        verify(broker, timeout(1_000)).saveSharedState("boss", "hp", 90);
+        verify(broker, times(1)).publishShared(eq("boss"), anyString());
+        assertThat(ioThread.get()).isNotEqualTo("jrx-shared-tick"); // la E/S no para el tick de las demás salas
+        eventually(() -> assertThat(b.get()).isEqualTo(90));
+        // El reparto a las páginas tampoco: cada hub serializa y emite en un hilo de la sala
+        assertThat(fanoutThread.get()).startsWith("jrx-shared-io-");
+        assertThat(SharedTopicRegistry.conflationRatio()).isGreaterThan(1);
+    }
+
+    @Test
+    @DisplayName("Sin páginas la sala se suelta y deja de recibir mensajes")
+    void testUnbindDropsTopic() {
+        ReactiveVar<String> a = rv("A", String.class);
+        registry.bind("sala", "texto", a);
+        registry.unbind("sala", "texto", a);
+
+        assertThat(registry.topicCount()).isZero();
+        registry.onRemote("sala", "{\"k\":\"texto\",\"v\":\"Tarde\"}");
+        assertThat(a.get()).isEqualTo("A");
+    }
+}
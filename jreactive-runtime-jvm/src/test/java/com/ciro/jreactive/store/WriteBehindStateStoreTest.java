@@ -0,0 +1,156 @@
+package com.ciro.jreactive.store;
+
+import com.ciro.jreactive.HtmlComponent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("WriteBehindStateStore - Escritura diferida y agrupada")
+class WriteBehindStateStoreTest {
+
+    static class DummyPage extends HtmlComponent {
+        @Override protected String template() { return ""; }
+    }
+
+    private StateStore redis;
+    private WriteBehindStateStore store;
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(StateStore.class);
+        // Escritor síncrono: la escritura ocurre en el hilo del scheduler
+        store = new WriteBehindStateStore(redis, 50, 10_000, Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Una ráfaga de cambios debe acabar en una sola escritura con la última versión")
+    void testCoalescing() {
+        DummyPage v1 = new DummyPage();
+        DummyPage v2 = new DummyPage();
+        for (int i = 0; i < 10; i++) store.put("s1", "/form", v1);
+        store.put("s1", "/form", v2);
+
+        // Mientras tanto se lee la instancia pendiente, sin ir a Redis
+        assertThat(store.get("s1", "/form")).isSameAs(v2);
+        verify(redis, never()).get(anyString(), anyString());
+
+        verify(redis, timeout(1_000)).put("s1", "/form", v2);
+        verify(redis, times(1)).put(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("No debe esperar más de maxStaleness aunque los cambios no paren")
+    void testMaxStaleness() throws Exception {
+        store.close();
+        store = new WriteBehindStateStore(redis, 200, 300, Runnable::run);
+        DummyPage page = new DummyPage();
+
+        long end = System.currentTimeMillis() + 700;
+        while (System.currentTimeMillis() < end) {
+            store.put("s1", "/chat", page);
+            Thread.sleep(20); // siempre por debajo del debounce
+        }
+
+        verify(redis, atLeastOnce()).put("s1", "/chat", page);
+    }
+
+    @Test
+    @DisplayName("flush debe adelantar la escritura (cierre del WebSocket)")
+    void testFlush() {
+        store.close();
+        store = new WriteBehindStateStore(redis, 60_000, 60_000, Runnable::run);
+        DummyPage page = new DummyPage();
+
+        store.put("s1", "/p", page);
+        store.flush("s1", "/p");
+
+        verify(redis, timeout(1_000)).put("s1", "/p", page);
+    }
+
+    @Test
+    @DisplayName("remove debe descartar lo pendiente en vez de escribirlo")
+    void testRemoveDiscardsPending() throws Exception {
+        store.close();
+        // Debounce largo: la escritura no puede adelantarse al remove
+        store = new WriteBehindStateStore(redis, 60_000, 60_000, Runnable::run);
+        store.put("s1", "/p", new DummyPage());
+        store.remove("s1", "/p");
+
+        Thread.sleep(150);
+        verify(redis, never()).put(anyString(), anyString(), any());
+        verify(redis).remove("s1", "/p");
+        assertThat(store.pendingPages()).isZero();
+    }
+
+    @Test
+    @DisplayName("replace debe esperar a la escritura en vuelo para que no pise la CAS")
+    void testReplaceWaitsForInFlightWrite() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        store.close();
+        store = new WriteBehindStateStore(redis, 60_000, 60_000, writer);
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            writing.countDown();
+            release.await();
+            return null;
+        }).when(redis).put(anyString(), anyString(), any());
+        when(redis.replace(anyString(), anyString(), any(), anyLong())).thenReturn(true);
+
+        DummyPage old = new DummyPage();
+        DummyPage fresh = new DummyPage();
+        store.put("s1", "/p", old);
+        store.flush("s1", "/p");
+        assertThat(writing.await(1, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Boolean> cas = CompletableFuture.supplyAsync(() -> store.replace("s1", "/p", fresh, 3));
+        Thread.sleep(100);
+        assertThat(cas).isNotDone();
+
+        release.countDown();
+        assertThat(cas.get(1, TimeUnit.SECONDS)).isTrue();
+        var order = inOrder(redis);
+        order.verify(redis).put("s1", "/p", old);
+        order.verify(redis).replace("s1", "/p", fresh, 3);
+        writer.shutdown();
+    }
+
+    @Test
+    @DisplayName("close debe escribir todo lo pendiente")
+    void testCloseDrains() {
+        WriteBehindStateStore slow = new WriteBehindStateStore(redis, 60_000, 60_000, Runnable::run);
+        DummyPage page = new DummyPage();
+        slow.put("s9", "/x", page);
+
+        slow.close();
+
+        verify(redis).put("s9", "/x", page);
+    }
+}
@@ -12,6 +12,11 @@ import io.undertow.server.HttpHandler;
 import io.undertow.server.handlers.PathHandler;
 import io.undertow.server.handlers.resource.ClassPathResourceManager;
 import io.undertow.server.handlers.resource.ResourceHandler;
+import io.undertow.websockets.WebSocketProtocolHandshakeHandler;
+import io.undertow.websockets.extensions.PerMessageDeflateHandshake;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
@@ -24,6 +29,8 @@ import static io.undertow.Handlers.websocket;
 
 public class JReactiveServer {
 
+    private static final Logger log = LoggerFactory.getLogger(JReactiveServer.class);
+
     private final int port;
 
     private final SimpleRouteRegistry registry;
@@ -56,11 +63,12 @@ public class JReactiveServer {
             validator = Validation.buildDefaultValidatorFactory().getValidator();
         } catch (Exception e) {
             validator = null;
-            System.err.println("⚠️ ADVERTENCIA: No se encontró proveedor de validación.");
+            log.warn("⚠️ ADVERTENCIA: No se encontró proveedor de validación.");
         }
 
         this.callGuard = new CallGuard(validator, mapper);
-        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        // ⚡ Cada sesión WS programa sus propios flushes: un solo hilo serializaría todos los sockets
+        this.scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
         this.sessionManager = new StandaloneSessionManager();
     }
 
@@ -96,7 +104,10 @@ public class JReactiveServer {
 
         PathHandler routes = new PathHandler(fallback);
 
-        routes.addPrefixPath("/ws", websocket(wsEndpoint::onConnect));
+        // ⚡ permessage-deflate: el navegador lo negocia solo; se suma al protocolo compacto
+        WebSocketProtocolHandshakeHandler ws = websocket(wsEndpoint::onConnect);
+        ws.addExtension(new PerMessageDeflateHandshake(false, 6));
+        routes.addPrefixPath("/ws", ws);
         routes.addPrefixPath("/call", callEndpoint);
         routes.addPrefixPath("/js", jsHandler);
         routes.addPrefixPath("/static", staticHandler);
@@ -107,7 +118,7 @@ public class JReactiveServer {
                 .build();
 
         server.start();
-        System.out.println("🚀 JReactive Standalone corriendo en http://localhost:" + port);
-        System.out.println("📦 Runtime JS: http://localhost:" + port + "/js/jreactive-runtime.js");
+        log.info("🚀 JReactive Standalone corriendo en http://localhost:{}", port);
+        log.info("📦 Runtime JS: http://localhost:{}/js/jreactive-runtime.js", port);
     }
 }
\ No newline at end of file
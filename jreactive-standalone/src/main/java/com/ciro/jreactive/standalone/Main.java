@@ -6,14 +6,18 @@ import com.ciro.jreactive.State;
 import com.ciro.jreactive.annotations.Call;
 import com.ciro.jreactive.annotations.Client;
 import com.ciro.jreactive.router.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Main {
 
+    private static final Logger log = LoggerFactory.getLogger(Main.class);
+
     public static void main(String[] args) {
     	
     	AstComponentEngine.installAsDefault();
 
-        System.out.println("🚀 Iniciando servidor JReactive Standalone...");
+        log.info("🚀 Iniciando servidor JReactive Standalone...");
     	
         int port = 8080;
 
@@ -21,7 +25,7 @@ public class Main {
 
         server.addRoute("/", CounterPage::new);
 
-        System.out.println("⏳ Iniciando servidor JReactive Standalone...");
+        log.info("⏳ Arrancando Undertow en el puerto {}...", port);
         server.start();
     }
     //@Route(path = "/")
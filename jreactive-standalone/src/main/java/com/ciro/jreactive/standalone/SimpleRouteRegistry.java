@@ -1,8 +1,8 @@
 package com.ciro.jreactive.standalone;
 
 import com.ciro.jreactive.HtmlComponent;
-import com.ciro.jreactive.router.PathPattern;
 import com.ciro.jreactive.router.RouteProvider;
+import com.ciro.jreactive.router.RouteTrie;
 
 import java.util.*;
 import java.util.function.Supplier;
@@ -13,31 +13,35 @@ import java.util.function.Supplier;
  */
 public class SimpleRouteRegistry implements RouteProvider {
 
-    // Lista simple de rutas registradas
-    private final List<Entry> routes = new ArrayList<>();
-
-    // Guardamos el patrón compilado y la "fábrica" (Supplier) para crear el componente
-    private record Entry(PathPattern pattern, Supplier<HtmlComponent> factory) {}
+    // Rutas compiladas en un trie: guardamos la "fábrica" (Supplier) para crear el componente
+    private final RouteTrie<Supplier<HtmlComponent>> routes = new RouteTrie<>();
 
     /**
      * Registra una ruta nueva.
      * Ejemplo: registry.add("/users/{id}", UserPage::new);
      */
     public void add(String path, Supplier<HtmlComponent> factory) {
-        routes.add(new Entry(PathPattern.compile(path), factory));
+        routes.add(path, factory);
     }
 
     @Override
     public Result resolve(String path) {
-        // Buscamos la primera ruta que coincida
-        for (Entry e : routes) {
-            Map<String, String> params = e.pattern.match(path);
-            if (params != null) {
-                // ¡Éxito! Devolvemos una NUEVA instancia del componente y los parámetros extraídos
-                return new Result(e.factory.get(), params);
-            }
+        RouteTrie.Match<Supplier<HtmlComponent>> m = match(path);
+        // ¡Éxito! Devolvemos una NUEVA instancia del componente y los parámetros extraídos
+        return new Result(m.value().get(), m.params());
+    }
+
+    @Override
+    public Map<String, String> params(String path) {
+        return match(path).params();
+    }
+
+    private RouteTrie.Match<Supplier<HtmlComponent>> match(String path) {
+        RouteTrie.Match<Supplier<HtmlComponent>> m = routes.match(path);
+        if (m == null) {
+            // Si llegamos aquí, es un 404
+            throw new RuntimeException("❌ [JReactive] Error 404: No route found for path: '" + path + "'. ¿Olvidaste registrarla con server.addRoute()?");
         }
-        // Si llegamos aquí, es un 404
-        throw new RuntimeException("❌ [JReactive] Error 404: No route found for path: '" + path + "'. ¿Olvidaste registrarla con server.addRoute()?");
+        return m;
     }
 }
\ No newline at end of file
@@ -1,24 +1,62 @@
 package com.ciro.jreactive.standalone;
 
+import com.ciro.jreactive.JrxSendQueue;
 import com.ciro.jreactive.spi.JrxSession;
+import io.undertow.websockets.core.WebSocketCallback;
 import io.undertow.websockets.core.WebSocketChannel;
 import io.undertow.websockets.core.WebSockets;
-import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class UndertowJrxSession implements JrxSession {
 
+    private static final Logger log = LoggerFactory.getLogger(UndertowJrxSession.class);
+
     private final WebSocketChannel channel;
     private final String id;
     private final Map<String, Object> attributes = new ConcurrentHashMap<>();
-    private final ReentrantLock lock = new ReentrantLock();
+    // ⚡ Cola acotada por conexión: nadie espera al socket y un cliente lento solo se frena a sí mismo
+    private final JrxSendQueue out;
 
     public UndertowJrxSession(WebSocketChannel channel, String sessionId) {
+        this(channel, sessionId, WsEndpoint.SEND_QUEUE_LIMIT, WsEndpoint.SEND_TIMEOUT_MS);
+    }
+
+    public UndertowJrxSession(WebSocketChannel channel, String sessionId, int sendQueueLimit, long sendTimeoutMs) {
         this.channel = channel;
         this.id = sessionId;
+        this.out = new JrxSendQueue(this::write, sendQueueLimit, sendTimeoutMs, () -> {
+            log.warn("⚠️ [JReactive Standalone] Cliente lento en la sesión {}. Cerrando WebSocket.", sessionId);
+            close();
+        });
+    }
+
+    // Undertow ya escribe sin bloquear: el callback avisa a la cola cuando el frame salió
+    private void write(Object payload, Consumer<Throwable> done) {
+        if (!channel.isOpen()) {
+            done.accept(null);
+            return;
+        }
+        WebSocketCallback<Void> cb = new WebSocketCallback<>() {
+            @Override
+            public void complete(WebSocketChannel ch, Void context) {
+                done.accept(null);
+            }
+
+            @Override
+            public void onError(WebSocketChannel ch, Void context, Throwable throwable) {
+                done.accept(throwable);
+            }
+        };
+        if (payload instanceof ByteBuffer b) WebSockets.sendBinary(b, channel, cb);
+        else WebSockets.sendText((String) payload, channel, cb);
     }
 
     @Override
@@ -28,15 +66,27 @@ public class UndertowJrxSession implements JrxSession {
 
     @Override
     public void sendText(String text) {
-        // 🔥 Aquí protegemos el socket sin bloquear el hilo del SO
-        lock.lock();
-        try {
-            if (channel.isOpen()) {
-                WebSockets.sendText(text, channel, null);
-            }
-        } finally {
-            lock.unlock();
-        }
+        out.offer(text);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendTextAsync(String text) {
+        return out.offer(text);
+    }
+
+    @Override
+    public boolean supportsBinary() {
+        return true;
+    }
+
+    @Override
+    public void sendBinary(ByteBuffer data) {
+        out.offer(data);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendBinaryAsync(ByteBuffer data) {
+        return out.offer(data);
     }
 
     @Override
@@ -46,6 +96,7 @@ public class UndertowJrxSession implements JrxSession {
 
     @Override
     public void close() {
+        out.close();
         try {
             if (channel.isOpen()) channel.sendClose();
         } catch (IOException e) {
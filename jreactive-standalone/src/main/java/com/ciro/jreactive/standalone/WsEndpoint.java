@@ -5,6 +5,8 @@ import com.ciro.jreactive.ComponentState; // Asegúrate de importar esto
 import com.ciro.jreactive.JrxHubManager;
 import com.ciro.jreactive.JrxProtocolHandler;
 import com.ciro.jreactive.JrxPushHub;
+import com.ciro.jreactive.JrxSlowConsumerPolicy;
+import com.ciro.jreactive.JrxWireCodec;
 import com.ciro.jreactive.PageResolver;
 import com.ciro.jreactive.spi.JrxSession; // Usamos la interfaz del SPI
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,6 +14,8 @@ import io.undertow.websockets.core.AbstractReceiveListener;
 import io.undertow.websockets.core.BufferedTextMessage;
 import io.undertow.websockets.core.WebSocketChannel;
 import io.undertow.websockets.spi.WebSocketHttpExchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
@@ -19,6 +23,14 @@ import java.util.concurrent.ScheduledExecutorService;
 
 public class WsEndpoint {
 
+    private static final Logger log = LoggerFactory.getLogger(WsEndpoint.class);
+
+    // Backpressure del canal WS (standalone no tiene archivo de configuración)
+    static final int MAX_QUEUE = 512;
+    static final int FLUSH_INTERVAL_MS = 16;
+    static final int SEND_QUEUE_LIMIT = 256;
+    static final long SEND_TIMEOUT_MS = JrxProtocolHandler.DEFAULT_SEND_TIMEOUT_MS;
+
     private final PageResolver pageResolver;
     private final ObjectMapper mapper;
     private final ScheduledExecutorService scheduler;
@@ -47,7 +59,7 @@ public class WsEndpoint {
             try {
                 since = Long.parseLong(sinceParam);
             } catch (NumberFormatException e) {
-            	System.err.println("⚠️ [JReactive Standalone] El parámetro 'since' en la conexión WS no es un número válido: " + sinceParam);
+            	log.warn("⚠️ [JReactive Standalone] El parámetro 'since' en la conexión WS no es un número válido: {}", sinceParam);
             }
         }
 
@@ -61,8 +73,10 @@ public class WsEndpoint {
 
         // Usamos la implementación concreta para Undertow, pero referenciada como interfaz JrxSession
         JrxSession session = new UndertowJrxSession(channel, sessionId);
+        // ⚡ Protocolo compacto (CBOR) si el cliente lo pidió con ?proto=cbor
+        session.setAttr(JrxWireCodec.PROTO_ATTR, getQueryParam(exchange, JrxWireCodec.PROTO_ATTR));
 
-        System.out.println("🔌 WS CONNECT sid=" + sid + " path=" + path + " since=" + since);
+        log.debug("🔌 WS CONNECT sid={} path={} since={}", sid, path, since);
 
         try {
             HtmlComponent page = pageResolver.getPage(sid, path);
@@ -82,13 +96,15 @@ public class WsEndpoint {
                 mapper,
                 scheduler,
                 true, // Backpressure activado
-                512,  // Max queue
-                16,   // Flush interval
+                MAX_QUEUE,
+                FLUSH_INTERVAL_MS,
+                JrxSlowConsumerPolicy.COALESCE,
+                SEND_TIMEOUT_MS,
                 () -> {
                     try {
                         pageResolver.persist(sid, finalPath, page);
                     } catch (Exception e) {
-                        e.printStackTrace();
+                        log.error("❌ [JReactive Standalone] Error persistiendo la página {}", finalPath, e);
                     }
                 },
                 hubManager != null ? hubManager.getBroker() : null
@@ -106,13 +122,14 @@ public class WsEndpoint {
 
             channel.getCloseSetter().set(ch -> {
                 handler.onClose(session);
-                System.out.println("❌ WS CLOSE sid=" + sid);
+                pageResolver.flush(sid, finalPath);
+                log.debug("❌ WS CLOSE sid={}", sid);
             });
 
             channel.resumeReceives();
 
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("❌ [JReactive Standalone] Error abriendo la conexión WS sid={} path={}", sid, path, e);
             try { channel.close(); } catch (Exception ignored) {}
         }
     }
@@ -1,5 +1,7 @@
 package com.ciro.jreactive;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import com.ciro.jreactive.annotations.StatefulRam; 
@@ -12,6 +14,8 @@ import java.util.concurrent.ScheduledExecutorService;
 @Component
 public class DelegatingWebSocketHandler implements WebSocketHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(DelegatingWebSocketHandler.class);
+
     private final PageResolver pageResolver;
     private final ObjectMapper mapper;
     private final ScheduledExecutorService scheduler;
@@ -96,7 +100,7 @@ public class DelegatingWebSocketHandler implements WebSocketHandler {
             boolean hasReason = "route-change".equals(status.getReason());
 
             if (path != null && sessionId != null && (isIntentionalClose || hasReason)) {
-                System.out.println("🧹 [Ephemereal] Limpiando estado para: " + path + " (Code: " + status.getCode() + ")");
+                log.debug("🧹 [Ephemereal] Limpiando estado para: {} (Code: {})", path, status.getCode());
                 
                 // 1. Borrar de la RAM (PageResolver -> StateStore)
                 pageResolver.evict(sessionId, path);
@@ -1,5 +1,7 @@
 package com.ciro.jreactive;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
@@ -15,6 +17,8 @@ import jakarta.validation.Validator;
 
 @Configuration
 public class JReactiveAutoConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(JReactiveAutoConfiguration.class);
 	
 	@Autowired ObjectMapper mapper;
 	
@@ -43,14 +47,15 @@ public class JReactiveAutoConfiguration {
     public JrxHubManager jrxHubManager(
     		PageResolver pageResolver, 
     		ObjectMapper mapper,
-    		@Autowired(required = false) com.ciro.jreactive.spi.JrxMessageBroker broker) {
-        return new JrxHubManager(pageResolver, mapper,broker);
+    		@Autowired(required = false) com.ciro.jreactive.spi.JrxMessageBroker broker,
+    		@Autowired(required = false) com.ciro.jreactive.spi.JrxReplayLog replayLog) {
+        return new JrxHubManager(pageResolver, mapper, broker, replayLog);
     }
     
     @Bean
     @ConditionalOnMissingBean(com.ciro.jreactive.spi.JrxMessageBroker.class)
     public com.ciro.jreactive.spi.JrxMessageBroker localMessageBroker() {
-        System.out.println("🚀 JReactive: Iniciando LocalMessageBroker (RAM Multijugador)");
+        log.info("🚀 JReactive: Iniciando LocalMessageBroker (RAM Multijugador)");
         return new com.ciro.jreactive.LocalMessageBroker(); // 👈 Cambio de paquete
     }
 
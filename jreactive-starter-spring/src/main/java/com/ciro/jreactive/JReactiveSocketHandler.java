@@ -2,16 +2,24 @@ package com.ciro.jreactive;
 
 import com.ciro.jreactive.spi.JrxSession;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
-import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
 
 /**
  * ADAPTADOR: Spring WebSocket -> JReactive Core.
@@ -19,6 +27,8 @@ import java.util.concurrent.ScheduledExecutorService;
  */
 public class JReactiveSocketHandler extends TextWebSocketHandler {
 
+    private static final Logger log = LoggerFactory.getLogger(JReactiveSocketHandler.class);
+
     private final JrxProtocolHandler protocol;
     
     // 👇 Nuevos campos para contexto
@@ -29,6 +39,10 @@ public class JReactiveSocketHandler extends TextWebSocketHandler {
 
     private final Map<WebSocketSession, JrxSession> wrappers = new ConcurrentHashMap<>();
     private final HtmlComponent page;
+    private final WsConfig cfg;
+
+    // ⚡ sendMessage de Spring bloquea: cada conexión escribe en su propio hilo virtual, de a un mensaje
+    private static final Executor SENDERS = Executors.newVirtualThreadPerTaskExecutor();
 
     public JReactiveSocketHandler(HtmlComponent page,
                                   ObjectMapper mapper,
@@ -43,6 +57,7 @@ public class JReactiveSocketHandler extends TextWebSocketHandler {
         this.sessionId = sessionId;
         this.pageResolver = pageResolver;
         this.page=page;
+        this.cfg = cfg;
         
         if (this.page._state() == ComponentState.UNMOUNTED) {
             this.page._initIfNeeded();
@@ -63,6 +78,8 @@ public class JReactiveSocketHandler extends TextWebSocketHandler {
             cfg.isEnabledBackpressure(),
             cfg.getMaxQueue(),
             cfg.getFlushIntervalMs(),
+            cfg.getSlowConsumerPolicy(),
+            cfg.getSendTimeoutMs(),
             saveStrategy,
             hubManager != null ? hubManager.getBroker() : null
         );
@@ -71,7 +88,7 @@ public class JReactiveSocketHandler extends TextWebSocketHandler {
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        JrxSession wrapper = new SpringWsWrapper(session);
+        JrxSession wrapper = new SpringWsWrapper(session, cfg.getSendQueueLimit(), cfg.getSendTimeoutMs());
         wrappers.put(session, wrapper);
 
         // 👇 1. CORRECCIÓN PARA SOCKJS:
@@ -110,6 +127,7 @@ public class JReactiveSocketHandler extends TextWebSocketHandler {
         if (wrapper != null) {
             protocol.onClose(wrapper);
         }
+        if (cfg.isPersistentState()) pageResolver.flush(sessionId, path);
     }
 
     @Override
@@ -123,10 +141,32 @@ public class JReactiveSocketHandler extends TextWebSocketHandler {
     // ... (La clase interna SpringWsWrapper se queda IGUAL, no la copies si no quieres, pero aquí va completa por seguridad) ...
     private static class SpringWsWrapper implements JrxSession {
         private final WebSocketSession session;
-        private final ReentrantLock lock = new ReentrantLock();
+        // 🔥 Un solo escritor por conexión (WebSocketSession no es thread-safe) sin bloquear a quien envía
+        private final JrxSendQueue out;
 
-        public SpringWsWrapper(WebSocketSession session) {
+        public SpringWsWrapper(WebSocketSession session, int sendQueueLimit, long sendTimeoutMs) {
             this.session = session;
+            this.out = new JrxSendQueue(this::write, sendQueueLimit, sendTimeoutMs, () -> {
+                log.warn("⚠️ [JReactive] Cliente lento en la sesión {}. Cerrando WebSocket.", session.getId());
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException ignored) {}
+            });
+        }
+
+        private void write(Object payload, Consumer<Throwable> done) {
+            SENDERS.execute(() -> {
+                try {
+                    if (session.isOpen()) {
+                        session.sendMessage(payload instanceof ByteBuffer b
+                                ? new BinaryMessage(b)
+                                : new TextMessage((String) payload));
+                    }
+                    done.accept(null);
+                } catch (Throwable t) {
+                    done.accept(t);
+                }
+            });
         }
 
         @Override
@@ -141,24 +181,44 @@ public class JReactiveSocketHandler extends TextWebSocketHandler {
 
         @Override
         public void sendText(String json) {
-            lock.lock(); // 🔥 Protección segura para V-Threads
-            try {
-                if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(json));
+            out.offer(json).whenComplete((ok, e) -> {
+                if (e instanceof IOException) {
+                    log.warn("⚠️ [JReactive] Error de E/S enviando texto por Spring WebSocket: {}", e.getMessage());
                 }
-            } catch (IOException e) {
-            	System.err.println("⚠️ [JReactive] Error de E/S enviando texto por Spring WebSocket: " + e.getMessage());
-            } finally {
-                lock.unlock();
-            }
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> sendTextAsync(String json) {
+            return out.offer(json);
+        }
+
+        @Override
+        public boolean supportsBinary() {
+            return !(session instanceof SockJsSession); // SockJS solo transporta texto
+        }
+
+        @Override
+        public void sendBinary(ByteBuffer data) {
+            out.offer(data).whenComplete((ok, e) -> {
+                if (e instanceof IOException) {
+                    log.warn("⚠️ [JReactive] Error de E/S enviando binario por Spring WebSocket: {}", e.getMessage());
+                }
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> sendBinaryAsync(ByteBuffer data) {
+            return out.offer(data);
         }
 
         @Override
         public void close() {
+            out.close();
             try {
                 session.close();
             } catch (IOException e) {
-            	System.err.println("⚠️ [JReactive] Error de E/S al llamar a SpringWsWrapper.close : " + e.getMessage());
+                log.warn("⚠️ [JReactive] Error de E/S al llamar a SpringWsWrapper.close: {}", e.getMessage());
             }
         }
 
@@ -0,0 +1,184 @@
+package com.ciro.jreactive;
+
+import com.ciro.jreactive.diag.CallEvent;
+import com.ciro.jreactive.spi.JrxMetrics;
+import com.ciro.jreactive.store.WriteBehindStateStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Expone los internos de JReactive en Micrometer.
+ * <ul>
+ *   <li>Timers (vía {@link JrxMetrics.Recorder}): render por componente, @Call por método y resultado,
+ *       espera en {@link JrxRequestQueue}, get/put de cada capa de {@code StateStore}.</li>
+ *   <li>Gauges (se leen en cada scrape): hubs, sinks vivos, ocupación del historial,
+ *       frames en cola de backpressure y frames descartados, el agrupamiento del write-behind
+ *       la conflación por tick de los topics {@code @Shared} y los carriles de entrada del broker.</li>
+ * </ul>
+ * Los timers se cachean por etiqueta: el camino caliente no vuelve a buscar en el registry.
+ */
+public class JrxMeterBinder implements MeterBinder {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final JrxHubManager hubManager;
+    private final JrxRequestQueue requestQueue;
+
+    public JrxMeterBinder(JrxHubManager hubManager, JrxRequestQueue requestQueue) {
+        this.hubManager = hubManager;
+        this.requestQueue = requestQueue;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (hubManager != null) {
+            Gauge.builder("jreactive.hubs", hubManager, JrxHubManager::hubCount)
+                    .description("Hubs de push vivos (sesión + página)")
+                    .register(registry);
+            Gauge.builder("jreactive.hub.sinks", hubManager, JrxHubManager::sinkCount)
+                    .description("Clientes conectados a algún hub (WS, SSE o polling)")
+                    .register(registry);
+            Gauge.builder("jreactive.hub.history.fill", hubManager, JrxHubManager::historyFill)
+                    .description("Ocupación media del historial de replay de los hubs (0 a 1)")
+                    .baseUnit("ratio")
+                    .register(registry);
+        }
+
+        Gauge.builder("jreactive.push.queued", JrxProtocolHandler::queuedFrames)
+                .description("Frames esperando en las colas de backpressure de las sesiones WS")
+                .register(registry);
+        FunctionCounter.builder("jreactive.push.dropped", JrxProtocolHandler.class, c -> JrxProtocolHandler.droppedFrames())
+                .description("Frames coalescidos o descartados antes de salir al cable")
+                .register(registry);
+
+        FunctionCounter.builder("jreactive.store.writebehind.requested", WriteBehindStateStore.class, c -> WriteBehindStateStore.requested())
+                .description("Escrituras de página pedidas al write-behind")
+                .register(registry);
+        FunctionCounter.builder("jreactive.store.writebehind.written", WriteBehindStateStore.class, c -> WriteBehindStateStore.written())
+                .description("Escrituras que llegaron al store persistente tras agruparse")
+                .register(registry);
+        Gauge.builder("jreactive.store.writebehind.pending", WriteBehindStateStore::pending)
+                .description("Páginas con cambios esperando su escritura diferida")
+                .register(registry);
+        Gauge.builder("jreactive.store.writebehind.ratio", WriteBehindStateStore::coalescingRatio)
+                .description("Escrituras pedidas por cada escritura real (1 = sin agrupar)")
+                .register(registry);
+
+        FunctionCounter.builder("jreactive.shared.tick.writes", SharedTopicRegistry.class, c -> SharedTopicRegistry.tickWrites())
+                .description("Escrituras @Shared plegadas en un tick")
+                .register(registry);
+        FunctionCounter.builder("jreactive.shared.tick.updates", SharedTopicRegistry.class, c -> SharedTopicRegistry.tickUpdates())
+                .description("Actualizaciones @Shared publicadas por los ticks")
+                .register(registry);
+        Gauge.builder("jreactive.shared.tick.ratio", SharedTopicRegistry::conflationRatio)
+                .description("Escrituras @Shared por cada actualización publicada (1 = sin plegar)")
+                .baseUnit("ratio")
+                .register(registry);
+
+        FunctionCounter.builder("jreactive.broker.inbound.dispatched", JrxInboundDispatcher.class, c -> JrxInboundDispatcher.dispatchedTotal())
+                .description("Mensajes del broker encolados en los carriles de entrega")
+                .register(registry);
+        FunctionCounter.builder("jreactive.broker.inbound.overflow", JrxInboundDispatcher.class, c -> JrxInboundDispatcher.overflowTotal())
+                .description("Mensajes del broker descartados por carril lleno")
+                .register(registry);
+        Gauge.builder("jreactive.broker.inbound.queued", JrxInboundDispatcher::queuedTotal)
+                .description("Mensajes del broker esperando entrega")
+                .register(registry);
+
+        if (requestQueue != null) {
+            Gauge.builder("jreactive.request.queue.pending", requestQueue, JrxRequestQueue::backlog)
+                    .description("Peticiones esperando turno en las colas serie por página")
+                    .register(registry);
+            Gauge.builder("jreactive.request.queue.keys", requestQueue, JrxRequestQueue::activeKeys)
+                    .description("Colas serie vivas (sesión + página)")
+                    .register(registry);
+        }
+
+        JrxMetrics.install(new MicrometerRecorder(registry));
+    }
+
+    /** Recorder con los meters cacheados por etiqueta. */
+    static final class MicrometerRecorder implements JrxMetrics.Recorder {
+
+        private final MeterRegistry registry;
+        private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+        private final Timer queueWait;
+        private final DistributionSummary queueBacklog;
+
+        MicrometerRecorder(MeterRegistry registry) {
+            this.registry = registry;
+            this.queueWait = Timer.builder("jreactive.request.queue.wait")
+                    .description("Tiempo en cola antes de ejecutar un /call o /set")
+                    .register(registry);
+            this.queueBacklog = DistributionSummary.builder("jreactive.request.queue.backlog")
+                    .description("Peticiones de la misma página por delante al encolar")
+                    .register(registry);
+        }
+
+        @Override
+        public void render(Class<?> component, long nanos, boolean partial) {
+            String name = component.getName();
+            timer("r|" + name + "|" + partial, () -> Timer.builder("jreactive.render")
+                    .description("Render de un componente")
+                    .tag("component", name)
+                    .tag("partial", String.valueOf(partial))
+                    .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void call(String component, String method, String outcome, long nanos) {
+            // Un @Call inexistente trae el nombre que mandó el cliente: no lo usamos de etiqueta
+            boolean resolved = component != null && !CallEvent.NOT_FOUND.equals(outcome);
+            String comp = resolved ? component : UNKNOWN;
+            String m = resolved ? method : UNKNOWN;
+            timer("c|" + comp + "|" + m + "|" + outcome, () -> Timer.builder("jreactive.call")
+                    .description("Invocación de un método @Call")
+                    .tag("component", comp)
+                    .tag("method", m)
+                    .tag("outcome", outcome)
+                    .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void storeGet(String store, boolean hit, long nanos) {
+            String result = hit ? "hit" : "miss";
+            timer("g|" + store + "|" + result, () -> Timer.builder("jreactive.store.get")
+                    .description("Lectura de una página del StateStore")
+                    .tag("store", store)
+                    .tag("result", result)
+                    .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void storePut(String store, long nanos) {
+            timer("p|" + store, () -> Timer.builder("jreactive.store.put")
+                    .description("Escritura de una página en el StateStore")
+                    .tag("store", store)
+                    .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void queueWait(long nanos, int backlog) {
+            queueWait.record(nanos, TimeUnit.NANOSECONDS);
+            queueBacklog.record(backlog);
+        }
+
+        private Timer timer(String key, Supplier<Timer> create) {
+            Timer t = timers.get(key);
+            return t != null ? t : timers.computeIfAbsent(key, _k -> create.get());
+        }
+    }
+}
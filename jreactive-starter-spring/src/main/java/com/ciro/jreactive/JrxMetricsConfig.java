@@ -0,0 +1,23 @@
+package com.ciro.jreactive;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registra {@link JrxMeterBinder} si Micrometer está en el classpath.
+ * Con Spring Boot Actuator el binder se engancha solo al {@code MeterRegistry} de la app.
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+public class JrxMetricsConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(JrxMeterBinder.class)
+    public JrxMeterBinder jrxMeterBinder(ObjectProvider<JrxHubManager> hubManager,
+                                         ObjectProvider<JrxRequestQueue> requestQueue) {
+        return new JrxMeterBinder(hubManager.getIfAvailable(), requestQueue.getIfAvailable());
+    }
+}
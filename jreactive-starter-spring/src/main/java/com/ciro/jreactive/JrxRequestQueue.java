@@ -3,6 +3,7 @@ package com.ciro.jreactive;
 import org.springframework.stereotype.Component;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.ciro.jreactive.spi.JrxMetrics;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
@@ -45,6 +46,18 @@ public class JrxRequestQueue {
         }
     }
 
+    /** Claves (sesión + página) con cola viva. */
+    public long activeKeys() {
+        return queues.estimatedSize();
+    }
+
+    /** Tareas esperando turno en todas las colas (sin contar las que ya corren). */
+    public long backlog() {
+        long n = 0;
+        for (SerialExecutor q : queues.asMap().values()) n += q.pending();
+        return n;
+    }
+
     /**
      * Executor serial (FIFO) sobre un backend concurrente.
      * Garantiza 1 tarea a la vez por key.
@@ -59,9 +72,21 @@ public class JrxRequestQueue {
             this.backend = backend;
         }
 
+        int pending() {
+            lock.lock();
+            try {
+                return tasks.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
         <T> Future<T> submit(Callable<T> c) {
             CompletableFuture<T> f = new CompletableFuture<>();
+            long t0 = System.nanoTime();
+            int ahead = pending() + (running.get() ? 1 : 0);
             enqueue(() -> {
+                JrxMetrics.get().queueWait(System.nanoTime() - t0, ahead);
                 try {
                     f.complete(c.call());
                 } catch (Throwable t) {
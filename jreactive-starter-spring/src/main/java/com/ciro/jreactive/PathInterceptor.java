@@ -22,6 +22,10 @@ public class PathInterceptor implements HandshakeInterceptor {
 	        String since = req.getParameter("since");
             attributes.put("since", since != null ? since : "0");
 
+	        // ⚡ Protocolo compacto (CBOR): solo llega desde WebSocket nativo, SockJS no lo pide
+	        String proto = req.getParameter(JrxWireCodec.PROTO_ATTR);
+	        if (proto != null) attributes.put(JrxWireCodec.PROTO_ATTR, proto);
+
 	        // 👇 Guarda también el id de sesión HTTP
 	        String sessionId = req.getSession(true).getId();
 	        attributes.put("sessionId", sessionId);
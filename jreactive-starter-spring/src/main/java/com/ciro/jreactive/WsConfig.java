@@ -12,6 +12,12 @@ public class WsConfig {
     private int maxQueue = 512;
     /** Intervalo de flush en milisegundos */
     private int flushIntervalMs = 16;
+    /** Qué hacer con un cliente que no consume a tiempo: COALESCE (snapshot por clave) o DISCONNECT */
+    private JrxSlowConsumerPolicy slowConsumerPolicy = JrxSlowConsumerPolicy.COALESCE;
+    /** Mensajes en la cola de salida de cada conexión antes de cerrarla por lenta */
+    private int sendQueueLimit = 256;
+    /** Milisegundos que puede tardar un envío en confirmarse antes de cerrar la conexión */
+    private long sendTimeoutMs = JrxProtocolHandler.DEFAULT_SEND_TIMEOUT_MS;
     
     private boolean persistentState = true;
 
@@ -24,6 +30,15 @@ public class WsConfig {
     public int getFlushIntervalMs() { return flushIntervalMs; }
     public void setFlushIntervalMs(int flushIntervalMs) { this.flushIntervalMs = flushIntervalMs; }
     
+    public JrxSlowConsumerPolicy getSlowConsumerPolicy() { return slowConsumerPolicy; }
+    public void setSlowConsumerPolicy(JrxSlowConsumerPolicy slowConsumerPolicy) { this.slowConsumerPolicy = slowConsumerPolicy; }
+
+    public int getSendQueueLimit() { return sendQueueLimit; }
+    public void setSendQueueLimit(int sendQueueLimit) { this.sendQueueLimit = sendQueueLimit; }
+
+    public long getSendTimeoutMs() { return sendTimeoutMs; }
+    public void setSendTimeoutMs(long sendTimeoutMs) { this.sendTimeoutMs = sendTimeoutMs; }
+    
     public boolean isPersistentState() { return persistentState; }
     public void setPersistentState(boolean persistentState) { this.persistentState = persistentState; }
 }
@@ -3,6 +3,8 @@ package com.ciro.jreactive.router;
 import com.ciro.jreactive.HtmlComponent;
 // 🔥 Importamos la interfaz que definiste en el Core
 import com.ciro.jreactive.router.RouteProvider; 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
@@ -13,15 +15,15 @@ import java.util.function.Supplier;
 @Component
 public class RouteRegistry implements RouteProvider {
 
+    private static final Logger log = LoggerFactory.getLogger(RouteRegistry.class);
+
     // --- MISMAS CLASES INTERNAS (Entry) ---
     private static final class Entry {
         final String template;
-        final PathPattern pattern;
         final Supplier<HtmlComponent> factory;
 
         Entry(String template, Supplier<HtmlComponent> factory) {
             this.template = template;
-            this.pattern  = PathPattern.compile(template); 
             this.factory  = factory;
         }
     }
@@ -29,7 +31,9 @@ public class RouteRegistry implements RouteProvider {
     // ❌ ELIMINADO: 'public static record Result' 
     // (Porque ahora usamos RouteProvider.Result que viene del Core)
 
-    private final List<Entry> routes = new ArrayList<>();
+    // ⚡ Trie compilado: el match no recorre todas las rutas ni crea beans
+    private final RouteTrie<Entry> routes = new RouteTrie<>();
+    private Entry root;
 
     // --- MISMO CONSTRUCTOR (Lógica de escaneo idéntica) ---
     public RouteRegistry(ApplicationContext ctx) {
@@ -59,16 +63,16 @@ public class RouteRegistry implements RouteProvider {
                     // La magia: createBean() inyectará los @Autowired automáticamente 
                     // aunque la clase no esté registrada como @Component
                     Supplier<HtmlComponent> sup = () -> beanFactory.createBean(compClass);
-                    routes.add(new Entry(ann.path(), sup));
+                    Entry entry = new Entry(ann.path(), sup);
+                    if (routes.add(entry.template, entry) && "/".equals(entry.template)) root = entry;
                 }
             } catch (ClassNotFoundException e) {
-                e.printStackTrace();
+                log.warn("⚠️ [JReactive] No se pudo cargar la clase de ruta: {}", e.getMessage());
             }
         }
 
         // 3. Validación de root
-        boolean hasRoot = routes.stream().anyMatch(e -> "/".equals(e.template));
-        if (!hasRoot) {
+        if (root == null) {
             throw new IllegalStateException("Debe existir al menos una ruta @Route(path=\"/\")");
         }
     }
@@ -78,20 +82,19 @@ public class RouteRegistry implements RouteProvider {
     @Override
     public RouteProvider.Result resolve(String path) {
         // 1. Intentar hacer match
-        for (Entry e : routes) {
-            Map<String, String> params = e.pattern.match(path);
-            if (params != null) {
-                // ✅ ÉXITO: Devolvemos el Result del Core
-                return new RouteProvider.Result(e.factory.get(), params);
-            }
+        RouteTrie.Match<Entry> m = routes.match(path);
+        if (m != null) {
+            // ✅ ÉXITO: Devolvemos el Result del Core
+            return new RouteProvider.Result(m.value().factory.get(), m.params());
         }
         
         // 2. Fallback al root "/" (Igual que antes)
-        Entry root = routes.stream()
-                           .filter(r -> "/".equals(r.template))
-                           .findFirst()
-                           .orElseThrow(); // Imposible fallar si pasó el constructor
-                           
         return new RouteProvider.Result(root.factory.get(), Map.of());
     }
+
+    @Override
+    public Map<String, String> params(String path) {
+        RouteTrie.Match<Entry> m = routes.match(path);
+        return m != null ? m.params() : Map.of();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.ciro.jreactive;
+
+import com.ciro.jreactive.diag.CallEvent;
+import com.ciro.jreactive.spi.JrxMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("JrxMeterBinder - Métricas Micrometer")
+class JrxMeterBinderTest {
+
+    private SimpleMeterRegistry registry;
+    private JrxHubManager hubManager;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        hubManager = mock(JrxHubManager.class);
+        new JrxMeterBinder(hubManager, new JrxRequestQueue()).bindTo(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        JrxMetrics.reset();
+    }
+
+    @Test
+    @DisplayName("Debe exponer los gauges de hubs, sinks e historial")
+    void testHubGauges() {
+        when(hubManager.hubCount()).thenReturn(3L);
+        when(hubManager.sinkCount()).thenReturn(7L);
+        when(hubManager.historyFill()).thenReturn(0.25);
+
+        assertThat(registry.get("jreactive.hubs").gauge().value()).isEqualTo(3.0);
+        assertThat(registry.get("jreactive.hub.sinks").gauge().value()).isEqualTo(7.0);
+        assertThat(registry.get("jreactive.hub.history.fill").gauge().value()).isEqualTo(0.25);
+        assertThat(registry.find("jreactive.push.queued").gauge()).isNotNull();
+        assertThat(registry.find("jreactive.push.dropped").functionCounter()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Debe registrar render y @Call con sus etiquetas")
+    void testRenderAndCallTimers() {
+        JrxMetrics.get().render(String.class, TimeUnit.MILLISECONDS.toNanos(2), false);
+        JrxMetrics.get().call("demo.Counter", "inc", CallEvent.OK, 1_000);
+        JrxMetrics.get().call("demo.Counter", "inc", CallEvent.VALIDATION, 1_000);
+
+        assertThat(registry.get("jreactive.render").tag("component", "java.lang.String").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("jreactive.call").tag("method", "inc").tag("outcome", "ok").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("jreactive.call").tag("outcome", "validation").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un @Call inexistente no debe crear una serie por cada nombre inventado")
+    void testUnknownCallIsNotATag() {
+        JrxMetrics.get().call(null, "hack1", CallEvent.NOT_FOUND, 1_000);
+        JrxMetrics.get().call(null, "hack2", CallEvent.NOT_FOUND, 1_000);
+
+        assertThat(registry.get("jreactive.call").tag("outcome", "not_found").timers()).hasSize(1);
+        assertThat(registry.get("jreactive.call").tag("method", "unknown").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Debe separar hit/miss por capa del StateStore")
+    void testStoreTimers() {
+        JrxMetrics.get().storeGet("ram", true, 100);
+        JrxMetrics.get().storeGet("redis", false, 100);
+        JrxMetrics.get().storePut("redis", 100);
+
+        assertThat(registry.get("jreactive.store.get").tag("store", "ram").tag("result", "hit").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("jreactive.store.get").tag("store", "redis").tag("result", "miss").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("jreactive.store.put").tag("store", "redis").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Debe medir la espera en JrxRequestQueue")
+    void testRequestQueueWait() {
+        new JrxRequestQueue().run("s1", "/home", () -> "ok");
+
+        assertThat(registry.get("jreactive.request.queue.wait").timer().count()).isEqualTo(1);
+        assertThat(registry.get("jreactive.request.queue.backlog").summary().count()).isEqualTo(1);
+    }
+}
@@ -16,10 +16,16 @@ class WsConfigTest {
         config.setMaxQueue(123);
         config.setFlushIntervalMs(10);
         config.setPersistentState(false);
+        config.setSlowConsumerPolicy(JrxSlowConsumerPolicy.DISCONNECT);
+        config.setSendQueueLimit(64);
+        config.setSendTimeoutMs(1500);
 
         assertThat(config.isEnabledBackpressure()).isFalse();
         assertThat(config.getMaxQueue()).isEqualTo(123);
         assertThat(config.getFlushIntervalMs()).isEqualTo(10);
         assertThat(config.isPersistentState()).isFalse();
+        assertThat(config.getSlowConsumerPolicy()).isEqualTo(JrxSlowConsumerPolicy.DISCONNECT);
+        assertThat(config.getSendQueueLimit()).isEqualTo(64);
+        assertThat(config.getSendTimeoutMs()).isEqualTo(1500);
     }
 }
\ No newline at end of file
@@ -11,6 +11,8 @@ import java.util.Map;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @DisplayName("RouteRegistry - Descubrimiento y Resolución de Rutas")
@@ -55,4 +57,20 @@ class RouteRegistryTest {
         RouteProvider.Result fallbackRes = registry.resolve("/not-found-page");
         assertThat(fallbackRes.component()).isInstanceOf(DummyRootPage.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("params() debe extraer los params sin crear el componente")
+    void shouldReadParamsWithoutCreatingBeans() {
+        ApplicationContext ctx = mock(ApplicationContext.class);
+        AutowireCapableBeanFactory factory = mock(AutowireCapableBeanFactory.class);
+        when(ctx.getAutowireCapableBeanFactory()).thenReturn(factory);
+        when(ctx.getBeansWithAnnotation(org.springframework.boot.autoconfigure.SpringBootApplication.class))
+                .thenReturn(Map.of());
+
+        RouteRegistry registry = new RouteRegistry(ctx);
+
+        assertThat(registry.params("/users/42")).containsEntry("id", "42");
+        assertThat(registry.params("/not-found-page")).isEmpty();
+        verify(factory, never()).createBean(any(Class.class));
+    }
+}
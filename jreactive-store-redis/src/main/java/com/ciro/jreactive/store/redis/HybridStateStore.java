@@ -3,10 +3,15 @@ package com.ciro.jreactive.store.redis;
 import com.ciro.jreactive.HtmlComponent;
 import com.ciro.jreactive.annotations.StatefulRam; // 👈 Importante
 import com.ciro.jreactive.store.StateStore;
+import com.ciro.jreactive.store.WriteBehindStateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.CompletableFuture;
 
-public class HybridStateStore implements StateStore {
+public class HybridStateStore implements StateStore, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridStateStore.class);
 
     private final StateStore l1; // Caffeine (RAM)
     private final StateStore l2; // Redis (Persistente)
@@ -46,12 +51,14 @@ public class HybridStateStore implements StateStore {
         // 3. Si es persistente, procedemos con la estrategia elegida
         if (strongConsistency) {
             l2.put(sid, path, comp);
+        } else if (l2 instanceof WriteBehindStateStore) {
+            l2.put(sid, path, comp); // ⚡ Ya es diferido y barato: sin saltar al common pool
         } else {
             CompletableFuture.runAsync(() -> {
                 try {
                     l2.put(sid, path, comp);
                 } catch (Exception e) {
-                    System.err.println("🔥 Fallo Async Redis PUT: " + e.getMessage());
+                    log.error("🔥 Fallo Async Redis PUT: {}", e.getMessage(), e);
                 }
             });
         }
@@ -88,7 +95,7 @@ public class HybridStateStore implements StateStore {
             CompletableFuture.runAsync(() -> {
                 boolean success = l2.replace(sid, path, comp, currentVer);
                 if (!success) {
-                    System.out.println("🚨 Conflicto Async Redis detectado. Invalidando RAM.");
+                    log.warn("🚨 Conflicto Async Redis detectado en {}. Invalidando RAM.", path);
                     l1.remove(sid, path);
                 }
             });
@@ -115,4 +122,15 @@ public class HybridStateStore implements StateStore {
         l1.removeSession(sid);
         CompletableFuture.runAsync(() -> l2.removeSession(sid));
     }
+
+    @Override
+    public void flush(String sid, String path) {
+        l2.flush(sid, path);
+    }
+
+    @Override
+    public void close() throws Exception {
+        // Vacía el write-behind de Redis (si lo hay) al parar la aplicación
+        if (l2 instanceof AutoCloseable c) c.close();
+    }
 }
\ No newline at end of file
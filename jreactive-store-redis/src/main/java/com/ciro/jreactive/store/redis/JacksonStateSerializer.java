@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 
+import java.lang.reflect.Type;
+
 public class JacksonStateSerializer implements StateSerializer {
 
     private final ObjectMapper mapper;
@@ -15,6 +17,8 @@ public class JacksonStateSerializer implements StateSerializer {
         
         // 1. Ignorar propiedades desconocidas (La clave de la robustez)
         this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        // Getters de solo lectura del componente (callableMethods, rawBindings...) no son estado
+        this.mapper.configure(com.fasterxml.jackson.databind.MapperFeature.USE_GETTERS_AS_SETTERS, false);
 
         // 2. Activar Polimorfismo (Para saber que este JSON es una UserPage.class)
         // Esto agrega un campo "@class": "com.ciro.app.UserPage" al JSON
@@ -30,6 +34,10 @@ public class JacksonStateSerializer implements StateSerializer {
                 if (m.hasAnnotation(com.ciro.jreactive.annotations.Shared.class)) {
                     return true; // Lo trata como si tuviera un @JsonIgnore
                 }
+                // Metadatos de reflexión (ReactiveVar.getGenericType con List<Item>): el JDK no los deja leer
+                if (java.lang.reflect.Type.class.isAssignableFrom(m.getRawType())) {
+                    return true;
+                }
                 return super.hasIgnoreMarker(m);
             }
         });
@@ -54,6 +62,26 @@ public class JacksonStateSerializer implements StateSerializer {
         }
     }
 
+    // Con el tipo declarado Jackson sabe qué construir aunque el JSON no traiga '@class'
+    // (records y enums son final y DefaultTyping.NON_FINAL no lo escribe)
+    @Override
+    public byte[] serialize(Object obj, Type declared) {
+        try {
+            return mapper.writerFor(mapper.constructType(declared)).writeValueAsBytes(obj);
+        } catch (Exception e) {
+            throw new RuntimeException("Error serializando campo a JSON", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes, Type declared) {
+        try {
+            return mapper.readerFor(mapper.constructType(declared)).readValue(bytes);
+        } catch (Exception e) {
+            throw new RuntimeException("Error deserializando campo desde JSON", e);
+        }
+    }
+
     @Override
     public String name() {
         return "json";
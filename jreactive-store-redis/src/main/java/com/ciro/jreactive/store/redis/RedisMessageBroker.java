@@ -1,126 +1,579 @@
 package com.ciro.jreactive.store.redis;
 
+import com.ciro.jreactive.JrxInboundDispatcher;
 import com.ciro.jreactive.spi.JrxMessageBroker;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
 
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 
-public class RedisMessageBroker implements JrxMessageBroker {
+/**
+ * Broker de Redis Pub/Sub con canales por nodo.
+ * <ul>
+ *   <li>Registro de dueños: {@code jrx:own:<sesión>} es un ZSET con los nodos que tienen un hub vivo de
+ *       la sesión (score = caducidad en ms). Cada nodo renueva sus sesiones con un heartbeat; si un nodo
+ *       muere, sus entradas caducan solas.</li>
+ *   <li>{@link #publish} busca los dueños y publica solo en sus canales {@code jrx:node:<id>}, en un único
+ *       script (un round-trip). El nodo que publica se salta a sí mismo: ya lo entregó en local.</li>
+ *   <li>Los topics {@code @Shared} siguen siendo broadcast: les interesan a todos los nodos.</li>
+ *   <li>Colecciones {@code @Shared}: cada op lleva la versión de su colección ({@code __head:<var>} en el hash
+ *       del topic) y se apunta en {@code jrx:shared-log:<topic>:<var>}. La copia maestra solo se reescribe al
+ *       compactar (cada {@code compactEvery} ops): se rehace desde la copia anterior más las ops del log, en
+ *       orden de versión, y se recorta el log. Se hace en un hilo aparte, no en la llamada de quien publica.</li>
+ *   <li>Entrada: el hilo de Pub/Sub solo parsea y reparte; la entrega va por los carriles de
+ *       {@link JrxInboundDispatcher} (orden por sesión/topic). Si la conexión cae, se vuelve a suscribir
+ *       con backoff; lo perdido mientras tanto lo recuperan el {@code since} de los clientes y el resync
+ *       de versiones de las colecciones @Shared.</li>
+ *   <li>Salida: publish, publishShared y saveSharedState se agrupan en un pipeline cada {@code flushMicros}
+ *       ({@link RedisPublishBatcher}); con {@code flushMicros = 0}, o para las sesiones marcadas con
+ *       {@link #setImmediateFlush}, salen sin esperar. Lo que necesita respuesta (ops versionadas, lecturas)
+ *       vacía antes el lote, así que nunca adelanta a lo ya publicado.</li>
+ * </ul>
+ * ⚡ Antes cada nodo recibía las actualizaciones de todas las sesiones del cluster ({@code psubscribe jrx:upd:*})
+ * y descartaba casi todas: con 20 nodos, 20 veces el tráfico de Pub/Sub.
+ */
+public class RedisMessageBroker implements JrxMessageBroker, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisMessageBroker.class);
 
     private final JedisPool pool;
-    private final String serverId; // ID único de este nodo (pod) para evitar eco
-    private final ExecutorService listenerThread = Executors.newSingleThreadExecutor();
+    private final String serverId; // ID único de este nodo (pod) en el cluster
+    private final JrxInboundDispatcher inbound;
+    private final transient Thread listenerThread;
+    private volatile JedisPubSub subscription;
+    private volatile boolean running = true;
     private volatile BiConsumer<String, String> handler;
+    private final RedisPublishBatcher outbound; // null = cada comando en su propio round-trip
+    private final Set<String> immediate = ConcurrentHashMap.newKeySet();
 
     private static final String CHANNEL_PREFIX = "jrx:upd:";
-    private static final String CHANNEL_PATTERN = "jrx:upd:*";
+    private static final String SHARED_CHANNEL_PREFIX = CHANNEL_PREFIX + "shared:";
+    private static final String SHARED_PATTERN = SHARED_CHANNEL_PREFIX + "*";
+    private static final String NODE_PREFIX = "jrx:node:";
+    private static final String OWNER_PREFIX = "jrx:own:";
     private static final String SHARED_PREFIX = "jrx:shared:"; // Para la Base de Datos
+    private static final String SHARED_LOG_PREFIX = "jrx:shared-log:";
+    private static final String HEAD_PREFIX = "__head:";
+    private static final String VER_PREFIX = SHARED_VERSION_PREFIX;
+    private static final int SHARED_TTL = 86400; // 24 horas por si la sala queda inactiva
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static final int DEFAULT_COMPACT_EVERY = 500;
+    static final long DEFAULT_HEARTBEAT_MS = 10_000;
+    static final long MIN_BACKOFF_MS = 100;
+    static final long MAX_BACKOFF_MS = 30_000;
+
+    // KEYS[1] = jrx:own:<sid> | ARGV = ahora, nodo emisor, sobre "<sid>|<payload>"
+    // Limpia los dueños caducados y publica en el canal de cada dueño vivo (menos el emisor)
+    private static final String PUBLISH_SCRIPT =
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[1]) " +
+            "local owners = redis.call('ZRANGE', KEYS[1], 0, -1) " +
+            "local sent = 0 " +
+            "for _, node in ipairs(owners) do " +
+            "  if node ~= ARGV[2] then " +
+            "    redis.call('PUBLISH', '" + NODE_PREFIX + "' .. node, ARGV[3]) " +
+            "    sent = sent + 1 " +
+            "  end " +
+            "end " +
+            "return sent";
+
+    // KEYS[1] = hash del topic, KEYS[2] = log de la colección | ARGV = nodo, op, canal, var
+    // Versiona la op, la apunta en el log y la difunde. Devuelve {versión, ops en el log, ¿hay copia maestra?}
+    private static final String OP_SCRIPT =
+            "local ver = redis.call('HINCRBY', KEYS[1], '" + HEAD_PREFIX + "' .. ARGV[4], 1) " +
+            "local msg = '{\"ver\":' .. ver .. ',' .. string.sub(ARGV[2], 2) " +
+            "local len = redis.call('RPUSH', KEYS[2], msg) " +
+            "redis.call('PUBLISH', ARGV[3], ARGV[1] .. '|' .. msg) " +
+            "redis.call('EXPIRE', KEYS[1], " + SHARED_TTL + ") " +
+            "redis.call('EXPIRE', KEYS[2], " + SHARED_TTL + ") " +
+            "return {ver, len, redis.call('HEXISTS', KEYS[1], ARGV[4])}";
+
+    // ARGV = var, colección entera, versión que representa. Quita del log las ops que ya incluye.
+    private static final String COMPACT_SCRIPT =
+            "local old = tonumber(redis.call('HGET', KEYS[1], '" + VER_PREFIX + "' .. ARGV[1]) or '0') " +
+            "local v = tonumber(ARGV[3]) " +
+            "if v <= old then return 0 end " +
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2], '" + VER_PREFIX + "' .. ARGV[1], ARGV[3]) " +
+            "redis.call('LTRIM', KEYS[2], v - old, -1) " +
+            "return 1";
+
+    // Escritura entera (no op): manda sobre todo lo anterior, así que el log se vacía
+    private static final String SAVE_SCRIPT =
+            "local head = redis.call('HGET', KEYS[1], '" + HEAD_PREFIX + "' .. ARGV[1]) or '0' " +
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2], '" + VER_PREFIX + "' .. ARGV[1], head) " +
+            "redis.call('DEL', KEYS[2]) " +
+            "redis.call('EXPIRE', KEYS[1], " + SHARED_TTL + ") " +
+            "return 1";
+
+    // Los del lote van por EVALSHA: el texto del script no viaja en cada comando
+    private static final String PUBLISH_SHA = RedisPublishBatcher.sha1(PUBLISH_SCRIPT);
+    private static final String SAVE_SHA = RedisPublishBatcher.sha1(SAVE_SCRIPT);
+
+    private static final String SNAPSHOT_SCRIPT =
+            "return {redis.call('HGET', KEYS[1], ARGV[1]), redis.call('HGET', KEYS[1], '" + VER_PREFIX + "' .. ARGV[1]), " +
+            "redis.call('LRANGE', KEYS[2], 0, -1)}";
+
+    // Sesiones con al menos un hub vivo en este nodo
+    private final Set<String> owned = ConcurrentHashMap.newKeySet();
+    private final long heartbeatMs;
+    private final long ownershipTtlMs;
+    private final int compactEvery;
+    private final ScheduledExecutorService registry = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "jrx-broker-registry");
+        t.setDaemon(true);
+        return t;
+    });
+    // 🗜️ Las compactaciones salen aquí, no en la llamada de quien publica la op; una pendiente por colección
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "jrx-broker-compact");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Set<String> compacting = ConcurrentHashMap.newKeySet();
 
     public RedisMessageBroker(String host, int port) {
-        this.pool = new JedisPool(host, port);
+        this(host, port, DEFAULT_HEARTBEAT_MS);
+    }
+
+    public RedisMessageBroker(String host, int port, long heartbeatMs) {
+        this(host, port, heartbeatMs, DEFAULT_COMPACT_EVERY);
+    }
+
+    public RedisMessageBroker(String host, int port, long heartbeatMs, int compactEvery) {
+        this(host, port, heartbeatMs, compactEvery, JrxInboundDispatcher.DEFAULT_LANES, JrxInboundDispatcher.DEFAULT_LANE_CAPACITY);
+    }
+
+    public RedisMessageBroker(String host, int port, long heartbeatMs, int compactEvery, int inboundLanes, int inboundCapacity) {
+        this(host, port, heartbeatMs, compactEvery, inboundLanes, inboundCapacity,
+                RedisPublishBatcher.DEFAULT_FLUSH_MICROS, RedisPublishBatcher.DEFAULT_MAX_BATCH);
+    }
+
+    public RedisMessageBroker(String host, int port, long heartbeatMs, int compactEvery, int inboundLanes, int inboundCapacity,
+                              long flushMicros, int maxBatch) {
         // Generamos un ID aleatorio al arrancar para identificarnos en el cluster
-        this.serverId = UUID.randomUUID().toString();
-        startListener();
+        this(new JedisPool(host, port), UUID.randomUUID().toString(), heartbeatMs, compactEvery,
+                new JrxInboundDispatcher(inboundLanes, inboundCapacity), flushMicros, maxBatch);
+    }
+
+    // Tests: sin lote de salida, cada comando se ve tal cual en el Jedis
+    RedisMessageBroker(JedisPool pool, String serverId, long heartbeatMs, int compactEvery) {
+        this(pool, serverId, heartbeatMs, compactEvery, new JrxInboundDispatcher(), 0, 0);
     }
 
-    private void startListener() {
-        listenerThread.submit(() -> {
-            // Este hilo se queda bloqueado escuchando a Redis por siempre
+    RedisMessageBroker(JedisPool pool, String serverId, long heartbeatMs, int compactEvery, JrxInboundDispatcher inbound,
+                       long flushMicros, int maxBatch) {
+        this.pool = pool;
+        this.serverId = serverId;
+        this.inbound = inbound;
+        this.outbound = flushMicros > 0
+                ? new RedisPublishBatcher(pool, flushMicros, maxBatch, PUBLISH_SCRIPT, SAVE_SCRIPT)
+                : null;
+        this.compactEvery = compactEvery > 0 ? compactEvery : DEFAULT_COMPACT_EVERY;
+        this.heartbeatMs = heartbeatMs > 0 ? heartbeatMs : DEFAULT_HEARTBEAT_MS;
+        // Tres latidos perdidos y el nodo se da por muerto
+        this.ownershipTtlMs = this.heartbeatMs * 3;
+        registry.scheduleWithFixedDelay(this::heartbeat, this.heartbeatMs, this.heartbeatMs, TimeUnit.MILLISECONDS);
+        // Hilo de plataforma: pasa casi toda su vida bloqueado en el socket de Pub/Sub
+        this.listenerThread = new Thread(this::listenLoop, "jrx-broker-pubsub");
+        this.listenerThread.setDaemon(true);
+        this.listenerThread.start();
+    }
+
+    // Escucha hasta close(); si la conexión cae, se vuelve a suscribir con backoff exponencial
+    private void listenLoop() {
+        long[] backoff = {MIN_BACKOFF_MS};
+        while (running) {
             try (Jedis jedis = pool.getResource()) {
-                jedis.psubscribe(new JedisPubSub() {
+                JedisPubSub pubSub = new JedisPubSub() {
+                    @Override
+                    public void onPSubscribe(String pattern, int subscribedChannels) {
+                        backoff[0] = MIN_BACKOFF_MS; // Conectados de nuevo: el próximo corte empieza de cero
+                    }
+
                     @Override
                     public void onPMessage(String pattern, String channel, String message) {
-                        if (handler == null) return;
-
-                        // message formato: "SERVER_UUID|{json_payload}"
-                        int sep = message.indexOf('|');
-                        if (sep > 0) {
-                            String senderId = message.substring(0, sep);
-                            String payload = message.substring(sep + 1);
-
-                            // 🔥 ECO-CHECK: Si el mensaje lo envié yo mismo, lo ignoro.
-                            // Ya se procesó localmente en el WebSocket.
-                            if (serverId.equals(senderId)) {
-                                return;
-                            }
-
-                            // Extraer Session ID del canal "jrx:upd:SESSION_123"
-                            String sessionId = channel.substring(CHANNEL_PREFIX.length());
-                            
-                            // Entregar al Runtime para que decida si tiene esa sesión conectada
-                            handler.accept(sessionId, payload);
-                        }
+                        dispatch(channel, message);
                     }
-                }, CHANNEL_PATTERN);
+                };
+                subscription = pubSub;
+                if (!running) break;
+                // Nuestro canal (sin comodines: el patrón es el nombre exacto) + los topics compartidos
+                jedis.psubscribe(pubSub, NODE_PREFIX + serverId, SHARED_PATTERN);
             } catch (Exception e) {
-                System.err.println("❌ Redis Pub/Sub desconectado: " + e.getMessage());
-                // TODO: Aquí iría lógica de reconexión con backoff
+                if (running) log.error("❌ Redis Pub/Sub desconectado: " + e.getMessage());
+            }
+            if (!running) break;
+
+            long wait = backoff[0];
+            backoff[0] = Math.min(wait * 2, MAX_BACKOFF_MS);
+            log.warn("⚠️ Reintentando la suscripción a Redis Pub/Sub en {} ms", wait);
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
-        });
+        }
+    }
+
+    // Parsea un mensaje recibido y lo encola en el carril de su sesión/topic
+    void dispatch(String channel, String message) {
+        BiConsumer<String, String> h = handler;
+        if (h == null) return;
+
+        int sep = message.indexOf('|');
+        if (sep <= 0) return;
+
+        if (channel.startsWith(SHARED_CHANNEL_PREFIX)) {
+            // message formato: "SERVER_UUID|{json_payload}"
+            // 🔥 ECO-CHECK: el broadcast también nos llega a nosotros, y ya se procesó localmente.
+            if (serverId.equals(message.substring(0, sep))) return;
+            String target = "shared:" + channel.substring(SHARED_CHANNEL_PREFIX.length());
+            String payload = message.substring(sep + 1);
+            // Sin aviso de pérdida: la colección detecta el hueco de versiones y resincroniza sola
+            inbound.submit(target, () -> h.accept(target, payload));
+            return;
+        }
+
+        // Canal propio: "SESSION_ID|{json_payload}". El script ya no nos manda nuestros propios mensajes.
+        // Si el carril descarta algo de la sesión, sus hubs reciben RESYNC en lugar de un hueco silencioso
+        String target = message.substring(0, sep);
+        String payload = message.substring(sep + 1);
+        inbound.submit(target, () -> h.accept(target, payload), () -> h.accept(target, RESYNC));
     }
 
     @Override
     public void publish(String sessionId, String message) {
+        List<String> keys = List.of(OWNER_PREFIX + sessionId);
+        List<String> args = List.of(Long.toString(System.currentTimeMillis()), serverId, sessionId + "|" + message);
+        if (outbound != null) {
+            outbound.submit(p -> p.evalsha(PUBLISH_SHA, keys, args));
+            if (immediate.contains(sessionId)) outbound.flush();
+            return;
+        }
         try (Jedis jedis = pool.getResource()) {
-            // Firmamos el mensaje con nuestro ID
-            String envelope = serverId + "|" + message;
-            jedis.publish(CHANNEL_PREFIX + sessionId, envelope);
+            jedis.eval(PUBLISH_SCRIPT, keys, args);
         } catch (Exception e) {
-            System.err.println("❌ Error publicando a Redis: " + e.getMessage());
+            log.error("❌ Error publicando a Redis: " + e.getMessage());
         }
     }
 
+    /** Las actualizaciones de esta sesión salen sin esperar al lote (páginas {@code @Realtime}). */
+    @Override
+    public void setImmediateFlush(String sessionId, boolean on) {
+        if (on) immediate.add(sessionId);
+        else immediate.remove(sessionId);
+    }
+
+    // Antes de lo que necesita respuesta o lee de Redis: que no adelante a lo ya publicado
+    void flushOutbound() {
+        if (outbound != null) outbound.flush();
+    }
+
     @Override
     public void onMessage(BiConsumer<String, String> handler) {
         this.handler = handler;
     }
-    
+
+    @Override
+    public void claimSession(String sessionId) {
+        // Solo estado local aquí: lo llaman desde el índice de hubs. Redis se actualiza en el hilo del registro.
+        if (owned.add(sessionId)) syncOwnership(sessionId);
+    }
+
+    @Override
+    public void releaseSession(String sessionId) {
+        if (owned.remove(sessionId)) syncOwnership(sessionId);
+        immediate.remove(sessionId);
+    }
+
+    private void syncOwnership(String sessionId) {
+        try {
+            registry.execute(() -> writeOwnership(sessionId));
+        } catch (RejectedExecutionException closed) {
+            // Broker cerrado: las entradas caducarán solas
+        }
+    }
+
+    // Escribe lo que diga 'owned' AHORA, no lo que decía al encolar: un claim y un release seguidos acaban bien
+    void writeOwnership(String sessionId) {
+        String key = OWNER_PREFIX + sessionId;
+        try (Jedis jedis = pool.getResource()) {
+            if (owned.contains(sessionId)) {
+                jedis.zadd(key, System.currentTimeMillis() + ownershipTtlMs, serverId);
+                jedis.pexpire(key, ownershipTtlMs);
+            } else {
+                jedis.zrem(key, serverId);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo actualizar el dueño de la sesión en Redis: " + e.getMessage());
+        }
+    }
+
+    /** Renueva en un solo pipeline la propiedad de todas las sesiones vivas de este nodo. */
+    void heartbeat() {
+        if (owned.isEmpty()) return;
+        long expiresAt = System.currentTimeMillis() + ownershipTtlMs;
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline p = jedis.pipelined();
+            for (String sid : owned) {
+                p.zadd(OWNER_PREFIX + sid, expiresAt, serverId);
+                p.pexpire(OWNER_PREFIX + sid, ownershipTtlMs);
+            }
+            p.sync();
+        } catch (Exception e) {
+            log.warn("⚠️ Heartbeat de sesiones fallido: " + e.getMessage());
+        }
+    }
+
+    /** Sesiones que este nodo anuncia como suyas. */
+    public int ownedSessions() {
+        return owned.size();
+    }
+
+    /** Comandos esperando el próximo pipeline de salida. */
+    public int outboundPending() {
+        return outbound == null ? 0 : outbound.pending();
+    }
+
+    /** Comandos del lote de salida que Redis rechazó o que no llegaron a salir. */
+    public long outboundFailed() {
+        return outbound == null ? 0 : outbound.failed();
+    }
+
+    /** Comandos por pipeline de salida (1 = sin agrupar). */
+    public double outboundBatchRatio() {
+        return outbound == null ? 1.0 : outbound.batchRatio();
+    }
+
+    /** Mensajes recibidos que esperan entrega en los carriles de este nodo. */
+    public int inboundQueued() {
+        return inbound.queued();
+    }
+
+    @Override
+    public void close() {
+        registry.shutdownNow();
+        compactor.shutdown();
+        running = false;
+        JedisPubSub pubSub = subscription;
+        try {
+            if (pubSub != null && pubSub.isSubscribed()) pubSub.punsubscribe();
+        } catch (Exception e) {
+            // La conexión ya estaba caída: el hilo sale solo
+        }
+        listenerThread.interrupt();
+        inbound.close();
+        // Lo que quede en el lote sale antes de soltar el pool
+        if (outbound != null) outbound.close();
+        // Nos retiramos del registro para que nadie publique a un nodo que se va
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline p = jedis.pipelined();
+            for (String sid : owned) p.zrem(OWNER_PREFIX + sid, serverId);
+            p.sync();
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo limpiar el registro de sesiones: " + e.getMessage());
+        }
+        owned.clear();
+        pool.close();
+    }
+
     @Override
     public void publishShared(String topic, String message) {
+        // Publicamos a la red Pub/Sub. El canal será "jrx:upd:shared:{topic}"
+        // para que el hilo escuchador lo reciba y lo dirija al distributeRemoteMessage.
+        String channel = SHARED_CHANNEL_PREFIX + topic;
+        String envelope = serverId + "|" + message;
+        if (outbound != null) {
+            outbound.submit(p -> p.publish(channel, envelope));
+            return;
+        }
         try (Jedis jedis = pool.getResource()) {
-            // Publicamos a la red Pub/Sub. El canal será "jrx:upd:shared:{topic}"
-            // para que el hilo escuchador lo reciba y lo dirija al distributeRemoteMessage.
-            String envelope = serverId + "|" + message;
-            jedis.publish(CHANNEL_PREFIX + "shared:" + topic, envelope);
+            jedis.publish(channel, envelope);
         } catch (Exception e) {
-            System.err.println("❌ Error publicando a tópico compartido: " + e.getMessage());
+            log.error("❌ Error publicando a tópico compartido: " + e.getMessage());
         }
     }
 
     @Override
     public void saveSharedState(String topic, String varName, Object value) {
+        String var = cleanVar(varName);
+        try {
+            // 💾 Guardamos la copia maestra en un Hash de Redis: HSET jrx:shared:sala-1 chat "[...]"
+            // Si es una colección versionada, pasa a ser la copia de su última versión.
+            // Se serializa YA: el valor es el objeto vivo y puede cambiar antes de que salga el lote.
+            List<String> keys = List.of(SHARED_PREFIX + topic, logKey(topic, var));
+            List<String> args = List.of(var, MAPPER.writeValueAsString(value));
+            if (outbound != null) {
+                outbound.submit(p -> p.evalsha(SAVE_SHA, keys, args));
+                return;
+            }
+            try (Jedis jedis = pool.getResource()) {
+                jedis.eval(SAVE_SCRIPT, keys, args);
+            }
+        } catch (Exception e) {
+            log.error("❌ Error guardando estado compartido: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long publishSharedOp(String topic, String varName, String op, Object fullValue) {
+        String var = cleanVar(varName);
+        List<String> keys = List.of(SHARED_PREFIX + topic, logKey(topic, var));
+        flushOutbound();
         try (Jedis jedis = pool.getResource()) {
-            // 💾 Guardamos la copia maestra en un Hash de Redis
-            // HSET jrx:shared:sala-1 chat "[...]"
-            
-            // Usamos un serializador de JSON crudo (o FST si lo tuviéramos)
-            // Por simplicidad, asumo que el valor ya puede ser JSON o string,
-            // pero para estar seguros, lo convertiremos a String (Jackson)
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            String jsonValue = mapper.writeValueAsString(value);
-            
-            jedis.hset(SHARED_PREFIX + topic, varName, jsonValue);
-            
-            // Le damos una vida de 24 horas por si la sala queda inactiva
-            jedis.expire(SHARED_PREFIX + topic, 86400);
+            List<?> r = (List<?>) jedis.eval(OP_SCRIPT, keys,
+                    List.of(serverId, op, SHARED_CHANNEL_PREFIX + topic, var));
+            long ver = ((Number) r.get(0)).longValue();
+            long pending = ((Number) r.get(1)).longValue();
+            boolean hasMaster = ((Number) r.get(2)).longValue() == 1;
+
+            if (!hasMaster) {
+                // Aún no hay copia en el cluster: la siembra la colección de quien publica
+                jedis.eval(COMPACT_SCRIPT, keys, List.of(var, MAPPER.writeValueAsString(fullValue), Long.toString(ver)));
+            } else if (pending >= compactEvery) {
+                compactLater(keys, var);
+            }
+            return ver;
         } catch (Exception e) {
-            System.err.println("❌ Error guardando estado compartido: " + e.getMessage());
+            log.error("❌ Error publicando op compartida: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private void compactLater(List<String> keys, String var) {
+        String key = keys.get(1);
+        if (!compacting.add(key)) return; // ya hay una en cola: plegará también estas ops
+        try {
+            compactor.execute(() -> {
+                try (Jedis jedis = pool.getResource()) {
+                    compact(jedis, keys, var);
+                } catch (Exception e) {
+                    log.warn("⚠️ Error compactando la colección compartida '{}': {}", var, e.getMessage());
+                } finally {
+                    compacting.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            compacting.remove(key); // cerrando: la próxima op que pase el umbral lo vuelve a intentar
         }
     }
 
+    // 🗜️ La copia nueva sale de la maestra + las ops del log en orden de versión, no de la colección local:
+    // esa puede llevar ops propias aún sin versión o no tener todavía otras más bajas que vienen de camino
+    private void compact(Jedis jedis, List<String> keys, String var) throws Exception {
+        List<?> r = (List<?>) jedis.eval(SNAPSHOT_SCRIPT, keys, List.of(var));
+        if (r == null || r.get(0) == null) return;
+        long from = r.get(1) == null ? 0 : Long.parseLong(r.get(1).toString());
+        JsonNode master = MAPPER.readTree(r.get(0).toString());
+        long at = from;
+        if (r.size() > 2 && r.get(2) != null) {
+            for (Object json : (List<?>) r.get(2)) {
+                JsonNode op = MAPPER.readTree(json.toString());
+                long ver = op.path("ver").asLong(0);
+                if (ver <= at) continue;
+                if (ver != at + 1) break; // hueco: se compacta hasta ahí
+                master = fold(master, op);
+                at = ver;
+            }
+        }
+        if (at > from) {
+            jedis.eval(COMPACT_SCRIPT, keys, List.of(var, MAPPER.writeValueAsString(master), Long.toString(at)));
+        }
+    }
+
+    // Una op de colección sobre su JSON: lista = array por índice, set = array sin repetidos, mapa = objeto
+    static JsonNode fold(JsonNode value, JsonNode op) {
+        for (JsonNode ch : op.path("changes")) {
+            String kind = ch.path("op").asText();
+            if (value instanceof ObjectNode map) {
+                switch (kind) {
+                    case "PUT" -> map.set(ch.path("key").asText(), ch.get("value"));
+                    case "REMOVE" -> map.remove(ch.path("key").asText());
+                    case "CLEAR" -> map.removeAll();
+                    default -> { }
+                }
+            } else if (value instanceof ArrayNode arr) {
+                int i = ch.path("index").asInt();
+                JsonNode item = ch.get("item");
+                boolean set = "set".equals(op.path("type").asText());
+                switch (kind) {
+                    case "ADD" -> {
+                        if (!set) arr.insert(Math.max(0, Math.min(i, arr.size())), item);
+                        else if (indexOf(arr, item) < 0) arr.add(item);
+                    }
+                    case "SET" -> { if (i >= 0 && i < arr.size()) arr.set(i, item); }
+                    case "REMOVE" -> {
+                        int at = set ? indexOf(arr, item) : i;
+                        if (at >= 0 && at < arr.size()) arr.remove(at);
+                    }
+                    case "CLEAR" -> arr.removeAll();
+                    default -> { }
+                }
+            }
+        }
+        return value;
+    }
+
+    private static int indexOf(ArrayNode arr, JsonNode item) {
+        for (int i = 0; i < arr.size(); i++) {
+            if (arr.get(i).equals(item)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public SharedSnapshot sharedSnapshot(String topic, String varName) {
+        String var = cleanVar(varName);
+        flushOutbound();
+        try (Jedis jedis = pool.getResource()) {
+            List<?> r = (List<?>) jedis.eval(SNAPSHOT_SCRIPT, List.of(SHARED_PREFIX + topic, logKey(topic, var)), List.of(var));
+            if (r == null || r.get(0) == null) return null;
+            long ver = r.get(1) == null ? 0 : Long.parseLong(r.get(1).toString());
+            @SuppressWarnings("unchecked")
+            List<String> ops = r.size() > 2 && r.get(2) != null ? (List<String>) r.get(2) : List.of();
+            return new SharedSnapshot(r.get(0).toString(), ver, ops);
+        } catch (Exception e) {
+            log.error("❌ Error leyendo copia maestra compartida: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String logKey(String topic, String var) {
+        return SHARED_LOG_PREFIX + topic + ":" + var;
+    }
+
+    // "Componente.variable" -> "variable": cada página de la sala la nombra con su propio prefijo
+    private static String cleanVar(String k) {
+        return k.substring(k.lastIndexOf('.') + 1);
+    }
+
     @Override
     public java.util.Map<String, String> getSharedState(String topic) {
+        flushOutbound();
         try (Jedis jedis = pool.getResource()) {
             // 🔄 Obtenemos todas las variables de la sala de un solo golpe
             return jedis.hgetAll(SHARED_PREFIX + topic);
         } catch (Exception e) {
-            System.err.println("❌ Error leyendo estado compartido: " + e.getMessage());
+            log.error("❌ Error leyendo estado compartido: " + e.getMessage());
             return java.util.Map.of();
         }
     }
-}
\ No newline at end of file
+}
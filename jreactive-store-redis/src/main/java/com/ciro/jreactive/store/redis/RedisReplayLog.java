@@ -0,0 +1,237 @@
+package com.ciro.jreactive.store.redis;
+
+import com.ciro.jreactive.spi.JrxReplayLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.params.XAddParams;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link JrxReplayLog} sobre Redis Streams: un stream acotado por página ({@code jrx:replay:<sid>:<path>}).
+ * <ul>
+ *   <li>El seq sale de un contador por página: cada hub reserva un bloque con un {@code INCRBY}
+ *       ({@link #reserve}) y lo reparte en local, así dos hubs de la misma página en nodos distintos nunca
+ *       repiten número y no hay un round-trip por frame. Al cerrarse, el hub devuelve lo que no usó
+ *       ({@link #release}) para que el siguiente numere sin hueco.</li>
+ *   <li>El ID de cada entrada es {@code <seq>-0}: Redis ya garantiza que crece, y {@link #since} es un
+ *       {@code XRANGE} desde {@code since+1} (O(log N) hasta el primero, sin recorrer el stream).
+ *       Si dos nodos escriben a la vez y uno llega tarde, Redis rechaza su {@code XADD}: se cuenta, y
+ *       quien pida ese hueco recibe un snapshot.</li>
+ *   <li>{@code MAXLEN ~} recorta el stream (como el ring del hub, pero para todo el cluster) y un TTL
+ *       se lleva los de sesiones muertas.</li>
+ *   <li>Los {@link #append} no esperan a Redis: los escribe un hilo propio, por lotes en un pipeline
+ *       y en el orden de llegada.</li>
+ * </ul>
+ */
+public class RedisReplayLog implements JrxReplayLog, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisReplayLog.class);
+
+    private static final String KEY_PREFIX = "jrx:replay:";
+    private static final String SEQ_PREFIX = "jrx:replay-seq:";
+    private static final String BODY = "b";
+    private static final int MAX_BATCH = 256;
+    // Solo si nadie reservó después del bloque: si no, el hueco se queda (quien lo pida recibe un snapshot)
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[2] then " +
+            "redis.call('SET', KEYS[1], ARGV[1], 'KEEPTTL') return 1 end return 0";
+
+    private record Append(String key, String seqKey, long seq, String body) {}
+
+    private final JedisPool pool;
+    private final long maxLen;
+    private final long ttlMs;
+    private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+    private final transient Thread writer;
+    private volatile boolean running = true;
+    private final LongAdder failed = new LongAdder();
+
+    public RedisReplayLog(String host, int port, long maxLen, long ttlSeconds) {
+        this(new JedisPool(host, port), maxLen, ttlSeconds);
+    }
+
+    RedisReplayLog(JedisPool pool, long maxLen, long ttlSeconds) {
+        this.pool = pool;
+        this.maxLen = Math.max(1, maxLen);
+        this.ttlMs = Math.max(1, ttlSeconds) * 1000;
+        this.writer = new Thread(this::drainLoop, "jrx-replay-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Clave compuesta para evitar colisiones entre sesiones
+    static String key(String sid, String path) {
+        return KEY_PREFIX + sid + ":" + path;
+    }
+
+    static String seqKey(String sid, String path) {
+        return SEQ_PREFIX + sid + ":" + path;
+    }
+
+    @Override
+    public long head(String sessionId, String path) {
+        try (Jedis jedis = pool.getResource()) {
+            String counter = jedis.get(seqKey(sessionId, path));
+            if (counter != null) return Long.parseLong(counter);
+            // Sin contador (stream anterior a él): el último ID del stream
+            List<StreamEntry> last = jedis.xrevrange(key(sessionId, path), "+", "-", 1);
+            return last == null || last.isEmpty() ? 0 : last.get(0).getID().getTime();
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo leer el último seq del replay log: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /** Reserva el seq con un {@code INCR}: un round-trip por frame, a cambio de no repetir nunca número. */
+    @Override
+    public long next(String sessionId, String path) {
+        try (Jedis jedis = pool.getResource()) {
+            return jedis.incr(seqKey(sessionId, path));
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo reservar el seq en Redis, el hub numera en local: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    /** Reserva {@code n} seqs con un {@code INCRBY}: un round-trip por bloque. */
+    @Override
+    public SeqBlock reserve(String sessionId, String path, int n) {
+        try (Jedis jedis = pool.getResource()) {
+            long last = jedis.incrBy(seqKey(sessionId, path), n);
+            return new SeqBlock(last - n + 1, last);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo reservar un bloque de seqs en Redis, el hub numera en local: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void release(String sessionId, String path, long from, long to) {
+        if (from > to) return;
+        try (Jedis jedis = pool.getResource()) {
+            jedis.eval(RELEASE_SCRIPT, List.of(seqKey(sessionId, path)),
+                    List.of(Long.toString(from - 1), Long.toString(to)));
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudieron devolver los seqs sin usar al replay log: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void append(String sessionId, String path, long seq, String body) {
+        if (running) queue.add(new Append(key(sessionId, path), seqKey(sessionId, path), seq, body));
+    }
+
+    @Override
+    public List<Entry> since(String sessionId, String path, long since) {
+        try (Jedis jedis = pool.getResource()) {
+            List<StreamEntry> entries = jedis.xrange(key(sessionId, path), (since + 1) + "-0", "+", (int) maxLen);
+            if (entries == null || entries.isEmpty()) return List.of();
+            // El primero tiene que ser since+1; si no, el MAXLEN ya se lo llevó
+            if (entries.get(0).getID().getTime() != since + 1) return null;
+
+            List<Entry> out = new ArrayList<>(entries.size());
+            for (StreamEntry e : entries) {
+                out.add(new Entry(e.getID().getTime(), e.getFields().get(BODY)));
+            }
+            return out;
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo leer el replay log: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /** Frames esperando a escribirse. */
+    public int pending() {
+        return queue.size();
+    }
+
+    /** Frames que Redis rechazó o que no se pudieron escribir. */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /** Escribe lo pendiente y para el hilo escritor. */
+    @Override
+    public void close() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(2_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pool.close();
+    }
+
+    // ----------------------------------------------------------------
+
+    private void drainLoop() {
+        List<Append> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (queue.isEmpty()) batch.add(queue.take());
+            } catch (InterruptedException e) {
+                if (!running) continue; // close(): vaciar lo que quede y salir
+            }
+            queue.drainTo(batch, MAX_BATCH - batch.size());
+            if (batch.isEmpty()) continue;
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // ⚡ Un round-trip por lote, no por frame
+    private void write(List<Append> batch) {
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline p = jedis.pipelined();
+            List<Response<StreamEntryID>> replies = new ArrayList<>(batch.size());
+            String lastKey = null;
+            for (Append a : batch) {
+                replies.add(p.xadd(a.key(), XAddParams.xAddParams().id(a.seq() + "-0").maxLen(maxLen).approximateTrimming(),
+                        Map.of(BODY, a.body())));
+                if (!a.key().equals(lastKey)) {
+                    p.pexpire(a.key(), ttlMs);
+                    p.pexpire(a.seqKey(), ttlMs);
+                    lastKey = a.key();
+                }
+            }
+            p.sync();
+            checkReplies(batch, replies);
+        } catch (Exception e) {
+            // Se pierden estos frames del log: quien reconecte pidiéndolos recibirá un snapshot
+            failed.add(batch.size());
+            log.warn("⚠️ No se pudieron escribir {} frames en el replay log: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    // Un error dentro del pipeline no lo lanza sync(): hay que mirar cada respuesta
+    private void checkReplies(List<Append> batch, List<Response<StreamEntryID>> replies) {
+        int rejected = 0;
+        String first = null;
+        for (int i = 0; i < replies.size(); i++) {
+            Response<StreamEntryID> r = replies.get(i);
+            if (r == null) continue;
+            try {
+                r.get();
+            } catch (Exception e) {
+                if (rejected++ == 0) first = batch.get(i).seq() + ": " + e.getMessage();
+            }
+        }
+        if (rejected > 0) {
+            failed.add(rejected);
+            log.warn("⚠️ Redis rechazó {} frames del replay log (seq {})", rejected, first);
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package com.ciro.jreactive.store.redis;
 
 import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.diag.StorePutEvent;
+import com.ciro.jreactive.spi.JrxMetrics;
 import com.ciro.jreactive.store.StateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.Pipeline;
 
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class RedisStateStore implements StateStore {
 
+    private static final Logger log = LoggerFactory.getLogger(RedisStateStore.class);
+    private static final String STORE = "redis";
+
     private final JedisPool redisPool;
     private final StateSerializer serializer; // 🔥 Ahora usamos la interfaz
     
@@ -43,10 +56,58 @@ public class RedisStateStore implements StateStore {
             end
         """;
 
+    /*
+     * Modo por campo: la página es un hash con 'data' (la página entera), 'v' (versión) y un campo
+     * 's:<idComponente>:<clave>' por cada @State que cambió después de guardar 'data'.
+     * ARGV: versión esperada (-1 = sin CAS), '1' si es completa (se borra el hash y se reescribe 'data'),
+     * TTL, y pares campo/valor. Devuelve 1 ok, 0 versión distinta, -1 hay que mandar la página entera
+     * (el hash expiró y solo traíamos deltas).
+     */
+    private static final String FIELDS_SCRIPT = """
+            local key = KEYS[1]
+            local expectedVer = tonumber(ARGV[1])
+            local full = ARGV[2] == '1'
+            local currentVer = tonumber(redis.call('hget', key, 'v') or '0')
+
+            if expectedVer >= 0 and currentVer ~= expectedVer then
+                return 0
+            end
+            if not full and redis.call('hexists', key, 'data') == 0 then
+                return -1
+            end
+
+            if full then redis.call('del', key) end
+            for i = 4, #ARGV, 2 do
+                redis.call('hset', key, ARGV[i], ARGV[i + 1])
+            end
+            if expectedVer >= 0 then
+                redis.call('hset', key, 'v', currentVer + 1)
+            elseif full and currentVer > 0 then
+                redis.call('hset', key, 'v', currentVer)
+            end
+            redis.call('expire', key, tonumber(ARGV[3]))
+            return 1
+        """;
+
+    private static final byte[] DATA = "data".getBytes(StandardCharsets.UTF_8);
+    private static final String FIELD_PREFIX = "s:";
+
+    private final boolean fieldLevel;
+
     // ✅ Constructor Inyectado: Recibe la estrategia (JSON o FST) desde la configuración
     public RedisStateStore(String host, int port, StateSerializer serializer) {
+        this(host, port, serializer, false);
+    }
+
+    /**
+     * @param fieldLevel guarda cada @State en su propio campo del hash y solo reescribe los que cambiaron.
+     *                   Lo que no es @State/@Bind/@Prop (campos normales, hijos nuevos) se guarda al
+     *                   reescribir la página entera: la primera vez y cuando aparece un componente nuevo.
+     */
+    public RedisStateStore(String host, int port, StateSerializer serializer, boolean fieldLevel) {
         this.redisPool = new JedisPool(host, port);
         this.serializer = serializer;
+        this.fieldLevel = fieldLevel;
     }
     
     // Helper para logs de arranque
@@ -64,9 +125,14 @@ public class RedisStateStore implements StateStore {
 
     @Override
     public HtmlComponent get(String sessionId, String path) {
+        long t0 = System.nanoTime();
+        if (fieldLevel) return getFields(sessionId, path, t0);
         try (Jedis jedis = redisPool.getResource()) {
             byte[] data = jedis.hget(key(sessionId, path), "data".getBytes());
-            if (data == null) return null;
+            if (data == null) {
+                JrxMetrics.get().storeGet(STORE, false, System.nanoTime() - t0);
+                return null;
+            }
             
             // 🔥 CAMBIO CLAVE: Delegamos la deserialización a la estrategia
             HtmlComponent comp = serializer.deserialize(data, HtmlComponent.class);
@@ -77,15 +143,72 @@ public class RedisStateStore implements StateStore {
                 comp._setVersion(Long.parseLong(new String(verBytes)));
             }
             
+            JrxMetrics.get().storeGet(STORE, true, System.nanoTime() - t0);
+            return comp;
+        } catch (Exception e) {
+            log.error("❌ Error leyendo la página {} de Redis", path, e);
+            JrxMetrics.get().storeGet(STORE, false, System.nanoTime() - t0);
+            return null;
+        }
+    }
+
+    private HtmlComponent getFields(String sessionId, String path, long t0) {
+        try (Jedis jedis = redisPool.getResource()) {
+            Map<byte[], byte[]> hash = jedis.hgetAll(key(sessionId, path));
+            byte[] data = null;
+            byte[] ver = null;
+            Map<String, byte[]> fields = new HashMap<>();
+            if (hash != null) {
+                for (Map.Entry<byte[], byte[]> e : hash.entrySet()) {
+                    String name = new String(e.getKey(), StandardCharsets.UTF_8);
+                    if (name.equals("data")) data = e.getValue();
+                    else if (name.equals("v")) ver = e.getValue();
+                    else if (name.startsWith(FIELD_PREFIX)) {
+                        fields.put(name.substring(FIELD_PREFIX.length()), e.getValue());
+                    }
+                }
+            }
+            if (data == null) {
+                JrxMetrics.get().storeGet(STORE, false, System.nanoTime() - t0);
+                return null;
+            }
+
+            HtmlComponent comp = serializer.deserialize(data, HtmlComponent.class);
+            // Los @State guardados después de 'data' pisan lo que traía la página entera.
+            // Cada uno se lee con el tipo declarado de su campo (records, enums, List<Item>...)
+            Map<String, Object> values = new HashMap<>();
+            boolean lost = false;
+            for (Map.Entry<String, Type> e : comp._persistedTypes(fields.keySet()).entrySet()) {
+                try {
+                    values.put(e.getKey(), serializer.deserialize(fields.get(e.getKey()), e.getValue()));
+                } catch (RuntimeException ex) {
+                    lost = true;
+                    log.warn("⚠️ No se pudo leer el campo {} de la página {}: {}", e.getKey(), path, ex.getMessage());
+                }
+            }
+            comp._restorePersisted(values);
+            // Un campo ilegible se queda con el valor de 'data': el próximo persist reescribe la página entera
+            if (lost) comp._forgetPersisted();
+            if (ver != null) comp._setVersion(Long.parseLong(new String(ver, StandardCharsets.UTF_8)));
+
+            JrxMetrics.get().storeGet(STORE, true, System.nanoTime() - t0);
             return comp;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("❌ Error leyendo la página {} de Redis", path, e);
+            JrxMetrics.get().storeGet(STORE, false, System.nanoTime() - t0);
             return null;
         }
     }
 
     @Override
     public void put(String sessionId, String path, HtmlComponent component) {
+        if (fieldLevel) {
+            writeFields(sessionId, path, component, -1);
+            return;
+        }
+        StorePutEvent ev = new StorePutEvent();
+        ev.begin();
+        long t0 = System.nanoTime();
         try (Jedis jedis = redisPool.getResource()) {
             // 🔥 CAMBIO CLAVE: Serialización agnóstica
             byte[] data = serializer.serialize(component);
@@ -98,6 +221,20 @@ public class RedisStateStore implements StateStore {
             p.sadd(idxKey, path);
             p.expire(idxKey, TTL_SECONDS);
             p.sync();
+            commit(ev, t0, component, data.length, false, true);
+        }
+    }
+
+    private void commit(StorePutEvent ev, long t0, HtmlComponent comp, int bytes, boolean cas, boolean applied) {
+        JrxMetrics.get().storePut(STORE, System.nanoTime() - t0);
+        ev.end();
+        if (ev.shouldCommit()) {
+            ev.store = STORE + ":" + serializer.name();
+            ev.component = comp.getClass().getName();
+            ev.bytes = bytes;
+            ev.cas = cas;
+            ev.applied = applied;
+            ev.commit();
         }
     }
 
@@ -131,12 +268,16 @@ public class RedisStateStore implements StateStore {
                 jedis.del(idxKey);
             }
         } catch (Exception e) {
-            System.err.println("Error limpiando sesión Redis: " + e.getMessage());
+            log.warn("⚠️ Error limpiando sesión Redis: {}", e.getMessage());
         }
     }
 
     @Override
     public boolean replace(String sid, String path, HtmlComponent comp, long expectVer) {
+        if (fieldLevel) return writeFields(sid, path, comp, expectVer);
+        StorePutEvent ev = new StorePutEvent();
+        ev.begin();
+        long t0 = System.nanoTime();
         try (Jedis jedis = redisPool.getResource()) {
             byte[] key = key(sid, path);
             
@@ -149,6 +290,7 @@ public class RedisStateStore implements StateStore {
                                     data);
             
             long result = (Long) res;
+            commit(ev, t0, comp, data.length, true, result == 1);
             if (result == 1) {
                 comp._setVersion(expectVer + 1);
                 return true;
@@ -156,4 +298,72 @@ public class RedisStateStore implements StateStore {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Escribe en modo por campo: solo los @State que cambiaron, o la página entera si es nueva,
+     * tiene componentes nuevos o el hash ya no está. {@code expectVer} &lt; 0 = sin CAS.
+     */
+    private boolean writeFields(String sid, String path, HtmlComponent comp, long expectVer) {
+        StorePutEvent ev = new StorePutEvent();
+        ev.begin();
+        long t0 = System.nanoTime();
+        byte[] pageKey = key(sid, path);
+        try (Jedis jedis = redisPool.getResource()) {
+            Map<String, Object> deltas = comp._takePersistDeltas();
+            long result = -1;
+            int bytes = 0;
+            if (deltas != null) {
+                byte[][] args = fieldArgs(pageKey, expectVer, deltas, comp._persistedTypes(deltas.keySet()), null);
+                bytes = size(args);
+                result = (Long) jedis.eval(FIELDS_SCRIPT.getBytes(StandardCharsets.UTF_8), 1, args);
+            }
+            if (result == -1) {
+                // Página nueva, componentes nuevos o el hash expiró: se guarda entera
+                byte[][] args = fieldArgs(pageKey, expectVer, Map.of(), Map.of(), serializer.serialize(comp));
+                bytes = size(args);
+                result = (Long) jedis.eval(FIELDS_SCRIPT.getBytes(StandardCharsets.UTF_8), 1, args);
+
+                String idxKey = indexKey(sid);
+                Pipeline p = jedis.pipelined();
+                p.sadd(idxKey, path);
+                p.expire(idxKey, TTL_SECONDS);
+                p.sync();
+            }
+            commit(ev, t0, comp, bytes, expectVer >= 0, result == 1);
+            if (result != 1) {
+                comp._forgetPersisted();
+                return false;
+            }
+            if (expectVer >= 0) comp._setVersion(expectVer + 1);
+            return true;
+        } catch (RuntimeException e) {
+            comp._forgetPersisted(); // lo que no llegó a Redis se reenvía en el próximo persist
+            throw e;
+        }
+    }
+
+    // KEYS[1] + ARGV de FIELDS_SCRIPT; data != null = escritura completa
+    private byte[][] fieldArgs(byte[] pageKey, long expectVer, Map<String, Object> deltas,
+                               Map<String, Type> types, byte[] data) {
+        List<byte[]> args = new ArrayList<>(6 + 2 * deltas.size());
+        args.add(pageKey);
+        args.add(String.valueOf(expectVer).getBytes(StandardCharsets.UTF_8));
+        args.add((data != null ? "1" : "0").getBytes(StandardCharsets.UTF_8));
+        args.add(String.valueOf(TTL_SECONDS).getBytes(StandardCharsets.UTF_8));
+        if (data != null) {
+            args.add(DATA);
+            args.add(data);
+        }
+        deltas.forEach((k, v) -> {
+            args.add((FIELD_PREFIX + k).getBytes(StandardCharsets.UTF_8));
+            args.add(serializer.serialize(v, types.getOrDefault(k, Object.class)));
+        });
+        return args.toArray(new byte[0][]);
+    }
+
+    private static int size(byte[][] args) {
+        int n = 0;
+        for (int i = 1; i < args.length; i++) n += args[i].length;
+        return n;
+    }
+}
@@ -1,9 +1,13 @@
 package com.ciro.jreactive.store.redis;
 
 import com.ciro.jreactive.spi.JrxMessageBroker;
+import com.ciro.jreactive.spi.JrxReplayLog;
 import com.ciro.jreactive.store.CaffeineStateStore;
 import com.ciro.jreactive.store.StateStore;
+import com.ciro.jreactive.store.WriteBehindStateStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -14,6 +18,8 @@ import org.springframework.context.annotation.Primary;
 @Configuration
 public class RedisStoreConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(RedisStoreConfig.class);
+
     @Value("${jreactive.redis.host:localhost}")
     private String host;
 
@@ -24,10 +30,50 @@ public class RedisStoreConfig {
     @Value("${jreactive.store.consistency:strong}")
     private String consistencyMode;
 
+    // Write-behind de Redis en el híbrido 'eventual' (0 = desactivado). Solo-Redis escribe siempre en el acto
+    @Value("${jreactive.store.write-behind-ms:200}")
+    private long writeBehindMs;
+
+    @Value("${jreactive.store.max-staleness-ms:2000}")
+    private long maxStalenessMs;
+
+    // 'blob' (default): la página entera en cada escritura. 'fields': un campo del hash por @State
+    @Value("${jreactive.store.persistence:blob}")
+    private String persistenceMode;
+
+    // Cada cuánto renueva el nodo la propiedad de sus sesiones en Redis (caducan a los 3 latidos)
+    @Value("${jreactive.broker.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    // Carriles de entrega de los mensajes del broker (0 = uno por CPU) y mensajes que caben en cada uno
+    @Value("${jreactive.broker.inbound-lanes:0}")
+    private int inboundLanes;
+
+    @Value("${jreactive.broker.inbound-capacity:10000}")
+    private int inboundCapacity;
+
+    // Lote de salida del broker: ventana en µs (0 = cada comando en su round-trip) y tamaño máximo
+    @Value("${jreactive.broker.flush-micros:200}")
+    private long flushMicros;
+
+    @Value("${jreactive.broker.flush-max-batch:256}")
+    private int flushMaxBatch;
+
+    // Colecciones @Shared: cada cuántas ops se reescribe la copia maestra en Redis
+    @Value("${jreactive.shared.compact-every:500}")
+    private int compactEvery;
+
+    // Replay de reconexiones (since=) compartido por el cluster
+    @Value("${jreactive.replay.max-len:2000}")
+    private long replayMaxLen;
+
+    @Value("${jreactive.replay.ttl-seconds:3600}")
+    private long replayTtlSeconds;
+
     @Bean
     public RedisStateStore redisStateStore(StateSerializer serializer) {
         // 🔥 Inyectamos el serializer elegido
-        return new RedisStateStore(host, port, serializer);
+        return new RedisStateStore(host, port, serializer, "fields".equalsIgnoreCase(persistenceMode));
     }
     
     @Bean
@@ -46,6 +92,7 @@ public class RedisStoreConfig {
     @Primary
     @ConditionalOnProperty(name = "jreactive.store.type", havingValue = "redis")
     public StateStore onlyRedis(RedisStateStore redisStore) {
+        // Sin L1 delante, Redis es la única copia: el write-behind aquí perdería cambios ya confirmados
         return redisStore;
     }
 
@@ -58,15 +105,29 @@ public class RedisStoreConfig {
         // Detectar modo
         boolean isStrong = "strong".equalsIgnoreCase(consistencyMode);
         
-        System.out.println("🚀 JReactive Hybrid Store iniciado. Modo consistencia: " + 
-                           (isStrong ? "STRONG (Enterprise)" : "EVENTUAL (Speed)"));
+        log.info("🚀 JReactive Hybrid Store iniciado. Modo consistencia: {}",
+                 isStrong ? "STRONG (Enterprise)" : "EVENTUAL (Speed)");
+
+        return new HybridStateStore(l1, isStrong ? redisStore : writeBehind(redisStore), isStrong);
+    }
 
-        return new HybridStateStore(l1, redisStore, isStrong);
+    private StateStore writeBehind(RedisStateStore redisStore) {
+        if (writeBehindMs <= 0) return redisStore;
+        log.info("⏱️ Write-behind de Redis: debounce {} ms, máximo {} ms sin persistir", writeBehindMs, maxStalenessMs);
+        return new WriteBehindStateStore(redisStore, writeBehindMs, maxStalenessMs);
     }
     
     @Bean
     @ConditionalOnProperty(name = "jreactive.store.type", havingValue = "hybrid")
     public JrxMessageBroker redisMessageBroker() {
-        return new RedisMessageBroker(host, port);
+        return new RedisMessageBroker(host, port, heartbeatMs, compactEvery, inboundLanes, inboundCapacity,
+                flushMicros, flushMaxBatch);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "jreactive.replay.type", havingValue = "redis")
+    public JrxReplayLog redisReplayLog() {
+        log.info("🔁 Replay log en Redis Streams: {} frames por página, TTL {} s", replayMaxLen, replayTtlSeconds);
+        return new RedisReplayLog(host, port, replayMaxLen, replayTtlSeconds);
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
 package com.ciro.jreactive.store.redis;
 
+import java.lang.reflect.Type;
+
 public interface StateSerializer {
     byte[] serialize(Object obj);
     
@@ -7,4 +9,14 @@ public interface StateSerializer {
     <T> T deserialize(byte[] bytes, Class<T> type);
     
     String name(); // Para logs ("json" o "fst")
-}
\ No newline at end of file
+
+    // Modo por campo: cada @State viaja con su tipo declarado (List<Item>, un record, un enum...).
+    // Los formatos que ya guardan la clase (FST) no necesitan más que la versión sin tipo.
+    default byte[] serialize(Object obj, Type declared) {
+        return serialize(obj);
+    }
+
+    default Object deserialize(byte[] bytes, Type declared) {
+        return deserialize(bytes, Object.class);
+    }
+}
@@ -5,6 +5,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DisplayName("JacksonStateSerializer - Pruebas de Serialización JSON")
@@ -49,4 +53,39 @@ class JacksonStateSerializerTest {
         assertThat(json).contains("dato_publico");
         assertThat(json).doesNotContain("secreto_multijugador");
     }
-}
\ No newline at end of file
+
+    public record Punto(int x, int y) {}
+    public enum Modo { LISTA, TABLA }
+    public static class Item {
+        public String nombre;
+        public Item() {}
+        Item(String nombre) { this.nombre = nombre; }
+    }
+
+    // Campos de referencia para sacar el tipo declarado, como hace el modo por campo del store
+    Punto punto;
+    Modo modo;
+    List<String> tags;
+    List<Item> items;
+
+    private static Type declared(String field) throws Exception {
+        return JacksonStateSerializerTest.class.getDeclaredField(field).getGenericType();
+    }
+
+    @Test
+    @DisplayName("Con el tipo declarado debe leer records, enums, listas inmutables y listas de POJOs")
+    void testTipoDeclarado() throws Exception {
+        JacksonStateSerializer serializer = new JacksonStateSerializer(new ObjectMapper());
+
+        Object p = serializer.deserialize(serializer.serialize(new Punto(1, 2), declared("punto")), declared("punto"));
+        Object m = serializer.deserialize(serializer.serialize(Modo.TABLA, declared("modo")), declared("modo"));
+        Object t = serializer.deserialize(serializer.serialize(List.of("a", "b"), declared("tags")), declared("tags"));
+        Object i = serializer.deserialize(
+                serializer.serialize(new ArrayList<>(List.of(new Item("pan"))), declared("items")), declared("items"));
+
+        assertThat(p).isEqualTo(new Punto(1, 2));
+        assertThat(m).isSameAs(Modo.TABLA);
+        assertThat(t).isEqualTo(List.of("a", "b"));
+        assertThat((List<?>) i).singleElement().isInstanceOfSatisfying(Item.class, it -> assertThat(it.nombre).isEqualTo("pan"));
+    }
+}
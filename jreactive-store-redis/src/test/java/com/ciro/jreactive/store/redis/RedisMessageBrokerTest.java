@@ -2,7 +2,22 @@ package com.ciro.jreactive.store.redis;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.mockito.InOrder;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 @DisplayName("RedisMessageBroker - Test de Resiliencia")
 class RedisMessageBrokerTest {
@@ -24,4 +39,227 @@ class RedisMessageBrokerTest {
         var state = broker.getSharedState("topic");
         assertThat(state).isEmpty();
     }
-}
\ No newline at end of file
+
+    // Broker con un Redis fantasma; heartbeat muy largo para que no se dispare solo
+    private static RedisMessageBroker mockedBroker(Jedis jedis) {
+        JedisPool pool = mock(JedisPool.class);
+        when(pool.getResource()).thenReturn(jedis);
+        return new RedisMessageBroker(pool, "nodo-A", 60_000, 3);
+    }
+
+    // Igual, pero con lote de salida: ventana larga para que el test controle cuándo sale
+    private static RedisMessageBroker batchedBroker(Jedis jedis, long flushMicros) {
+        JedisPool pool = mock(JedisPool.class);
+        when(pool.getResource()).thenReturn(jedis);
+        return new RedisMessageBroker(pool, "nodo-A", 60_000, 3,
+                new com.ciro.jreactive.JrxInboundDispatcher(), flushMicros, 256);
+    }
+
+    @Test
+    @DisplayName("publish debe ir al script de dueños, no a un canal que escuchan todos los nodos")
+    @SuppressWarnings("unchecked")
+    void testPublishRoutesToOwners() {
+        Jedis jedis = mock(Jedis.class);
+        RedisMessageBroker broker = mockedBroker(jedis);
+
+        broker.publish("sid-1", "{\"k\":\"x\"}");
+
+        var keys = org.mockito.ArgumentCaptor.forClass(List.class);
+        var args = org.mockito.ArgumentCaptor.forClass(List.class);
+        verify(jedis).eval(anyString(), keys.capture(), args.capture());
+        assertThat(keys.getValue()).containsExactly("jrx:own:sid-1");
+        assertThat((List<String>) args.getValue()).element(1).isEqualTo("nodo-A");
+        assertThat((List<String>) args.getValue()).element(2).isEqualTo("sid-1|{\"k\":\"x\"}");
+        verify(jedis, never()).publish(anyString(), anyString());
+        broker.close();
+    }
+
+    @Test
+    @DisplayName("claim/release deben anotar y borrar este nodo como dueño de la sesión")
+    void testOwnershipRegistry() {
+        Jedis jedis = mock(Jedis.class);
+        RedisMessageBroker broker = mockedBroker(jedis);
+
+        broker.claimSession("sid-1");
+        verify(jedis, timeout(1_000)).zadd(eq("jrx:own:sid-1"), anyDouble(), eq("nodo-A"));
+        verify(jedis, timeout(1_000)).pexpire("jrx:own:sid-1", 180_000L);
+        assertThat(broker.ownedSessions()).isEqualTo(1);
+
+        broker.releaseSession("sid-1");
+        verify(jedis, timeout(1_000)).zrem("jrx:own:sid-1", "nodo-A");
+        assertThat(broker.ownedSessions()).isZero();
+        broker.close();
+    }
+
+    @Test
+    @DisplayName("El heartbeat debe renovar todas las sesiones del nodo en un pipeline")
+    void testHeartbeat() {
+        Jedis jedis = mock(Jedis.class);
+        Pipeline pipeline = mock(Pipeline.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        RedisMessageBroker broker = mockedBroker(jedis);
+        broker.claimSession("sid-1");
+        broker.claimSession("sid-2");
+
+        broker.heartbeat();
+
+        verify(pipeline).zadd(eq("jrx:own:sid-1"), anyDouble(), eq("nodo-A"));
+        verify(pipeline).zadd(eq("jrx:own:sid-2"), anyDouble(), eq("nodo-A"));
+        verify(pipeline).sync();
+        broker.close();
+    }
+
+    @Test
+    @DisplayName("Debe entregar lo del canal propio y los topics compartidos, ignorando su propio eco")
+    void testDispatch() throws Exception {
+        RedisMessageBroker broker = mockedBroker(mock(Jedis.class));
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        broker.onMessage((target, msg) -> {
+            received.add(target + " -> " + msg);
+            done.countDown();
+        });
+
+        broker.dispatch("jrx:node:nodo-A", "sid-1|{\"a\":1}");
+        broker.dispatch("jrx:upd:shared:sala", "nodo-B|{\"k\":\"chat\"}");
+        broker.dispatch("jrx:upd:shared:sala", "nodo-A|{\"k\":\"eco\"}");
+        broker.dispatch("jrx:node:nodo-A", "sid-1|{\"a\":2}");
+
+        // La entrega va por carriles: asíncrona, pero en orden dentro de cada sesión/topic
+        assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).containsExactlyInAnyOrder(
+                "sid-1 -> {\"a\":1}",
+                "sid-1 -> {\"a\":2}",
+                "shared:sala -> {\"k\":\"chat\"}");
+        assertThat(received.stream().filter(m -> m.startsWith("sid-1")))
+                .containsExactly("sid-1 -> {\"a\":1}", "sid-1 -> {\"a\":2}");
+        broker.close();
+    }
+
+    @Test
+    @DisplayName("Las ops de colecciones @Shared deben versionarse y compactar la copia maestra cada N ops")
+    void testSharedOpCompaction() {
+        Jedis jedis = mock(Jedis.class);
+        RedisMessageBroker broker = mockedBroker(jedis); // compacta cada 3 ops
+        String op = "{\"k\":\"Sala#1.chat\",\"delta\":true,\"type\":\"list\",\"changes\":[]}";
+        List<String> keys = List.of("jrx:shared:sala", "jrx:shared-log:sala:chat");
+
+        // Op 2: hay copia maestra y el log es corto -> solo la op
+        doReturn(List.of(2L, 1L, 1L)).when(jedis).eval(contains("HINCRBY"), anyList(), anyList());
+        assertThat(broker.publishSharedOp("sala", "Sala#1.chat", op, List.of("a", "b"))).isEqualTo(2);
+        verify(jedis, times(1)).eval(anyString(), anyList(), anyList());
+
+        // Op 9: el log llegó a 3 -> la copia se rehace desde la maestra (v6) y el log, no desde la colección local
+        doReturn(List.of(9L, 3L, 1L)).when(jedis).eval(contains("HINCRBY"), anyList(), anyList());
+        doReturn(List.of("[\"a\"]", "6", List.of(
+                "{\"ver\":7,\"type\":\"list\",\"changes\":[{\"op\":\"ADD\",\"index\":1,\"item\":\"b\"}]}",
+                "{\"ver\":8,\"type\":\"list\",\"changes\":[{\"op\":\"ADD\",\"index\":9,\"item\":\"c\"}]}",
+                "{\"ver\":9,\"type\":\"list\",\"changes\":[{\"op\":\"SET\",\"index\":0,\"item\":\"z\"}]}")))
+                .when(jedis).eval(contains("LRANGE"), anyList(), anyList());
+        broker.publishSharedOp("sala", "Sala#1.chat", op, List.of("local", "sin", "versión"));
+        // Compacta en su hilo, no en el de quien publica
+        verify(jedis, timeout(1000)).eval(contains("LTRIM"), eq(keys), eq(List.of("chat", "[\"z\",\"b\",\"c\"]", "9")));
+
+        // Sin copia maestra todavía: la siembra la colección de quien publica
+        doReturn(List.of(1L, 1L, 0L)).when(jedis).eval(contains("HINCRBY"), anyList(), anyList());
+        broker.publishSharedOp("sala", "Sala#1.chat", op, List.of("a"));
+        verify(jedis).eval(contains("LTRIM"), eq(keys), eq(List.of("chat", "[\"a\"]", "1")));
+        broker.close();
+    }
+
+    @Test
+    @DisplayName("Las ops de mapas y sets deben plegarse sobre su JSON al compactar")
+    void testFoldMapAndSet() throws Exception {
+        com.fasterxml.jackson.databind.ObjectMapper m = new com.fasterxml.jackson.databind.ObjectMapper();
+        var map = RedisMessageBroker.fold(m.readTree("{\"x\":1}"), m.readTree(
+                "{\"type\":\"map\",\"changes\":[{\"op\":\"PUT\",\"key\":\"y\",\"value\":2},{\"op\":\"REMOVE\",\"key\":\"x\"}]}"));
+        assertThat(map.toString()).isEqualTo("{\"y\":2}");
+
+        var set = RedisMessageBroker.fold(m.readTree("[\"a\"]"), m.readTree(
+                "{\"type\":\"set\",\"changes\":[{\"op\":\"ADD\",\"item\":\"a\"},{\"op\":\"ADD\",\"item\":\"b\"},{\"op\":\"REMOVE\",\"item\":\"a\"}]}"));
+        assertThat(set.toString()).isEqualTo("[\"b\"]");
+    }
+
+    @Test
+    @DisplayName("Las publicaciones deben agruparse en un único pipeline, en el orden en que llegaron")
+    void testBatchedPublishing() {
+        Jedis jedis = mock(Jedis.class);
+        Pipeline pipeline = mock(Pipeline.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        RedisMessageBroker broker = batchedBroker(jedis, 20_000);
+
+        broker.publish("sid-1", "{\"a\":1}");
+        broker.publishShared("sala", "{\"k\":\"chat\"}");
+        broker.saveSharedState("sala", "Sala#1.chat", List.of("hola"));
+        broker.publish("sid-1", "{\"a\":2}");
+
+        verify(pipeline, timeout(1_000)).sync();
+        InOrder order = inOrder(jedis, pipeline);
+        // Los scripts se cargan una vez; en el pipeline solo viaja su SHA
+        order.verify(jedis, times(2)).scriptLoad(anyString());
+        order.verify(pipeline).evalsha(matches("[0-9a-f]{40}"), eq(List.of("jrx:own:sid-1")), argThat(a -> a.get(2).equals("sid-1|{\"a\":1}")));
+        order.verify(pipeline).publish("jrx:upd:shared:sala", "nodo-A|{\"k\":\"chat\"}");
+        order.verify(pipeline).evalsha(matches("[0-9a-f]{40}"), eq(List.of("jrx:shared:sala", "jrx:shared-log:sala:chat")), eq(List.of("chat", "[\"hola\"]")));
+        order.verify(pipeline).evalsha(matches("[0-9a-f]{40}"), eq(List.of("jrx:own:sid-1")), argThat(a -> a.get(2).equals("sid-1|{\"a\":2}")));
+        order.verify(pipeline).sync();
+        verify(pipeline, never()).eval(anyString(), anyList(), anyList());
+        // Nada fue por su propio round-trip
+        verify(jedis, never()).eval(anyString(), anyList(), anyList());
+        verify(jedis, never()).publish(anyString(), anyString());
+        assertThat(broker.outboundBatchRatio()).isEqualTo(4.0);
+        broker.close();
+    }
+
+    @Test
+    @DisplayName("Una sesión marcada como inmediata y las ops versionadas no deben esperar a la ventana")
+    void testImmediateFlush() {
+        Jedis jedis = mock(Jedis.class);
+        Pipeline pipeline = mock(Pipeline.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        when(jedis.eval(anyString(), anyList(), anyList())).thenReturn(List.of(1L, 1L, 1L));
+        RedisMessageBroker broker = batchedBroker(jedis, 60_000_000); // ventana de un minuto
+
+        broker.setImmediateFlush("sid-1", true);
+        broker.publish("sid-1", "{\"a\":1}");
+        verify(pipeline, times(1)).sync(); // Salió en el hilo que publica
+
+        // La op necesita respuesta: antes vacía lo pendiente, para no adelantar al valor ya publicado
+        broker.publishShared("sala", "{\"k\":\"chat\"}");
+        assertThat(broker.outboundPending()).isEqualTo(1);
+        broker.publishSharedOp("sala", "chat", "{\"k\":\"chat\",\"delta\":true}", List.of());
+        InOrder order = inOrder(pipeline, jedis);
+        order.verify(pipeline).publish(eq("jrx:upd:shared:sala"), anyString());
+        order.verify(pipeline).sync();
+        order.verify(jedis).eval(anyString(), anyList(), anyList());
+        assertThat(broker.outboundPending()).isZero();
+        broker.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Los errores dentro del pipeline deben contarse, y un NOSCRIPT debe recargar el script y reintentar")
+    void testPipelineErrors() {
+        Jedis jedis = mock(Jedis.class);
+        Pipeline pipeline = mock(Pipeline.class);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        Response<Object> noScript = mock(Response.class);
+        when(noScript.get()).thenThrow(new JedisNoScriptException("NOSCRIPT No matching script"));
+        Response<Object> ok = mock(Response.class);
+        Response<Long> rejected = mock(Response.class);
+        when(rejected.get()).thenThrow(new JedisDataException("WRONGTYPE"));
+        when(pipeline.evalsha(anyString(), anyList(), anyList())).thenReturn(noScript, ok);
+        when(pipeline.publish(anyString(), anyString())).thenReturn(rejected);
+        RedisMessageBroker broker = batchedBroker(jedis, 60_000_000);
+
+        broker.publish("sid-1", "{\"a\":1}");
+        broker.publishShared("sala", "{\"k\":\"chat\"}");
+        broker.flushOutbound();
+
+        // Primer pipeline: el script falta y el PUBLISH falla. Segundo: solo el script, ya recargado
+        verify(pipeline, times(2)).evalsha(anyString(), eq(List.of("jrx:own:sid-1")), anyList());
+        verify(pipeline, times(1)).publish(anyString(), anyString());
+        verify(jedis, times(4)).scriptLoad(anyString());
+        assertThat(broker.outboundFailed()).isEqualTo(1);
+        broker.close();
+    }
+}
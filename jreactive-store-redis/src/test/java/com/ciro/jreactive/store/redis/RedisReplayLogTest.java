@@ -0,0 +1,135 @@
+package com.ciro.jreactive.store.redis;
+
+import com.ciro.jreactive.spi.JrxReplayLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.XAddParams;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RedisReplayLog - Replay de reconexiones sobre Redis Streams")
+class RedisReplayLogTest {
+
+    private Jedis jedis;
+    private Pipeline pipeline;
+    private RedisReplayLog replay;
+
+    @BeforeEach
+    void setUp() {
+        JedisPool pool = mock(JedisPool.class);
+        jedis = mock(Jedis.class);
+        pipeline = mock(Pipeline.class);
+        when(pool.getResource()).thenReturn(jedis);
+        when(jedis.pipelined()).thenReturn(pipeline);
+        replay = new RedisReplayLog(pool, 100, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replay.close();
+    }
+
+    private static StreamEntry entry(long seq, String body) {
+        return new StreamEntry(new StreamEntryID(seq, 0), Map.of("b", body));
+    }
+
+    @Test
+    @DisplayName("append debe escribir con el seq como ID del stream, en un pipeline")
+    void testAppend() {
+        replay.append("sid-1", "/home", 7, "{\"k\":\"x\",\"v\":1}");
+
+        verify(pipeline, timeout(1_000)).xadd(eq("jrx:replay:sid-1:/home"), any(XAddParams.class),
+                eq(Map.of("b", "{\"k\":\"x\",\"v\":1}")));
+        verify(pipeline, timeout(1_000)).pexpire("jrx:replay:sid-1:/home", 60_000L);
+        verify(pipeline, timeout(1_000)).pexpire("jrx:replay-seq:sid-1:/home", 60_000L);
+        verify(pipeline, timeout(1_000)).sync();
+    }
+
+    @Test
+    @DisplayName("next debe reservar el seq con un INCR por página")
+    void testNext() {
+        when(jedis.incr("jrx:replay-seq:sid-1:/home")).thenReturn(8L);
+        assertThat(replay.next("sid-1", "/home")).isEqualTo(8);
+
+        when(jedis.incr("jrx:replay-seq:sid-2:/home")).thenThrow(new RuntimeException("caído"));
+        assertThat(replay.next("sid-2", "/home")).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("reserve debe reservar un bloque con un INCRBY y release devolver lo que sobró")
+    void testReserveAndRelease() {
+        when(jedis.incrBy("jrx:replay-seq:sid-1:/home", 64)).thenReturn(128L);
+        assertThat(replay.reserve("sid-1", "/home", 64)).isEqualTo(new JrxReplayLog.SeqBlock(65, 128));
+
+        // Solo baja el contador si sigue en el final del bloque (nadie reservó después)
+        replay.release("sid-1", "/home", 80, 128);
+        verify(jedis).eval(contains("KEEPTTL"), eq(List.of("jrx:replay-seq:sid-1:/home")), eq(List.of("79", "128")));
+
+        when(jedis.incrBy("jrx:replay-seq:sid-2:/home", 64)).thenThrow(new RuntimeException("caído"));
+        assertThat(replay.reserve("sid-2", "/home", 64)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Un XADD rechazado dentro del pipeline debe contarse como fallo")
+    void testRejectedAppendIsCounted() {
+        Response<StreamEntryID> rejected = mock(Response.class);
+        when(rejected.get()).thenThrow(new JedisDataException("ERR The ID specified in XADD is equal or smaller"));
+        when(pipeline.xadd(anyString(), any(XAddParams.class), anyMap())).thenReturn(rejected);
+
+        replay.append("sid-1", "/home", 3, "{}");
+
+        verify(pipeline, timeout(1_000)).sync();
+        verify(rejected, timeout(1_000)).get();
+        assertThat(replay.failed()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("since debe leer con XRANGE desde since+1 y devolver los frames en orden")
+    void testSince() {
+        when(jedis.xrange("jrx:replay:sid-1:/home", "5-0", "+", 100))
+                .thenReturn(List.of(entry(5, "{\"k\":\"a\"}"), entry(6, "{\"k\":\"b\"}")));
+
+        List<JrxReplayLog.Entry> out = replay.since("sid-1", "/home", 4);
+
+        assertThat(out).containsExactly(
+                new JrxReplayLog.Entry(5, "{\"k\":\"a\"}"),
+                new JrxReplayLog.Entry(6, "{\"k\":\"b\"}"));
+    }
+
+    @Test
+    @DisplayName("Si el stream ya recortó el frame pedido, since debe devolver null (snapshot)")
+    void testSinceGap() {
+        when(jedis.xrange(anyString(), eq("2-0"), eq("+"), anyInt()))
+                .thenReturn(List.of(entry(40, "{}")));
+
+        assertThat(replay.since("sid-1", "/home", 1)).isNull();
+    }
+
+    @Test
+    @DisplayName("head debe ser el contador de la página (o el último ID del stream), o 0 si Redis falla")
+    void testHead() {
+        when(jedis.get("jrx:replay-seq:sid-3:/home")).thenReturn("17");
+        assertThat(replay.head("sid-3", "/home")).isEqualTo(17);
+
+        when(jedis.xrevrange("jrx:replay:sid-1:/home", "+", "-", 1)).thenReturn(List.of(entry(42, "{}")));
+        assertThat(replay.head("sid-1", "/home")).isEqualTo(42);
+
+        when(jedis.xrevrange("jrx:replay:sid-2:/home", "+", "-", 1)).thenThrow(new RuntimeException("caído"));
+        assertThat(replay.head("sid-2", "/home")).isZero();
+    }
+}
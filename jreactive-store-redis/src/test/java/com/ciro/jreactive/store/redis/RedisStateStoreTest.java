@@ -1,6 +1,7 @@
 package com.ciro.jreactive.store.redis;
 
 import com.ciro.jreactive.HtmlComponent;
+import com.ciro.jreactive.State;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,11 @@ import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.Pipeline;
 
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -120,4 +126,155 @@ class RedisStateStoreTest { // <-- Mismo nombre del archivo que ya tienes
         assertThat(result).isTrue();
         assertThat(comp._getVersion()).isEqualTo(3L); // Debería incrementar la versión automáticamente
     }
-}
\ No newline at end of file
+
+    static class FormComp extends HtmlComponent {
+        @State String filtro = "";
+        @State List<String> filas = new ArrayList<>(List.of("a", "b"));
+        @Override protected String template() { return "mock"; }
+    }
+
+    // Cada eval del modo por campo, con los ARGV como texto (los valores serializados se ignoran)
+    private List<List<String>> stubFieldEvals() {
+        List<List<String>> calls = new ArrayList<>();
+        when(jedis.eval(any(byte[].class), eq(1), any(byte[][].class))).thenAnswer(inv -> {
+            List<String> argv = new ArrayList<>();
+            Object[] all = inv.getArguments();
+            for (int i = 3; i < all.length; i++) argv.add(new String((byte[]) all[i], StandardCharsets.ISO_8859_1));
+            calls.add(argv);
+            return 1L;
+        });
+        return calls;
+    }
+
+    private RedisStateStore fieldStore() throws Exception {
+        RedisStateStore fs = new RedisStateStore("localhost", 9999, serializer, true);
+        Field poolField = RedisStateStore.class.getDeclaredField("redisPool");
+        poolField.setAccessible(true);
+        poolField.set(fs, jedisPool);
+        return fs;
+    }
+
+    @Test
+    @DisplayName("Modo por campo: la primera vez guarda la página entera y luego solo el @State que cambió")
+    void testFieldLevelPut() throws Exception {
+        RedisStateStore fs = fieldStore();
+        List<List<String>> calls = stubFieldEvals();
+        FormComp comp = new FormComp();
+        comp.setId("page_form");
+
+        fs.put("s1", "/form", comp);
+        comp.filtro = "ab";
+        fs.put("s1", "/form", comp);
+
+        assertThat(calls).hasSize(2);
+        // 1) completa: '1' y el blob en 'data'
+        assertThat(calls.get(0).get(1)).isEqualTo("1");
+        assertThat(calls.get(0)).contains("data");
+        // 2) solo el filtro: la tabla no se reescribe
+        assertThat(calls.get(1).get(1)).isEqualTo("0");
+        assertThat(calls.get(1)).contains("s:page_form:filtro").doesNotContain("data", "s:page_form:filas");
+    }
+
+    @Test
+    @DisplayName("Modo por campo: GET debe aplicar los campos guardados sobre la página entera")
+    void testFieldLevelGet() throws Exception {
+        RedisStateStore fs = fieldStore();
+        FormComp stored = new FormComp();
+        stored.setId("page_form");
+        stored.filtro = "viejo";
+
+        Map<byte[], byte[]> hash = new HashMap<>();
+        hash.put("data".getBytes(), serializer.serialize(stored));
+        hash.put("v".getBytes(), "4".getBytes());
+        hash.put("s:page_form:filtro".getBytes(), serializer.serialize("nuevo"));
+        when(jedis.hgetAll(any(byte[].class))).thenReturn(hash);
+
+        FormComp result = (FormComp) fs.get("s1", "/form");
+
+        assertThat(result.filtro).isEqualTo("nuevo");
+        assertThat(result._getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    @DisplayName("Modo por campo: el CAS debe viajar con los campos y subir la versión")
+    void testFieldLevelReplace() throws Exception {
+        RedisStateStore fs = fieldStore();
+        List<List<String>> calls = stubFieldEvals();
+        FormComp comp = new FormComp();
+        comp.setId("page_form");
+
+        assertThat(fs.replace("s1", "/form", comp, 0L)).isTrue();
+        comp.filas.add("c");
+        assertThat(fs.replace("s1", "/form", comp, 1L)).isTrue();
+
+        assertThat(comp._getVersion()).isEqualTo(2L);
+        assertThat(calls.get(1).get(0)).isEqualTo("1"); // versión esperada
+        assertThat(calls.get(1)).contains("s:page_form:filas").doesNotContain("s:page_form:filtro");
+    }
+
+    public record Punto(int x, int y) {}
+    public enum Modo { LISTA, TABLA }
+    public static class Item {
+        public String nombre;
+        public int cantidad;
+        public Item() {}
+        Item(String nombre, int cantidad) { this.nombre = nombre; this.cantidad = cantidad; }
+    }
+
+    static class TypedComp extends HtmlComponent {
+        @State Punto punto = new Punto(0, 0);
+        @State Modo modo = Modo.LISTA;
+        @State List<String> tags = List.of("a");
+        @State List<Item> items = new ArrayList<>();
+        @Override protected String template() { return "mock"; }
+    }
+
+    // Redis "de verdad" en memoria: los eval del modo por campo escriben en el hash que luego lee hgetAll
+    private Map<String, byte[]> stubFieldHash() {
+        Map<String, byte[]> hash = new HashMap<>();
+        when(jedis.eval(any(byte[].class), eq(1), any(byte[][].class))).thenAnswer(inv -> {
+            Object[] all = inv.getArguments();
+            if ("1".equals(new String((byte[]) all[4], StandardCharsets.UTF_8))) hash.clear();
+            for (int i = 6; i + 1 < all.length; i += 2) {
+                hash.put(new String((byte[]) all[i], StandardCharsets.UTF_8), (byte[]) all[i + 1]);
+            }
+            return 1L;
+        });
+        when(jedis.hgetAll(any(byte[].class))).thenAnswer(inv -> {
+            Map<byte[], byte[]> out = new HashMap<>();
+            hash.forEach((k, v) -> out.put(k.getBytes(StandardCharsets.UTF_8), v));
+            return out;
+        });
+        return hash;
+    }
+
+    @Test
+    @DisplayName("Modo por campo con JSON: records, enums y listas vuelven con su tipo declarado")
+    void testFieldLevelTypedJson() throws Exception {
+        RedisStateStore fs = new RedisStateStore("localhost", 9999,
+                new JacksonStateSerializer(new com.fasterxml.jackson.databind.ObjectMapper()), true);
+        Field poolField = RedisStateStore.class.getDeclaredField("redisPool");
+        poolField.setAccessible(true);
+        poolField.set(fs, jedisPool);
+        Map<String, byte[]> hash = stubFieldHash();
+
+        TypedComp comp = new TypedComp();
+        comp.setId("page_typed");
+        fs.put("s1", "/typed", comp);
+
+        comp.punto = new Punto(3, 4);
+        comp.modo = Modo.TABLA;
+        comp.tags = List.of("x", "y");
+        comp.items = new ArrayList<>(List.of(new Item("pan", 2), new Item("sal", 1)));
+        fs.put("s1", "/typed", comp);
+        assertThat(hash).containsKeys("s:page_typed:punto", "s:page_typed:modo", "s:page_typed:tags", "s:page_typed:items");
+
+        TypedComp result = (TypedComp) fs.get("s1", "/typed");
+
+        assertThat(result).isNotNull();
+        assertThat(result.punto).isEqualTo(new Punto(3, 4));
+        assertThat(result.modo).isEqualTo(Modo.TABLA);
+        assertThat(result.tags).containsExactly("x", "y");
+        assertThat(result.items).extracting(i -> i.nombre + "=" + i.cantidad).containsExactly("pan=2", "sal=1");
+    }
+}